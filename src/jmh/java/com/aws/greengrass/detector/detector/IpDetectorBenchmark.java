@@ -0,0 +1,127 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.detector;
+
+import com.aws.greengrass.detector.config.Config;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetAddress;
+import java.net.InterfaceAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detection over synthetic interface enumerations. Every interface is up and has one IPv4 and one global
+ * IPv6 address. The interfaces and addresses are stub-only mocks, so the benchmark runs offline and
+ * Mockito does not record the calls.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IpDetectorBenchmark {
+    @Param({"1", "10", "100", "1000", "5000"})
+    public int interfaceCount;
+
+    private final IpDetector ipDetector = new IpDetector();
+    private Config config;
+    private List<NetworkInterface> interfaces;
+    private List<NetworkInterface> changedInterfaces;
+
+    /**
+     * Build the interfaces, and a copy in which the address of the last interface changed.
+     *
+     * @throws Exception if a stub cannot be set up
+     */
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        config = Mockito.mock(Config.class, Mockito.withSettings().stubOnly());
+        Mockito.doReturn(true).when(config).isIncludeIPv4Addrs();
+        Mockito.doReturn(true).when(config).isIncludeIPv6Addrs();
+        interfaces = new ArrayList<>(interfaceCount);
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaces.add(networkInterface(i, i));
+        }
+        changedInterfaces = new ArrayList<>(interfaces);
+        changedInterfaces.set(interfaceCount - 1, networkInterface(interfaceCount - 1, interfaceCount));
+    }
+
+    /**
+     * Poll with unchanged interfaces, the common case.
+     *
+     * @return detected addresses
+     * @throws SocketException never, the interfaces are mocks
+     */
+    @Benchmark
+    public List<InetAddress> unchanged() throws SocketException {
+        return ipDetector.getIpAddresses(Collections.enumeration(interfaces), config);
+    }
+
+    /**
+     * Alternate between two enumerations, so that every poll detects a change.
+     *
+     * @return detected addresses
+     * @throws SocketException never, the interfaces are mocks
+     */
+    @Benchmark
+    public List<InetAddress> changed() throws SocketException {
+        ipDetector.getIpAddresses(Collections.enumeration(changedInterfaces), config);
+        return ipDetector.getIpAddresses(Collections.enumeration(interfaces), config);
+    }
+
+    private static NetworkInterface networkInterface(int index, int addressSeed) throws Exception {
+        NetworkInterface networkInterface = Mockito.mock(NetworkInterface.class, Mockito.withSettings().stubOnly());
+        Mockito.doReturn(true).when(networkInterface).isUp();
+        Mockito.doReturn("eth" + index).when(networkInterface).getName();
+        Mockito.doReturn(Arrays.asList(interfaceAddress(ipv4(addressSeed)), interfaceAddress(ipv6(addressSeed))))
+                .when(networkInterface).getInterfaceAddresses();
+        return networkInterface;
+    }
+
+    private static InterfaceAddress interfaceAddress(InetAddress address) {
+        InterfaceAddress interfaceAddress = Mockito.mock(InterfaceAddress.class, Mockito.withSettings().stubOnly());
+        Mockito.doReturn(address).when(interfaceAddress).getAddress();
+        return interfaceAddress;
+    }
+
+    private static InetAddress ipv4(int seed) throws UnknownHostException {
+        // 10.0.0.0/8, so the addresses are site local but not loopback or link local
+        return InetAddress.getByAddress(new byte[]{10, (byte) (seed >> 16), (byte) (seed >> 8), (byte) seed});
+    }
+
+    private static InetAddress ipv6(int seed) throws UnknownHostException {
+        // 2001:db8::/32 documentation prefix
+        byte[] bytes = new byte[16];
+        bytes[0] = 0x20;
+        bytes[1] = 0x01;
+        bytes[2] = 0x0d;
+        bytes[3] = (byte) 0xb8;
+        bytes[13] = (byte) (seed >> 16);
+        bytes[14] = (byte) (seed >> 8);
+        bytes[15] = (byte) seed;
+        return InetAddress.getByAddress(bytes);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.uploader;
+
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.detector.AddressRanker;
+import com.aws.greengrass.detector.detector.Endpoint;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.services.greengrassv2data.model.ConnectivityInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Change detection of detected endpoints against the last upload, and building the UpdateConnectivityInfo
+ * entries. No request is sent, so the benchmark runs offline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConnectivityUpdaterBenchmark {
+    private static final int PORT = 8883;
+
+    @Param({"1", "10", "100", "1000"})
+    public int addressCount;
+
+    /**
+     * Whether addresses are ranked, which makes their order part of the uploaded state.
+     */
+    @Param({"false", "true"})
+    public boolean ranked;
+
+    private final ConnectivityUpdater connectivityUpdater = new ConnectivityUpdater(null, null);
+    private Config config;
+    private List<Endpoint> endpoints;
+    private List<Endpoint> changedEndpoints;
+
+    /**
+     * Record mixed IPv4 and IPv6 endpoints as uploaded, and a copy with the last endpoint changed.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        config = Mockito.mock(Config.class, Mockito.withSettings().stubOnly());
+        Mockito.doReturn(ranked ? AddressRanker.compile(Collections.singletonList("eth*"), true, false, false, 0)
+                : AddressRanker.NONE).when(config).getAddressRanker();
+        Mockito.doReturn(PORT).when(config).getDefaultPort();
+        List<String> uploadedIps = new ArrayList<>(addressCount);
+        endpoints = new ArrayList<>(addressCount);
+        for (int i = 0; i < addressCount; i++) {
+            String ip = address(i);
+            uploadedIps.add(ip);
+            endpoints.add(Endpoint.ofHostAddress(ip, PORT, Endpoint.NO_METADATA));
+        }
+        changedEndpoints = new ArrayList<>(endpoints);
+        changedEndpoints.set(addressCount - 1, Endpoint.ofHostAddress(address(addressCount), PORT,
+                Endpoint.NO_METADATA));
+        connectivityUpdater.setIpAddressesAndPort(uploadedIps, PORT);
+    }
+
+    /**
+     * Endpoints identical to the uploaded ones, the common case on every poll.
+     *
+     * @return whether the endpoints changed
+     */
+    @Benchmark
+    public boolean hasChangedUnchanged() {
+        return connectivityUpdater.hasChanged(endpoints, config);
+    }
+
+    /**
+     * Endpoints differing from the uploaded ones in the last entry only.
+     *
+     * @return whether the endpoints changed
+     */
+    @Benchmark
+    public boolean hasChangedLastDiffers() {
+        return connectivityUpdater.hasChanged(changedEndpoints, config);
+    }
+
+    /**
+     * Submit endpoints identical to the uploaded ones, which returns before building any request.
+     *
+     * @return outcome of the upload
+     */
+    @Benchmark
+    public UploadStatus updateEndpointsUnchanged() {
+        return connectivityUpdater.updateEndpoints(endpoints, config);
+    }
+
+    /**
+     * Build the connectivity information sent to the cloud.
+     *
+     * @return connectivity information entries
+     */
+    @Benchmark
+    public List<ConnectivityInfo> buildConnectivityInfo() {
+        return ConnectivityUpdater.toConnectivityInfo(endpoints);
+    }
+
+    private static String address(int i) {
+        return i % 2 == 0
+                ? "10." + (i >> 16 & 0xff) + '.' + (i >> 8 & 0xff) + '.' + (i & 0xff)
+                : "2001:db8::" + Integer.toHexString(i);
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector;
+
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.uploader.UploadStatus;
+import com.aws.greengrass.logging.api.Logger;
+import com.aws.greengrass.logging.impl.LogManager;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Schedules IP detection runs.
+ *
+ * <p>Runs happen every {@code pollingIntervalMs} plus a random jitter of up to {@code pollingJitterMs}, so that
+ * a fleet of cores booting together spreads its calls out. After a change is seen the scheduler polls every
+ * {@code fastPollingIntervalMs} for {@code fastPollingDurationMs}, and while uploads keep failing it backs off
+ * exponentially up to {@code maxBackoffMs}. The jitter defaults to a tenth of the polling interval, capped at
+ * five seconds; the fast polling is off unless configured.
+ */
+@SuppressWarnings("PMD.AvoidCatchingGenericException")
+public class DetectionScheduler {
+    private static final Logger logger = LogManager.getLogger(DetectionScheduler.class);
+    private static final int MAX_BACKOFF_EXPONENT = 20;
+
+    private final ScheduledExecutorService executor;
+    private final Config config;
+    private final Supplier<UploadStatus> task;
+    private final Random random;
+    private final Clock clock;
+
+    private ScheduledFuture<?> nextRun;
+    private Instant nextFireTime;
+    private State state = State.STOPPED;
+    private long generation;
+    private boolean inProgress;
+    private boolean rerunRequested;
+    private int consecutiveFailures;
+    private Instant fastModeUntil = Instant.MIN;
+
+    public enum State {
+        /** Not scheduled. */
+        STOPPED,
+        /** Polling at the configured interval. */
+        NORMAL,
+        /** Polling at the fast interval because a change was seen recently. */
+        FAST,
+        /** Polling less often because uploads keep failing. */
+        BACKOFF
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param executor executor to run detection on
+     * @param config   Configuration
+     * @param task     detection run returning its upload outcome
+     */
+    public DetectionScheduler(ScheduledExecutorService executor, Config config, Supplier<UploadStatus> task) {
+        this(executor, config, task, new Random(), Clock.systemUTC());
+    }
+
+    //Default for JUnit Testing
+    DetectionScheduler(ScheduledExecutorService executor, Config config, Supplier<UploadStatus> task,
+                       Random random, Clock clock) {
+        this.executor = executor;
+        this.config = config;
+        this.task = task;
+        this.random = random;
+        this.clock = clock;
+    }
+
+    /**
+     * Start scheduling. The first run happens after a random jitter.
+     */
+    public synchronized void start() {
+        if (state != State.STOPPED) {
+            return;
+        }
+        state = State.NORMAL;
+        consecutiveFailures = 0;
+        scheduleNext(jitter());
+    }
+
+    /**
+     * Stop scheduling and cancel the pending run.
+     */
+    public synchronized void stop() {
+        state = State.STOPPED;
+        generation++;
+        if (nextRun != null) {
+            nextRun.cancel(true);
+            nextRun = null;
+        }
+        nextFireTime = null;
+    }
+
+    /**
+     * Run detection as soon as possible. Triggers that arrive while a run is already pending or in
+     * progress are coalesced into a single run.
+     */
+    public void triggerNow() {
+        trigger(0);
+    }
+
+    /**
+     * Run detection after at most the given delay. Triggers that arrive while a run is already due
+     * within the delay or in progress are coalesced into a single run, so a burst of triggers spread
+     * over the delay causes one run.
+     *
+     * @param delayMs maximum delay in milliseconds
+     */
+    public synchronized void trigger(long delayMs) {
+        if (state == State.STOPPED) {
+            return;
+        }
+        if (inProgress) {
+            rerunRequested = true;
+            return;
+        }
+        long boundedDelayMs = Math.max(0, delayMs);
+        if (nextFireTime != null && !nextFireTime.isAfter(clock.instant().plusMillis(boundedDelayMs))) {
+            return;
+        }
+        if (nextRun != null) {
+            nextRun.cancel(false);
+        }
+        scheduleNext(boundedDelayMs);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Instant getNextFireTime() {
+        return nextFireTime;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    private void scheduleNext(long delayMs) {
+        long scheduledGeneration = ++generation;
+        nextFireTime = clock.instant().plusMillis(delayMs);
+        nextRun = executor.schedule(() -> run(scheduledGeneration), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void run(long scheduledGeneration) {
+        synchronized (this) {
+            if (scheduledGeneration != generation || state == State.STOPPED) {
+                return;
+            }
+            inProgress = true;
+            nextFireTime = null;
+        }
+        UploadStatus status = UploadStatus.SKIPPED;
+        try {
+            status = task.get();
+        } catch (Exception e) {
+            logger.atError().log("Exception occurred during IP detection", e);
+        } finally {
+            onRunComplete(status);
+        }
+    }
+
+    private synchronized void onRunComplete(UploadStatus status) {
+        inProgress = false;
+        if (state == State.STOPPED) {
+            return;
+        }
+        long delayMs = nextDelay(status);
+        if (rerunRequested) {
+            rerunRequested = false;
+            delayMs = 0;
+        }
+        logger.atDebug().kv("state", state).kv("delayMs", delayMs).log("Scheduling next IP detection");
+        scheduleNext(delayMs);
+    }
+
+    private long nextDelay(UploadStatus status) {
+        Instant now = clock.instant();
+        long pollingIntervalMs = Math.max(1, config.getPollingIntervalMs());
+        if (status == UploadStatus.FAILED) {
+            consecutiveFailures++;
+            state = State.BACKOFF;
+            int exponent = Math.min(consecutiveFailures, MAX_BACKOFF_EXPONENT);
+            long maxBackoffMs = config.getMaxBackoffMs();
+            // Compare before shifting, a long polling interval would otherwise overflow
+            long backoffMs = pollingIntervalMs > maxBackoffMs >> exponent ? maxBackoffMs
+                    : pollingIntervalMs << exponent;
+            return Math.max(pollingIntervalMs, backoffMs) + jitter();
+        }
+        consecutiveFailures = 0;
+        boolean changeSeen = status == UploadStatus.UPLOADED || status == UploadStatus.DEFERRED;
+        if (changeSeen && config.getFastPollingDurationMs() > 0) {
+            fastModeUntil = now.plusMillis(config.getFastPollingDurationMs());
+        }
+        if (now.isBefore(fastModeUntil)) {
+            state = State.FAST;
+            return Math.min(pollingIntervalMs, Math.max(1, config.getFastPollingIntervalMs()));
+        }
+        state = State.NORMAL;
+        return pollingIntervalMs + jitter();
+    }
+
+    private long jitter() {
+        long jitterMs = config.getPollingJitterMs();
+        if (jitterMs <= 0) {
+            return 0;
+        }
+        return (long) (random.nextDouble() * jitterMs);
+    }
+}
@@ -6,60 +6,128 @@
 package com.aws.greengrass.detector;
 
 import com.aws.greengrass.detector.config.Config;
-import com.aws.greengrass.detector.detector.IpDetector;
+import com.aws.greengrass.detector.connectivity.ConnectivityCache;
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.detector.metrics.DetectorMetrics;
+import com.aws.greengrass.detector.source.EndpointPipeline;
+import com.aws.greengrass.detector.uploader.ConnectivityReconciler;
 import com.aws.greengrass.detector.uploader.ConnectivityUpdater;
+import com.aws.greengrass.detector.uploader.UploadCoalescer;
+import com.aws.greengrass.detector.uploader.UploadStateStore;
+import com.aws.greengrass.detector.uploader.UploadStatus;
 import com.aws.greengrass.logging.api.Logger;
 import com.aws.greengrass.logging.impl.LogManager;
 
-import java.net.InetAddress;
-import java.net.SocketException;
+import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 import javax.inject.Inject;
 
 @SuppressWarnings("PMD.AvoidCatchingGenericException")
 public class IpDetectorManager {
     private final ConnectivityUpdater connectivityUpdater;
-    private final IpDetector ipDetector;
+    private final EndpointPipeline endpointPipeline;
+    private final UploadCoalescer uploadCoalescer;
+    private final DetectorMetrics metrics;
+    private final ConnectivityReconciler reconciler;
+    private final ConnectivityCache connectivityCache;
+    private List<Endpoint> lastEndpoints = Collections.emptyList();
     private final Logger logger = LogManager.getLogger(IpDetectorManager.class);
 
     /**
      * Constructor.
      *
      * @param connectivityUpdater client to update connectivity information
-     * @param ipDetector utility to detect IP addresses
+     * @param endpointPipeline merged endpoints of the local interfaces and the configured sources
+     * @param uploadCoalescer stage holding back uploads until addresses settle
+     * @param metrics metrics recording the detection runs
+     * @param reconciler comparison of the connectivity information in the cloud with the last upload
+     * @param connectivityCache cache sharing the detected endpoints with other components
      */
     @Inject
-    public IpDetectorManager(ConnectivityUpdater connectivityUpdater, IpDetector ipDetector) {
-        this.ipDetector = ipDetector;
+    public IpDetectorManager(ConnectivityUpdater connectivityUpdater, EndpointPipeline endpointPipeline,
+                             UploadCoalescer uploadCoalescer, DetectorMetrics metrics,
+                             ConnectivityReconciler reconciler, ConnectivityCache connectivityCache) {
+        this.endpointPipeline = endpointPipeline;
         this.connectivityUpdater = connectivityUpdater;
+        this.uploadCoalescer = uploadCoalescer;
+        this.metrics = metrics;
+        this.reconciler = reconciler;
+        this.connectivityCache = connectivityCache;
     }
 
-    void updateIps(Config config) {
-        List<InetAddress> ipAddresses = null;
+    //Default for JUnit Testing
+    IpDetectorManager(ConnectivityUpdater connectivityUpdater, EndpointPipeline endpointPipeline,
+                      UploadCoalescer uploadCoalescer) {
+        this(connectivityUpdater, endpointPipeline, uploadCoalescer, DetectorMetrics.none(),
+                new ConnectivityReconciler(connectivityUpdater, uploadCoalescer), new ConnectivityCache());
+    }
+
+    synchronized UploadStatus updateIps(Config config) {
+        List<Endpoint> endpoints = null;
         try {
-            ipAddresses = ipDetector.getAllIpAddresses(config);
-            logger.atDebug().kv("IpAddresses", ipAddresses)
+            endpoints = endpointPipeline.getEndpoints(config);
+            logger.atDebug().kv("endpoints", endpoints)
                     .log("Acquired host IP addresses");
-            if (ipAddresses.isEmpty()) {
-                return;
+            metrics.recordTick(endpoints.size(), !endpoints.equals(lastEndpoints));
+            lastEndpoints = endpoints;
+            connectivityCache.updateDetected(endpoints);
+            if (endpoints.isEmpty()) {
+                return UploadStatus.SKIPPED;
             }
-        } catch (SocketException e) {
-            logger.atError().log("Encountered a socket exception while listing IP addresses", e);
-            return;
+        } catch (IOException e) {
+            logger.atError().log("Encountered an I/O exception while listing IP addresses", e);
+            return UploadStatus.SKIPPED;
         }
-        connectivityUpdater.updateIpAddresses(ipAddresses, config);
+        return uploadCoalescer.submit(endpoints, config);
     }
 
     /**
      * Start getting the ip addresses of the device and see if there are any changes.
      *
      * @param config Configuration
+     * @return outcome of the detection run
      */
-    public void startIpDetection(Config config) {
+    public UploadStatus startIpDetection(Config config) {
         try {
-            updateIps(config);
+            // Read the configuration once, an update during the run must not mix old and new values
+            Config snapshot = config.snapshot();
+            UploadStatus status = updateIps(snapshot);
+            reconciler.reconcileIfDue(snapshot, status);
+            return status;
         } catch (Exception e) {
             logger.atError().log("Exception occurred when updating IP addresses", e);
+            return UploadStatus.SKIPPED;
+        }
+    }
+
+    /**
+     * Restore the last uploaded state so unchanged addresses are not uploaded again after a restart.
+     *
+     * @param stateStore store for the last uploaded state
+     */
+    public void restoreUploadState(UploadStateStore stateStore) {
+        try {
+            connectivityUpdater.restoreState(stateStore);
+        } catch (Exception e) {
+            logger.atWarn().log("Unable to restore the last uploaded IP addresses", e);
         }
     }
+
+    /**
+     * Run the listener whenever a slow endpoint source, such as the endpoints URL, changes its endpoints.
+     *
+     * @param listener listener, typically triggering a detection run
+     */
+    public void setEndpointSourceChangeListener(Runnable listener) {
+        endpointPipeline.setChangeListener(listener);
+    }
+
+    /**
+     * Drop any address change that is waiting to be uploaded or retried, and stop refreshing endpoint sources.
+     */
+    public void cancelPendingUploads() {
+        endpointPipeline.cancel();
+        uploadCoalescer.cancel();
+    }
 }
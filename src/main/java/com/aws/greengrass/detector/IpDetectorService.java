@@ -8,20 +8,28 @@ package com.aws.greengrass.detector;
 import com.aws.greengrass.config.Topics;
 import com.aws.greengrass.dependency.ImplementsService;
 import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.connectivity.ConnectivityPublisher;
+import com.aws.greengrass.detector.detector.AddressChangeMonitor;
+import com.aws.greengrass.detector.executor.DetectorExecutors;
+import com.aws.greengrass.detector.mdns.MdnsAdvertiser;
+import com.aws.greengrass.detector.uploader.UploadStateStore;
 import com.aws.greengrass.lifecyclemanager.PluginService;
 
-import java.util.concurrent.Future;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
 
 
 @ImplementsService(name = IpDetectorService.IP_DETECTOR_SERVICE_NAME)
 public class IpDetectorService extends PluginService {
     public static final String IP_DETECTOR_SERVICE_NAME = "aws.greengrass.clientdevices.IPDetector";
+    // A deployment updates the configuration in several callbacks, detect once after they settled
+    static final long CONFIG_CHANGE_DELAY_MS = 500L;
+    static final long SHUTDOWN_TIMEOUT_MS = 5_000L;
     private final IpDetectorManager ipDetectorManager;
-    private final ScheduledExecutorService scheduledExecutorService;
-    private Future<?> future;
+    private final DetectorExecutors executors;
+    private final ConnectivityPublisher connectivityPublisher;
+    private final MdnsAdvertiser mdnsAdvertiser;
+    private final DetectionScheduler detectionScheduler;
+    private AddressChangeMonitor addressChangeMonitor;
     private final Config ipDetectorConfig;
 
     /**
@@ -29,16 +37,22 @@ public class IpDetectorService extends PluginService {
      *
      * @param topics  Root Configuration topic for this service
      * @param ipDetectorManager Ip detector
-     * @param scheduledExecutorService schedule task for ip detection
+     * @param executors threads of the IP detector, detection runs on the scheduler
+     * @param connectivityPublisher publisher of the detected and uploaded endpoints to local consumers
+     * @param mdnsAdvertiser advertiser of the detected endpoints on the local network
      *
      */
     @Inject
-    public IpDetectorService(Topics topics, IpDetectorManager ipDetectorManager,
-                             ScheduledExecutorService scheduledExecutorService) {
+    public IpDetectorService(Topics topics, IpDetectorManager ipDetectorManager, DetectorExecutors executors,
+                             ConnectivityPublisher connectivityPublisher, MdnsAdvertiser mdnsAdvertiser) {
         super(topics);
         this.ipDetectorManager = ipDetectorManager;
-        this.scheduledExecutorService = scheduledExecutorService;
+        this.executors = executors;
+        this.connectivityPublisher = connectivityPublisher;
+        this.mdnsAdvertiser = mdnsAdvertiser;
         this.ipDetectorConfig = new Config(this.config);
+        this.detectionScheduler = new DetectionScheduler(executors.getScheduler(), ipDetectorConfig,
+                () -> this.ipDetectorManager.startIpDetection(this.ipDetectorConfig));
     }
 
     /**
@@ -49,9 +63,22 @@ public class IpDetectorService extends PluginService {
     @Override
     public void startup() throws InterruptedException {
         logger.atInfo().log("Start IP detection task");
-        this.future = scheduledExecutorService.scheduleAtFixedRate(() -> {
-            ipDetectorManager.startIpDetection(this.ipDetectorConfig);
-        }, 0, 60, TimeUnit.SECONDS);
+        ipDetectorManager.restoreUploadState(new UploadStateStore(getRuntimeConfig()));
+        connectivityPublisher.start(ipDetectorConfig);
+        ipDetectorManager.setEndpointSourceChangeListener(detectionScheduler::triggerNow);
+        if (ipDetectorConfig.isAdvertiseMdns()) {
+            mdnsAdvertiser.start(ipDetectorConfig);
+        }
+        ipDetectorConfig.setChangeListener(() -> {
+            // The advertised records depend on the configuration as well as on the detected endpoints
+            mdnsAdvertiser.refresh();
+            detectionScheduler.trigger(CONFIG_CHANGE_DELAY_MS);
+        });
+        detectionScheduler.start();
+        if (ipDetectorConfig.isMonitorAddressChanges() && AddressChangeMonitor.isSupported()) {
+            addressChangeMonitor = new AddressChangeMonitor(detectionScheduler::triggerNow);
+            addressChangeMonitor.start();
+        }
         super.startup();
     }
 
@@ -63,9 +90,16 @@ public class IpDetectorService extends PluginService {
     @Override
     public void shutdown() throws InterruptedException {
         logger.atInfo().log("Stop IP detection task");
-        if (future != null) {
-            future.cancel(true);
+        if (addressChangeMonitor != null) {
+            addressChangeMonitor.stop();
+            addressChangeMonitor = null;
         }
+        ipDetectorConfig.setChangeListener(null);
+        detectionScheduler.stop();
+        ipDetectorManager.cancelPendingUploads();
+        executors.cancelAll(SHUTDOWN_TIMEOUT_MS);
+        connectivityPublisher.stop();
+        mdnsAdvertiser.stop();
         super.shutdown();
     }
 }
@@ -6,14 +6,28 @@
 package com.aws.greengrass.detector.config;
 
 import com.aws.greengrass.componentmanager.KernelConfigResolver;
+import com.aws.greengrass.config.Topic;
 import com.aws.greengrass.config.Topics;
+import com.aws.greengrass.detector.detector.AddressRanker;
+import com.aws.greengrass.detector.detector.CidrFilter;
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.detector.detector.EndpointMapper;
+import com.aws.greengrass.detector.detector.InterfaceFilter;
+import com.aws.greengrass.detector.source.EndpointParser;
 import com.aws.greengrass.logging.api.Logger;
 import com.aws.greengrass.logging.impl.LogManager;
 import com.aws.greengrass.util.Coerce;
 
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Collections;
+import java.util.List;
 
+/**
+ * Configuration of the IP detector.
+ *
+ * <p>Every configuration update builds a complete, immutable set of values and publishes it through a
+ * single volatile reference. Use {@link #snapshot()} to read several values of the same version, for
+ * example for the duration of a detection run.
+ */
 @SuppressWarnings("PMD.DataClass")
 public class Config {
     private final Logger logger = LogManager.getLogger(Config.class);
@@ -24,28 +38,93 @@ public class Config {
     static final String INCLUDE_IPV6_LINK_LOCAL_ADDRESSES_CONFIG_KEY = "includeIPv6LinkLocalAddrs";
     static final String INCLUDE_IPV4_ADDRESSES_CONFIG_KEY = "includeIPv4Addrs";
     static final String INCLUDE_IPV6_ADDRESSES_CONFIG_KEY = "includeIPv6Addrs";
+    static final String INCLUDE_IPV6_TEMPORARY_ADDRESSES_CONFIG_KEY = "includeIPv6TemporaryAddrs";
     static final String DEFAULT_PORT_CONFIG_KEY = "defaultPort";
+    static final String MONITOR_ADDRESS_CHANGES_CONFIG_KEY = "monitorAddressChanges";
+    static final String POLLING_INTERVAL_MS_CONFIG_KEY = "pollingIntervalMs";
+    static final String POLLING_JITTER_MS_CONFIG_KEY = "pollingJitterMs";
+    static final String FAST_POLLING_INTERVAL_MS_CONFIG_KEY = "fastPollingIntervalMs";
+    static final String FAST_POLLING_DURATION_MS_CONFIG_KEY = "fastPollingDurationMs";
+    static final String MAX_BACKOFF_MS_CONFIG_KEY = "maxBackoffMs";
+    static final String DEBOUNCE_QUIET_PERIOD_MS_CONFIG_KEY = "debounceQuietPeriodMs";
+    static final String DEBOUNCE_MAX_DELAY_MS_CONFIG_KEY = "debounceMaxDelayMs";
+    static final String ASYNC_UPLOAD_CONFIG_KEY = "asyncUpload";
+    static final String UPLOAD_TIMEOUT_MS_CONFIG_KEY = "uploadTimeoutMs";
+    static final String INCLUDE_INTERFACES_CONFIG_KEY = "includeInterfaces";
+    static final String EXCLUDE_INTERFACES_CONFIG_KEY = "excludeInterfaces";
+    static final String EXCLUDE_VIRTUAL_INTERFACES_CONFIG_KEY = "excludeVirtualInterfaces";
+    static final String EXCLUDE_POINT_TO_POINT_INTERFACES_CONFIG_KEY = "excludePointToPointInterfaces";
+    static final String INCLUDE_CIDRS_CONFIG_KEY = "includeCidrs";
+    static final String EXCLUDE_CIDRS_CONFIG_KEY = "excludeCidrs";
+    static final String INTERFACE_PRIORITY_CONFIG_KEY = "interfacePriority";
+    static final String PREFER_GLOBAL_ADDRESSES_CONFIG_KEY = "preferGlobalAddrs";
+    static final String PREFER_WIRED_INTERFACES_CONFIG_KEY = "preferWiredInterfaces";
+    static final String PROBE_REACHABILITY_CONFIG_KEY = "probeReachability";
+    static final String PROBE_TIMEOUT_MS_CONFIG_KEY = "probeTimeoutMs";
+    static final String ENDPOINT_RULES_CONFIG_KEY = "endpointRules";
+    static final String STATIC_ENDPOINTS_CONFIG_KEY = "staticEndpoints";
+    static final String ENDPOINTS_FILE_CONFIG_KEY = "endpointsFile";
+    static final String ENDPOINTS_FILE_TTL_MS_CONFIG_KEY = "endpointsFileTtlMs";
+    static final String ENDPOINTS_URL_CONFIG_KEY = "endpointsUrl";
+    static final String ENDPOINTS_URL_TTL_MS_CONFIG_KEY = "endpointsUrlTtlMs";
+    static final String ENDPOINT_SOURCE_TIMEOUT_MS_CONFIG_KEY = "endpointSourceTimeoutMs";
+    static final String UPLOAD_BURST_CONFIG_KEY = "uploadBurst";
+    static final String UPLOAD_REFILL_INTERVAL_MS_CONFIG_KEY = "uploadRefillIntervalMs";
+    static final String UPLOAD_RETRY_MAX_ATTEMPTS_CONFIG_KEY = "uploadRetryMaxAttempts";
+    static final String UPLOAD_RETRY_BASE_DELAY_MS_CONFIG_KEY = "uploadRetryBaseDelayMs";
+    static final String UPLOAD_RETRY_MAX_DELAY_MS_CONFIG_KEY = "uploadRetryMaxDelayMs";
+    static final String RECONCILE_INTERVAL_MS_CONFIG_KEY = "reconcileIntervalMs";
+    static final String CONNECTIVITY_FILE_CONFIG_KEY = "connectivityFile";
+    static final String CONNECTIVITY_TOPIC_CONFIG_KEY = "connectivityTopic";
+    static final String ADVERTISE_MDNS_CONFIG_KEY = "advertiseMdns";
+    static final String MDNS_SERVICE_TYPE_CONFIG_KEY = "mdnsServiceType";
+    static final String MDNS_INSTANCE_NAME_CONFIG_KEY = "mdnsInstanceName";
+    static final String MDNS_MIN_ANNOUNCE_INTERVAL_MS_CONFIG_KEY = "mdnsMinAnnounceIntervalMs";
     static final boolean DEFAULT_INCLUDE_IPV4_LOOPBACK_ADDRESSES = false;
     static final boolean DEFAULT_INCLUDE_IPV6_LOOPBACK_ADDRESSES = false;
     static final boolean DEFAULT_INCLUDE_IPV4_LINK_LOCAL_ADDRESSES = false;
     static final boolean DEFAULT_INCLUDE_IPV6_LINK_LOCAL_ADDRESSES = false;
     static final boolean DEFAULT_INCLUDE_IPV4_ADDRESSES = true;
     static final boolean DEFAULT_INCLUDE_IPV6_ADDRESSES = false;
+    static final boolean DEFAULT_INCLUDE_IPV6_TEMPORARY_ADDRESSES = false;
     static final int DEFAULT_PORT = 8883;
+    static final boolean DEFAULT_MONITOR_ADDRESS_CHANGES = false;
+    static final long DEFAULT_POLLING_INTERVAL_MS = 60_000L;
+    static final long DEFAULT_POLLING_JITTER_DIVISOR = 10L;
+    static final long MAX_DEFAULT_POLLING_JITTER_MS = 5_000L;
+    static final long DEFAULT_FAST_POLLING_INTERVAL_MS = 5_000L;
+    static final long DEFAULT_FAST_POLLING_DURATION_MS = 0L;
+    static final long DEFAULT_MAX_BACKOFF_MS = 900_000L;
+    static final long DEFAULT_DEBOUNCE_QUIET_PERIOD_MS = 0L;
+    static final long DEFAULT_DEBOUNCE_MAX_DELAY_MS = 30_000L;
+    static final boolean DEFAULT_ASYNC_UPLOAD = false;
+    static final long DEFAULT_UPLOAD_TIMEOUT_MS = 30_000L;
+    static final boolean DEFAULT_EXCLUDE_VIRTUAL_INTERFACES = false;
+    static final boolean DEFAULT_EXCLUDE_POINT_TO_POINT_INTERFACES = false;
+    static final boolean DEFAULT_PREFER_GLOBAL_ADDRESSES = false;
+    static final boolean DEFAULT_PREFER_WIRED_INTERFACES = false;
+    static final boolean DEFAULT_PROBE_REACHABILITY = false;
+    static final int DEFAULT_PROBE_TIMEOUT_MS = 200;
+    static final String DEFAULT_ENDPOINTS_FILE = "";
+    static final long DEFAULT_ENDPOINTS_FILE_TTL_MS = 10_000L;
+    static final String DEFAULT_ENDPOINTS_URL = "";
+    static final long DEFAULT_ENDPOINTS_URL_TTL_MS = 300_000L;
+    static final long DEFAULT_ENDPOINT_SOURCE_TIMEOUT_MS = 5_000L;
+    static final int DEFAULT_UPLOAD_BURST = 5;
+    static final long DEFAULT_UPLOAD_REFILL_INTERVAL_MS = 12_000L;
+    static final int DEFAULT_UPLOAD_RETRY_MAX_ATTEMPTS = 5;
+    static final long DEFAULT_UPLOAD_RETRY_BASE_DELAY_MS = 1_000L;
+    static final long DEFAULT_UPLOAD_RETRY_MAX_DELAY_MS = 30_000L;
+    static final long DEFAULT_RECONCILE_INTERVAL_MS = 0L;
+    static final String DEFAULT_CONNECTIVITY_FILE = "";
+    static final String DEFAULT_CONNECTIVITY_TOPIC = "greengrass/ipdetector/connectivity";
+    static final boolean DEFAULT_ADVERTISE_MDNS = false;
+    static final String DEFAULT_MDNS_SERVICE_TYPE = "_secure-mqtt._tcp";
+    static final String DEFAULT_MDNS_INSTANCE_NAME = "";
+    static final long DEFAULT_MDNS_MIN_ANNOUNCE_INTERVAL_MS = 1_000L;
 
-    private final AtomicInteger defaultPort = new AtomicInteger(DEFAULT_PORT);
-    private final AtomicBoolean includeIPv4LoopbackAddrs
-            = new AtomicBoolean(DEFAULT_INCLUDE_IPV4_LOOPBACK_ADDRESSES);
-    private final AtomicBoolean includeIPv6LoopbackAddrs
-            = new AtomicBoolean(DEFAULT_INCLUDE_IPV6_LOOPBACK_ADDRESSES);
-    private final AtomicBoolean includeIPv4LinkLocalAddrs
-            = new AtomicBoolean(DEFAULT_INCLUDE_IPV4_LINK_LOCAL_ADDRESSES);
-    private final AtomicBoolean includeIPv6LinkLocalAddrs
-            = new AtomicBoolean(DEFAULT_INCLUDE_IPV6_LINK_LOCAL_ADDRESSES);
-    private final AtomicBoolean includeIPv4Addrs
-            = new AtomicBoolean(DEFAULT_INCLUDE_IPV4_ADDRESSES);
-    private final AtomicBoolean includeIPv6Addrs
-            = new AtomicBoolean(DEFAULT_INCLUDE_IPV6_ADDRESSES);
+    private volatile Values values = new Values(0L);
+    private volatile Runnable changeListener;
 
     /**
      * Config constructor.
@@ -54,62 +133,99 @@ public class Config {
      */
     public Config(Topics topics) {
         Topics configurationTopics = topics.lookupTopics(KernelConfigResolver.CONFIGURATION_CONFIG_KEY);
-        configurationTopics.subscribe((whatHappened, node) -> {
-            if (configurationTopics.isEmpty()) {
-                this.includeIPv4LoopbackAddrs.set(DEFAULT_INCLUDE_IPV4_LOOPBACK_ADDRESSES);
-                this.includeIPv6LoopbackAddrs.set(DEFAULT_INCLUDE_IPV6_LOOPBACK_ADDRESSES);
-                this.includeIPv4LinkLocalAddrs.set(DEFAULT_INCLUDE_IPV4_LINK_LOCAL_ADDRESSES);
-                this.includeIPv6LinkLocalAddrs.set(DEFAULT_INCLUDE_IPV6_LINK_LOCAL_ADDRESSES);
-                this.includeIPv4Addrs.set(DEFAULT_INCLUDE_IPV4_ADDRESSES);
-                this.includeIPv6Addrs.set(DEFAULT_INCLUDE_IPV6_ADDRESSES);
-                this.defaultPort.set(DEFAULT_PORT);
-                return;
-            }
-
-            this.includeIPv4LoopbackAddrs.set(
-                    Coerce.toBoolean(
-                            configurationTopics.findOrDefault(
-                                    DEFAULT_INCLUDE_IPV4_LOOPBACK_ADDRESSES,
-                                    INCLUDE_IPV4_LOOPBACK_ADDRESSES_CONFIG_KEY)));
-            this.includeIPv6LoopbackAddrs.set(
-                    Coerce.toBoolean(
-                            configurationTopics.findOrDefault(
-                                    DEFAULT_INCLUDE_IPV6_LOOPBACK_ADDRESSES,
-                                    INCLUDE_IPV6_LOOPBACK_ADDRESSES_CONFIG_KEY)));
-            this.includeIPv4LinkLocalAddrs.set(
-                    Coerce.toBoolean(
-                            configurationTopics.findOrDefault(
-                                    DEFAULT_INCLUDE_IPV4_LINK_LOCAL_ADDRESSES,
-                                    INCLUDE_IPV4_LINK_LOCAL_ADDRESSES_CONFIG_KEY)));
-            this.includeIPv6LinkLocalAddrs.set(
-                    Coerce.toBoolean(
-                            configurationTopics.findOrDefault(
-                                    DEFAULT_INCLUDE_IPV6_LINK_LOCAL_ADDRESSES,
-                                    INCLUDE_IPV6_LINK_LOCAL_ADDRESSES_CONFIG_KEY)));
-            this.includeIPv4Addrs.set(
-                    Coerce.toBoolean(
-                            configurationTopics.findOrDefault(
-                                    DEFAULT_INCLUDE_IPV4_ADDRESSES,
-                                    INCLUDE_IPV4_ADDRESSES_CONFIG_KEY)));
-            this.includeIPv6Addrs.set(
-                    Coerce.toBoolean(
-                            configurationTopics.findOrDefault(
-                                    DEFAULT_INCLUDE_IPV6_ADDRESSES,
-                                    INCLUDE_IPV6_ADDRESSES_CONFIG_KEY)));
-            this.defaultPort.set(
-                    Coerce.toInt(
-                            configurationTopics.findOrDefault(DEFAULT_PORT,
-                                    DEFAULT_PORT_CONFIG_KEY)));
-
-            logger.atInfo().kv("includeIPv4LoopbackAddrs", includeIPv4LoopbackAddrs.get())
-                    .kv("includeIPv4LinkLocalAddrs", includeIPv4LinkLocalAddrs.get())
-                    .kv("includeIPv6LoopbackAddrs", includeIPv6LoopbackAddrs.get())
-                    .kv("includeIPv6LinkLocalAddrs", includeIPv6LinkLocalAddrs.get())
-                    .kv("includeIPv4Addrs", includeIPv4Addrs.get())
-                    .kv("includeIPv6Addrs", includeIPv6Addrs.get())
-                    .kv("defaultPort", defaultPort.get())
-                    .log("Configuration updated");
-        });
+        configurationTopics.subscribe((whatHappened, node) -> update(configurationTopics));
+    }
+
+    private Config(Values values) {
+        this.values = values;
+    }
+
+    /**
+     * Immutable view of the current configuration. Its getters keep returning the values of one
+     * configuration version, however often the configuration changes meanwhile.
+     *
+     * @return Config snapshot
+     */
+    public Config snapshot() {
+        return new Config(values);
+    }
+
+    /**
+     * Version of the configuration, incremented on every configuration update.
+     * @return long version
+     */
+    public long getVersion() {
+        return values.version;
+    }
+
+    /**
+     * Run the listener after every configuration update.
+     *
+     * @param listener listener, typically triggering a detection run
+     */
+    public void setChangeListener(Runnable listener) {
+        this.changeListener = listener;
+    }
+
+    private void update(Topics configurationTopics) {
+        publish(configurationTopics);
+        Runnable listener = changeListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    private synchronized void publish(Topics configurationTopics) {
+        long version = values.version + 1;
+        if (configurationTopics.isEmpty()) {
+            this.values = new Values(version);
+            return;
+        }
+        Values next = new Values(configurationTopics, version);
+        // One write publishes all the values together, readers never see a mix of two versions
+        this.values = next;
+        logger.atInfo().kv("version", next.version)
+                .kv("includeIPv4LoopbackAddrs", next.includeIPv4LoopbackAddrs)
+                .kv("includeIPv4LinkLocalAddrs", next.includeIPv4LinkLocalAddrs)
+                .kv("includeIPv6LoopbackAddrs", next.includeIPv6LoopbackAddrs)
+                .kv("includeIPv6LinkLocalAddrs", next.includeIPv6LinkLocalAddrs)
+                .kv("includeIPv4Addrs", next.includeIPv4Addrs)
+                .kv("includeIPv6Addrs", next.includeIPv6Addrs)
+                .kv("includeIPv6TemporaryAddrs", next.includeIPv6TemporaryAddrs)
+                .kv("defaultPort", next.defaultPort)
+                .kv("monitorAddressChanges", next.monitorAddressChanges)
+                .kv("pollingIntervalMs", next.pollingIntervalMs)
+                .kv("pollingJitterMs", next.pollingJitterMs)
+                .kv("fastPollingIntervalMs", next.fastPollingIntervalMs)
+                .kv("fastPollingDurationMs", next.fastPollingDurationMs)
+                .kv("maxBackoffMs", next.maxBackoffMs)
+                .kv("debounceQuietPeriodMs", next.debounceQuietPeriodMs)
+                .kv("debounceMaxDelayMs", next.debounceMaxDelayMs)
+                .kv("asyncUpload", next.asyncUpload)
+                .kv("uploadTimeoutMs", next.uploadTimeoutMs)
+                .kv("interfaceFilter", next.interfaceFilter)
+                .kv("cidrFilter", next.cidrFilter)
+                .kv("addressRanker", next.addressRanker)
+                .kv("endpointRules", next.endpointMapper)
+                .kv("staticEndpoints", next.staticEndpoints)
+                .kv("endpointsFile", next.endpointsFile)
+                .kv("endpointsFileTtlMs", next.endpointsFileTtlMs)
+                .kv("endpointsUrl", next.endpointsUrl)
+                .kv("endpointsUrlTtlMs", next.endpointsUrlTtlMs)
+                .kv("endpointSourceTimeoutMs", next.endpointSourceTimeoutMs)
+                .kv("uploadBurst", next.uploadBurst)
+                .kv("uploadRefillIntervalMs", next.uploadRefillIntervalMs)
+                .kv("uploadRetryMaxAttempts", next.uploadRetryMaxAttempts)
+                .kv("uploadRetryBaseDelayMs", next.uploadRetryBaseDelayMs)
+                .kv("uploadRetryMaxDelayMs", next.uploadRetryMaxDelayMs)
+                .kv("reconcileIntervalMs", next.reconcileIntervalMs)
+                .kv("connectivityFile", next.connectivityFile)
+                .kv("connectivityTopic", next.connectivityTopic)
+                .kv("advertiseMdns", next.advertiseMdns)
+                .kv("mdnsServiceType", next.mdnsServiceType)
+                .kv("mdnsInstanceName", next.mdnsInstanceName)
+                .kv("mdnsMinAnnounceIntervalMs", next.mdnsMinAnnounceIntervalMs)
+                .log("Configuration updated");
     }
 
     /**
@@ -117,7 +233,7 @@ public class Config {
      * @return boolean includeIPv4LoopbackAddrs
      */
     public boolean isIncludeIPv4LoopbackAddrs() {
-        return this.includeIPv4LoopbackAddrs.get();
+        return values.includeIPv4LoopbackAddrs;
     }
 
     /**
@@ -125,7 +241,7 @@ public class Config {
      * @return boolean includeIPv4LinkLocalAddrs
      */
     public boolean isIncludeIPv4LinkLocalAddrs() {
-        return this.includeIPv4LinkLocalAddrs.get();
+        return values.includeIPv4LinkLocalAddrs;
     }
 
     /**
@@ -133,7 +249,7 @@ public class Config {
      * @return boolean includeIPv6LoopbackAddrs
      */
     public boolean isIncludeIPv6LoopbackAddrs() {
-        return this.includeIPv6LoopbackAddrs.get();
+        return values.includeIPv6LoopbackAddrs;
     }
 
     /**
@@ -141,7 +257,7 @@ public class Config {
      * @return boolean includeIPv6LinkLocalAddrs
      */
     public boolean isIncludeIPv6LinkLocalAddrs() {
-        return this.includeIPv6LinkLocalAddrs.get();
+        return values.includeIPv6LinkLocalAddrs;
     }
 
     /**
@@ -149,7 +265,7 @@ public class Config {
      * @return boolean includeIPv4Addrs
      */
     public boolean isIncludeIPv4Addrs() {
-        return this.includeIPv4Addrs.get();
+        return values.includeIPv4Addrs;
     }
 
     /**
@@ -157,7 +273,15 @@ public class Config {
      * @return boolean includeIPv6Addrs
      */
     public boolean isIncludeIPv6Addrs() {
-        return this.includeIPv6Addrs.get();
+        return values.includeIPv6Addrs;
+    }
+
+    /**
+     * includeIPv6TemporaryAddrs getter.
+     * @return boolean includeIPv6TemporaryAddrs
+     */
+    public boolean isIncludeIPv6TemporaryAddrs() {
+        return values.includeIPv6TemporaryAddrs;
     }
 
     /**
@@ -165,8 +289,459 @@ public class Config {
      * @return integer defaultPort
      */
     public int getDefaultPort() {
-        return this.defaultPort.get();
+        return values.defaultPort;
+    }
+
+    /**
+     * monitorAddressChanges getter.
+     * @return boolean monitorAddressChanges
+     */
+    public boolean isMonitorAddressChanges() {
+        return values.monitorAddressChanges;
+    }
+
+    /**
+     * pollingIntervalMs getter.
+     * @return long pollingIntervalMs
+     */
+    public long getPollingIntervalMs() {
+        return values.pollingIntervalMs;
+    }
+
+    /**
+     * pollingJitterMs getter.
+     * @return long pollingJitterMs
+     */
+    public long getPollingJitterMs() {
+        return values.pollingJitterMs;
     }
-}
 
+    /**
+     * fastPollingIntervalMs getter.
+     * @return long fastPollingIntervalMs
+     */
+    public long getFastPollingIntervalMs() {
+        return values.fastPollingIntervalMs;
+    }
+
+    /**
+     * fastPollingDurationMs getter.
+     * @return long fastPollingDurationMs
+     */
+    public long getFastPollingDurationMs() {
+        return values.fastPollingDurationMs;
+    }
+
+    /**
+     * maxBackoffMs getter.
+     * @return long maxBackoffMs
+     */
+    public long getMaxBackoffMs() {
+        return values.maxBackoffMs;
+    }
+
+    /**
+     * debounceQuietPeriodMs getter.
+     * @return long debounceQuietPeriodMs
+     */
+    public long getDebounceQuietPeriodMs() {
+        return values.debounceQuietPeriodMs;
+    }
+
+    /**
+     * debounceMaxDelayMs getter.
+     * @return long debounceMaxDelayMs
+     */
+    public long getDebounceMaxDelayMs() {
+        return values.debounceMaxDelayMs;
+    }
+
+    /**
+     * asyncUpload getter.
+     * @return boolean asyncUpload
+     */
+    public boolean isAsyncUpload() {
+        return values.asyncUpload;
+    }
+
+    /**
+     * uploadTimeoutMs getter.
+     * @return long uploadTimeoutMs
+     */
+    public long getUploadTimeoutMs() {
+        return values.uploadTimeoutMs;
+    }
+
+    /**
+     * interfaceFilter getter.
+     * @return InterfaceFilter compiled from the interface include and exclude configuration
+     */
+    public InterfaceFilter getInterfaceFilter() {
+        return values.interfaceFilter;
+    }
+
+    /**
+     * cidrFilter getter.
+     * @return CidrFilter compiled from the CIDR include and exclude configuration
+     */
+    public CidrFilter getCidrFilter() {
+        return values.cidrFilter;
+    }
+
+    /**
+     * addressRanker getter.
+     * @return AddressRanker compiled from the address ordering configuration
+     */
+    public AddressRanker getAddressRanker() {
+        return values.addressRanker;
+    }
+
+    /**
+     * endpointMapper getter.
+     * @return EndpointMapper compiled from the endpoint rules configuration
+     */
+    public EndpointMapper getEndpointMapper() {
+        return values.endpointMapper;
+    }
 
+    /**
+     * staticEndpoints getter.
+     * @return List of endpoints parsed from the static endpoints configuration
+     */
+    public List<Endpoint> getStaticEndpoints() {
+        return values.staticEndpoints;
+    }
+
+    /**
+     * endpointsFile getter.
+     * @return String endpointsFile
+     */
+    public String getEndpointsFile() {
+        return values.endpointsFile;
+    }
+
+    /**
+     * endpointsFileTtlMs getter.
+     * @return long endpointsFileTtlMs
+     */
+    public long getEndpointsFileTtlMs() {
+        return values.endpointsFileTtlMs;
+    }
+
+    /**
+     * endpointsUrl getter.
+     * @return String endpointsUrl
+     */
+    public String getEndpointsUrl() {
+        return values.endpointsUrl;
+    }
+
+    /**
+     * endpointsUrlTtlMs getter.
+     * @return long endpointsUrlTtlMs
+     */
+    public long getEndpointsUrlTtlMs() {
+        return values.endpointsUrlTtlMs;
+    }
+
+    /**
+     * endpointSourceTimeoutMs getter.
+     * @return long endpointSourceTimeoutMs
+     */
+    public long getEndpointSourceTimeoutMs() {
+        return values.endpointSourceTimeoutMs;
+    }
+
+    /**
+     * uploadBurst getter.
+     * @return int uploadBurst
+     */
+    public int getUploadBurst() {
+        return values.uploadBurst;
+    }
+
+    /**
+     * uploadRefillIntervalMs getter.
+     * @return long uploadRefillIntervalMs
+     */
+    public long getUploadRefillIntervalMs() {
+        return values.uploadRefillIntervalMs;
+    }
+
+    /**
+     * uploadRetryMaxAttempts getter.
+     * @return int uploadRetryMaxAttempts
+     */
+    public int getUploadRetryMaxAttempts() {
+        return values.uploadRetryMaxAttempts;
+    }
+
+    /**
+     * uploadRetryBaseDelayMs getter.
+     * @return long uploadRetryBaseDelayMs
+     */
+    public long getUploadRetryBaseDelayMs() {
+        return values.uploadRetryBaseDelayMs;
+    }
+
+    /**
+     * uploadRetryMaxDelayMs getter.
+     * @return long uploadRetryMaxDelayMs
+     */
+    public long getUploadRetryMaxDelayMs() {
+        return values.uploadRetryMaxDelayMs;
+    }
+
+    /**
+     * reconcileIntervalMs getter.
+     * @return long reconcileIntervalMs, 0 if reconciliation with the cloud is disabled
+     */
+    public long getReconcileIntervalMs() {
+        return values.reconcileIntervalMs;
+    }
+
+    /**
+     * connectivityFile getter.
+     * @return String connectivityFile, empty if the connectivity information is not written to a file
+     */
+    public String getConnectivityFile() {
+        return values.connectivityFile;
+    }
+
+    /**
+     * connectivityTopic getter.
+     * @return String connectivityTopic, empty if the connectivity information is not published locally
+     */
+    public String getConnectivityTopic() {
+        return values.connectivityTopic;
+    }
+
+    /**
+     * advertiseMdns getter, read when the service starts.
+     * @return boolean advertiseMdns
+     */
+    public boolean isAdvertiseMdns() {
+        return values.advertiseMdns;
+    }
+
+    /**
+     * mdnsServiceType getter.
+     * @return String mdnsServiceType, the DNS-SD service type the endpoints are advertised as
+     */
+    public String getMdnsServiceType() {
+        return values.mdnsServiceType;
+    }
+
+    /**
+     * mdnsInstanceName getter.
+     * @return String mdnsInstanceName, empty to advertise the endpoints under the thing name
+     */
+    public String getMdnsInstanceName() {
+        return values.mdnsInstanceName;
+    }
+
+    /**
+     * mdnsMinAnnounceIntervalMs getter.
+     * @return long mdnsMinAnnounceIntervalMs
+     */
+    public long getMdnsMinAnnounceIntervalMs() {
+        return values.mdnsMinAnnounceIntervalMs;
+    }
+
+    /**
+     * Jitter used when pollingJitterMs is not configured: a tenth of the polling interval, capped at a few seconds.
+     * @param pollingIntervalMs configured polling interval
+     * @return long default pollingJitterMs
+     */
+    static long defaultPollingJitterMs(long pollingIntervalMs) {
+        return Math.max(0L, Math.min(pollingIntervalMs / DEFAULT_POLLING_JITTER_DIVISOR,
+                MAX_DEFAULT_POLLING_JITTER_MS));
+    }
+
+    @SuppressWarnings("PMD.TooManyFields")
+    private static final class Values {
+        private final long version;
+        private final int defaultPort;
+        private final boolean includeIPv4LoopbackAddrs;
+        private final boolean includeIPv6LoopbackAddrs;
+        private final boolean includeIPv4LinkLocalAddrs;
+        private final boolean includeIPv6LinkLocalAddrs;
+        private final boolean includeIPv4Addrs;
+        private final boolean includeIPv6Addrs;
+        private final boolean includeIPv6TemporaryAddrs;
+        private final boolean monitorAddressChanges;
+        private final long pollingIntervalMs;
+        private final long pollingJitterMs;
+        private final long fastPollingIntervalMs;
+        private final long fastPollingDurationMs;
+        private final long maxBackoffMs;
+        private final long debounceQuietPeriodMs;
+        private final long debounceMaxDelayMs;
+        private final boolean asyncUpload;
+        private final long uploadTimeoutMs;
+        private final InterfaceFilter interfaceFilter;
+        private final CidrFilter cidrFilter;
+        private final AddressRanker addressRanker;
+        private final EndpointMapper endpointMapper;
+        private final List<Endpoint> staticEndpoints;
+        private final String endpointsFile;
+        private final long endpointsFileTtlMs;
+        private final String endpointsUrl;
+        private final long endpointsUrlTtlMs;
+        private final long endpointSourceTimeoutMs;
+        private final int uploadBurst;
+        private final long uploadRefillIntervalMs;
+        private final int uploadRetryMaxAttempts;
+        private final long uploadRetryBaseDelayMs;
+        private final long uploadRetryMaxDelayMs;
+        private final long reconcileIntervalMs;
+        private final String connectivityFile;
+        private final String connectivityTopic;
+        private final boolean advertiseMdns;
+        private final String mdnsServiceType;
+        private final String mdnsInstanceName;
+        private final long mdnsMinAnnounceIntervalMs;
+
+        Values(long version) {
+            this.version = version;
+            this.includeIPv4LoopbackAddrs = DEFAULT_INCLUDE_IPV4_LOOPBACK_ADDRESSES;
+            this.includeIPv6LoopbackAddrs = DEFAULT_INCLUDE_IPV6_LOOPBACK_ADDRESSES;
+            this.includeIPv4LinkLocalAddrs = DEFAULT_INCLUDE_IPV4_LINK_LOCAL_ADDRESSES;
+            this.includeIPv6LinkLocalAddrs = DEFAULT_INCLUDE_IPV6_LINK_LOCAL_ADDRESSES;
+            this.includeIPv4Addrs = DEFAULT_INCLUDE_IPV4_ADDRESSES;
+            this.includeIPv6Addrs = DEFAULT_INCLUDE_IPV6_ADDRESSES;
+            this.includeIPv6TemporaryAddrs = DEFAULT_INCLUDE_IPV6_TEMPORARY_ADDRESSES;
+            this.defaultPort = DEFAULT_PORT;
+            this.monitorAddressChanges = DEFAULT_MONITOR_ADDRESS_CHANGES;
+            this.pollingIntervalMs = DEFAULT_POLLING_INTERVAL_MS;
+            this.pollingJitterMs = defaultPollingJitterMs(DEFAULT_POLLING_INTERVAL_MS);
+            this.fastPollingIntervalMs = DEFAULT_FAST_POLLING_INTERVAL_MS;
+            this.fastPollingDurationMs = DEFAULT_FAST_POLLING_DURATION_MS;
+            this.maxBackoffMs = DEFAULT_MAX_BACKOFF_MS;
+            this.debounceQuietPeriodMs = DEFAULT_DEBOUNCE_QUIET_PERIOD_MS;
+            this.debounceMaxDelayMs = DEFAULT_DEBOUNCE_MAX_DELAY_MS;
+            this.asyncUpload = DEFAULT_ASYNC_UPLOAD;
+            this.uploadTimeoutMs = DEFAULT_UPLOAD_TIMEOUT_MS;
+            this.interfaceFilter = InterfaceFilter.ACCEPT_ALL;
+            this.cidrFilter = CidrFilter.ACCEPT_ALL;
+            this.addressRanker = AddressRanker.NONE;
+            this.endpointMapper = EndpointMapper.NONE;
+            this.staticEndpoints = Collections.emptyList();
+            this.endpointsFile = DEFAULT_ENDPOINTS_FILE;
+            this.endpointsFileTtlMs = DEFAULT_ENDPOINTS_FILE_TTL_MS;
+            this.endpointsUrl = DEFAULT_ENDPOINTS_URL;
+            this.endpointsUrlTtlMs = DEFAULT_ENDPOINTS_URL_TTL_MS;
+            this.endpointSourceTimeoutMs = DEFAULT_ENDPOINT_SOURCE_TIMEOUT_MS;
+            this.uploadBurst = DEFAULT_UPLOAD_BURST;
+            this.uploadRefillIntervalMs = DEFAULT_UPLOAD_REFILL_INTERVAL_MS;
+            this.uploadRetryMaxAttempts = DEFAULT_UPLOAD_RETRY_MAX_ATTEMPTS;
+            this.uploadRetryBaseDelayMs = DEFAULT_UPLOAD_RETRY_BASE_DELAY_MS;
+            this.uploadRetryMaxDelayMs = DEFAULT_UPLOAD_RETRY_MAX_DELAY_MS;
+            this.reconcileIntervalMs = DEFAULT_RECONCILE_INTERVAL_MS;
+            this.connectivityFile = DEFAULT_CONNECTIVITY_FILE;
+            this.connectivityTopic = DEFAULT_CONNECTIVITY_TOPIC;
+            this.advertiseMdns = DEFAULT_ADVERTISE_MDNS;
+            this.mdnsServiceType = DEFAULT_MDNS_SERVICE_TYPE;
+            this.mdnsInstanceName = DEFAULT_MDNS_INSTANCE_NAME;
+            this.mdnsMinAnnounceIntervalMs = DEFAULT_MDNS_MIN_ANNOUNCE_INTERVAL_MS;
+        }
+
+        Values(Topics configurationTopics, long version) {
+            this.version = version;
+            this.includeIPv4LoopbackAddrs = Coerce.toBoolean(configurationTopics.findOrDefault(
+                    DEFAULT_INCLUDE_IPV4_LOOPBACK_ADDRESSES, INCLUDE_IPV4_LOOPBACK_ADDRESSES_CONFIG_KEY));
+            this.includeIPv6LoopbackAddrs = Coerce.toBoolean(configurationTopics.findOrDefault(
+                    DEFAULT_INCLUDE_IPV6_LOOPBACK_ADDRESSES, INCLUDE_IPV6_LOOPBACK_ADDRESSES_CONFIG_KEY));
+            this.includeIPv4LinkLocalAddrs = Coerce.toBoolean(configurationTopics.findOrDefault(
+                    DEFAULT_INCLUDE_IPV4_LINK_LOCAL_ADDRESSES, INCLUDE_IPV4_LINK_LOCAL_ADDRESSES_CONFIG_KEY));
+            this.includeIPv6LinkLocalAddrs = Coerce.toBoolean(configurationTopics.findOrDefault(
+                    DEFAULT_INCLUDE_IPV6_LINK_LOCAL_ADDRESSES, INCLUDE_IPV6_LINK_LOCAL_ADDRESSES_CONFIG_KEY));
+            this.includeIPv4Addrs = Coerce.toBoolean(configurationTopics.findOrDefault(
+                    DEFAULT_INCLUDE_IPV4_ADDRESSES, INCLUDE_IPV4_ADDRESSES_CONFIG_KEY));
+            this.includeIPv6Addrs = Coerce.toBoolean(configurationTopics.findOrDefault(
+                    DEFAULT_INCLUDE_IPV6_ADDRESSES, INCLUDE_IPV6_ADDRESSES_CONFIG_KEY));
+            this.includeIPv6TemporaryAddrs = Coerce.toBoolean(configurationTopics.findOrDefault(
+                    DEFAULT_INCLUDE_IPV6_TEMPORARY_ADDRESSES, INCLUDE_IPV6_TEMPORARY_ADDRESSES_CONFIG_KEY));
+            this.defaultPort = Coerce.toInt(configurationTopics.findOrDefault(DEFAULT_PORT, DEFAULT_PORT_CONFIG_KEY));
+            this.monitorAddressChanges = Coerce.toBoolean(configurationTopics.findOrDefault(
+                    DEFAULT_MONITOR_ADDRESS_CHANGES, MONITOR_ADDRESS_CHANGES_CONFIG_KEY));
+            this.pollingIntervalMs = Coerce.toLong(configurationTopics.findOrDefault(
+                    DEFAULT_POLLING_INTERVAL_MS, POLLING_INTERVAL_MS_CONFIG_KEY));
+            this.pollingJitterMs = Coerce.toLong(configurationTopics.findOrDefault(
+                    defaultPollingJitterMs(pollingIntervalMs), POLLING_JITTER_MS_CONFIG_KEY));
+            this.fastPollingIntervalMs = Coerce.toLong(configurationTopics.findOrDefault(
+                    DEFAULT_FAST_POLLING_INTERVAL_MS, FAST_POLLING_INTERVAL_MS_CONFIG_KEY));
+            this.fastPollingDurationMs = Coerce.toLong(configurationTopics.findOrDefault(
+                    DEFAULT_FAST_POLLING_DURATION_MS, FAST_POLLING_DURATION_MS_CONFIG_KEY));
+            this.maxBackoffMs = Coerce.toLong(configurationTopics.findOrDefault(
+                    DEFAULT_MAX_BACKOFF_MS, MAX_BACKOFF_MS_CONFIG_KEY));
+            this.debounceQuietPeriodMs = Coerce.toLong(configurationTopics.findOrDefault(
+                    DEFAULT_DEBOUNCE_QUIET_PERIOD_MS, DEBOUNCE_QUIET_PERIOD_MS_CONFIG_KEY));
+            this.debounceMaxDelayMs = Coerce.toLong(configurationTopics.findOrDefault(
+                    DEFAULT_DEBOUNCE_MAX_DELAY_MS, DEBOUNCE_MAX_DELAY_MS_CONFIG_KEY));
+            this.asyncUpload = Coerce.toBoolean(configurationTopics.findOrDefault(
+                    DEFAULT_ASYNC_UPLOAD, ASYNC_UPLOAD_CONFIG_KEY));
+            this.uploadTimeoutMs = Coerce.toLong(configurationTopics.findOrDefault(
+                    DEFAULT_UPLOAD_TIMEOUT_MS, UPLOAD_TIMEOUT_MS_CONFIG_KEY));
+            this.interfaceFilter = InterfaceFilter.compile(
+                    Coerce.toStringList(configurationTopics.find(INCLUDE_INTERFACES_CONFIG_KEY)),
+                    Coerce.toStringList(configurationTopics.find(EXCLUDE_INTERFACES_CONFIG_KEY)),
+                    Coerce.toBoolean(configurationTopics.findOrDefault(DEFAULT_EXCLUDE_VIRTUAL_INTERFACES,
+                            EXCLUDE_VIRTUAL_INTERFACES_CONFIG_KEY)),
+                    Coerce.toBoolean(configurationTopics.findOrDefault(DEFAULT_EXCLUDE_POINT_TO_POINT_INTERFACES,
+                            EXCLUDE_POINT_TO_POINT_INTERFACES_CONFIG_KEY)));
+            this.cidrFilter = CidrFilter.compile(
+                    Coerce.toStringList(configurationTopics.find(INCLUDE_CIDRS_CONFIG_KEY)),
+                    Coerce.toStringList(configurationTopics.find(EXCLUDE_CIDRS_CONFIG_KEY)));
+            this.addressRanker = AddressRanker.compile(
+                    Coerce.toStringList(configurationTopics.find(INTERFACE_PRIORITY_CONFIG_KEY)),
+                    Coerce.toBoolean(configurationTopics.findOrDefault(DEFAULT_PREFER_GLOBAL_ADDRESSES,
+                            PREFER_GLOBAL_ADDRESSES_CONFIG_KEY)),
+                    Coerce.toBoolean(configurationTopics.findOrDefault(DEFAULT_PREFER_WIRED_INTERFACES,
+                            PREFER_WIRED_INTERFACES_CONFIG_KEY)),
+                    Coerce.toBoolean(configurationTopics.findOrDefault(DEFAULT_PROBE_REACHABILITY,
+                            PROBE_REACHABILITY_CONFIG_KEY)),
+                    Coerce.toInt(configurationTopics.findOrDefault(DEFAULT_PROBE_TIMEOUT_MS,
+                            PROBE_TIMEOUT_MS_CONFIG_KEY)));
+            Topic endpointRules = configurationTopics.find(ENDPOINT_RULES_CONFIG_KEY);
+            this.endpointMapper = EndpointMapper.compile(endpointRules == null ? null : endpointRules.getOnce());
+            this.staticEndpoints = Collections.unmodifiableList(EndpointParser.parseAll(
+                    Coerce.toStringList(configurationTopics.find(STATIC_ENDPOINTS_CONFIG_KEY)),
+                    defaultPort, STATIC_ENDPOINTS_CONFIG_KEY));
+            this.endpointsFile = Coerce.toString(configurationTopics.findOrDefault(
+                    DEFAULT_ENDPOINTS_FILE, ENDPOINTS_FILE_CONFIG_KEY));
+            this.endpointsFileTtlMs = Coerce.toLong(configurationTopics.findOrDefault(
+                    DEFAULT_ENDPOINTS_FILE_TTL_MS, ENDPOINTS_FILE_TTL_MS_CONFIG_KEY));
+            this.endpointsUrl = Coerce.toString(configurationTopics.findOrDefault(
+                    DEFAULT_ENDPOINTS_URL, ENDPOINTS_URL_CONFIG_KEY));
+            this.endpointsUrlTtlMs = Coerce.toLong(configurationTopics.findOrDefault(
+                    DEFAULT_ENDPOINTS_URL_TTL_MS, ENDPOINTS_URL_TTL_MS_CONFIG_KEY));
+            this.endpointSourceTimeoutMs = Coerce.toLong(configurationTopics.findOrDefault(
+                    DEFAULT_ENDPOINT_SOURCE_TIMEOUT_MS, ENDPOINT_SOURCE_TIMEOUT_MS_CONFIG_KEY));
+            this.uploadBurst = Coerce.toInt(configurationTopics.findOrDefault(
+                    DEFAULT_UPLOAD_BURST, UPLOAD_BURST_CONFIG_KEY));
+            this.uploadRefillIntervalMs = Coerce.toLong(configurationTopics.findOrDefault(
+                    DEFAULT_UPLOAD_REFILL_INTERVAL_MS, UPLOAD_REFILL_INTERVAL_MS_CONFIG_KEY));
+            this.uploadRetryMaxAttempts = Coerce.toInt(configurationTopics.findOrDefault(
+                    DEFAULT_UPLOAD_RETRY_MAX_ATTEMPTS, UPLOAD_RETRY_MAX_ATTEMPTS_CONFIG_KEY));
+            this.uploadRetryBaseDelayMs = Coerce.toLong(configurationTopics.findOrDefault(
+                    DEFAULT_UPLOAD_RETRY_BASE_DELAY_MS, UPLOAD_RETRY_BASE_DELAY_MS_CONFIG_KEY));
+            this.uploadRetryMaxDelayMs = Coerce.toLong(configurationTopics.findOrDefault(
+                    DEFAULT_UPLOAD_RETRY_MAX_DELAY_MS, UPLOAD_RETRY_MAX_DELAY_MS_CONFIG_KEY));
+            this.reconcileIntervalMs = Coerce.toLong(configurationTopics.findOrDefault(
+                    DEFAULT_RECONCILE_INTERVAL_MS, RECONCILE_INTERVAL_MS_CONFIG_KEY));
+            this.connectivityFile = Coerce.toString(configurationTopics.findOrDefault(
+                    DEFAULT_CONNECTIVITY_FILE, CONNECTIVITY_FILE_CONFIG_KEY));
+            this.connectivityTopic = Coerce.toString(configurationTopics.findOrDefault(
+                    DEFAULT_CONNECTIVITY_TOPIC, CONNECTIVITY_TOPIC_CONFIG_KEY));
+            this.advertiseMdns = Coerce.toBoolean(configurationTopics.findOrDefault(
+                    DEFAULT_ADVERTISE_MDNS, ADVERTISE_MDNS_CONFIG_KEY));
+            this.mdnsServiceType = Coerce.toString(configurationTopics.findOrDefault(
+                    DEFAULT_MDNS_SERVICE_TYPE, MDNS_SERVICE_TYPE_CONFIG_KEY));
+            this.mdnsInstanceName = Coerce.toString(configurationTopics.findOrDefault(
+                    DEFAULT_MDNS_INSTANCE_NAME, MDNS_INSTANCE_NAME_CONFIG_KEY));
+            this.mdnsMinAnnounceIntervalMs = Coerce.toLong(configurationTopics.findOrDefault(
+                    DEFAULT_MDNS_MIN_ANNOUNCE_INTERVAL_MS, MDNS_MIN_ANNOUNCE_INTERVAL_MS_CONFIG_KEY));
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.connectivity;
+
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.logging.api.Logger;
+import com.aws.greengrass.logging.impl.LogManager;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.inject.Inject;
+
+/**
+ * Latest detected and uploaded endpoints, shared with other code running in the nucleus.
+ *
+ * <p>Reads are a single volatile read of an immutable {@link ConnectivitySnapshot}. Writers replace the
+ * snapshot only when the endpoints actually changed. Listeners are notified on a thread of their own, in
+ * snapshot order, so that writing files or publishing never runs under the locks of the writers. A listener
+ * falling behind skips to the latest snapshot.
+ */
+@SuppressWarnings("PMD.AvoidCatchingGenericException")
+public class ConnectivityCache {
+    private static final Logger logger = LogManager.getLogger(ConnectivityCache.class);
+    private static final long KEEP_ALIVE_SECONDS = 30L;
+
+    private final Clock clock;
+    private final Executor notifier;
+    private final List<Consumer<ConnectivitySnapshot>> listeners = new CopyOnWriteArrayList<>();
+    private volatile ConnectivitySnapshot snapshot = ConnectivitySnapshot.EMPTY;
+
+    @Inject
+    public ConnectivityCache() {
+        this(Clock.systemUTC(), notifierThread());
+    }
+
+    //Default for JUnit Testing
+    ConnectivityCache(Clock clock, Executor notifier) {
+        this.clock = clock;
+        this.notifier = notifier;
+    }
+
+    /**
+     * Current snapshot.
+     *
+     * @return snapshot, with version 0 before anything was detected
+     */
+    public ConnectivitySnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Record the endpoints found by a detection run.
+     *
+     * @param endpoints detected endpoints
+     */
+    public void updateDetected(List<Endpoint> endpoints) {
+        ConnectivitySnapshot next;
+        synchronized (this) {
+            if (endpoints.equals(snapshot.getDetected())) {
+                return;
+            }
+            next = snapshot.withDetected(new ArrayList<>(endpoints), clock.instant());
+            snapshot = next;
+        }
+        notifyListeners(next);
+    }
+
+    /**
+     * Record the endpoints the cloud accepted.
+     *
+     * @param endpoints uploaded endpoints
+     * @param version   version returned by the cloud
+     */
+    public void updateUploaded(List<Endpoint> endpoints, String version) {
+        ConnectivitySnapshot next;
+        synchronized (this) {
+            if (endpoints.equals(snapshot.getUploaded()) && Objects.equals(version, snapshot.getUploadedVersion())) {
+                return;
+            }
+            next = snapshot.withUploaded(new ArrayList<>(endpoints), version, clock.instant());
+            snapshot = next;
+        }
+        notifyListeners(next);
+    }
+
+    /**
+     * Get notified of every new snapshot.
+     *
+     * @param listener listener, called on the notification thread of the cache
+     */
+    public void addListener(Consumer<ConnectivitySnapshot> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<ConnectivitySnapshot> listener) {
+        listeners.remove(listener);
+    }
+
+    private void notifyListeners(ConnectivitySnapshot next) {
+        notifier.execute(() -> {
+            // Superseded, the listeners get the newer snapshot next
+            if (next == snapshot) {
+                notifyListenersNow(next);
+            }
+        });
+    }
+
+    private void notifyListenersNow(ConnectivitySnapshot next) {
+        for (Consumer<ConnectivitySnapshot> listener : listeners) {
+            try {
+                listener.accept(next);
+            } catch (RuntimeException e) {
+                logger.atWarn().kv("version", next.getVersion()).log("Connectivity listener failed", e);
+            }
+        }
+    }
+
+    private static Executor notifierThread() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "ip-detector-connectivity-listeners");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.connectivity;
+
+import com.aws.greengrass.builtin.services.pubsub.PubSubIPCEventStreamAgent;
+import com.aws.greengrass.detector.IpDetectorService;
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.logging.api.Logger;
+import com.aws.greengrass.logging.impl.LogManager;
+import com.aws.greengrass.util.Utils;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.function.Consumer;
+import javax.inject.Inject;
+
+/**
+ * Makes every {@link ConnectivitySnapshot} available outside of the nucleus process: published on the local
+ * {@code connectivityTopic} and written to {@code connectivityFile}.
+ *
+ * <p>The file is written next to its destination and then moved over it, so readers see either the previous
+ * or the new content, never a partial one. Snapshots reaching the publisher out of order are dropped.
+ */
+@SuppressWarnings("PMD.AvoidCatchingGenericException")
+public class ConnectivityPublisher {
+    private static final Logger logger = LogManager.getLogger(ConnectivityPublisher.class);
+    static final String TEMP_SUFFIX = ".tmp";
+
+    private final ConnectivityCache cache;
+    private final PubSubIPCEventStreamAgent pubSubAgent;
+    private final Object publishLock = new Object();
+    private final Consumer<ConnectivitySnapshot> listener = this::publish;
+    private volatile Config config;
+    private long publishedVersion = -1L;
+
+    /**
+     * Constructor.
+     *
+     * @param cache       cache holding the snapshots
+     * @param pubSubAgent local publish/subscribe of the nucleus
+     */
+    @Inject
+    public ConnectivityPublisher(ConnectivityCache cache, PubSubIPCEventStreamAgent pubSubAgent) {
+        this.cache = cache;
+        this.pubSubAgent = pubSubAgent;
+    }
+
+    /**
+     * Publish the current snapshot and every later one.
+     *
+     * @param config Configuration
+     */
+    public void start(Config config) {
+        synchronized (publishLock) {
+            // Publish the current snapshot again, subscribers may have missed it while stopped
+            publishedVersion = -1L;
+        }
+        this.config = config;
+        cache.addListener(listener);
+        publish(cache.getSnapshot());
+    }
+
+    /**
+     * Stop publishing. The file is left in place with the last snapshot.
+     */
+    public void stop() {
+        cache.removeListener(listener);
+        config = null;
+    }
+
+    //Default for JUnit Testing
+    void publish(ConnectivitySnapshot snapshot) {
+        Config current = config;
+        if (current == null || snapshot.getVersion() == 0L) {
+            return;
+        }
+        synchronized (publishLock) {
+            if (snapshot.getVersion() <= publishedVersion) {
+                return;
+            }
+            publishedVersion = snapshot.getVersion();
+            byte[] json = snapshot.toJson();
+            String file = current.getConnectivityFile();
+            if (Utils.isNotEmpty(file)) {
+                writeFile(Paths.get(file), json, snapshot.getVersion());
+            }
+            String topic = current.getConnectivityTopic();
+            if (Utils.isNotEmpty(topic)) {
+                try {
+                    pubSubAgent.publish(topic, json, IpDetectorService.IP_DETECTOR_SERVICE_NAME);
+                } catch (RuntimeException e) {
+                    logger.atWarn().kv("topic", topic).log("Unable to publish the connectivity information", e);
+                }
+            }
+        }
+    }
+
+    private void writeFile(Path path, byte[] json, long version) {
+        Path temp = path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.write(temp, json);
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            logger.atDebug().kv("file", path).kv("version", version).log("Wrote connectivity information");
+        } catch (IOException e) {
+            logger.atWarn().kv("file", path).log("Unable to write the connectivity information", e);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.connectivity;
+
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.util.SerializerFactory;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable view of the latest detected endpoints and of the endpoints last uploaded to the cloud.
+ *
+ * <p>Every change produces a new snapshot with a higher version. The version is at least the time of the
+ * change in milliseconds since the epoch, so that it keeps increasing across restarts of the component as long
+ * as the clock does not go back. The JSON form is serialized with the nucleus object mapper once per snapshot,
+ * however many consumers it is written to.
+ */
+public final class ConnectivitySnapshot {
+    static final ConnectivitySnapshot EMPTY = new ConnectivitySnapshot(0L, Instant.EPOCH,
+            Collections.emptyList(), Collections.emptyList(), null);
+
+    private final long version;
+    private final Instant updatedAt;
+    private final List<Endpoint> detected;
+    private final List<Endpoint> uploaded;
+    private final String uploadedVersion;
+    private volatile byte[] json;
+
+    ConnectivitySnapshot(long version, Instant updatedAt, List<Endpoint> detected, List<Endpoint> uploaded,
+                         String uploadedVersion) {
+        this.version = version;
+        this.updatedAt = updatedAt;
+        this.detected = Collections.unmodifiableList(detected);
+        this.uploaded = Collections.unmodifiableList(uploaded);
+        this.uploadedVersion = uploadedVersion;
+    }
+
+    /**
+     * Version of the snapshot. It increases on every change, and is at least the time of the change in
+     * milliseconds since the epoch, so that a consumer can tell a snapshot of a restarted component is newer.
+     *
+     * @return version, 0 before anything was detected
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * Endpoints found by the latest detection run.
+     *
+     * @return detected endpoints
+     */
+    public List<Endpoint> getDetected() {
+        return detected;
+    }
+
+    /**
+     * Endpoints the cloud accepted last.
+     *
+     * @return uploaded endpoints, empty before the first upload
+     */
+    public List<Endpoint> getUploaded() {
+        return uploaded;
+    }
+
+    /**
+     * Version the cloud returned for the last upload.
+     *
+     * @return version, null before the first upload
+     */
+    public String getUploadedVersion() {
+        return uploadedVersion;
+    }
+
+    ConnectivitySnapshot withDetected(List<Endpoint> endpoints, Instant now) {
+        return new ConnectivitySnapshot(nextVersion(now), now, endpoints, uploaded, uploadedVersion);
+    }
+
+    ConnectivitySnapshot withUploaded(List<Endpoint> endpoints, String endpointsVersion, Instant now) {
+        return new ConnectivitySnapshot(nextVersion(now), now, detected, endpoints, endpointsVersion);
+    }
+
+    private long nextVersion(Instant now) {
+        return Math.max(version + 1, now.toEpochMilli());
+    }
+
+    /**
+     * JSON form, as written to the connectivity file and published on the local topic.
+     *
+     * @return UTF-8 encoded JSON
+     */
+    public byte[] toJson() {
+        byte[] rendered = json;
+        if (rendered == null) {
+            try {
+                rendered = SerializerFactory.getFailSafeJsonObjectMapper().writeValueAsBytes(new Document(this));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+            json = rendered;
+        }
+        return rendered.clone();
+    }
+
+    @Override
+    public String toString() {
+        return new String(toJson(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Serialized form of a snapshot. The property order and the null uploaded version are part of the format
+     * consumers read.
+     */
+    @JsonInclude(JsonInclude.Include.ALWAYS)
+    @JsonPropertyOrder({"version", "updatedAt", "detected", "uploaded", "uploadedVersion"})
+    private static final class Document {
+        @JsonProperty("version")
+        private final long version;
+        @JsonProperty("updatedAt")
+        private final String updatedAt;
+        @JsonProperty("detected")
+        private final List<EndpointDocument> detected;
+        @JsonProperty("uploaded")
+        private final List<EndpointDocument> uploaded;
+        @JsonProperty("uploadedVersion")
+        private final String uploadedVersion;
+
+        Document(ConnectivitySnapshot snapshot) {
+            this.version = snapshot.version;
+            this.updatedAt = snapshot.updatedAt.toString();
+            this.detected = EndpointDocument.of(snapshot.detected);
+            this.uploaded = EndpointDocument.of(snapshot.uploaded);
+            this.uploadedVersion = snapshot.uploadedVersion;
+        }
+    }
+
+    @JsonInclude(JsonInclude.Include.ALWAYS)
+    @JsonPropertyOrder({"hostAddress", "port", "metadata"})
+    private static final class EndpointDocument {
+        @JsonProperty("hostAddress")
+        private final String hostAddress;
+        @JsonProperty("port")
+        private final int port;
+        @JsonProperty("metadata")
+        private final String metadata;
+
+        EndpointDocument(Endpoint endpoint) {
+            this.hostAddress = endpoint.getHostAddress();
+            this.port = endpoint.getPort();
+            this.metadata = endpoint.getMetadata();
+        }
+
+        static List<EndpointDocument> of(List<Endpoint> endpoints) {
+            List<EndpointDocument> documents = new ArrayList<>(endpoints.size());
+            for (Endpoint endpoint : endpoints) {
+                documents.add(new EndpointDocument(endpoint));
+            }
+            return documents;
+        }
+    }
+}
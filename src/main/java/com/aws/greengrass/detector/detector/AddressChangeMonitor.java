@@ -0,0 +1,155 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.detector;
+
+import com.aws.greengrass.logging.api.Logger;
+import com.aws.greengrass.logging.impl.LogManager;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listens for kernel address change notifications and invokes a callback for each one.
+ *
+ * <p>On Linux the notifications are read from {@code ip -o monitor address}, which relays the
+ * RTMGRP_IPV4_IFADDR and RTMGRP_IPV6_IFADDR netlink groups one event per line. The scheduled poll
+ * remains the safety net on hosts where the monitor cannot be started.
+ */
+@SuppressWarnings("PMD.AvoidCatchingGenericException")
+public class AddressChangeMonitor {
+    private static final Logger logger = LogManager.getLogger(AddressChangeMonitor.class);
+    static final String[] MONITOR_COMMAND = {"ip", "-o", "monitor", "address"};
+    static final long RESTART_DELAY_MS = TimeUnit.SECONDS.toMillis(5);
+
+    private final EventSource eventSource;
+    private final Runnable onChange;
+    private volatile boolean running;
+    private volatile Process process;
+    private Thread readerThread;
+
+    /**
+     * Source of newline-delimited address change events.
+     */
+    @FunctionalInterface
+    interface EventSource {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param onChange callback invoked for every address change event
+     */
+    public AddressChangeMonitor(Runnable onChange) {
+        this.onChange = onChange;
+        this.eventSource = this::startMonitorProcess;
+    }
+
+    //Default for JUnit Testing
+    AddressChangeMonitor(EventSource eventSource, Runnable onChange) {
+        this.eventSource = eventSource;
+        this.onChange = onChange;
+    }
+
+    /**
+     * Whether kernel address notifications can be used on this platform.
+     *
+     * @return true on Linux
+     */
+    public static boolean isSupported() {
+        return System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("linux");
+    }
+
+    /**
+     * Start listening for address changes on a background thread.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        readerThread = new Thread(this::run, "ip-detector-address-monitor");
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    /**
+     * Stop listening for address changes.
+     */
+    public synchronized void stop() {
+        running = false;
+        Process p = process;
+        if (p != null) {
+            p.destroy();
+        }
+        if (readerThread != null) {
+            readerThread.interrupt();
+            readerThread = null;
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        while (running) {
+            try (InputStream inputStream = eventSource.open();
+                 BufferedReader reader = new BufferedReader(
+                         new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+                logger.atInfo().log("Listening for network address changes");
+                String line;
+                while (running && (line = reader.readLine()) != null) {
+                    if (isAddressEvent(line)) {
+                        logger.atDebug().kv("event", line).log("Network address changed");
+                        notifyChange();
+                    }
+                }
+            } catch (IOException e) {
+                if (running) {
+                    logger.atWarn().log("Unable to listen for network address changes. "
+                            + "Falling back to periodic detection only", e);
+                    running = false;
+                }
+                return;
+            }
+            if (!running) {
+                return;
+            }
+            logger.atWarn().kv("restartDelayMs", RESTART_DELAY_MS).log("Address monitor stopped unexpectedly");
+            try {
+                Thread.sleep(RESTART_DELAY_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void notifyChange() {
+        try {
+            onChange.run();
+        } catch (Exception e) {
+            logger.atError().log("Exception occurred when handling a network address change", e);
+        }
+    }
+
+    //Default for JUnit Testing
+    static boolean isAddressEvent(String line) {
+        return line.contains(" inet ") || line.contains(" inet6 ");
+    }
+
+    private InputStream startMonitorProcess() throws IOException {
+        Process p = new ProcessBuilder(MONITOR_COMMAND).redirectErrorStream(true).start();
+        p.getOutputStream().close();
+        this.process = p;
+        return p.getInputStream();
+    }
+}
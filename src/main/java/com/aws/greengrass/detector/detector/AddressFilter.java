@@ -0,0 +1,82 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.detector;
+
+import com.aws.greengrass.detector.config.Config;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+
+/**
+ * Address family and scope filter compiled from the configuration into a single bitmask.
+ *
+ * <p>Every address is classified into one bit, and it is accepted if that bit is set in the mask.
+ * This costs one bitwise AND per address instead of a chain of configuration reads.
+ */
+final class AddressFilter {
+    static final int IPV4 = 1;
+    static final int IPV4_LOOPBACK = 1 << 1;
+    static final int IPV4_LINK_LOCAL = 1 << 2;
+    static final int IPV6 = 1 << 3;
+    static final int IPV6_LOOPBACK = 1 << 4;
+    static final int IPV6_LINK_LOCAL = 1 << 5;
+    static final int NONE = 0;
+
+    private AddressFilter() {
+    }
+
+    /**
+     * Compile the include flags of the configuration into a mask of accepted address classes.
+     *
+     * @param config Configuration
+     * @return bitmask of accepted address classes
+     */
+    static int compile(Config config) {
+        int mask = NONE;
+        if (config.isIncludeIPv4Addrs()) {
+            mask |= IPV4;
+            if (config.isIncludeIPv4LoopbackAddrs()) {
+                mask |= IPV4_LOOPBACK;
+            }
+            if (config.isIncludeIPv4LinkLocalAddrs()) {
+                mask |= IPV4_LINK_LOCAL;
+            }
+        }
+        if (config.isIncludeIPv6Addrs()) {
+            mask |= IPV6;
+            if (config.isIncludeIPv6LoopbackAddrs()) {
+                mask |= IPV6_LOOPBACK;
+            }
+            if (config.isIncludeIPv6LinkLocalAddrs()) {
+                mask |= IPV6_LINK_LOCAL;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Classify an address into exactly one of the address class bits.
+     *
+     * @param address address
+     * @return address class bit
+     */
+    static int classify(InetAddress address) {
+        if (address instanceof Inet6Address) {
+            if (address.isLinkLocalAddress()) {
+                return IPV6_LINK_LOCAL;
+            }
+            return address.isLoopbackAddress() ? IPV6_LOOPBACK : IPV6;
+        }
+        if (address.isLoopbackAddress()) {
+            return IPV4_LOOPBACK;
+        }
+        return address.isLinkLocalAddress() ? IPV4_LINK_LOCAL : IPV4;
+    }
+
+    static boolean accepts(int mask, InetAddress address) {
+        return (mask & classify(address)) != 0;
+    }
+}
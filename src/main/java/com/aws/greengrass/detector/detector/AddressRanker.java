@@ -0,0 +1,323 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.detector;
+
+import com.aws.greengrass.logging.api.Logger;
+import com.aws.greengrass.logging.impl.LogManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Orders detected addresses so that the ones clients are most likely to reach come first. Clients
+ * try the connectivity entries in list order, so an unreachable address at the front costs every
+ * client a connect timeout.
+ *
+ * <p>Every address gets a rank key, and the list is stably sorted by it. From most to least
+ * significant, the key is made of:
+ * <ol>
+ *     <li>the result of the optional TCP self-probe of the endpoint port, unreachable addresses last</li>
+ *     <li>the position of the first matching {@code interfacePriority} pattern, unmatched interfaces last</li>
+ *     <li>wired before wireless interfaces, if enabled</li>
+ *     <li>global before IPv6 unique local, before link-local and loopback addresses, if enabled</li>
+ * </ol>
+ * Addresses with equal keys keep their enumeration order.
+ *
+ * <p>The self-probes of all addresses run concurrently on the probe executor of the detector, and a sort waits
+ * for them at most {@value #PROBE_GRACE_MS} ms longer than the probe timeout, whatever the number of addresses.
+ * A probe still running by then, or rejected by a full executor, ranks its address as it was last probed, or as
+ * reachable if never probed. The result of a running probe is used by the next sort. Results are cached for
+ * {@value #PROBE_CACHE_MS} ms, so most detection runs do not probe at all.
+ *
+ * <p>Instances are compiled once per configuration update. Apart from the cached interface ranks and probe
+ * results, they are immutable.
+ */
+public final class AddressRanker {
+    private static final Logger logger = LogManager.getLogger(AddressRanker.class);
+    static final File SYS_CLASS_NET = new File("/sys/class/net");
+    static final String WIRELESS_NAME_PREFIX = "wl";
+
+    private static final int UNREACHABLE_SHIFT = 48;
+    private static final int INTERFACE_PRIORITY_SHIFT = 16;
+    private static final int WIRELESS_SHIFT = 8;
+    private static final int MAX_INTERFACE_PRIORITY = 0xffff;
+    static final long PROBE_CACHE_MS = 300_000L;
+    static final long PROBE_GRACE_MS = 100L;
+    static final int MAX_CACHED_INTERFACES = 256;
+    static final int SCOPE_GLOBAL = 0;
+    static final int SCOPE_UNIQUE_LOCAL = 1;
+    static final int SCOPE_LOCAL = 2;
+
+    public static final AddressRanker NONE =
+            new AddressRanker(Collections.emptyList(), false, false, false, 0);
+
+    private final List<Pattern> interfacePriority;
+    private final boolean preferGlobal;
+    private final boolean preferWired;
+    private final boolean probeReachability;
+    private final int probeTimeoutMs;
+    private final Map<String, Long> interfaceRanks = new ConcurrentHashMap<>();
+    private final Map<InetSocketAddress, Probe> probes = new ConcurrentHashMap<>();
+
+    /**
+     * A self-probe of one address and port, running or done.
+     */
+    private static final class Probe {
+        private final CompletableFuture<Boolean> reachable;
+        private final long startNanos;
+        private final boolean previouslyReachable;
+
+        Probe(CompletableFuture<Boolean> reachable, long startNanos, boolean previouslyReachable) {
+            this.reachable = reachable;
+            this.startNanos = startNanos;
+            this.previouslyReachable = previouslyReachable;
+        }
+
+        boolean isStale(long nowNanos) {
+            return reachable.isDone() && nowNanos - startNanos >= TimeUnit.MILLISECONDS.toNanos(PROBE_CACHE_MS);
+        }
+
+        boolean isReachable(long deadlineNanos) {
+            try {
+                return reachable.get(Math.max(0L, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return previouslyReachable;
+            } catch (ExecutionException | TimeoutException e) {
+                return previouslyReachable;
+            }
+        }
+    }
+
+    private AddressRanker(List<Pattern> interfacePriority, boolean preferGlobal, boolean preferWired,
+                          boolean probeReachability, int probeTimeoutMs) {
+        this.interfacePriority = interfacePriority;
+        this.preferGlobal = preferGlobal;
+        this.preferWired = preferWired;
+        this.probeReachability = probeReachability;
+        this.probeTimeoutMs = probeTimeoutMs;
+    }
+
+    /**
+     * Compile a ranker. Invalid interface patterns are logged and ignored.
+     *
+     * @param interfacePriority interface name patterns, highest priority first, in {@link InterfaceFilter} syntax
+     * @param preferGlobal      rank global addresses before unique local, link-local and loopback ones
+     * @param preferWired       rank wired interfaces before wireless ones
+     * @param probeReachability rank addresses that do not accept a connection on their port last
+     * @param probeTimeoutMs    connect timeout of the self-probe
+     * @return compiled ranker
+     */
+    public static AddressRanker compile(List<String> interfacePriority, boolean preferGlobal, boolean preferWired,
+                                        boolean probeReachability, int probeTimeoutMs) {
+        List<Pattern> patterns = new ArrayList<>();
+        if (interfacePriority != null) {
+            for (String spec : interfacePriority) {
+                if (spec == null || spec.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    patterns.add(InterfaceFilter.toPattern(spec.trim()));
+                } catch (PatternSyntaxException e) {
+                    logger.atWarn().kv("pattern", spec).log("Ignoring invalid interface priority pattern", e);
+                }
+            }
+        }
+        if (patterns.isEmpty() && !preferGlobal && !preferWired && !probeReachability) {
+            return NONE;
+        }
+        return new AddressRanker(Collections.unmodifiableList(patterns), preferGlobal, preferWired,
+                probeReachability, Math.max(1, probeTimeoutMs));
+    }
+
+    /**
+     * Whether the ranker reorders addresses. When it does, the order is part of the uploaded state.
+     *
+     * @return true if ranking is configured
+     */
+    public boolean isEnabled() {
+        return this != NONE;
+    }
+
+    /**
+     * Part of the rank key that depends on the interface name only, computed once per name, so that the
+     * wireless check does not stat sysfs on every poll.
+     *
+     * @param networkInterface interface
+     * @return interface rank
+     */
+    long interfaceRank(NetworkInterface networkInterface) {
+        String name = networkInterface.getName();
+        if (name == null) {
+            name = "";
+        }
+        Long rank = interfaceRanks.get(name);
+        if (rank == null) {
+            if (interfaceRanks.size() >= MAX_CACHED_INTERFACES) {
+                // Short-lived interfaces, such as container veths, come and go under new names
+                interfaceRanks.clear();
+            }
+            rank = computeInterfaceRank(name);
+            interfaceRanks.put(name, rank);
+        }
+        return rank;
+    }
+
+    private long computeInterfaceRank(String name) {
+        long priority = interfacePriority.size();
+        for (int i = 0; i < interfacePriority.size(); i++) {
+            if (interfacePriority.get(i).matcher(name).matches()) {
+                priority = i;
+                break;
+            }
+        }
+        long rank = Math.min(priority, MAX_INTERFACE_PRIORITY) << INTERFACE_PRIORITY_SHIFT;
+        if (preferWired && isWireless(name)) {
+            rank |= 1L << WIRELESS_SHIFT;
+        }
+        return rank;
+    }
+
+    /**
+     * Full rank key of an address, without the probe result.
+     *
+     * @param interfaceRank rank of the interface the address belongs to
+     * @param address       address
+     * @return rank key, lower ranks first
+     */
+    long rankKey(long interfaceRank, InetAddress address) {
+        return preferGlobal ? interfaceRank | scope(address) : interfaceRank;
+    }
+
+    /**
+     * Stably sort the first {@code size} endpoints by their rank keys, probing them first if enabled.
+     * The lists are short, so an in-place insertion sort avoids allocating.
+     *
+     * @param endpoints     endpoints, sorted in place
+     * @param keys          rank keys, parallel to the endpoints
+     * @param size          number of endpoints
+     * @param probeExecutor executor running the self-probes
+     */
+    void sort(List<Endpoint> endpoints, long[] keys, int size, Executor probeExecutor) {
+        if (probeReachability) {
+            probe(endpoints, keys, size, probeExecutor);
+        }
+        for (int i = 1; i < size; i++) {
+            long key = keys[i];
+            Endpoint endpoint = endpoints.get(i);
+            int j = i - 1;
+            while (j >= 0 && keys[j] > key) {
+                keys[j + 1] = keys[j];
+                endpoints.set(j + 1, endpoints.get(j));
+                j--;
+            }
+            keys[j + 1] = key;
+            endpoints.set(j + 1, endpoint);
+        }
+    }
+
+    //Default for JUnit Testing
+    static int scope(InetAddress address) {
+        if (address.isLoopbackAddress() || address.isLinkLocalAddress()) {
+            return SCOPE_LOCAL;
+        }
+        if (address instanceof Inet6Address) {
+            byte[] bytes = address.getAddress();
+            // fc00::/7
+            if (bytes != null && bytes.length > 0 && (bytes[0] & 0xfe) == 0xfc) {
+                return SCOPE_UNIQUE_LOCAL;
+            }
+        }
+        return SCOPE_GLOBAL;
+    }
+
+    //Default for JUnit Testing
+    static boolean isWireless(String name) {
+        if (name.toLowerCase(Locale.ROOT).startsWith(WIRELESS_NAME_PREFIX)) {
+            return true;
+        }
+        // Linux exposes a wireless directory for every wireless device, whatever its name
+        return !name.isEmpty() && new File(new File(SYS_CLASS_NET, name), "wireless").isDirectory();
+    }
+
+    private void probe(List<Endpoint> endpoints, long[] keys, int size, Executor probeExecutor) {
+        long nowNanos = System.nanoTime();
+        Probe[] started = new Probe[size];
+        Set<InetSocketAddress> probed = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            Endpoint endpoint = endpoints.get(i);
+            InetSocketAddress socketAddress = new InetSocketAddress(endpoint.getAddress(), endpoint.getPort());
+            probed.add(socketAddress);
+            Probe cached = probes.get(socketAddress);
+            if (cached == null || cached.isStale(nowNanos)) {
+                boolean previouslyReachable = cached == null || cached.isReachable(nowNanos);
+                try {
+                    cached = new Probe(CompletableFuture.supplyAsync(
+                            () -> probe(endpoint.getAddress(), endpoint.getPort()), probeExecutor),
+                            nowNanos, previouslyReachable);
+                    probes.put(socketAddress, cached);
+                } catch (RejectedExecutionException e) {
+                    // Unprobed, the next sort tries again
+                    logger.atDebug().kv("address", socketAddress).log("Self-probe rejected", e);
+                    cached = new Probe(CompletableFuture.completedFuture(previouslyReachable), nowNanos,
+                            previouslyReachable);
+                }
+            }
+            started[i] = cached;
+        }
+        // Forget the addresses that went away
+        probes.keySet().retainAll(probed);
+        long deadlineNanos = nowNanos + TimeUnit.MILLISECONDS.toNanos(probeTimeoutMs + PROBE_GRACE_MS);
+        for (int i = 0; i < size; i++) {
+            if (!started[i].isReachable(deadlineNanos)) {
+                keys[i] |= 1L << UNREACHABLE_SHIFT;
+            }
+        }
+    }
+
+    private boolean probe(InetAddress address, int port) {
+        long start = System.nanoTime();
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(address, port), probeTimeoutMs);
+            logger.atDebug().kv("address", address).kv("port", port)
+                    .kv("latencyMicros", (System.nanoTime() - start) / 1000).log("Self-probe connected");
+            return true;
+        } catch (IOException e) {
+            logger.atDebug().kv("address", address).kv("port", port).log("Self-probe failed", e);
+            return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (!isEnabled()) {
+            return "none";
+        }
+        return "interfacePriority=" + interfacePriority + ", preferGlobal=" + preferGlobal + ", preferWired="
+                + preferWired + ", probeReachability=" + probeReachability + ", probeTimeoutMs=" + probeTimeoutMs;
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.detector;
+
+import com.aws.greengrass.logging.api.Logger;
+import com.aws.greengrass.logging.impl.LogManager;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Subnet filter compiled from CIDR include and exclude rules into a binary prefix trie.
+ *
+ * <p>IPv4 and IPv6 rules live in separate subtrees. A lookup walks at most one node per address bit,
+ * 32 for IPv4 and 128 for IPv6, so its cost does not depend on the number of rules. The most specific
+ * matching rule decides, and an exclude wins over an include for the same prefix. An address that
+ * matches no rule is accepted only if there are no include rules.
+ *
+ * <p>Instances are immutable and are compiled once per configuration update.
+ */
+public final class CidrFilter {
+    private static final Logger logger = LogManager.getLogger(CidrFilter.class);
+    private static final Pattern IPV4_LITERAL = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+    private static final byte NO_RULE = 0;
+    private static final byte INCLUDE = 1;
+    private static final byte EXCLUDE = 2;
+    private static final int IPV4_ROOT = 0;
+    private static final int IPV6_ROOT = 1;
+    private static final int NO_CHILD = 0;
+
+    public static final CidrFilter ACCEPT_ALL = new CidrFilter(new int[4], new byte[2], true);
+
+    // children[2 * node] is the child for a 0 bit, children[2 * node + 1] for a 1 bit
+    private final int[] children;
+    private final byte[] rules;
+    private final boolean acceptUnmatched;
+
+    private CidrFilter(int[] children, byte[] rules, boolean acceptUnmatched) {
+        this.children = children;
+        this.rules = rules;
+        this.acceptUnmatched = acceptUnmatched;
+    }
+
+    /**
+     * Compile a filter. Invalid rules are logged and ignored.
+     *
+     * @param include CIDR blocks to report, empty to report every address
+     * @param exclude CIDR blocks never to report
+     * @return compiled filter
+     */
+    public static CidrFilter compile(List<String> include, List<String> exclude) {
+        Builder builder = new Builder();
+        builder.addAll(include, INCLUDE);
+        int excludeCount = builder.addAll(exclude, EXCLUDE);
+        boolean noIncludeRules = include == null || include.isEmpty();
+        if (noIncludeRules && excludeCount == 0) {
+            return ACCEPT_ALL;
+        }
+        // Invalid include rules still make the filter an allow list, so a typo does not publish everything
+        return builder.build(noIncludeRules);
+    }
+
+    /**
+     * Whether the filter accepts every address.
+     *
+     * @return true if nothing is filtered
+     */
+    public boolean isAcceptAll() {
+        return this == ACCEPT_ALL;
+    }
+
+    /**
+     * Check an address.
+     *
+     * @param address address
+     * @return true if the address may be reported
+     */
+    public boolean accepts(InetAddress address) {
+        if (isAcceptAll()) {
+            return true;
+        }
+        return accepts(address.getAddress());
+    }
+
+    //Default for JUnit Testing
+    boolean accepts(byte[] address) {
+        if (address == null || address.length != 4 && address.length != 16) {
+            return acceptUnmatched;
+        }
+        int node = address.length == 4 ? IPV4_ROOT : IPV6_ROOT;
+        byte decision = rules[node];
+        for (int bit = 0; bit < address.length * 8; bit++) {
+            node = children[2 * node + bitAt(address, bit)];
+            if (node == NO_CHILD) {
+                break;
+            }
+            if (rules[node] != NO_RULE) {
+                decision = rules[node];
+            }
+        }
+        if (decision == NO_RULE) {
+            return acceptUnmatched;
+        }
+        return decision == INCLUDE;
+    }
+
+    private static int bitAt(byte[] address, int bit) {
+        return (address[bit >>> 3] >>> (7 - (bit & 7))) & 1;
+    }
+
+    /**
+     * Number of trie nodes, including the two roots.
+     *
+     * @return node count
+     */
+    int size() {
+        return rules.length;
+    }
+
+    private static final class Builder {
+        private int[] children = new int[64];
+        private byte[] rules = new byte[32];
+        private int size = 2;
+
+        int addAll(List<String> cidrs, byte rule) {
+            if (cidrs == null) {
+                return 0;
+            }
+            int added = 0;
+            for (String cidr : cidrs) {
+                if (cidr == null || cidr.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    add(cidr.trim(), rule);
+                    added++;
+                } catch (IllegalArgumentException e) {
+                    logger.atWarn().kv("cidr", cidr).log("Ignoring invalid CIDR rule", e);
+                }
+            }
+            return added;
+        }
+
+        void add(String cidr, byte rule) {
+            int slash = cidr.indexOf('/');
+            byte[] prefix = parseAddress(slash < 0 ? cidr : cidr.substring(0, slash));
+            int maxLength = prefix.length * 8;
+            int length = maxLength;
+            if (slash >= 0) {
+                try {
+                    length = Integer.parseInt(cidr.substring(slash + 1));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid prefix length in " + cidr, e);
+                }
+                if (length < 0 || length > maxLength) {
+                    throw new IllegalArgumentException("Prefix length out of range in " + cidr);
+                }
+            }
+            int node = prefix.length == 4 ? IPV4_ROOT : IPV6_ROOT;
+            for (int bit = 0; bit < length; bit++) {
+                int slot = 2 * node + bitAt(prefix, bit);
+                if (children[slot] == NO_CHILD) {
+                    // newNode() may replace the array, so it must run before the store
+                    int child = newNode();
+                    children[slot] = child;
+                }
+                node = children[slot];
+            }
+            if (rules[node] != EXCLUDE) {
+                rules[node] = rule;
+            }
+        }
+
+        private int newNode() {
+            if (size == rules.length) {
+                rules = Arrays.copyOf(rules, size * 2);
+                children = Arrays.copyOf(children, size * 4);
+            }
+            return size++;
+        }
+
+        CidrFilter build(boolean acceptUnmatched) {
+            return new CidrFilter(Arrays.copyOf(children, size * 2), Arrays.copyOf(rules, size), acceptUnmatched);
+        }
+    }
+
+    private static byte[] parseAddress(String host) {
+        if (IPV4_LITERAL.matcher(host).matches()) {
+            String[] octets = host.split("\\.");
+            byte[] bytes = new byte[4];
+            for (int i = 0; i < 4; i++) {
+                int octet = Integer.parseInt(octets[i]);
+                if (octet > 255) {
+                    throw new IllegalArgumentException("Invalid IPv4 address " + host);
+                }
+                bytes[i] = (byte) octet;
+            }
+            return bytes;
+        }
+        if (host.indexOf(':') < 0) {
+            throw new IllegalArgumentException("Not an IP address " + host);
+        }
+        try {
+            // Brackets make the JDK reject an invalid literal instead of attempting a name lookup
+            return InetAddress.getByName('[' + host + ']').getAddress();
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Invalid IPv6 address " + host, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return isAcceptAll() ? "all" : "nodes=" + size() + ", acceptUnmatched=" + acceptUnmatched;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.detector;
+
+import java.net.InetAddress;
+import java.util.Objects;
+
+/**
+ * A connectivity entry: the host address clients connect to, the port and the metadata reported with it.
+ *
+ * <p>Detected endpoints keep the {@link InetAddress} and only render the host address string when it is
+ * needed, so polls that find nothing new do not allocate strings. Endpoints restored from the persisted
+ * state only have the host address string.
+ */
+public final class Endpoint {
+    public static final String NO_METADATA = "";
+
+    private final InetAddress address;
+    private final int port;
+    private final String metadata;
+    private String hostAddress;
+
+    private Endpoint(InetAddress address, String hostAddress, int port, String metadata) {
+        this.address = address;
+        this.hostAddress = hostAddress;
+        this.port = port;
+        this.metadata = metadata == null ? NO_METADATA : metadata;
+    }
+
+    /**
+     * Endpoint of a detected address.
+     *
+     * @param address  address
+     * @param port     port
+     * @param metadata metadata
+     * @return endpoint
+     */
+    public static Endpoint of(InetAddress address, int port, String metadata) {
+        return new Endpoint(address, null, port, metadata);
+    }
+
+    /**
+     * Endpoint of a host address or host name in string form.
+     *
+     * @param hostAddress host address
+     * @param port        port
+     * @param metadata    metadata
+     * @return endpoint
+     */
+    public static Endpoint ofHostAddress(String hostAddress, int port, String metadata) {
+        return new Endpoint(null, hostAddress, port, metadata);
+    }
+
+    /**
+     * The detected address.
+     *
+     * @return address, or null for an endpoint created from a host address string
+     */
+    public InetAddress getAddress() {
+        return address;
+    }
+
+    /**
+     * Host address in string form, as uploaded.
+     *
+     * @return host address
+     */
+    public String getHostAddress() {
+        String host = hostAddress;
+        if (host == null && address != null) {
+            host = address.getHostAddress();
+            hostAddress = host;
+        }
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public String getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Whether this endpoint describes the given detected address, port and metadata, without rendering
+     * any strings.
+     *
+     * @param otherAddress  address
+     * @param otherPort     port
+     * @param otherMetadata metadata
+     * @return true if equal
+     */
+    boolean matches(InetAddress otherAddress, int otherPort, String otherMetadata) {
+        return port == otherPort && address != null && address.equals(otherAddress)
+                && metadata.equals(otherMetadata == null ? NO_METADATA : otherMetadata);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Endpoint)) {
+            return false;
+        }
+        Endpoint that = (Endpoint) o;
+        return port == that.port && metadata.equals(that.metadata)
+                && Objects.equals(getHostAddress(), that.getHostAddress());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getHostAddress(), port, metadata);
+    }
+
+    @Override
+    public String toString() {
+        String host = getHostAddress();
+        String rendered = host != null && host.indexOf(':') >= 0 ? '[' + host + ']' : host;
+        return metadata.isEmpty() ? rendered + ':' + port : rendered + ':' + port + " (" + metadata + ')';
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.detector;
+
+import com.aws.greengrass.logging.api.Logger;
+import com.aws.greengrass.logging.impl.LogManager;
+import com.aws.greengrass.util.Coerce;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Maps detected addresses to the port and metadata they are reported with.
+ *
+ * <p>Rules come from the {@code endpointRules} configuration, a list of objects such as
+ * <pre>
+ * [ { "interface": "eth1", "port": 8884, "metadata": "segment-b" },
+ *   { "cidr": "10.20.0.0/16", "port": 8885 },
+ *   { "family": "ipv6", "metadata": "v6" } ]
+ * </pre>
+ * A rule matches an address if every selector it has matches: {@code interface} is a name pattern in
+ * {@link InterfaceFilter} syntax, {@code cidr} a block or list of blocks and {@code family} either
+ * {@code ipv4} or {@code ipv6}. The first matching rule decides. A rule without a port keeps
+ * {@code defaultPort}, and addresses that match no rule get {@code defaultPort} and empty metadata.
+ *
+ * <p>At most {@value #MAX_RULES} rules are supported, so that the rules selected by an interface name
+ * fit a single bitmask computed once per interface. Instances are immutable and are compiled once per
+ * configuration update.
+ */
+public final class EndpointMapper {
+    private static final Logger logger = LogManager.getLogger(EndpointMapper.class);
+    static final int MAX_RULES = 64;
+    static final String INTERFACE_KEY = "interface";
+    static final String CIDR_KEY = "cidr";
+    static final String FAMILY_KEY = "family";
+    static final String PORT_KEY = "port";
+    static final String METADATA_KEY = "metadata";
+    static final int NO_RULE = -1;
+    private static final int ANY_FAMILY = 0;
+    private static final int IPV4 = 4;
+    private static final int IPV6 = 6;
+
+    public static final EndpointMapper NONE = new EndpointMapper(Collections.emptyList());
+
+    private final List<Rule> rules;
+    private final long allRules;
+
+    private static final class Rule {
+        private final Pattern interfacePattern;
+        private final CidrFilter cidrFilter;
+        private final int family;
+        private final int port;
+        private final String metadata;
+        private final String description;
+
+        private Rule(Pattern interfacePattern, CidrFilter cidrFilter, int family, int port, String metadata,
+                     String description) {
+            this.interfacePattern = interfacePattern;
+            this.cidrFilter = cidrFilter;
+            this.family = family;
+            this.port = port;
+            this.metadata = metadata;
+            this.description = description;
+        }
+    }
+
+    private EndpointMapper(List<Rule> rules) {
+        this.rules = rules;
+        this.allRules = rules.size() == MAX_RULES ? -1L : (1L << rules.size()) - 1;
+    }
+
+    /**
+     * Compile the rules. Invalid rules are logged and ignored.
+     *
+     * @param config value of the {@code endpointRules} configuration, a list of maps
+     * @return compiled mapper
+     */
+    public static EndpointMapper compile(Object config) {
+        if (!(config instanceof List) || ((List<?>) config).isEmpty()) {
+            return NONE;
+        }
+        List<Rule> rules = new ArrayList<>();
+        for (Object item : (List<?>) config) {
+            if (rules.size() == MAX_RULES) {
+                logger.atWarn().kv("maxRules", MAX_RULES).log("Ignoring endpoint rules beyond the maximum");
+                break;
+            }
+            if (!(item instanceof Map)) {
+                logger.atWarn().kv("rule", item).log("Ignoring endpoint rule that is not an object");
+                continue;
+            }
+            try {
+                rules.add(toRule((Map<?, ?>) item));
+            } catch (IllegalArgumentException e) {
+                logger.atWarn().kv("rule", item).log("Ignoring invalid endpoint rule", e);
+            }
+        }
+        return rules.isEmpty() ? NONE : new EndpointMapper(Collections.unmodifiableList(rules));
+    }
+
+    private static Rule toRule(Map<?, ?> rule) {
+        Object interfaceSpec = rule.get(INTERFACE_KEY);
+        Object cidrSpec = rule.get(CIDR_KEY);
+        Object familySpec = rule.get(FAMILY_KEY);
+        Object portSpec = rule.get(PORT_KEY);
+        Object metadataSpec = rule.get(METADATA_KEY);
+
+        Pattern interfacePattern = null;
+        if (interfaceSpec != null) {
+            try {
+                interfacePattern = InterfaceFilter.toPattern(Coerce.toString(interfaceSpec).trim());
+            } catch (PatternSyntaxException e) {
+                throw new IllegalArgumentException("Invalid interface pattern", e);
+            }
+        }
+        CidrFilter cidrFilter = null;
+        if (cidrSpec != null) {
+            List<String> cidrs = Coerce.toStringList(cidrSpec);
+            cidrFilter = CidrFilter.compile(cidrs, null);
+            if (cidrFilter.isAcceptAll()) {
+                throw new IllegalArgumentException("Empty CIDR selector");
+            }
+        }
+        int family = ANY_FAMILY;
+        if (familySpec != null) {
+            String familyName = Coerce.toString(familySpec).trim().toLowerCase(Locale.ROOT);
+            if ("ipv4".equals(familyName)) {
+                family = IPV4;
+            } else if ("ipv6".equals(familyName)) {
+                family = IPV6;
+            } else {
+                throw new IllegalArgumentException("Unknown address family " + familySpec);
+            }
+        }
+        int port = NO_RULE;
+        if (portSpec != null) {
+            port = Coerce.toInt(portSpec);
+            if (port <= 0 || port > 0xffff) {
+                throw new IllegalArgumentException("Port out of range " + portSpec);
+            }
+        }
+        String metadata = metadataSpec == null ? Endpoint.NO_METADATA : Coerce.toString(metadataSpec);
+        return new Rule(interfacePattern, cidrFilter, family, port, metadata, rule.toString());
+    }
+
+    /**
+     * Whether any rules are configured.
+     *
+     * @return true if addresses may get something other than the default port and empty metadata
+     */
+    public boolean isEnabled() {
+        return this != NONE;
+    }
+
+    /**
+     * Rules that can apply to addresses of an interface, computed once per interface.
+     *
+     * @param interfaceName interface name
+     * @return bitmask of candidate rules
+     */
+    long interfaceRules(String interfaceName) {
+        long mask = allRules;
+        String name = interfaceName == null ? "" : interfaceName;
+        for (int i = 0; i < rules.size(); i++) {
+            Pattern pattern = rules.get(i).interfacePattern;
+            if (pattern != null && !pattern.matcher(name).matches()) {
+                mask &= ~(1L << i);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Find the first rule matching an address.
+     *
+     * @param interfaceRules candidate rules of the interface the address belongs to
+     * @param address        address
+     * @return index of the matching rule, or {@link #NO_RULE}
+     */
+    int resolve(long interfaceRules, InetAddress address) {
+        int family = address instanceof Inet6Address ? IPV6 : IPV4;
+        for (int i = 0; i < rules.size(); i++) {
+            if ((interfaceRules & (1L << i)) == 0) {
+                continue;
+            }
+            Rule rule = rules.get(i);
+            if ((rule.family == ANY_FAMILY || rule.family == family)
+                    && (rule.cidrFilter == null || rule.cidrFilter.accepts(address))) {
+                return i;
+            }
+        }
+        return NO_RULE;
+    }
+
+    int port(int rule, int defaultPort) {
+        if (rule == NO_RULE || rules.get(rule).port == NO_RULE) {
+            return defaultPort;
+        }
+        return rules.get(rule).port;
+    }
+
+    String metadata(int rule) {
+        return rule == NO_RULE ? Endpoint.NO_METADATA : rules.get(rule).metadata;
+    }
+
+    @Override
+    public String toString() {
+        if (!isEnabled()) {
+            return "none";
+        }
+        List<String> descriptions = new ArrayList<>(rules.size());
+        for (Rule rule : rules) {
+            descriptions.add(rule.description);
+        }
+        return descriptions.toString();
+    }
+}
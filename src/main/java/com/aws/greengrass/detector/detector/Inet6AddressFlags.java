@@ -0,0 +1,131 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.detector;
+
+import com.aws.greengrass.logging.api.Logger;
+import com.aws.greengrass.logging.impl.LogManager;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Kernel flags of the IPv6 addresses, as listed in {@code /proc/net/if_inet6} on Linux.
+ *
+ * <p>Only stable, preferred addresses are accepted. Addresses still running or having failed duplicate
+ * address detection, and deprecated addresses about to expire, are never accepted. RFC 4941 temporary
+ * (privacy) addresses rotate every few hours and are only accepted if configured, as each rotation would
+ * otherwise cause an upload. Addresses whose flags are unknown, such as on other platforms, are accepted.
+ */
+final class Inet6AddressFlags {
+    private static final Logger logger = LogManager.getLogger(Inet6AddressFlags.class);
+    static final File PROC_NET_IF_INET6 = new File("/proc/net/if_inet6");
+
+    // Values of IFA_F_* in linux/if_addr.h, the file only shows the lowest byte
+    static final int TEMPORARY = 0x01;
+    static final int DAD_FAILED = 0x08;
+    static final int DEPRECATED = 0x20;
+    static final int TENTATIVE = 0x40;
+    private static final int NOT_PREFERRED = DAD_FAILED | DEPRECATED | TENTATIVE;
+    static final int UNKNOWN_FLAGS = -1;
+
+    static final Inet6AddressFlags UNKNOWN = new Inet6AddressFlags(Collections.emptyMap());
+
+    private static final int ADDRESS_HEX_LENGTH = 32;
+    private static final int FLAGS_FIELD = 4;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Map<String, Integer> flagsByAddress;
+
+    private Inet6AddressFlags(Map<String, Integer> flagsByAddress) {
+        this.flagsByAddress = flagsByAddress;
+    }
+
+    /**
+     * Read the flags of the current addresses.
+     *
+     * @param file {@link #PROC_NET_IF_INET6}, or another file in the same format
+     * @return address flags, {@link #UNKNOWN} if the file does not exist or cannot be read
+     */
+    static Inet6AddressFlags read(File file) {
+        if (!file.isFile()) {
+            return UNKNOWN;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.US_ASCII)) {
+            return parse(reader);
+        } catch (IOException e) {
+            logger.atWarn().kv("file", file).log("Unable to read the IPv6 address flags, accepting all addresses", e);
+            return UNKNOWN;
+        }
+    }
+
+    //Default for JUnit Testing
+    static Inet6AddressFlags parse(BufferedReader lines) throws IOException {
+        Map<String, Integer> flagsByAddress = new HashMap<>();
+        String line;
+        while ((line = lines.readLine()) != null) {
+            // address ifindex prefix-length scope flags device, all but the device in hexadecimal
+            String[] fields = line.trim().split("\\s+");
+            if (fields.length <= FLAGS_FIELD || fields[0].length() != ADDRESS_HEX_LENGTH) {
+                continue;
+            }
+            try {
+                flagsByAddress.merge(fields[0].toLowerCase(Locale.ROOT), Integer.parseInt(fields[FLAGS_FIELD], 16),
+                        (a, b) -> a | b);
+            } catch (NumberFormatException e) {
+                logger.atDebug().kv("line", line).log("Ignoring malformed IPv6 address flags");
+            }
+        }
+        return new Inet6AddressFlags(flagsByAddress);
+    }
+
+    /**
+     * Flags of an address.
+     *
+     * @param address address
+     * @return flags, {@link #UNKNOWN_FLAGS} if the address is not listed
+     */
+    int flags(InetAddress address) {
+        if (flagsByAddress.isEmpty() || !(address instanceof Inet6Address)) {
+            return UNKNOWN_FLAGS;
+        }
+        Integer flags = flagsByAddress.get(toHex(address.getAddress()));
+        return flags == null ? UNKNOWN_FLAGS : flags;
+    }
+
+    /**
+     * Whether an address is stable and preferred.
+     *
+     * @param address          address, IPv4 addresses are always accepted
+     * @param includeTemporary accept temporary addresses as well
+     * @return true if the address should be reported
+     */
+    boolean accepts(InetAddress address, boolean includeTemporary) {
+        int flags = flags(address);
+        if (flags == UNKNOWN_FLAGS) {
+            return true;
+        }
+        int rejected = includeTemporary ? NOT_PREFERRED : NOT_PREFERRED | TEMPORARY;
+        return (flags & rejected) == 0;
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[2 * i] = HEX_DIGITS[bytes[i] >> 4 & 0xf];
+            hex[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+        return new String(hex);
+    }
+}
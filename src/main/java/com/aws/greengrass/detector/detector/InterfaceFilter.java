@@ -0,0 +1,189 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.detector;
+
+import com.aws.greengrass.logging.api.Logger;
+import com.aws.greengrass.logging.impl.LogManager;
+
+import java.io.File;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Interface level filter, applied before any of the addresses of an interface are looked at.
+ *
+ * <p>Name patterns are globs by default, where {@code *} matches any run of characters and
+ * {@code ?} a single character. A pattern prefixed with {@code regex:} is a Java regular expression
+ * matched against the whole name, and a {@code glob:} prefix is accepted as well. An interface is
+ * accepted if it matches an include pattern, or the include list is empty, and it matches no exclude
+ * pattern.
+ *
+ * <p>Virtual interfaces are those the kernel lists under {@code /sys/devices/virtual/net}, such as
+ * docker bridges, veth pairs and tunnels, as well as JDK sub-interfaces. The loopback interface is
+ * never treated as virtual, since loopback addresses have their own configuration.
+ *
+ * <p>Instances are immutable and are compiled once per configuration update.
+ */
+public final class InterfaceFilter {
+    private static final Logger logger = LogManager.getLogger(InterfaceFilter.class);
+    static final String REGEX_PREFIX = "regex:";
+    static final String GLOB_PREFIX = "glob:";
+    static final File VIRTUAL_NET_DEVICES = new File("/sys/devices/virtual/net");
+
+    public static final InterfaceFilter ACCEPT_ALL =
+            new InterfaceFilter(Collections.emptyList(), false, Collections.emptyList(), false, false);
+
+    private final List<Pattern> includePatterns;
+    private final boolean includeAll;
+    private final List<Pattern> excludePatterns;
+    private final boolean excludeVirtual;
+    private final boolean excludePointToPoint;
+
+    private InterfaceFilter(List<Pattern> includePatterns, boolean includeAll, List<Pattern> excludePatterns,
+                            boolean excludeVirtual, boolean excludePointToPoint) {
+        this.includePatterns = includePatterns;
+        this.includeAll = includeAll;
+        this.excludePatterns = excludePatterns;
+        this.excludeVirtual = excludeVirtual;
+        this.excludePointToPoint = excludePointToPoint;
+    }
+
+    /**
+     * Compile a filter. Invalid patterns are logged and match nothing.
+     *
+     * @param include             include name patterns, empty to include every interface
+     * @param exclude             exclude name patterns
+     * @param excludeVirtual      skip virtual interfaces
+     * @param excludePointToPoint skip point-to-point interfaces
+     * @return compiled filter
+     */
+    public static InterfaceFilter compile(List<String> include, List<String> exclude, boolean excludeVirtual,
+                                          boolean excludePointToPoint) {
+        List<Pattern> includePatterns = toPatterns(include);
+        List<Pattern> excludePatterns = toPatterns(exclude);
+        boolean includeAll = include == null || include.isEmpty();
+        if (includeAll && excludePatterns.isEmpty() && !excludeVirtual && !excludePointToPoint) {
+            return ACCEPT_ALL;
+        }
+        return new InterfaceFilter(includePatterns, includeAll, excludePatterns, excludeVirtual,
+                excludePointToPoint);
+    }
+
+    /**
+     * Whether the filter accepts every interface.
+     *
+     * @return true if nothing is filtered
+     */
+    public boolean isAcceptAll() {
+        return this == ACCEPT_ALL;
+    }
+
+    /**
+     * Check an interface. Name rules are evaluated first since they do not need a system call.
+     *
+     * @param networkInterface interface
+     * @return true if the addresses of the interface should be considered
+     * @throws SocketException if the interface flags cannot be read
+     */
+    public boolean accepts(NetworkInterface networkInterface) throws SocketException {
+        if (isAcceptAll()) {
+            return true;
+        }
+        String name = networkInterface.getName();
+        if (!acceptsName(name)) {
+            return false;
+        }
+        if (excludeVirtual && isVirtual(networkInterface, name)) {
+            return false;
+        }
+        return !excludePointToPoint || !networkInterface.isPointToPoint();
+    }
+
+    //Default for JUnit Testing
+    boolean acceptsName(String interfaceName) {
+        String name = interfaceName == null ? "" : interfaceName;
+        if (!includeAll && !matchesAny(includePatterns, name)) {
+            return false;
+        }
+        return !matchesAny(excludePatterns, name);
+    }
+
+    private static boolean isVirtual(NetworkInterface networkInterface, String name) throws SocketException {
+        if (networkInterface.isVirtual()) {
+            return true;
+        }
+        return name != null && new File(VIRTUAL_NET_DEVICES, name).exists() && !networkInterface.isLoopback();
+    }
+
+    private static boolean matchesAny(List<Pattern> patterns, String name) {
+        for (int i = 0; i < patterns.size(); i++) {
+            if (patterns.get(i).matcher(name).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Pattern> toPatterns(List<String> specs) {
+        if (specs == null || specs.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Pattern> patterns = new ArrayList<>(specs.size());
+        for (String spec : specs) {
+            if (spec == null || spec.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                patterns.add(toPattern(spec.trim()));
+            } catch (PatternSyntaxException e) {
+                logger.atWarn().kv("pattern", spec).log("Ignoring invalid interface name pattern", e);
+            }
+        }
+        return Collections.unmodifiableList(patterns);
+    }
+
+    //Default for JUnit Testing
+    static Pattern toPattern(String spec) {
+        if (spec.startsWith(REGEX_PREFIX)) {
+            return Pattern.compile(spec.substring(REGEX_PREFIX.length()));
+        }
+        String glob = spec.startsWith(GLOB_PREFIX) ? spec.substring(GLOB_PREFIX.length()) : spec;
+        StringBuilder regex = new StringBuilder(glob.length() + 8);
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' || c == '?') {
+                appendQuoted(regex, literal);
+                regex.append(c == '*' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        appendQuoted(regex, literal);
+        return Pattern.compile(regex.toString());
+    }
+
+    private static void appendQuoted(StringBuilder regex, StringBuilder literal) {
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+            literal.setLength(0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (isAcceptAll()) {
+            return "all";
+        }
+        return "include=" + (includeAll ? "all" : includePatterns) + ", exclude=" + excludePatterns
+                + ", excludeVirtual=" + excludeVirtual + ", excludePointToPoint=" + excludePointToPoint;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.detector;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InterfaceAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the network interfaces of this host to a trace file, to replay field issues such as flapping Wi-Fi,
+ * docker churn or IPv6 temporary address rotation through the detector offline.
+ *
+ * <p>The recorder ships with the component, so that it runs on the core device itself with the component jar
+ * and the nucleus jar on the class path:
+ * <pre>
+ * java -cp &lt;component jar&gt;:&lt;nucleus jar&gt; com.aws.greengrass.detector.detector.InterfaceRecorder \
+ *     trace.txt 1000 3600000
+ * </pre>
+ *
+ * <p>The trace is a text file. Every tick starts with {@code @<offset in ms>} and is followed by one line per
+ * interface holding its name, index, flags, and addresses with their prefix length and, for IPv6 addresses on
+ * Linux, the kernel flags of {@code /proc/net/if_inet6} in hexadecimal. A tick whose interfaces did not change
+ * since the previous one is written as {@code @<offset> =}, so that a long recording of a quiet host stays small.
+ */
+public final class InterfaceRecorder {
+    static final String HEADER = "# ip-detector interface trace v1";
+    static final String TICK = "@";
+    static final String UNCHANGED = "=";
+    static final String NO_FLAGS = "-";
+    static final String UP = "up";
+    static final String LOOPBACK = "loopback";
+    static final String VIRTUAL = "virtual";
+    static final String POINT_TO_POINT = "p2p";
+    static final long DEFAULT_INTERVAL_MS = 1_000L;
+    static final long DEFAULT_DURATION_MS = 3_600_000L;
+    private static final String USAGE = "Usage: <trace file> [interval ms, default " + DEFAULT_INTERVAL_MS
+            + "] [duration ms, default " + DEFAULT_DURATION_MS + "]";
+
+    private InterfaceRecorder() {
+    }
+
+    /**
+     * Record the interfaces of this host.
+     *
+     * @param args trace file, then optionally the interval and the duration of the recording in milliseconds
+     * @throws IOException          if the interfaces cannot be listed or the file cannot be written
+     * @throws InterruptedException if interrupted
+     */
+    @SuppressWarnings({"PMD.SystemPrintln", "PMD.DoNotCallSystemExit"})
+    public static void main(String[] args) throws IOException, InterruptedException {
+        try {
+            if (args.length < 1 || args.length > 3) {
+                throw new IllegalArgumentException("Expected a trace file");
+            }
+            long intervalMs = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_INTERVAL_MS;
+            long durationMs = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_DURATION_MS;
+            record(Paths.get(args[0]), intervalMs, durationMs);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Record the interfaces of this host, appending a tick to the file at every interval so that an interrupted
+     * recording keeps its ticks.
+     *
+     * @param file       trace file, replaced if it exists
+     * @param intervalMs time between ticks, positive
+     * @param durationMs length of the recording, not negative
+     * @throws IOException              if the interfaces cannot be listed or the file cannot be written
+     * @throws InterruptedException     if interrupted
+     * @throws IllegalArgumentException if the interval is not positive or the duration is negative
+     */
+    public static void record(Path file, long intervalMs, long durationMs) throws IOException, InterruptedException {
+        if (intervalMs <= 0) {
+            throw new IllegalArgumentException("The interval must be positive: " + intervalMs);
+        }
+        if (durationMs < 0) {
+            throw new IllegalArgumentException("The duration must not be negative: " + durationMs);
+        }
+        long startNanos = System.nanoTime();
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.write('\n');
+            List<String> previous = null;
+            for (long tickMs = 0L; tickMs <= durationMs; tickMs += intervalMs) {
+                long waitMs = tickMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                if (waitMs > 0) {
+                    Thread.sleep(waitMs);
+                }
+                List<String> lines = capture();
+                writeTick(writer, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), lines, previous);
+                writer.flush();
+                previous = lines;
+            }
+        }
+    }
+
+    /**
+     * Capture the interfaces of this host.
+     *
+     * @return one line per interface
+     * @throws IOException if the interfaces cannot be listed
+     */
+    static List<String> capture() throws IOException {
+        Inet6AddressFlags flags = Inet6AddressFlags.read(Inet6AddressFlags.PROC_NET_IF_INET6);
+        List<String> lines = new ArrayList<>();
+        Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
+        while (interfaces != null && interfaces.hasMoreElements()) {
+            lines.add(format(interfaces.nextElement(), flags));
+        }
+        return lines;
+    }
+
+    /**
+     * Write a tick, as unchanged if it has the same interfaces as the previous one.
+     *
+     * @param writer   writer
+     * @param offsetMs time of the tick since the start of the trace
+     * @param lines    one line per interface
+     * @param previous lines of the previous tick, null for the first tick
+     * @throws IOException if the tick cannot be written
+     */
+    static void writeTick(Writer writer, long offsetMs, List<String> lines, List<String> previous)
+            throws IOException {
+        writer.write(TICK);
+        writer.write(Long.toString(offsetMs));
+        if (lines.equals(previous)) {
+            writer.write(' ');
+            writer.write(UNCHANGED);
+            writer.write('\n');
+            return;
+        }
+        writer.write('\n');
+        for (String line : lines) {
+            writer.write(line);
+            writer.write('\n');
+        }
+    }
+
+    //Default for JUnit Testing
+    static String format(NetworkInterface networkInterface, Inet6AddressFlags flags) throws SocketException {
+        String name = networkInterface.getName();
+        List<String> interfaceFlags = new ArrayList<>();
+        if (networkInterface.isUp()) {
+            interfaceFlags.add(UP);
+        }
+        boolean loopback = networkInterface.isLoopback();
+        if (loopback) {
+            interfaceFlags.add(LOOPBACK);
+        }
+        // The interface filter also treats the devices listed in sysfs as virtual
+        if (networkInterface.isVirtual() || !loopback && new File(InterfaceFilter.VIRTUAL_NET_DEVICES, name).exists()) {
+            interfaceFlags.add(VIRTUAL);
+        }
+        if (networkInterface.isPointToPoint()) {
+            interfaceFlags.add(POINT_TO_POINT);
+        }
+        StringBuilder line = new StringBuilder(name).append(' ').append(networkInterface.getIndex()).append(' ')
+                .append(interfaceFlags.isEmpty() ? NO_FLAGS : String.join(",", interfaceFlags));
+        for (InterfaceAddress interfaceAddress : networkInterface.getInterfaceAddresses()) {
+            InetAddress address = interfaceAddress.getAddress();
+            String literal = address.getHostAddress();
+            int scope = literal.indexOf('%');
+            line.append(' ').append(scope < 0 ? literal : literal.substring(0, scope)).append('/')
+                    .append(interfaceAddress.getNetworkPrefixLength());
+            int addressFlags = flags.flags(address);
+            if (addressFlags != Inet6AddressFlags.UNKNOWN_FLAGS) {
+                line.append('/').append(String.format(Locale.ROOT, "%02x", addressFlags));
+            }
+        }
+        return line.toString();
+    }
+}
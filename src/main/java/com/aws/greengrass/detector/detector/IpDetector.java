@@ -6,17 +6,58 @@
 package com.aws.greengrass.detector.detector;
 
 import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.executor.DetectorExecutors;
+import com.aws.greengrass.detector.metrics.DetectorMetrics;
 
-import java.net.Inet6Address;
 import java.net.InetAddress;
 import java.net.InterfaceAddress;
 import java.net.NetworkInterface;
 import java.net.SocketException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.concurrent.Executor;
+import javax.inject.Inject;
 
+/**
+ * Lists the endpoints of the interfaces that are up, filtered by the configuration.
+ *
+ * <p>Interfaces rejected by the configured {@link InterfaceFilter} are skipped before any of their
+ * addresses are read. Addresses outside the subnets allowed by the {@link CidrFilter} are dropped, the
+ * rest get their port and metadata from the {@link EndpointMapper} and are ordered by the
+ * {@link AddressRanker}. IPv6 addresses that are not stable and preferred, according to the
+ * {@link Inet6AddressFlags} of the kernel, are dropped as well.
+ *
+ * <p>Detection runs on every poll, so the result of an unchanged poll is the previously returned
+ * list instance rather than a new copy. Endpoints are collected into a reused buffer, endpoint
+ * instances of the previous result are reused when they still match, and the buffer is only copied
+ * when it differs from the previous result.
+ */
 public class IpDetector {
+    private final DetectorMetrics metrics;
+    private final Executor probeExecutor;
+    private final List<Endpoint> buffer = new ArrayList<>();
+    private long[] rankKeys = new long[16];
+    private List<Endpoint> lastResult = Collections.emptyList();
+
+    /**
+     * Constructor.
+     *
+     * @param metrics metrics recording the interface enumeration time
+     * @param executors IP detector executors, addresses are self-probed on the probe executor
+     */
+    @Inject
+    public IpDetector(DetectorMetrics metrics, DetectorExecutors executors) {
+        this.metrics = metrics;
+        this.probeExecutor = executors.getProbeExecutor();
+    }
+
+    //Default for JUnit Testing
+    IpDetector() {
+        this(DetectorMetrics.none(), new DetectorExecutors());
+    }
 
     /**
      * Fetches the device ip address.
@@ -26,49 +67,123 @@ public class IpDetector {
      * @throws SocketException SocketException
      */
     public List<InetAddress> getAllIpAddresses(Config config) throws SocketException {
-        return getIpAddresses(NetworkInterface.getNetworkInterfaces(), config);
+        return toAddresses(getAllEndpoints(config));
+    }
+
+    /**
+     * Fetches the device endpoints, with the port and metadata each address is reported with.
+     *
+     * @param config Configuration
+     * @return list of endpoints
+     * @throws SocketException SocketException
+     */
+    public List<Endpoint> getAllEndpoints(Config config) throws SocketException {
+        int mask = AddressFilter.compile(config);
+        if (mask == AddressFilter.NONE) {
+            // Every address would be filtered, skip enumerating the interfaces
+            return Collections.emptyList();
+        }
+        long startNanos = System.nanoTime();
+        Inet6AddressFlags addressFlags = (mask & AddressFilter.IPV6) == 0 ? Inet6AddressFlags.UNKNOWN
+                : Inet6AddressFlags.read(Inet6AddressFlags.PROC_NET_IF_INET6);
+        List<Endpoint> endpoints = getEndpoints(NetworkInterface.getNetworkInterfaces(), config, addressFlags);
+        metrics.recordEnumeration(startNanos);
+        return endpoints;
+    }
+
+    //Default for JUnit Testing
+    List<InetAddress> getIpAddresses(Enumeration<NetworkInterface> interfaces, Config config)
+            throws SocketException {
+        return toAddresses(getEndpoints(interfaces, config));
+    }
+
+    //Default for JUnit Testing
+    List<Endpoint> getEndpoints(Enumeration<NetworkInterface> interfaces, Config config) throws SocketException {
+        return getEndpoints(interfaces, config, Inet6AddressFlags.UNKNOWN);
     }
 
     //Default for JUnit Testing
-    List<InetAddress> getIpAddresses(Enumeration<NetworkInterface> interfaces, Config config) throws SocketException {
-        List<InetAddress> ipAddresses = new ArrayList<>();
+    synchronized List<Endpoint> getEndpoints(Enumeration<NetworkInterface> interfaces, Config config,
+                                             Inet6AddressFlags addressFlags) throws SocketException {
         if (interfaces == null) {
-            return ipAddresses;
+            return Collections.emptyList();
         }
 
+        int mask = AddressFilter.compile(config);
+        InterfaceFilter interfaceFilter = config.getInterfaceFilter();
+        if (interfaceFilter == null) {
+            interfaceFilter = InterfaceFilter.ACCEPT_ALL;
+        }
+        CidrFilter cidrFilter = config.getCidrFilter();
+        if (cidrFilter == null) {
+            cidrFilter = CidrFilter.ACCEPT_ALL;
+        }
+        EndpointMapper mapper = config.getEndpointMapper();
+        if (mapper == null) {
+            mapper = EndpointMapper.NONE;
+        }
+        AddressRanker ranker = config.getAddressRanker();
+        boolean rank = ranker != null && ranker.isEnabled();
+        int defaultPort = config.getDefaultPort();
+        boolean includeTemporary = config.isIncludeIPv6TemporaryAddrs();
+        buffer.clear();
         while (interfaces.hasMoreElements()) {
             NetworkInterface networkInterface = interfaces.nextElement();
-            if (!networkInterface.isUp()) {
+            if (!networkInterface.isUp() || !interfaceFilter.accepts(networkInterface)) {
                 continue;
             }
 
-            for (InterfaceAddress interfaceAddress : networkInterface.getInterfaceAddresses()) {
-                InetAddress address = interfaceAddress.getAddress();
-                if (address instanceof Inet6Address) {
-                    if (!config.isIncludeIPv6Addrs()) {
-                        continue;
-                    }
-                    if (address.isLinkLocalAddress() && !config.isIncludeIPv6LinkLocalAddrs()) {
-                        continue;
-                    }
-                    if (address.isLoopbackAddress() && !config.isIncludeIPv6LoopbackAddrs()) {
-                        continue;
-                    }
-                } else {
-                    if (!config.isIncludeIPv4Addrs()) {
-                        continue;
-                    }
-                    if (address.isLoopbackAddress() && !config.isIncludeIPv4LoopbackAddrs()) {
-                        continue;
-                    }
-                    if (address.isLinkLocalAddress() && !config.isIncludeIPv4LinkLocalAddrs()) {
-                        continue;
+            List<InterfaceAddress> interfaceAddresses = networkInterface.getInterfaceAddresses();
+            long interfaceRank = rank ? ranker.interfaceRank(networkInterface) : 0L;
+            long interfaceRules = mapper.isEnabled() ? mapper.interfaceRules(networkInterface.getName()) : 0L;
+            for (int i = 0; i < interfaceAddresses.size(); i++) {
+                InetAddress address = interfaceAddresses.get(i).getAddress();
+                if (AddressFilter.accepts(mask, address) && cidrFilter.accepts(address)
+                        && addressFlags.accepts(address, includeTemporary)) {
+                    if (rank) {
+                        addRankKey(ranker.rankKey(interfaceRank, address));
                     }
+                    int rule = mapper.isEnabled() ? mapper.resolve(interfaceRules, address) : EndpointMapper.NO_RULE;
+                    buffer.add(endpoint(address, mapper.port(rule, defaultPort), mapper.metadata(rule)));
                 }
-                ipAddresses.add(address);
             }
         }
-        return ipAddresses;
+        if (rank) {
+            ranker.sort(buffer, rankKeys, buffer.size(), probeExecutor);
+        }
+        if (!buffer.equals(lastResult)) {
+            lastResult = Collections.unmodifiableList(new ArrayList<>(buffer));
+        }
+        buffer.clear();
+        return lastResult;
     }
-}
 
+    /**
+     * Reuse the endpoint instance of the previous result at the same position if it still matches.
+     */
+    private Endpoint endpoint(InetAddress address, int port, String metadata) {
+        int index = buffer.size();
+        if (index < lastResult.size()) {
+            Endpoint previous = lastResult.get(index);
+            if (previous.matches(address, port, metadata)) {
+                return previous;
+            }
+        }
+        return Endpoint.of(address, port, metadata);
+    }
+
+    private void addRankKey(long key) {
+        if (buffer.size() == rankKeys.length) {
+            rankKeys = Arrays.copyOf(rankKeys, rankKeys.length * 2);
+        }
+        rankKeys[buffer.size()] = key;
+    }
+
+    private static List<InetAddress> toAddresses(List<Endpoint> endpoints) {
+        List<InetAddress> addresses = new ArrayList<>(endpoints.size());
+        for (Endpoint endpoint : endpoints) {
+            addresses.add(endpoint.getAddress());
+        }
+        return addresses;
+    }
+}
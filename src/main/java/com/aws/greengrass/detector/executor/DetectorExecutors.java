@@ -0,0 +1,194 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.executor;
+
+import com.aws.greengrass.logging.api.Logger;
+import com.aws.greengrass.logging.impl.LogManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Inject;
+
+/**
+ * Threads of the IP detector, kept apart from the executors shared by the rest of the nucleus.
+ *
+ * <p>The scheduler is a single thread running detection and the delayed work around it. The I/O executor
+ * runs blocking network calls, such as asynchronous uploads and endpoint source refreshes, on at most
+ * {@value #IO_THREADS} threads with a queue of {@value #IO_QUEUE_CAPACITY} tasks. Work beyond that is
+ * rejected instead of piling up behind a hung call. The probe executor runs the self-probes of the address
+ * ranker the same way, on at most {@value #PROBE_THREADS} threads with a queue of {@value #PROBE_QUEUE_CAPACITY}
+ * tasks, so that probes never hold up uploads. Idle threads exit, so the executors need no explicit start and
+ * survive a restart of the service.
+ */
+public class DetectorExecutors {
+    private static final Logger logger = LogManager.getLogger(DetectorExecutors.class);
+    static final int IO_THREADS = 2;
+    static final int IO_QUEUE_CAPACITY = 16;
+    static final int PROBE_THREADS = 4;
+    static final int PROBE_QUEUE_CAPACITY = 32;
+    static final long KEEP_ALIVE_SECONDS = 30L;
+    private static final long BUSY_WAIT_MS = 10L;
+
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final ThreadPoolExecutor ioExecutor;
+    private final ThreadPoolExecutor probeExecutor;
+    private final AtomicLong ioRejectedCount = new AtomicLong();
+    private final AtomicLong probeRejectedCount = new AtomicLong();
+
+    /**
+     * Constructor.
+     */
+    @Inject
+    public DetectorExecutors() {
+        this(IO_THREADS, IO_QUEUE_CAPACITY, PROBE_THREADS, PROBE_QUEUE_CAPACITY);
+    }
+
+    //Default for JUnit Testing
+    DetectorExecutors(int ioThreads, int ioQueueCapacity, int probeThreads, int probeQueueCapacity) {
+        scheduler = new ScheduledThreadPoolExecutor(1, daemonThreads("ip-detector-scheduler-"));
+        scheduler.setRemoveOnCancelPolicy(true);
+        scheduler.setKeepAliveTime(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+        scheduler.allowCoreThreadTimeOut(true);
+        ioExecutor = new ThreadPoolExecutor(ioThreads, ioThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(ioQueueCapacity), daemonThreads("ip-detector-io-"), (task, executor) -> {
+                    ioRejectedCount.incrementAndGet();
+                    throw new RejectedExecutionException("The IP detector I/O queue is full");
+                });
+        ioExecutor.allowCoreThreadTimeOut(true);
+        probeExecutor = new ThreadPoolExecutor(probeThreads, probeThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(probeQueueCapacity), daemonThreads("ip-detector-probe-"),
+                (task, executor) -> {
+                    probeRejectedCount.incrementAndGet();
+                    throw new RejectedExecutionException("The IP detector probe queue is full");
+                });
+        probeExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Single-threaded scheduler for detection runs and delayed work.
+     *
+     * @return scheduler
+     */
+    public ScheduledExecutorService getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Bounded executor for blocking network I/O. Submitting throws {@link RejectedExecutionException}
+     * when its queue is full.
+     *
+     * @return I/O executor
+     */
+    public ExecutorService getIoExecutor() {
+        return ioExecutor;
+    }
+
+    /**
+     * Bounded executor for the self-probes of the address ranker. Submitting throws
+     * {@link RejectedExecutionException} when its queue is full.
+     *
+     * @return probe executor
+     */
+    public ExecutorService getProbeExecutor() {
+        return probeExecutor;
+    }
+
+    /**
+     * Number of tasks waiting on the scheduler, including the delayed ones.
+     *
+     * @return scheduler queue depth
+     */
+    public int getSchedulerQueueDepth() {
+        return scheduler.getQueue().size();
+    }
+
+    /**
+     * Number of tasks waiting for an I/O thread.
+     *
+     * @return I/O queue depth
+     */
+    public int getIoQueueDepth() {
+        return ioExecutor.getQueue().size();
+    }
+
+    /**
+     * Number of I/O threads running a task.
+     *
+     * @return active I/O thread count
+     */
+    public int getIoActiveCount() {
+        return ioExecutor.getActiveCount();
+    }
+
+    /**
+     * Number of I/O tasks rejected because the queue was full.
+     *
+     * @return rejected count
+     */
+    public long getIoRejectedCount() {
+        return ioRejectedCount.get();
+    }
+
+    /**
+     * Number of self-probes rejected because the queue was full.
+     *
+     * @return rejected count
+     */
+    public long getProbeRejectedCount() {
+        return probeRejectedCount.get();
+    }
+
+    /**
+     * Drop all queued work and wait for running tasks to finish. The executors stay usable.
+     *
+     * @param timeoutMs maximum time to wait for running tasks
+     * @return true if no task is running any more
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean cancelAll(long timeoutMs) throws InterruptedException {
+        List<Runnable> dropped = new ArrayList<>(scheduler.getQueue());
+        ioExecutor.getQueue().drainTo(dropped);
+        probeExecutor.getQueue().drainTo(dropped);
+        for (Runnable task : dropped) {
+            if (task instanceof Future) {
+                ((Future<?>) task).cancel(false);
+            }
+            scheduler.remove(task);
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (scheduler.getActiveCount() + ioExecutor.getActiveCount() + probeExecutor.getActiveCount() > 0) {
+            if (System.nanoTime() - deadline >= 0) {
+                logger.atWarn().kv("schedulerActive", scheduler.getActiveCount())
+                        .kv("ioActive", ioExecutor.getActiveCount()).kv("probeActive", probeExecutor.getActiveCount())
+                        .log("IP detector tasks are still running after cancellation");
+                return false;
+            }
+            Thread.sleep(BUSY_WAIT_MS);
+        }
+        logger.atDebug().kv("droppedTasks", dropped.size()).log("Cancelled IP detector tasks");
+        return true;
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.mdns;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The parts of the multicast DNS wire format (RFC 6762) the advertiser needs: encoding responses and
+ * decoding the questions and answers of received messages.
+ */
+final class DnsMessage {
+    static final int HEADER_LENGTH = 12;
+    // Response, authoritative answer
+    static final int RESPONSE_FLAGS = 0x8400;
+    private static final int FLAG_RESPONSE = 0x8000;
+    private static final int CLASS_IN = 1;
+    // Cache flush bit of a record class, unicast response bit of a question class
+    private static final int CLASS_TOP_BIT = 0x8000;
+    private static final int POINTER_MASK = 0xC0;
+    private static final int MAX_POINTERS = 32;
+    private static final long MAX_TTL = 0xFFFFFFFFL;
+
+    private final boolean response;
+    private final List<Question> questions;
+    private final List<DnsRecord> answers;
+
+    /**
+     * A question of a query.
+     */
+    static final class Question {
+        private final String name;
+        private final int type;
+
+        Question(String name, int type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        int getType() {
+            return type;
+        }
+    }
+
+    private DnsMessage(boolean response, List<Question> questions, List<DnsRecord> answers) {
+        this.response = response;
+        this.questions = questions;
+        this.answers = answers;
+    }
+
+    boolean isResponse() {
+        return response;
+    }
+
+    List<Question> getQuestions() {
+        return questions;
+    }
+
+    /**
+     * Records of the answer section. In a query these are the answers the querier already knows.
+     *
+     * @return answers
+     */
+    List<DnsRecord> getAnswers() {
+        return answers;
+    }
+
+    /**
+     * Encode records as unsolicited responses, split into as many messages as needed to keep each one
+     * within the given size.
+     *
+     * @param records        records to send
+     * @param maxMessageSize maximum size of a message in bytes
+     * @return encoded messages, empty if there is no record
+     */
+    static List<byte[]> encodeResponses(Collection<DnsRecord> records, int maxMessageSize) {
+        List<byte[]> messages = new ArrayList<>();
+        List<byte[]> pending = new ArrayList<>();
+        int size = HEADER_LENGTH;
+        for (DnsRecord record : records) {
+            byte[] encoded = encodeRecord(record);
+            if (!pending.isEmpty() && size + encoded.length > maxMessageSize) {
+                messages.add(encodeMessage(pending));
+                pending.clear();
+                size = HEADER_LENGTH;
+            }
+            pending.add(encoded);
+            size += encoded.length;
+        }
+        if (!pending.isEmpty()) {
+            messages.add(encodeMessage(pending));
+        }
+        return messages;
+    }
+
+    /**
+     * Decode a received message. Authority and additional records are ignored.
+     *
+     * @param buffer message bytes
+     * @param length message length
+     * @return decoded message
+     * @throws IllegalArgumentException if the message is malformed
+     */
+    static DnsMessage decode(byte[] buffer, int length) {
+        Reader reader = new Reader(buffer, length);
+        reader.readShort();
+        boolean response = (reader.readShort() & FLAG_RESPONSE) != 0;
+        int questionCount = reader.readShort();
+        int answerCount = reader.readShort();
+        reader.readShort();
+        reader.readShort();
+        List<Question> questions = new ArrayList<>(questionCount);
+        for (int i = 0; i < questionCount; i++) {
+            String name = reader.readName();
+            int type = reader.readShort();
+            reader.readShort();
+            questions.add(new Question(name, type));
+        }
+        List<DnsRecord> answers = new ArrayList<>(answerCount);
+        for (int i = 0; i < answerCount; i++) {
+            answers.add(reader.readRecord());
+        }
+        return new DnsMessage(response, Collections.unmodifiableList(questions),
+                Collections.unmodifiableList(answers));
+    }
+
+    private static byte[] encodeMessage(List<byte[]> records) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // Multicast DNS messages carry an ID of 0
+        DnsRecord.writeShort(out, 0);
+        DnsRecord.writeShort(out, RESPONSE_FLAGS);
+        DnsRecord.writeShort(out, 0);
+        DnsRecord.writeShort(out, records.size());
+        DnsRecord.writeShort(out, 0);
+        DnsRecord.writeShort(out, 0);
+        for (byte[] record : records) {
+            out.write(record, 0, record.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeRecord(DnsRecord record) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] name = DnsRecord.encodeName(record.getName());
+        out.write(name, 0, name.length);
+        DnsRecord.writeShort(out, record.getType());
+        DnsRecord.writeShort(out, record.isCacheFlush() ? CLASS_IN | CLASS_TOP_BIT : CLASS_IN);
+        long ttl = Math.min(MAX_TTL, Math.max(0L, record.getTtlSeconds()));
+        DnsRecord.writeShort(out, (int) (ttl >>> 16));
+        DnsRecord.writeShort(out, (int) ttl & 0xFFFF);
+        byte[] data = record.getData();
+        DnsRecord.writeShort(out, data.length);
+        out.write(data, 0, data.length);
+        return out.toByteArray();
+    }
+
+    private static final class Reader {
+        private final byte[] buffer;
+        private final int length;
+        private int position;
+
+        Reader(byte[] buffer, int length) {
+            this.buffer = buffer;
+            this.length = Math.min(length, buffer.length);
+        }
+
+        int readByte() {
+            return byteAt(position++);
+        }
+
+        int readShort() {
+            return readByte() << 8 | readByte();
+        }
+
+        long readInt() {
+            return (long) readShort() << 16 | readShort();
+        }
+
+        String readName() {
+            StringBuilder name = new StringBuilder();
+            position = readName(position, name);
+            return name.toString();
+        }
+
+        /**
+         * Read a possibly compressed name starting at the offset.
+         *
+         * @return offset following the name where it started
+         */
+        private int readName(int offset, StringBuilder name) {
+            int current = offset;
+            int next = -1;
+            int pointers = 0;
+            while (true) {
+                int labelLength = byteAt(current);
+                if ((labelLength & POINTER_MASK) == POINTER_MASK) {
+                    if (++pointers > MAX_POINTERS) {
+                        throw new IllegalArgumentException("DNS name compression loop");
+                    }
+                    if (next < 0) {
+                        next = current + 2;
+                    }
+                    current = (labelLength & ~POINTER_MASK) << 8 | byteAt(current + 1);
+                    continue;
+                }
+                if (labelLength == 0) {
+                    return next < 0 ? current + 1 : next;
+                }
+                if (labelLength > DnsRecord.MAX_LABEL_LENGTH || current + 1 + labelLength > length) {
+                    throw new IllegalArgumentException("Invalid DNS label at offset " + current);
+                }
+                if (name.length() > 0) {
+                    name.append('.');
+                }
+                name.append(new String(buffer, current + 1, labelLength, StandardCharsets.UTF_8));
+                current += 1 + labelLength;
+            }
+        }
+
+        DnsRecord readRecord() {
+            String name = readName();
+            int type = readShort();
+            boolean cacheFlush = (readShort() & CLASS_TOP_BIT) != 0;
+            long ttl = readInt();
+            int dataLength = readShort();
+            int dataEnd = position + dataLength;
+            if (dataEnd > length) {
+                throw new IllegalArgumentException("Truncated DNS record " + name);
+            }
+            byte[] data;
+            if (type == DnsRecord.TYPE_PTR) {
+                data = DnsRecord.encodeName(readName());
+            } else if (type == DnsRecord.TYPE_SRV) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                for (int i = 0; i < 3; i++) {
+                    DnsRecord.writeShort(out, readShort());
+                }
+                byte[] target = DnsRecord.encodeName(readName());
+                out.write(target, 0, target.length);
+                data = out.toByteArray();
+            } else {
+                data = new byte[dataLength];
+                System.arraycopy(buffer, position, data, 0, dataLength);
+            }
+            position = dataEnd;
+            return new DnsRecord(name, type, cacheFlush, ttl, data);
+        }
+
+        private int byteAt(int offset) {
+            if (offset >= length) {
+                throw new IllegalArgumentException("Truncated DNS message");
+            }
+            return buffer[offset] & 0xFF;
+        }
+    }
+}
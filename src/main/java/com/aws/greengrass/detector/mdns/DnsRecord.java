@@ -0,0 +1,181 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.mdns;
+
+import java.io.ByteArrayOutputStream;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A DNS resource record of the class IN with its data in wire format.
+ *
+ * <p>Names in the data are stored uncompressed, so two records are equal when they have the same name, type
+ * and data, whatever their TTL.
+ */
+final class DnsRecord {
+    static final int TYPE_A = 1;
+    static final int TYPE_PTR = 12;
+    static final int TYPE_TXT = 16;
+    static final int TYPE_AAAA = 28;
+    static final int TYPE_SRV = 33;
+    static final int TYPE_ANY = 255;
+    static final int MAX_LABEL_LENGTH = 63;
+    private static final int MAX_STRING_LENGTH = 255;
+
+    private final String name;
+    private final int type;
+    private final boolean cacheFlush;
+    private final long ttlSeconds;
+    private final byte[] data;
+
+    DnsRecord(String name, int type, boolean cacheFlush, long ttlSeconds, byte[] data) {
+        this.name = name;
+        this.type = type;
+        this.cacheFlush = cacheFlush;
+        this.ttlSeconds = ttlSeconds;
+        this.data = data;
+    }
+
+    /**
+     * Shared PTR record, for example from the service type to one of its instances.
+     */
+    static DnsRecord ptr(String name, String target, long ttlSeconds) {
+        return new DnsRecord(name, TYPE_PTR, false, ttlSeconds, encodeName(target));
+    }
+
+    /**
+     * Unique SRV record pointing a service instance to its host and port.
+     */
+    static DnsRecord srv(String name, String host, int port, long ttlSeconds) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // Priority and weight
+        writeShort(out, 0);
+        writeShort(out, 0);
+        writeShort(out, port);
+        byte[] target = encodeName(host);
+        out.write(target, 0, target.length);
+        return new DnsRecord(name, TYPE_SRV, true, ttlSeconds, out.toByteArray());
+    }
+
+    /**
+     * Unique TXT record with the key/value pairs of a service instance.
+     */
+    static DnsRecord txt(String name, List<String> entries, long ttlSeconds) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (String entry : entries) {
+            byte[] bytes = entry.getBytes(StandardCharsets.UTF_8);
+            int length = Math.min(bytes.length, MAX_STRING_LENGTH);
+            out.write(length);
+            out.write(bytes, 0, length);
+        }
+        if (out.size() == 0) {
+            // A TXT record holds at least one string
+            out.write(0);
+        }
+        return new DnsRecord(name, TYPE_TXT, true, ttlSeconds, out.toByteArray());
+    }
+
+    /**
+     * Unique A or AAAA record of a host.
+     */
+    static DnsRecord address(String name, InetAddress address, long ttlSeconds) {
+        int type = address instanceof Inet4Address ? TYPE_A : TYPE_AAAA;
+        return new DnsRecord(name, type, true, ttlSeconds, address.getAddress());
+    }
+
+    /**
+     * The same record with another TTL, a TTL of 0 announces that the record is gone.
+     */
+    DnsRecord withTtl(long newTtlSeconds) {
+        return new DnsRecord(name, type, cacheFlush, newTtlSeconds, data);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getType() {
+        return type;
+    }
+
+    boolean isCacheFlush() {
+        return cacheFlush;
+    }
+
+    long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    byte[] getData() {
+        return data.clone();
+    }
+
+    /**
+     * Whether this record answers a question.
+     *
+     * @param questionName name asked for
+     * @param questionType type asked for
+     * @return true if the record answers the question
+     */
+    boolean answers(String questionName, int questionType) {
+        return (questionType == TYPE_ANY || questionType == type) && name.equalsIgnoreCase(questionName);
+    }
+
+    /**
+     * Encode a domain name as a sequence of labels, without compression.
+     *
+     * @param name dot separated name
+     * @return encoded name
+     * @throws IllegalArgumentException if a label is longer than {@value #MAX_LABEL_LENGTH} bytes
+     */
+    static byte[] encodeName(String name) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (String label : name.split("\\.")) {
+            if (label.isEmpty()) {
+                continue;
+            }
+            byte[] bytes = label.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > MAX_LABEL_LENGTH) {
+                throw new IllegalArgumentException("DNS label longer than " + MAX_LABEL_LENGTH + " bytes: " + label);
+            }
+            out.write(bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+        out.write(0);
+        return out.toByteArray();
+    }
+
+    static void writeShort(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 8 & 0xFF);
+        out.write(value & 0xFF);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DnsRecord)) {
+            return false;
+        }
+        DnsRecord that = (DnsRecord) o;
+        return type == that.type && name.equalsIgnoreCase(that.name) && Arrays.equals(data, that.data);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * name.toLowerCase(Locale.ROOT).hashCode() + type) + Arrays.hashCode(data);
+    }
+
+    @Override
+    public String toString() {
+        return name + " type " + type + " ttl " + ttlSeconds;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.mdns;
+
+import com.aws.greengrass.detector.detector.Endpoint;
+
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Builds the DNS-SD (RFC 6763) records advertising the broker endpoints of one interface.
+ *
+ * <p>Every port is a service instance with PTR, SRV and TXT records. The instances point to one host name in
+ * the {@code local} domain, which has an A or AAAA record per address. When the endpoints use several ports,
+ * the port is appended to the instance name to keep the names unique.
+ */
+final class DnsSdRecords {
+    static final String LOCAL_DOMAIN = "local";
+    static final String SERVICES_NAME = "_services._dns-sd._udp." + LOCAL_DOMAIN;
+    static final String DEFAULT_HOST_LABEL = "greengrass-core";
+    static final String TXT_VERSION = "txtvers=1";
+    // RFC 6762 section 10: 120 seconds for records with a host name, 75 minutes for the others
+    static final long HOST_TTL_SECONDS = 120L;
+    static final long SERVICE_TTL_SECONDS = 4500L;
+
+    private DnsSdRecords() {
+    }
+
+    /**
+     * Build the records of the endpoints. Endpoints without a detected address are skipped.
+     *
+     * @param instanceName name of the service instance, typically the thing name
+     * @param serviceType  service type, such as {@code _secure-mqtt._tcp}
+     * @param endpoints    endpoints of one interface
+     * @return records, empty if no endpoint has an address
+     */
+    static Set<DnsRecord> build(String instanceName, String serviceType, Collection<Endpoint> endpoints) {
+        SortedSet<Integer> ports = new TreeSet<>();
+        Set<InetAddress> addresses = new LinkedHashSet<>();
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.getAddress() != null) {
+                ports.add(endpoint.getPort());
+                addresses.add(endpoint.getAddress());
+            }
+        }
+        if (addresses.isEmpty()) {
+            return Collections.emptySet();
+        }
+        String serviceName = serviceType + '.' + LOCAL_DOMAIN;
+        String host = hostLabel(instanceName) + '.' + LOCAL_DOMAIN;
+        Set<DnsRecord> records = new LinkedHashSet<>();
+        records.add(DnsRecord.ptr(SERVICES_NAME, serviceName, SERVICE_TTL_SECONDS));
+        for (int port : ports) {
+            String label = ports.size() == 1 ? instanceName : instanceName + '-' + port;
+            String instance = instanceLabel(label) + '.' + serviceName;
+            records.add(DnsRecord.ptr(serviceName, instance, SERVICE_TTL_SECONDS));
+            records.add(DnsRecord.srv(instance, host, port, HOST_TTL_SECONDS));
+            records.add(DnsRecord.txt(instance, Collections.singletonList(TXT_VERSION), SERVICE_TTL_SECONDS));
+        }
+        for (InetAddress address : addresses) {
+            records.add(DnsRecord.address(host, address, HOST_TTL_SECONDS));
+        }
+        return records;
+    }
+
+    /**
+     * Instance names may hold any character, except the dot which separates the labels here.
+     */
+    static String instanceLabel(String name) {
+        return truncate(name.replace('.', '-'));
+    }
+
+    /**
+     * Host names are restricted to letters, digits and hyphens.
+     */
+    static String hostLabel(String name) {
+        StringBuilder label = new StringBuilder(name.length());
+        for (char c : name.toCharArray()) {
+            boolean valid = c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9';
+            label.append(valid ? c : '-');
+        }
+        String host = truncate(label.toString()).replaceAll("^-+|-+$", "");
+        return host.isEmpty() ? DEFAULT_HOST_LABEL : host;
+    }
+
+    private static String truncate(String label) {
+        String truncated = label;
+        while (truncated.getBytes(StandardCharsets.UTF_8).length > DnsRecord.MAX_LABEL_LENGTH) {
+            truncated = truncated.substring(0, truncated.length() - 1);
+        }
+        return truncated;
+    }
+}
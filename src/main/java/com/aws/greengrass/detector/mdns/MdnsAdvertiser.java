@@ -0,0 +1,466 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.mdns;
+
+import com.aws.greengrass.deployment.DeviceConfiguration;
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.connectivity.ConnectivityCache;
+import com.aws.greengrass.detector.connectivity.ConnectivitySnapshot;
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.detector.executor.DetectorExecutors;
+import com.aws.greengrass.logging.api.Logger;
+import com.aws.greengrass.logging.impl.LogManager;
+import com.aws.greengrass.util.Coerce;
+import com.aws.greengrass.util.Utils;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.InterfaceAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.inject.Inject;
+
+/**
+ * Advertises the detected endpoints on the local network with multicast DNS and DNS-SD, so that client
+ * devices on the same link find the broker without a round trip to the cloud.
+ *
+ * <p>The endpoints are grouped by the interface holding their address, and every interface advertises only
+ * its own addresses. When the detected endpoints change, only the interfaces whose records changed are
+ * announced again: records that are gone are sent with a TTL of 0, the current ones are announced
+ * {@value #ANNOUNCEMENTS} times. Messages on an interface are at least {@code mdnsMinAnnounceIntervalMs}
+ * apart, and never less than {@value #MIN_INTERVAL_MS} ms, so that flapping addresses do not flood the link.
+ * Queries for the advertised names are answered under the same limit, unless the querier already knows all
+ * the records.
+ */
+@SuppressWarnings("PMD.AvoidCatchingGenericException")
+public class MdnsAdvertiser {
+    private static final Logger logger = LogManager.getLogger(MdnsAdvertiser.class);
+    static final int MDNS_PORT = 5353;
+    static final String IPV4_GROUP = "224.0.0.251";
+    static final String IPV6_GROUP = "ff02::fb";
+    static final int ANNOUNCEMENTS = 2;
+    // RFC 6762 section 6: a record is not multicast more than once per second
+    static final long MIN_INTERVAL_MS = 1_000L;
+    // Fits in an Ethernet frame with the IPv6 and UDP headers
+    static final int MAX_MESSAGE_SIZE = 1_440;
+    private static final int RECEIVE_BUFFER_SIZE = 9_000;
+    private static final int MULTICAST_TTL = 255;
+    private static final long NEVER = Long.MIN_VALUE;
+
+    private final ConnectivityCache cache;
+    private final ScheduledExecutorService scheduler;
+    private final Supplier<String> thingName;
+    private final int port;
+    private final Clock clock;
+    private final Consumer<ConnectivitySnapshot> listener = snapshot -> refresh();
+    private final Map<String, InterfaceState> interfaces = new LinkedHashMap<>();
+    private Config config;
+    private MulticastSocket socket;
+
+    /**
+     * Constructor.
+     *
+     * @param cache               cache holding the detected endpoints
+     * @param executors           threads of the IP detector, announcements run on the scheduler
+     * @param deviceConfiguration device configuration, for the default instance name
+     */
+    @Inject
+    public MdnsAdvertiser(ConnectivityCache cache, DetectorExecutors executors,
+                          DeviceConfiguration deviceConfiguration) {
+        this(cache, executors.getScheduler(), () -> Coerce.toString(deviceConfiguration.getThingName()), MDNS_PORT,
+                Clock.systemUTC());
+    }
+
+    //Default for JUnit Testing
+    MdnsAdvertiser(ConnectivityCache cache, ScheduledExecutorService scheduler, Supplier<String> thingName,
+                   int port, Clock clock) {
+        this.cache = cache;
+        this.scheduler = scheduler;
+        this.thingName = thingName;
+        this.port = port;
+        this.clock = clock;
+    }
+
+    /**
+     * Start advertising the detected endpoints and answering queries for them.
+     *
+     * @param newConfig Configuration
+     */
+    public void start(Config newConfig) {
+        synchronized (this) {
+            if (socket != null) {
+                return;
+            }
+            try {
+                socket = openSocket();
+            } catch (IOException e) {
+                logger.atWarn().kv("port", port)
+                        .log("Unable to open the multicast DNS socket, endpoints are not advertised", e);
+                return;
+            }
+            config = newConfig;
+            MulticastSocket opened = socket;
+            Thread receiverThread = new Thread(() -> receive(opened), "ip-detector-mdns");
+            receiverThread.setDaemon(true);
+            receiverThread.start();
+        }
+        logger.atInfo().kv("port", port).log("Advertising endpoints with multicast DNS");
+        cache.addListener(listener);
+        refresh();
+    }
+
+    /**
+     * Withdraw the advertised records and stop answering queries.
+     */
+    public void stop() {
+        cache.removeListener(listener);
+        synchronized (this) {
+            if (socket == null) {
+                return;
+            }
+            for (InterfaceState state : interfaces.values()) {
+                withdraw(state);
+            }
+            interfaces.clear();
+            // Unblocks the receiver thread
+            socket.close();
+            socket = null;
+            config = null;
+        }
+    }
+
+    /**
+     * Advertise the endpoints currently detected. Runs whenever they change, and after configuration updates.
+     */
+    public void refresh() {
+        Map<String, List<Endpoint>> endpointsByInterface = new LinkedHashMap<>();
+        Map<String, NetworkInterface> networkInterfaces = new LinkedHashMap<>();
+        // Interface lookups are system calls, keep them out of the lock
+        for (Endpoint endpoint : cache.getSnapshot().getDetected()) {
+            NetworkInterface networkInterface = interfaceOf(endpoint.getAddress());
+            if (networkInterface != null) {
+                networkInterfaces.putIfAbsent(networkInterface.getName(), networkInterface);
+                endpointsByInterface.computeIfAbsent(networkInterface.getName(), name -> new ArrayList<>())
+                        .add(endpoint);
+            }
+        }
+        synchronized (this) {
+            if (socket == null) {
+                return;
+            }
+            String instanceName = instanceName(config);
+            Map<String, Set<DnsRecord>> recordsByInterface = new LinkedHashMap<>();
+            try {
+                for (Map.Entry<String, List<Endpoint>> entry : endpointsByInterface.entrySet()) {
+                    recordsByInterface.put(entry.getKey(),
+                            DnsSdRecords.build(instanceName, config.getMdnsServiceType(), entry.getValue()));
+                }
+            } catch (IllegalArgumentException e) {
+                logger.atWarn().kv("instanceName", instanceName).kv("serviceType", config.getMdnsServiceType())
+                        .log("Unable to build the multicast DNS records", e);
+                return;
+            }
+            Iterator<InterfaceState> iterator = interfaces.values().iterator();
+            while (iterator.hasNext()) {
+                InterfaceState state = iterator.next();
+                if (!recordsByInterface.containsKey(state.name)) {
+                    withdraw(state);
+                    iterator.remove();
+                }
+            }
+            for (Map.Entry<String, Set<DnsRecord>> entry : recordsByInterface.entrySet()) {
+                InterfaceState state = interfaces.get(entry.getKey());
+                if (state == null) {
+                    state = new InterfaceState(networkInterfaces.get(entry.getKey()));
+                    join(state);
+                    interfaces.put(state.name, state);
+                }
+                update(state, entry.getValue());
+            }
+        }
+    }
+
+    //Default for JUnit Testing
+    synchronized void handle(DnsMessage message, InetAddress source) {
+        if (message.isResponse() || socket == null) {
+            return;
+        }
+        for (InterfaceState state : interfaces.values()) {
+            if (isOnLink(state.networkInterface, source) && asksFor(message, state.records)
+                    && !knowsAll(message, state.records)) {
+                logger.atDebug().kv("interface", state.name).kv("source", source)
+                        .log("Answering multicast DNS query");
+                schedule(state);
+            }
+        }
+    }
+
+    private void update(InterfaceState state, Set<DnsRecord> records) {
+        if (records.equals(state.records)) {
+            return;
+        }
+        for (DnsRecord record : state.records) {
+            if (!records.contains(record)) {
+                state.goodbyes.add(record.withTtl(0L));
+            }
+        }
+        state.goodbyes.removeAll(records);
+        state.records = records;
+        state.announcementsLeft = ANNOUNCEMENTS;
+        logger.atDebug().kv("interface", state.name).kv("records", records.size())
+                .kv("goodbyes", state.goodbyes.size()).log("Multicast DNS records changed");
+        schedule(state);
+    }
+
+    /**
+     * Send the pending records of the interface as soon as the rate limit allows. Changes made before
+     * the send are picked up by it.
+     */
+    private void schedule(InterfaceState state) {
+        if (state.pending != null) {
+            return;
+        }
+        long intervalMs = Math.max(MIN_INTERVAL_MS, config.getMdnsMinAnnounceIntervalMs());
+        long delayMs = state.lastSentMs == NEVER ? 0L : Math.max(0L, state.lastSentMs + intervalMs - clock.millis());
+        state.pending = scheduler.schedule(() -> flush(state), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void flush(InterfaceState state) {
+        state.pending = null;
+        if (socket == null || interfaces.get(state.name) != state) {
+            return;
+        }
+        List<DnsRecord> records = new ArrayList<>(state.goodbyes);
+        records.addAll(state.records);
+        state.goodbyes.clear();
+        send(state, records);
+        state.lastSentMs = clock.millis();
+        if (state.announcementsLeft > 0) {
+            state.announcementsLeft--;
+        }
+        if (state.announcementsLeft > 0) {
+            schedule(state);
+        }
+    }
+
+    private void withdraw(InterfaceState state) {
+        if (state.pending != null) {
+            state.pending.cancel(false);
+            state.pending = null;
+        }
+        List<DnsRecord> goodbyes = new ArrayList<>(state.goodbyes);
+        for (DnsRecord record : state.records) {
+            goodbyes.add(record.withTtl(0L));
+        }
+        send(state, goodbyes);
+        for (InetSocketAddress group : state.joinedGroups) {
+            try {
+                socket.leaveGroup(group, state.networkInterface);
+            } catch (IOException e) {
+                logger.atDebug().kv("interface", state.name).kv("group", group)
+                        .log("Unable to leave the multicast DNS group", e);
+            }
+        }
+    }
+
+    private void send(InterfaceState state, List<DnsRecord> records) {
+        for (byte[] message : DnsMessage.encodeResponses(records, MAX_MESSAGE_SIZE)) {
+            for (InetSocketAddress group : state.groups) {
+                try {
+                    socket.setNetworkInterface(state.networkInterface);
+                    socket.send(new DatagramPacket(message, message.length, group));
+                } catch (IOException e) {
+                    logger.atDebug().kv("interface", state.name).kv("group", group)
+                            .log("Unable to send a multicast DNS message", e);
+                }
+            }
+        }
+    }
+
+    private void join(InterfaceState state) {
+        boolean ipv4 = false;
+        boolean ipv6 = false;
+        for (InterfaceAddress interfaceAddress : state.networkInterface.getInterfaceAddresses()) {
+            ipv4 |= interfaceAddress.getAddress() instanceof Inet4Address;
+            ipv6 |= interfaceAddress.getAddress() instanceof Inet6Address;
+        }
+        try {
+            if (ipv4) {
+                join(state, new InetSocketAddress(InetAddress.getByName(IPV4_GROUP), port));
+            }
+            if (ipv6) {
+                join(state, new InetSocketAddress(InetAddress.getByName(IPV6_GROUP), port));
+            }
+        } catch (IOException e) {
+            logger.atWarn().kv("interface", state.name).log("Unable to resolve the multicast DNS groups", e);
+        }
+    }
+
+    private void join(InterfaceState state, InetSocketAddress group) {
+        state.groups.add(group);
+        try {
+            socket.joinGroup(group, state.networkInterface);
+            state.joinedGroups.add(group);
+        } catch (IOException e) {
+            // Announcements still go out, only queries on this interface are not answered
+            logger.atDebug().kv("interface", state.name).kv("group", group)
+                    .log("Unable to join the multicast DNS group", e);
+        }
+    }
+
+    private void receive(MulticastSocket receiveSocket) {
+        byte[] buffer = new byte[RECEIVE_BUFFER_SIZE];
+        while (!receiveSocket.isClosed()) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                receiveSocket.receive(packet);
+            } catch (IOException e) {
+                if (!receiveSocket.isClosed()) {
+                    logger.atWarn().log("Unable to receive multicast DNS queries, they are no longer answered", e);
+                }
+                return;
+            }
+            try {
+                handle(DnsMessage.decode(packet.getData(), packet.getLength()), packet.getAddress());
+            } catch (IllegalArgumentException e) {
+                logger.atDebug().kv("source", packet.getAddress())
+                        .log("Ignoring a malformed multicast DNS message", e);
+            }
+        }
+    }
+
+    private MulticastSocket openSocket() throws IOException {
+        MulticastSocket multicastSocket = new MulticastSocket(null);
+        try {
+            // Other responders on the host, such as avahi, share the port
+            multicastSocket.setReuseAddress(true);
+            multicastSocket.bind(new InetSocketAddress(port));
+            multicastSocket.setTimeToLive(MULTICAST_TTL);
+        } catch (IOException e) {
+            multicastSocket.close();
+            throw e;
+        }
+        return multicastSocket;
+    }
+
+    private String instanceName(Config current) {
+        if (Utils.isNotEmpty(current.getMdnsInstanceName())) {
+            return current.getMdnsInstanceName();
+        }
+        String thing = thingName.get();
+        return Utils.isNotEmpty(thing) ? thing : DnsSdRecords.DEFAULT_HOST_LABEL;
+    }
+
+    private static NetworkInterface interfaceOf(InetAddress address) {
+        if (address == null) {
+            return null;
+        }
+        try {
+            return NetworkInterface.getByInetAddress(address);
+        } catch (SocketException e) {
+            logger.atDebug().kv("address", address).log("Unable to find the interface of the address", e);
+            return null;
+        }
+    }
+
+    private static boolean asksFor(DnsMessage message, Set<DnsRecord> records) {
+        for (DnsMessage.Question question : message.getQuestions()) {
+            for (DnsRecord record : records) {
+                if (record.answers(question.getName(), question.getType())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Known answer suppression (RFC 6762 section 7.1): no need to answer a querier that holds all the
+     * records with at least half of their TTL left.
+     */
+    private static boolean knowsAll(DnsMessage message, Set<DnsRecord> records) {
+        for (DnsRecord record : records) {
+            boolean known = false;
+            for (DnsRecord answer : message.getAnswers()) {
+                if (answer.equals(record) && 2 * answer.getTtlSeconds() >= record.getTtlSeconds()) {
+                    known = true;
+                    break;
+                }
+            }
+            if (!known) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //Default for JUnit Testing
+    static boolean isOnLink(NetworkInterface networkInterface, InetAddress source) {
+        if (source instanceof Inet6Address && ((Inet6Address) source).getScopeId() != 0) {
+            return ((Inet6Address) source).getScopeId() == networkInterface.getIndex();
+        }
+        byte[] sourceBytes = source.getAddress();
+        for (InterfaceAddress interfaceAddress : networkInterface.getInterfaceAddresses()) {
+            byte[] bytes = interfaceAddress.getAddress().getAddress();
+            if (bytes.length == sourceBytes.length
+                    && samePrefix(bytes, sourceBytes, interfaceAddress.getNetworkPrefixLength())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean samePrefix(byte[] a, byte[] b, int prefixLength) {
+        int fullBytes = Math.min(prefixLength / 8, a.length);
+        for (int i = 0; i < fullBytes; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        int remainingBits = prefixLength % 8;
+        if (remainingBits == 0 || fullBytes >= a.length) {
+            return true;
+        }
+        int mask = 0xFF << (8 - remainingBits) & 0xFF;
+        return (a[fullBytes] & mask) == (b[fullBytes] & mask);
+    }
+
+    private static final class InterfaceState {
+        private final NetworkInterface networkInterface;
+        private final String name;
+        private final List<InetSocketAddress> groups = new ArrayList<>();
+        private final List<InetSocketAddress> joinedGroups = new ArrayList<>();
+        private final Set<DnsRecord> goodbyes = new LinkedHashSet<>();
+        private Set<DnsRecord> records = Collections.emptySet();
+        private ScheduledFuture<?> pending;
+        private int announcementsLeft;
+        private long lastSentMs = NEVER;
+
+        InterfaceState(NetworkInterface networkInterface) {
+            this.networkInterface = networkInterface;
+            this.name = networkInterface.getName();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.metrics;
+
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+
+/**
+ * Metrics of the detection runs and of the uploads, published through the nucleus telemetry by default.
+ */
+public class DetectorMetrics {
+    public static final String TICKS = "DetectionRuns";
+    public static final String CHANGES_DETECTED = "ChangesDetected";
+    public static final String ADDRESS_COUNT = "AddressCount";
+    public static final String ENUMERATION_TIME = "InterfaceEnumerationTime";
+    public static final String UPLOADS = "Uploads";
+    public static final String UPLOADS_UNCHANGED = "UploadsSkippedUnchanged";
+    public static final String UPLOAD_FAILURES = "UploadFailures";
+    public static final String UPLOAD_TIME = "UpdateConnectivityInfoTime";
+    public static final String RECONCILIATIONS = "Reconciliations";
+    public static final String RECONCILE_MISMATCHES = "ReconcileMismatches";
+
+    /**
+     * Why an upload failed. Each cause is also counted under {@link #UPLOAD_FAILURES} followed by its
+     * metric suffix.
+     */
+    public enum FailureCause {
+        OFFLINE("Offline"),
+        THROTTLED("Throttled"),
+        TRANSIENT("Transient"),
+        FORBIDDEN("Forbidden"),
+        NO_RESPONSE("NoResponse"),
+        OTHER("Other");
+
+        private final String metricName;
+
+        FailureCause(String suffix) {
+            this.metricName = UPLOAD_FAILURES + suffix;
+        }
+
+        public String getMetricName() {
+            return metricName;
+        }
+    }
+
+    private final MetricsSink sink;
+
+    @Inject
+    public DetectorMetrics() {
+        this(new TelemetryMetricsSink());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param sink destination of the metrics
+     */
+    public DetectorMetrics(MetricsSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Metrics dropping everything, for components created outside of dependency injection.
+     *
+     * @return metrics without a sink
+     */
+    public static DetectorMetrics none() {
+        return new DetectorMetrics(MetricsSink.NONE);
+    }
+
+    /**
+     * Record a detection run and the number of endpoints it found.
+     *
+     * @param addressCount number of endpoints
+     * @param changed whether the endpoints differ from the previous run
+     */
+    public void recordTick(int addressCount, boolean changed) {
+        sink.count(TICKS, 1L);
+        sink.gauge(ADDRESS_COUNT, addressCount);
+        if (changed) {
+            sink.count(CHANGES_DETECTED, 1L);
+        }
+    }
+
+    /**
+     * Record the time taken to enumerate the network interfaces.
+     *
+     * @param startNanos {@link System#nanoTime()} when the enumeration started
+     */
+    public void recordEnumeration(long startNanos) {
+        sink.timing(ENUMERATION_TIME, elapsedMs(startNanos));
+    }
+
+    /**
+     * Record the round-trip time of an UpdateConnectivityInfo call, successful or not.
+     *
+     * @param startNanos {@link System#nanoTime()} when the call started
+     */
+    public void recordUploadTime(long startNanos) {
+        sink.timing(UPLOAD_TIME, elapsedMs(startNanos));
+    }
+
+    /**
+     * Record an upload the cloud accepted.
+     */
+    public void recordUpload() {
+        sink.count(UPLOADS, 1L);
+    }
+
+    /**
+     * Record an upload that was skipped because the endpoints were already uploaded.
+     */
+    public void recordUnchanged() {
+        sink.count(UPLOADS_UNCHANGED, 1L);
+    }
+
+    /**
+     * Record a failed upload.
+     *
+     * @param cause why the upload failed
+     */
+    public void recordFailure(FailureCause cause) {
+        sink.count(UPLOAD_FAILURES, 1L);
+        sink.count(cause.getMetricName(), 1L);
+    }
+
+    /**
+     * Record a comparison of the connectivity information in the cloud with the last upload.
+     *
+     * @param inSync whether the cloud matched the last upload
+     */
+    public void recordReconciliation(boolean inSync) {
+        sink.count(RECONCILIATIONS, 1L);
+        if (!inSync) {
+            sink.count(RECONCILE_MISMATCHES, 1L);
+        }
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
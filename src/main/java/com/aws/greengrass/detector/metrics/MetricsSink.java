@@ -0,0 +1,50 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.metrics;
+
+/**
+ * Destination of the metrics recorded by {@link DetectorMetrics}.
+ */
+public interface MetricsSink {
+    /** Sink dropping every metric. */
+    MetricsSink NONE = new MetricsSink() {
+        @Override
+        public void count(String name, long delta) {
+        }
+
+        @Override
+        public void gauge(String name, long value) {
+        }
+
+        @Override
+        public void timing(String name, long durationMs) {
+        }
+    };
+
+    /**
+     * Add to a counter.
+     *
+     * @param name metric name
+     * @param delta amount to add
+     */
+    void count(String name, long delta);
+
+    /**
+     * Set the current value of a gauge.
+     *
+     * @param name metric name
+     * @param value current value
+     */
+    void gauge(String name, long value);
+
+    /**
+     * Record one sample of a duration.
+     *
+     * @param name metric name
+     * @param durationMs duration in milliseconds
+     */
+    void timing(String name, long durationMs);
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.metrics;
+
+import com.aws.greengrass.telemetry.impl.Metric;
+import com.aws.greengrass.telemetry.impl.MetricFactory;
+import com.aws.greengrass.telemetry.models.TelemetryAggregation;
+import com.aws.greengrass.telemetry.models.TelemetryUnit;
+
+/**
+ * Publishes metrics through the nucleus telemetry, which aggregates them over its publish interval.
+ * Counters are summed, gauges and durations are averaged.
+ */
+public class TelemetryMetricsSink implements MetricsSink {
+    static final String NAMESPACE = "IpDetector";
+
+    private final MetricFactory metricFactory = new MetricFactory(NAMESPACE);
+
+    @Override
+    public void count(String name, long delta) {
+        put(name, TelemetryUnit.Count, TelemetryAggregation.Sum, delta);
+    }
+
+    @Override
+    public void gauge(String name, long value) {
+        put(name, TelemetryUnit.Count, TelemetryAggregation.Average, value);
+    }
+
+    @Override
+    public void timing(String name, long durationMs) {
+        put(name, TelemetryUnit.Milliseconds, TelemetryAggregation.Average, durationMs);
+    }
+
+    private void put(String name, TelemetryUnit unit, TelemetryAggregation aggregation, long value) {
+        metricFactory.putMetricData(Metric.builder().namespace(NAMESPACE).name(name).unit(unit)
+                .aggregation(aggregation).value(value).timestamp(System.currentTimeMillis()).build());
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.source;
+
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.logging.api.Logger;
+import com.aws.greengrass.logging.impl.LogManager;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Parses endpoints written as text, one per line, in the form {@code host[:port] [metadata]}.
+ *
+ * <p>The host is an IPv4 address, an IPv6 address, in brackets if a port follows, or a DNS name.
+ * Entries without a port get {@code defaultPort}. Everything after a {@code #} is a comment, for example
+ * <pre>
+ * # NAT gateway
+ * 203.0.113.10:8883 public
+ * [2001:db8::10]:8883
+ * broker.example.com
+ * </pre>
+ */
+public final class EndpointParser {
+    private static final Logger logger = LogManager.getLogger(EndpointParser.class);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern IPV4_LITERAL = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+    private static final Pattern DNS_NAME = Pattern.compile("[A-Za-z0-9]([A-Za-z0-9._-]{0,251}[A-Za-z0-9.])?");
+    private static final char COMMENT = '#';
+
+    private EndpointParser() {
+    }
+
+    /**
+     * Parse endpoint entries. Invalid entries are logged and ignored.
+     *
+     * @param entries     entries, blank lines and comments are allowed
+     * @param defaultPort port of entries without one
+     * @param source      where the entries come from, used in logs
+     * @return endpoints in entry order
+     */
+    public static List<Endpoint> parseAll(List<String> entries, int defaultPort, String source) {
+        if (entries == null || entries.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Endpoint> endpoints = new ArrayList<>(entries.size());
+        for (String entry : entries) {
+            try {
+                Endpoint endpoint = parse(entry, defaultPort);
+                if (endpoint != null) {
+                    endpoints.add(endpoint);
+                }
+            } catch (IllegalArgumentException e) {
+                logger.atWarn().kv("source", source).kv("entry", entry).log("Ignoring invalid endpoint", e);
+            }
+        }
+        return endpoints;
+    }
+
+    /**
+     * Parse a single entry.
+     *
+     * @param entry       entry
+     * @param defaultPort port if the entry has none
+     * @return endpoint, or null for a blank line or comment
+     * @throws IllegalArgumentException if the entry is invalid
+     */
+    static Endpoint parse(String entry, int defaultPort) {
+        if (entry == null) {
+            return null;
+        }
+        String line = entry;
+        int comment = line.indexOf(COMMENT);
+        if (comment >= 0) {
+            line = line.substring(0, comment);
+        }
+        line = line.trim();
+        if (line.isEmpty()) {
+            return null;
+        }
+        String[] fields = WHITESPACE.split(line, 2);
+        String hostAndPort = fields[0];
+        String metadata = fields.length > 1 ? fields[1].trim() : Endpoint.NO_METADATA;
+
+        String host = hostAndPort;
+        int port = defaultPort;
+        if (hostAndPort.charAt(0) == '[') {
+            int close = hostAndPort.indexOf(']');
+            if (close < 0) {
+                throw new IllegalArgumentException("Unterminated IPv6 address " + hostAndPort);
+            }
+            host = hostAndPort.substring(1, close);
+            String rest = hostAndPort.substring(close + 1);
+            if (!rest.isEmpty()) {
+                if (rest.charAt(0) != ':') {
+                    throw new IllegalArgumentException("Unexpected characters after IPv6 address " + hostAndPort);
+                }
+                port = parsePort(rest.substring(1));
+            }
+        } else {
+            int colon = hostAndPort.indexOf(':');
+            // More than one colon is an IPv6 address without a port
+            if (colon >= 0 && colon == hostAndPort.lastIndexOf(':')) {
+                host = hostAndPort.substring(0, colon);
+                port = parsePort(hostAndPort.substring(colon + 1));
+            }
+        }
+        return toEndpoint(host, port, metadata);
+    }
+
+    private static int parsePort(String port) {
+        try {
+            int value = Integer.parseInt(port);
+            if (value > 0 && value <= 0xffff) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid port " + port, e);
+        }
+        throw new IllegalArgumentException("Port out of range " + port);
+    }
+
+    private static Endpoint toEndpoint(String host, int port, String metadata) {
+        if (host.isEmpty()) {
+            throw new IllegalArgumentException("Missing host");
+        }
+        if (IPV4_LITERAL.matcher(host).matches()) {
+            String[] octets = host.split("\\.");
+            byte[] bytes = new byte[4];
+            for (int i = 0; i < 4; i++) {
+                int octet = Integer.parseInt(octets[i]);
+                if (octet > 255) {
+                    throw new IllegalArgumentException("Invalid IPv4 address " + host);
+                }
+                bytes[i] = (byte) octet;
+            }
+            try {
+                return Endpoint.of(InetAddress.getByAddress(bytes), port, metadata);
+            } catch (UnknownHostException e) {
+                throw new IllegalArgumentException("Invalid IPv4 address " + host, e);
+            }
+        }
+        if (host.indexOf(':') >= 0) {
+            if (host.indexOf('%') >= 0) {
+                // Zones only resolve against local interfaces, keep the address as written
+                return Endpoint.ofHostAddress(host, port, metadata);
+            }
+            try {
+                // Brackets make the JDK reject an invalid literal instead of attempting a name lookup
+                return Endpoint.of(InetAddress.getByName('[' + host + ']'), port, metadata);
+            } catch (UnknownHostException e) {
+                throw new IllegalArgumentException("Invalid IPv6 address " + host, e);
+            }
+        }
+        if (!DNS_NAME.matcher(host).matches()) {
+            throw new IllegalArgumentException("Invalid host name " + host);
+        }
+        return Endpoint.ofHostAddress(host.toLowerCase(Locale.ROOT), port, metadata);
+    }
+}
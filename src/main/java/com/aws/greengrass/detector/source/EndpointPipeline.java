@@ -0,0 +1,244 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.source;
+
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.detector.detector.IpDetector;
+import com.aws.greengrass.detector.executor.DetectorExecutors;
+import com.aws.greengrass.logging.api.Logger;
+import com.aws.greengrass.logging.impl.LogManager;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import javax.inject.Inject;
+
+/**
+ * Merges the endpoints of all sources into the list that is uploaded.
+ *
+ * <p>Sources are merged in order: local interfaces, {@code staticEndpoints}, the endpoints file and the
+ * endpoints URL. An endpoint with the same host and port as an earlier one is dropped, so the earlier
+ * source decides its metadata.
+ *
+ * <p>Each source result is cached for the source's time to live. Slow sources are refreshed on a
+ * separate thread, and detection runs use their last result meanwhile, so a slow source never delays
+ * the others. When a refresh changes the result of a slow source, the change listener is notified so
+ * the new endpoints are uploaded without waiting for the next poll. A failed fetch keeps the last result
+ * of the source. Only a required source, the local interfaces, fails the detection run if it has never been
+ * fetched successfully. The other sources count as empty until their first successful fetch.
+ */
+@SuppressWarnings("PMD.AvoidCatchingGenericException")
+public class EndpointPipeline {
+    private static final Logger logger = LogManager.getLogger(EndpointPipeline.class);
+
+    private final List<CachedSource> sources;
+    private final ExecutorService refreshExecutor;
+    private final Clock clock;
+    private final List<Endpoint> merged = new ArrayList<>();
+    private final Set<String> seen = new HashSet<>();
+    private List<Endpoint> lastResult = Collections.emptyList();
+    private volatile Runnable changeListener;
+
+    private static final class CachedSource {
+        private final EndpointSource source;
+        private List<Endpoint> endpoints = Collections.emptyList();
+        private boolean fetched;
+        private long fetchedAtMs;
+        private Future<?> refresh;
+
+        private CachedSource(EndpointSource source) {
+            this.source = source;
+        }
+
+        private boolean isFresh(long nowMs, long ttlMs) {
+            return fetched && nowMs - fetchedAtMs < ttlMs;
+        }
+
+        private void clear() {
+            if (refresh != null) {
+                refresh.cancel(true);
+                refresh = null;
+            }
+            endpoints = Collections.emptyList();
+            fetched = false;
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param ipDetector utility to detect the addresses of the local interfaces
+     * @param executors IP detector executors, slow sources refresh on the I/O executor
+     */
+    @Inject
+    public EndpointPipeline(IpDetector ipDetector, DetectorExecutors executors) {
+        this(Arrays.asList(new LocalInterfaceSource(ipDetector), new StaticEndpointSource(),
+                new FileEndpointSource(), new HttpEndpointSource()), executors.getIoExecutor(), Clock.systemUTC());
+    }
+
+    //Default for JUnit Testing
+    EndpointPipeline(List<EndpointSource> sources, ExecutorService refreshExecutor, Clock clock) {
+        List<CachedSource> cachedSources = new ArrayList<>(sources.size());
+        for (EndpointSource source : sources) {
+            cachedSources.add(new CachedSource(source));
+        }
+        this.sources = Collections.unmodifiableList(cachedSources);
+        this.refreshExecutor = refreshExecutor;
+        this.clock = clock;
+    }
+
+    /**
+     * Set the listener notified when a slow source refresh changes its endpoints.
+     *
+     * @param changeListener listener, typically triggering a detection run
+     */
+    public void setChangeListener(Runnable changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    /**
+     * Merged endpoints of all enabled sources. The previous list instance is returned if nothing changed.
+     *
+     * @param config Configuration values
+     * @return merged endpoints
+     * @throws IOException if a required source that has never been fetched fails
+     */
+    public synchronized List<Endpoint> getEndpoints(Config config) throws IOException {
+        long nowMs = clock.millis();
+        List<Endpoint> only = null;
+        int contributing = 0;
+        for (CachedSource cached : sources) {
+            List<Endpoint> endpoints = endpoints(cached, config, nowMs);
+            if (!endpoints.isEmpty()) {
+                only = endpoints;
+                contributing++;
+            }
+        }
+        if (contributing == 0) {
+            return Collections.emptyList();
+        }
+        if (contributing == 1) {
+            // Nothing to merge, the usual case of local interfaces only
+            return only;
+        }
+
+        merged.clear();
+        seen.clear();
+        for (CachedSource cached : sources) {
+            for (Endpoint endpoint : cached.endpoints) {
+                if (seen.add(key(endpoint))) {
+                    merged.add(endpoint);
+                }
+            }
+        }
+        if (!merged.equals(lastResult)) {
+            lastResult = Collections.unmodifiableList(new ArrayList<>(merged));
+        }
+        merged.clear();
+        return lastResult;
+    }
+
+    /**
+     * Cancel the running refreshes of slow sources.
+     */
+    public synchronized void cancel() {
+        for (CachedSource cached : sources) {
+            if (cached.refresh != null) {
+                cached.refresh.cancel(true);
+                cached.refresh = null;
+            }
+        }
+    }
+
+    private List<Endpoint> endpoints(CachedSource cached, Config config, long nowMs) throws IOException {
+        EndpointSource source = cached.source;
+        if (!source.isEnabled(config)) {
+            cached.clear();
+            return cached.endpoints;
+        }
+        if (cached.isFresh(nowMs, source.getTtlMs(config))) {
+            return cached.endpoints;
+        }
+        if (source.isSlow()) {
+            if (cached.refresh == null) {
+                try {
+                    cached.refresh = refreshExecutor.submit(() -> refresh(cached, config));
+                } catch (RejectedExecutionException e) {
+                    logger.atWarn().kv("source", source.getName())
+                            .log("Unable to refresh endpoints, using the last result", e);
+                }
+            }
+            return cached.endpoints;
+        }
+        try {
+            store(cached, source.fetch(config), nowMs);
+        } catch (IOException | RuntimeException e) {
+            if (!cached.fetched && source.isRequired()) {
+                throw e;
+            }
+            if (!cached.fetched) {
+                // Retry once the time to live has passed, without holding up the other sources
+                store(cached, Collections.emptyList(), nowMs);
+            }
+            logger.atWarn().kv("source", source.getName()).log("Unable to fetch endpoints, using the last result",
+                    e);
+        }
+        return cached.endpoints;
+    }
+
+    private void refresh(CachedSource cached, Config config) {
+        EndpointSource source = cached.source;
+        List<Endpoint> endpoints = null;
+        try {
+            endpoints = source.fetch(config);
+        } catch (Exception e) {
+            logger.atWarn().kv("source", source.getName()).log("Unable to fetch endpoints, using the last result",
+                    e);
+        }
+        boolean changed = false;
+        synchronized (this) {
+            if (cached.refresh == null) {
+                // Cancelled or the source was disabled meanwhile
+                return;
+            }
+            cached.refresh = null;
+            if (endpoints == null) {
+                // Retry once the time to live has passed again
+                cached.fetchedAtMs = clock.millis();
+                cached.fetched = true;
+                return;
+            }
+            changed = !endpoints.equals(cached.endpoints);
+            store(cached, endpoints, clock.millis());
+        }
+        Runnable listener = changeListener;
+        if (changed && listener != null) {
+            logger.atInfo().kv("source", source.getName()).kv("endpoints", endpoints).log("Endpoints changed");
+            listener.run();
+        }
+    }
+
+    private static void store(CachedSource cached, List<Endpoint> endpoints, long nowMs) {
+        cached.endpoints = endpoints == null ? Collections.emptyList() : endpoints;
+        cached.fetched = true;
+        cached.fetchedAtMs = nowMs;
+    }
+
+    private static String key(Endpoint endpoint) {
+        String host = endpoint.getHostAddress();
+        return (host == null ? "" : host.toLowerCase(Locale.ROOT)) + ' ' + endpoint.getPort();
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.source;
+
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.detector.Endpoint;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A source of connectivity endpoints, merged with the others by the {@link EndpointPipeline}.
+ */
+public interface EndpointSource {
+
+    /**
+     * Name of the source, used in logs.
+     *
+     * @return name
+     */
+    String getName();
+
+    /**
+     * Whether the source is configured. Disabled sources are not fetched and contribute nothing.
+     *
+     * @param config Configuration values
+     * @return true if the source should be fetched
+     */
+    default boolean isEnabled(Config config) {
+        return true;
+    }
+
+    /**
+     * Whether a fetch may block on the network. Slow sources are refreshed off the detection thread,
+     * and detection runs use their last result in the meantime.
+     *
+     * @return true if the source is slow
+     */
+    default boolean isSlow() {
+        return false;
+    }
+
+    /**
+     * Whether the detection run fails if the source has never been fetched successfully. Other sources are
+     * treated as empty until a fetch succeeds, so that a broken side source does not hold up the others.
+     *
+     * @return true if the source is required
+     */
+    default boolean isRequired() {
+        return false;
+    }
+
+    /**
+     * How long a fetched result stays fresh.
+     *
+     * @param config Configuration values
+     * @return time to live in milliseconds, 0 to fetch on every detection run
+     */
+    default long getTtlMs(Config config) {
+        return 0L;
+    }
+
+    /**
+     * Fetch the endpoints of this source.
+     *
+     * @param config Configuration values
+     * @return endpoints, in the order they should be reported
+     * @throws IOException if the endpoints cannot be read
+     */
+    List<Endpoint> fetch(Config config) throws IOException;
+}
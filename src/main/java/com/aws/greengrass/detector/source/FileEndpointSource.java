@@ -0,0 +1,84 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.source;
+
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.util.Utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Endpoints listed in the file named by the {@code endpointsFile} configuration, in the
+ * {@link EndpointParser} format. Another process, such as a NAT discovery script, can maintain the file.
+ *
+ * <p>The file is checked at most every {@code endpointsFileTtlMs}, and only read again when its size or
+ * modification time has changed. A missing file contributes no endpoints. Writers should replace the
+ * file atomically, by renaming a complete temporary file over it.
+ */
+public class FileEndpointSource implements EndpointSource {
+    static final String NAME = "file";
+    static final long MAX_FILE_BYTES = 64 * 1024L;
+
+    private Path loadedPath;
+    private long loadedModifiedMs;
+    private long loadedSize;
+    private int loadedDefaultPort;
+    private List<Endpoint> endpoints = Collections.emptyList();
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isEnabled(Config config) {
+        return !Utils.isEmpty(config.getEndpointsFile());
+    }
+
+    @Override
+    public long getTtlMs(Config config) {
+        return config.getEndpointsFileTtlMs();
+    }
+
+    @Override
+    public synchronized List<Endpoint> fetch(Config config) throws IOException {
+        Path path = Paths.get(config.getEndpointsFile());
+        int defaultPort = config.getDefaultPort();
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            loadedPath = null;
+            endpoints = Collections.emptyList();
+            return endpoints;
+        }
+        long modifiedMs = attributes.lastModifiedTime().toMillis();
+        long size = attributes.size();
+        if (path.equals(loadedPath) && modifiedMs == loadedModifiedMs && size == loadedSize
+                && defaultPort == loadedDefaultPort) {
+            return endpoints;
+        }
+        if (size > MAX_FILE_BYTES) {
+            throw new IOException("Endpoints file " + path + " is larger than " + MAX_FILE_BYTES + " bytes");
+        }
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        endpoints = Collections.unmodifiableList(EndpointParser.parseAll(lines, defaultPort, path.toString()));
+        loadedPath = path;
+        loadedModifiedMs = modifiedMs;
+        loadedSize = size;
+        loadedDefaultPort = defaultPort;
+        return endpoints;
+    }
+}
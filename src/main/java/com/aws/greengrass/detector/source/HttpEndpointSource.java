@@ -0,0 +1,95 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.source;
+
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.util.Utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Endpoints served by the URL in the {@code endpointsUrl} configuration, in the {@link EndpointParser}
+ * format. This lets a metadata service or a load balancer controller publish the addresses clients
+ * should use.
+ *
+ * <p>The source is slow: it is refreshed off the detection thread at most every
+ * {@code endpointsUrlTtlMs}, and each request is bounded by {@code endpointSourceTimeoutMs}.
+ */
+public class HttpEndpointSource implements EndpointSource {
+    static final String NAME = "http";
+    static final int MAX_RESPONSE_BYTES = 64 * 1024;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isEnabled(Config config) {
+        return !Utils.isEmpty(config.getEndpointsUrl());
+    }
+
+    @Override
+    public boolean isSlow() {
+        return true;
+    }
+
+    @Override
+    public long getTtlMs(Config config) {
+        return config.getEndpointsUrlTtlMs();
+    }
+
+    @Override
+    public List<Endpoint> fetch(Config config) throws IOException {
+        URL url = new URL(config.getEndpointsUrl());
+        URLConnection urlConnection = url.openConnection();
+        if (!(urlConnection instanceof HttpURLConnection)) {
+            throw new IOException("Not an HTTP URL " + url);
+        }
+        HttpURLConnection connection = (HttpURLConnection) urlConnection;
+        int timeoutMs = (int) Math.max(1, Math.min(Integer.MAX_VALUE, config.getEndpointSourceTimeoutMs()));
+        connection.setConnectTimeout(timeoutMs);
+        connection.setReadTimeout(timeoutMs);
+        connection.setInstanceFollowRedirects(false);
+        try {
+            int status = connection.getResponseCode();
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Unexpected HTTP status " + status + " from " + url);
+            }
+            String body;
+            try (InputStream in = connection.getInputStream()) {
+                body = read(in);
+            }
+            return Collections.unmodifiableList(EndpointParser.parseAll(Arrays.asList(body.split("\r?\n")),
+                    config.getDefaultPort(), url.toString()));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            if (out.size() + read > MAX_RESPONSE_BYTES) {
+                throw new IOException("Endpoints response is larger than " + MAX_RESPONSE_BYTES + " bytes");
+            }
+            out.write(chunk, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
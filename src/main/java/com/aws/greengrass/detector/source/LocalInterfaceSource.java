@@ -0,0 +1,41 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.source;
+
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.detector.detector.IpDetector;
+
+import java.net.SocketException;
+import java.util.List;
+
+/**
+ * Endpoints of the local network interfaces, as detected by the {@link IpDetector}.
+ */
+public class LocalInterfaceSource implements EndpointSource {
+    static final String NAME = "local";
+
+    private final IpDetector ipDetector;
+
+    public LocalInterfaceSource(IpDetector ipDetector) {
+        this.ipDetector = ipDetector;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isRequired() {
+        return true;
+    }
+
+    @Override
+    public List<Endpoint> fetch(Config config) throws SocketException {
+        return ipDetector.getAllEndpoints(config);
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.source;
+
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.detector.Endpoint;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Endpoints listed in the {@code staticEndpoints} configuration, such as the public address of a NAT
+ * gateway or a DNS name. The entries are parsed once per configuration update.
+ */
+public class StaticEndpointSource implements EndpointSource {
+    static final String NAME = "static";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isEnabled(Config config) {
+        List<Endpoint> endpoints = config.getStaticEndpoints();
+        return endpoints != null && !endpoints.isEmpty();
+    }
+
+    @Override
+    public List<Endpoint> fetch(Config config) {
+        List<Endpoint> endpoints = config.getStaticEndpoints();
+        return endpoints == null ? Collections.emptyList() : endpoints;
+    }
+}
@@ -0,0 +1,413 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.uploader;
+
+import com.aws.greengrass.detector.detector.Endpoint;
+
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Order independent digest of a multiset of (address, port, metadata) entries.
+ *
+ * <p>Every entry is hashed on its raw address bytes with two independently seeded 64-bit hashes,
+ * and the entry hashes are summed. Addition makes the result independent of enumeration order while
+ * still distinguishing duplicates, so [a, a, b] and [a, b, b] have different fingerprints. Comparing
+ * two fingerprints is a constant time operation.
+ *
+ * <p>The address bytes are preceded by a domain byte, so that an address never hashes like a host name made
+ * of the same bytes, and followed by the IPv6 scope id, if any, so that the same link-local address on two
+ * interfaces gives two entries.
+ *
+ * <p>An ordered fingerprint also hashes the position of every entry, for lists whose order is
+ * significant. Ordered and unordered fingerprints are never equal to each other.
+ */
+public final class AddressFingerprint {
+    private static final long SEED_1 = 0xcbf29ce484222325L;
+    private static final long SEED_2 = 0x84222325cbf29ce4L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final byte DOMAIN_ADDRESS = 1;
+    private static final byte DOMAIN_NAME = 2;
+    private static final byte SCOPE_ID = '%';
+    private static final byte SCOPE_NAME = '@';
+    private static final boolean IPV4_HASH_CODE_IS_ADDRESS = ipv4HashCodeIsAddress();
+    private static final Pattern DIGITS = Pattern.compile("\\d+");
+    private static final Pattern IPV4_LITERAL = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+    private static final Pattern IPV6_LITERAL = Pattern.compile("[0-9a-fA-F:.]*:[0-9a-fA-F:.]*");
+
+    private final long sum1;
+    private final long sum2;
+    private final int count;
+    private final boolean ordered;
+
+    private AddressFingerprint(long sum1, long sum2, int count, boolean ordered) {
+        this.sum1 = sum1;
+        this.sum2 = sum2;
+        this.count = count;
+        this.ordered = ordered;
+    }
+
+    /**
+     * Fingerprint of detected addresses that all share a port and metadata.
+     *
+     * @param addresses addresses, null entries are ignored
+     * @param port      port of every entry
+     * @param metadata  metadata of every entry
+     * @return fingerprint
+     */
+    static AddressFingerprint of(List<InetAddress> addresses, int port, String metadata) {
+        return of(addresses, port, metadata, false);
+    }
+
+    /**
+     * Fingerprint of detected addresses that all share a port and metadata.
+     *
+     * @param addresses addresses, null entries are ignored
+     * @param port      port of every entry
+     * @param metadata  metadata of every entry
+     * @param ordered   whether the order of the addresses is significant
+     * @return fingerprint
+     */
+    static AddressFingerprint of(List<InetAddress> addresses, int port, String metadata, boolean ordered) {
+        Builder builder = new Builder(ordered);
+        for (int i = 0; i < addresses.size(); i++) {
+            InetAddress address = addresses.get(i);
+            if (address != null) {
+                builder.add(address, port, metadata);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Fingerprint of host addresses in string form that all share a port and metadata.
+     *
+     * @param hostAddresses host addresses, null entries are ignored
+     * @param port          port of every entry
+     * @param metadata      metadata of every entry
+     * @return fingerprint
+     */
+    static AddressFingerprint ofHostAddresses(List<String> hostAddresses, int port, String metadata) {
+        return ofHostAddresses(hostAddresses, port, metadata, false);
+    }
+
+    /**
+     * Fingerprint of host addresses in string form that all share a port and metadata.
+     *
+     * @param hostAddresses host addresses, null entries are ignored
+     * @param port          port of every entry
+     * @param metadata      metadata of every entry
+     * @param ordered       whether the order of the addresses is significant
+     * @return fingerprint
+     */
+    static AddressFingerprint ofHostAddresses(List<String> hostAddresses, int port, String metadata,
+                                              boolean ordered) {
+        Builder builder = new Builder(ordered);
+        for (int i = 0; i < hostAddresses.size(); i++) {
+            String hostAddress = hostAddresses.get(i);
+            if (hostAddress != null) {
+                builder.add(hostAddress, port, metadata);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Fingerprint of endpoints, each with its own port and metadata.
+     *
+     * @param endpoints endpoints, null entries are ignored
+     * @param ordered   whether the order of the endpoints is significant
+     * @return fingerprint
+     */
+    public static AddressFingerprint ofEndpoints(List<Endpoint> endpoints, boolean ordered) {
+        Builder builder = new Builder(ordered);
+        for (int i = 0; i < endpoints.size(); i++) {
+            Endpoint endpoint = endpoints.get(i);
+            if (endpoint != null) {
+                builder.add(endpoint);
+            }
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AddressFingerprint)) {
+            return false;
+        }
+        AddressFingerprint that = (AddressFingerprint) o;
+        return sum1 == that.sum1 && sum2 == that.sum2 && count == that.count && ordered == that.ordered;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (sum1 ^ (sum1 >>> 32)) * 31 + count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x/%d%s", sum1, sum2, count, ordered ? "/ordered" : "");
+    }
+
+    /**
+     * Accumulates entries into a fingerprint. The key of every entry is hashed byte by byte straight into the
+     * two hash states, so that adding a detected address allocates nothing beyond the bytes of an IPv6 address.
+     */
+    static final class Builder {
+        private final boolean ordered;
+        private long sum1;
+        private long sum2;
+        private int count;
+        private long h1;
+        private long h2;
+        private int keyLength;
+
+        /**
+         * Constructor.
+         *
+         * @param ordered whether the position of every entry is hashed as well
+         */
+        Builder(boolean ordered) {
+            this.ordered = ordered;
+        }
+
+        /**
+         * Add a detected address.
+         *
+         * @param address  address
+         * @param port     port
+         * @param metadata metadata
+         * @return this builder
+         */
+        Builder add(InetAddress address, int port, String metadata) {
+            begin();
+            put(DOMAIN_ADDRESS);
+            if (IPV4_HASH_CODE_IS_ADDRESS && address instanceof Inet4Address) {
+                putInt(address.hashCode());
+            } else {
+                byte[] bytes = address.getAddress();
+                for (byte b : bytes) {
+                    put(b);
+                }
+            }
+            if (address instanceof Inet6Address) {
+                int scopeId = ((Inet6Address) address).getScopeId();
+                if (scopeId > 0) {
+                    put(SCOPE_ID);
+                    putInt(scopeId);
+                }
+            }
+            return end(port, metadata);
+        }
+
+        /**
+         * Add an endpoint.
+         *
+         * @param endpoint endpoint
+         * @return this builder
+         */
+        Builder add(Endpoint endpoint) {
+            if (endpoint.getAddress() != null) {
+                return add(endpoint.getAddress(), endpoint.getPort(), endpoint.getMetadata());
+            }
+            return add(endpoint.getHostAddress(), endpoint.getPort(), endpoint.getMetadata());
+        }
+
+        /**
+         * Add an address in string form. IP literals, with their scope, hash the same as the equivalent
+         * {@link InetAddress}, anything else is hashed as a case-insensitive name.
+         *
+         * @param hostAddress address or host name
+         * @param port        port
+         * @param metadata    metadata
+         * @return this builder
+         */
+        Builder add(String hostAddress, int port, String metadata) {
+            begin();
+            for (byte b : hostKey(hostAddress)) {
+                put(b);
+            }
+            return end(port, metadata);
+        }
+
+        AddressFingerprint build() {
+            return new AddressFingerprint(sum1, sum2, count, ordered);
+        }
+
+        private void begin() {
+            h1 = SEED_1;
+            h2 = SEED_2;
+            keyLength = 0;
+        }
+
+        private void put(int b) {
+            h1 = (h1 ^ (b & 0xff)) * FNV_PRIME;
+            h2 = (h2 ^ (b & 0xff)) * FNV_PRIME;
+            keyLength++;
+        }
+
+        private void putInt(int value) {
+            put(value >>> 24);
+            put(value >>> 16);
+            put(value >>> 8);
+            put(value);
+        }
+
+        private Builder end(int port, String metadata) {
+            int position = ordered ? count : -1;
+            sum1 += finish(h1, keyLength, port, metadata, position);
+            sum2 += finish(h2, keyLength, port, metadata, position);
+            count++;
+            return this;
+        }
+    }
+
+    private static long finish(long keyHash, int keyLength, int port, String metadata, int position) {
+        long h = (keyHash ^ keyLength) * FNV_PRIME;
+        h = (h ^ port) * FNV_PRIME;
+        if (metadata != null) {
+            for (int i = 0; i < metadata.length(); i++) {
+                h = (h ^ metadata.charAt(i)) * FNV_PRIME;
+            }
+            h = (h ^ metadata.length()) * FNV_PRIME;
+        }
+        if (position >= 0) {
+            h = (h ^ position) * FNV_PRIME;
+        }
+        return mix(h);
+    }
+
+    /**
+     * SplitMix64 finalizer, spreads the FNV state so that sums of entry hashes do not cancel out.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static byte[] parseIpv4(String host) {
+        String[] octets = host.split("\\.");
+        byte[] bytes = new byte[octets.length];
+        for (int i = 0; i < octets.length; i++) {
+            int octet = Integer.parseInt(octets[i]);
+            if (octet > 255) {
+                return new byte[0];
+            }
+            bytes[i] = (byte) octet;
+        }
+        return bytes;
+    }
+
+    /**
+     * Key of an address in string form, the bytes a {@link Builder} hashes for it.
+     */
+    //Default for JUnit Testing
+    static byte[] hostKey(String hostAddress) {
+        String host = hostAddress;
+        String scope = null;
+        int separator = host.indexOf('%');
+        if (separator >= 0) {
+            scope = host.substring(separator + 1);
+            host = host.substring(0, separator);
+        }
+        if (IPV4_LITERAL.matcher(host).matches()) {
+            byte[] ipv4 = parseIpv4(host);
+            if (ipv4.length > 0) {
+                return addressKey(ipv4, scope);
+            }
+        } else if (IPV6_LITERAL.matcher(host).matches()) {
+            try {
+                // Brackets make the JDK reject an invalid literal instead of attempting a name lookup
+                return addressKey(InetAddress.getByName('[' + host + ']').getAddress(), scope);
+            } catch (UnknownHostException e) {
+                // Not a valid literal, fall through and hash the text
+            }
+        }
+        return prefixed(DOMAIN_NAME, hostAddress.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Key of an address with the scope of its text form. A numeric scope, or the name of an interface of this
+     * host, is keyed by its scope id as for an {@link Inet6Address}. The name of an unknown interface is keyed
+     * by its text.
+     */
+    private static byte[] addressKey(byte[] address, String scope) {
+        if (scope == null || scope.isEmpty()) {
+            return prefixed(DOMAIN_ADDRESS, address);
+        }
+        int scopeId = scopeId(scope);
+        if (scopeId == 0) {
+            return prefixed(DOMAIN_ADDRESS, address);
+        }
+        byte[] scopeBytes = scopeId < 0 ? scope.getBytes(StandardCharsets.UTF_8)
+                : new byte[] {(byte) (scopeId >>> 24), (byte) (scopeId >>> 16), (byte) (scopeId >>> 8),
+                        (byte) scopeId};
+        byte[] key = new byte[2 + address.length + scopeBytes.length];
+        key[0] = DOMAIN_ADDRESS;
+        System.arraycopy(address, 0, key, 1, address.length);
+        key[1 + address.length] = scopeId < 0 ? SCOPE_NAME : SCOPE_ID;
+        System.arraycopy(scopeBytes, 0, key, 2 + address.length, scopeBytes.length);
+        return key;
+    }
+
+    /**
+     * Scope id of the scope of an IPv6 literal, -1 if it names an interface this host does not have.
+     */
+    private static int scopeId(String scope) {
+        if (DIGITS.matcher(scope).matches()) {
+            try {
+                return Integer.parseInt(scope);
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        try {
+            NetworkInterface networkInterface = NetworkInterface.getByName(scope);
+            return networkInterface == null ? -1 : Math.max(networkInterface.getIndex(), -1);
+        } catch (SocketException e) {
+            return -1;
+        }
+    }
+
+    private static byte[] prefixed(byte domain, byte[] bytes) {
+        byte[] key = new byte[bytes.length + 1];
+        key[0] = domain;
+        System.arraycopy(bytes, 0, key, 1, bytes.length);
+        return key;
+    }
+
+    /**
+     * Whether {@link Inet4Address#hashCode()} is the address itself, as it is in every JDK, so that IPv4
+     * addresses can be hashed without copying their bytes.
+     */
+    private static boolean ipv4HashCodeIsAddress() {
+        try {
+            return InetAddress.getByAddress(new byte[] {1, 2, 3, 4}).hashCode() == 0x01020304;
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+}
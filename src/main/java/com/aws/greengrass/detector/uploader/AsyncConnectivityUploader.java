@@ -0,0 +1,246 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.uploader;
+
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.detector.executor.DetectorExecutors;
+import com.aws.greengrass.logging.api.Logger;
+import com.aws.greengrass.logging.impl.LogManager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Inject;
+
+/**
+ * Uploads connectivity information off the caller's thread.
+ *
+ * <p>At most one upload is in flight. Addresses submitted while an upload is running are queued,
+ * and a newer submission replaces the queued one, so the cloud only ever receives the latest state.
+ * Each upload is interrupted and reported as retryable if it does not finish within
+ * {@code uploadTimeoutMs}. The next upload only starts once the interrupted one has returned, so that
+ * it never waits on the upload lock of the {@link ConnectivityUpdater}.
+ */
+@SuppressWarnings("PMD.AvoidCatchingGenericException")
+public class AsyncConnectivityUploader {
+    private final Logger logger = LogManager.getLogger(AsyncConnectivityUploader.class);
+
+    private final ConnectivityUpdater connectivityUpdater;
+    private final ScheduledExecutorService timeoutExecutor;
+    private final ExecutorService uploadExecutor;
+    private final AtomicLong supersededCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private Upload inFlight;
+    private Upload queued;
+
+    private static final class Upload {
+        private final List<Endpoint> endpoints;
+        private final Config config;
+        private final CompletableFuture<UploadStatus> result = new CompletableFuture<>();
+        private Future<?> task;
+        private ScheduledFuture<?> timeout;
+        private boolean running;
+        private boolean abandoned;
+
+        private Upload(List<Endpoint> endpoints, Config config) {
+            this.endpoints = endpoints;
+            this.config = config;
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param connectivityUpdater client to update connectivity information
+     * @param executors IP detector executors, uploads run on the I/O executor
+     */
+    @Inject
+    public AsyncConnectivityUploader(ConnectivityUpdater connectivityUpdater, DetectorExecutors executors) {
+        this(connectivityUpdater, executors.getScheduler(), executors.getIoExecutor());
+    }
+
+    //Default for JUnit Testing
+    AsyncConnectivityUploader(ConnectivityUpdater connectivityUpdater, ScheduledExecutorService timeoutExecutor,
+                              ExecutorService uploadExecutor) {
+        this.connectivityUpdater = connectivityUpdater;
+        this.timeoutExecutor = timeoutExecutor;
+        this.uploadExecutor = uploadExecutor;
+    }
+
+    /**
+     * Upload the endpoints asynchronously.
+     *
+     * @param endpoints list of endpoints
+     * @param config Configuration values
+     * @return future completed with the outcome of the upload of these endpoints, or with
+     *     {@link UploadStatus#SKIPPED} once newer endpoints replace them in the queue
+     */
+    public CompletableFuture<UploadStatus> submit(List<Endpoint> endpoints, Config config) {
+        Upload upload = new Upload(endpoints, config);
+        Upload superseded = null;
+        Upload rejected = null;
+        synchronized (this) {
+            if (inFlight == null) {
+                inFlight = upload;
+                rejected = start(upload);
+            } else {
+                superseded = queued;
+                queued = upload;
+            }
+        }
+        if (superseded != null) {
+            supersededCount.incrementAndGet();
+            superseded.result.complete(UploadStatus.SKIPPED);
+        }
+        if (rejected != null) {
+            rejected.result.complete(UploadStatus.RETRYABLE);
+        }
+        return upload.result;
+    }
+
+    /**
+     * Cancel the in-flight and queued uploads.
+     */
+    public synchronized void cancel() {
+        if (inFlight != null) {
+            cancel(inFlight);
+            inFlight = null;
+        }
+        if (queued != null) {
+            queued.result.complete(UploadStatus.SKIPPED);
+            queued = null;
+        }
+    }
+
+    /**
+     * Whether an upload is currently running.
+     *
+     * @return true if an upload is in flight
+     */
+    public synchronized boolean isUploading() {
+        return inFlight != null;
+    }
+
+    /**
+     * Number of queued address sets replaced by a newer one before being uploaded.
+     *
+     * @return superseded count
+     */
+    public long getSupersededCount() {
+        return supersededCount.get();
+    }
+
+    /**
+     * Number of uploads cancelled because they exceeded the timeout.
+     *
+     * @return timeout count
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    /**
+     * Start the in-flight upload.
+     *
+     * @return the upload if the executor rejected it, for the caller to complete once it released the lock
+     */
+    private Upload start(Upload upload) {
+        try {
+            upload.task = uploadExecutor.submit(() -> run(upload));
+        } catch (RejectedExecutionException e) {
+            logger.atWarn().log("Unable to start uploading the IP addresses, the upload will be retried", e);
+            inFlight = null;
+            return upload;
+        }
+        long timeoutMs = upload.config.getUploadTimeoutMs();
+        if (timeoutMs > 0) {
+            upload.timeout = timeoutExecutor.schedule(() -> onTimeout(upload), timeoutMs, TimeUnit.MILLISECONDS);
+        }
+        return null;
+    }
+
+    private void run(Upload upload) {
+        synchronized (this) {
+            if (upload.abandoned) {
+                // Timed out before it started, the next upload already took its place
+                return;
+            }
+            upload.running = true;
+        }
+        UploadStatus status = UploadStatus.FAILED;
+        try {
+            status = connectivityUpdater.updateEndpoints(upload.endpoints, upload.config);
+        } catch (Exception e) {
+            logger.atError().log("Exception occurred when uploading IP addresses", e);
+        } finally {
+            complete(upload, status);
+        }
+    }
+
+    private void onTimeout(Upload upload) {
+        Upload rejected = null;
+        synchronized (this) {
+            if (inFlight != upload || upload.result.isDone()) {
+                return;
+            }
+            timeoutCount.incrementAndGet();
+            logger.atWarn().kv("uploadTimeoutMs", upload.config.getUploadTimeoutMs())
+                    .log("Timed out uploading the IP addresses, the upload will be retried");
+            upload.task.cancel(true);
+            if (!upload.running) {
+                upload.abandoned = true;
+                rejected = startNext();
+            }
+            // Otherwise the upload keeps its slot until it returns and releases the upload lock
+        }
+        upload.result.complete(UploadStatus.RETRYABLE);
+        if (rejected != null) {
+            rejected.result.complete(UploadStatus.RETRYABLE);
+        }
+    }
+
+    private void complete(Upload upload, UploadStatus status) {
+        Upload rejected;
+        synchronized (this) {
+            if (inFlight != upload) {
+                // Cancelled, or timed out before it started
+                return;
+            }
+            if (upload.timeout != null) {
+                upload.timeout.cancel(false);
+            }
+            rejected = startNext();
+        }
+        // No-op if the upload already timed out
+        upload.result.complete(status);
+        if (rejected != null) {
+            rejected.result.complete(UploadStatus.RETRYABLE);
+        }
+    }
+
+    private Upload startNext() {
+        inFlight = queued;
+        queued = null;
+        return inFlight == null ? null : start(inFlight);
+    }
+
+    private void cancel(Upload upload) {
+        if (upload.task != null) {
+            upload.task.cancel(true);
+        }
+        if (upload.timeout != null) {
+            upload.timeout.cancel(false);
+        }
+        upload.result.complete(UploadStatus.SKIPPED);
+    }
+}
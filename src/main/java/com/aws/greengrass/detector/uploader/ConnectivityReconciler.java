@@ -0,0 +1,89 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.uploader;
+
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.detector.Endpoint;
+
+import java.time.Clock;
+import java.util.List;
+import javax.inject.Inject;
+
+/**
+ * Decides when to compare the connectivity information in the cloud with the last upload, at most every
+ * {@code reconcileIntervalMs}.
+ *
+ * <p>Reconciliation piggybacks on detection runs whose endpoints were unchanged, the first one as soon as
+ * possible to catch changes made while the component was not running. A run that uploaded has just
+ * brought the cloud in line and restarts the interval. Every reconciliation restarts it as well, whatever
+ * its outcome, so that a core lacking the {@code greengrass:GetConnectivityInfo} permission or losing its
+ * connection does not call the cloud on every detection run.
+ *
+ * <p>If the cloud no longer has the last upload, it is submitted to the {@link UploadCoalescer} again, so
+ * that the upload is subject to the same rate limit and retry backoff as any other change.
+ */
+public class ConnectivityReconciler {
+    private final ConnectivityUpdater connectivityUpdater;
+    private final UploadCoalescer uploadCoalescer;
+    private final Clock clock;
+    private long lastReconciledMs;
+    private boolean reconciled;
+
+    /**
+     * Constructor.
+     *
+     * @param connectivityUpdater client to get and update connectivity information
+     * @param uploadCoalescer stage the last upload is submitted to again if the cloud no longer has it
+     */
+    @Inject
+    public ConnectivityReconciler(ConnectivityUpdater connectivityUpdater, UploadCoalescer uploadCoalescer) {
+        this(connectivityUpdater, uploadCoalescer, Clock.systemUTC());
+    }
+
+    //Default for JUnit Testing
+    ConnectivityReconciler(ConnectivityUpdater connectivityUpdater, UploadCoalescer uploadCoalescer, Clock clock) {
+        this.connectivityUpdater = connectivityUpdater;
+        this.uploadCoalescer = uploadCoalescer;
+        this.clock = clock;
+    }
+
+    /**
+     * Reconcile with the cloud if due after a detection run.
+     *
+     * @param config          Configuration values
+     * @param detectionStatus outcome of the detection run
+     * @return outcome of the reconciliation, {@link UploadStatus#SKIPPED} if it was not due, the outcome of
+     *     submitting the last upload again if the cloud no longer has it
+     */
+    public synchronized UploadStatus reconcileIfDue(Config config, UploadStatus detectionStatus) {
+        long intervalMs = config.getReconcileIntervalMs();
+        if (intervalMs <= 0) {
+            return UploadStatus.SKIPPED;
+        }
+        long nowMs = clock.millis();
+        if (detectionStatus == UploadStatus.UPLOADED) {
+            markReconciled(nowMs);
+            return UploadStatus.SKIPPED;
+        }
+        if (detectionStatus != UploadStatus.UNCHANGED || reconciled && nowMs - lastReconciledMs < intervalMs) {
+            return UploadStatus.SKIPPED;
+        }
+        markReconciled(nowMs);
+        UploadStatus status = connectivityUpdater.reconcile(config);
+        if (status == UploadStatus.DEFERRED) {
+            List<Endpoint> uploaded = connectivityUpdater.getUploadedEndpoints();
+            if (!uploaded.isEmpty()) {
+                return uploadCoalescer.submit(uploaded, config);
+            }
+        }
+        return status;
+    }
+
+    private void markReconciled(long nowMs) {
+        lastReconciledMs = nowMs;
+        reconciled = true;
+    }
+}
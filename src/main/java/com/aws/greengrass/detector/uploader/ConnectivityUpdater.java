@@ -7,6 +7,11 @@ package com.aws.greengrass.detector.uploader;
 
 import com.aws.greengrass.deployment.DeviceConfiguration;
 import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.connectivity.ConnectivityCache;
+import com.aws.greengrass.detector.detector.AddressRanker;
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.detector.metrics.DetectorMetrics;
+import com.aws.greengrass.detector.metrics.DetectorMetrics.FailureCause;
 import com.aws.greengrass.logging.api.Logger;
 import com.aws.greengrass.logging.impl.LogManager;
 import com.aws.greengrass.util.Coerce;
@@ -17,11 +22,15 @@ import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.core.exception.SdkServiceException;
 import software.amazon.awssdk.http.HttpStatusCode;
 import software.amazon.awssdk.services.greengrassv2data.model.ConnectivityInfo;
+import software.amazon.awssdk.services.greengrassv2data.model.GetConnectivityInfoRequest;
+import software.amazon.awssdk.services.greengrassv2data.model.GetConnectivityInfoResponse;
 import software.amazon.awssdk.services.greengrassv2data.model.UpdateConnectivityInfoRequest;
 import software.amazon.awssdk.services.greengrassv2data.model.UpdateConnectivityInfoResponse;
 
-import java.net.InetAddress;
+import java.io.IOException;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
@@ -31,90 +40,316 @@ public class ConnectivityUpdater {
 
     private final DeviceConfiguration deviceConfiguration;
     private final GreengrassServiceClientFactory clientFactory;
-    private List<String> ipAddresses;
-    private int defaultPort;
+    private final DetectorMetrics metrics;
+    private final ConnectivityCache connectivityCache;
+    private final Object uploadLock = new Object();
+    private volatile AddressFingerprint fingerprint;
+    private volatile AddressFingerprint orderedFingerprint;
+    private List<Endpoint> endpoints;
+    private String version;
+    private UploadStateStore stateStore;
 
     /**
      * Constructor.
      *
      * @param deviceConfiguration client to get the device details
      * @param clientFactory factory to get data plane client
+     * @param metrics metrics recording the outcome and round-trip time of uploads
+     * @param connectivityCache cache sharing the uploaded endpoints with other components
      */
     @Inject
-    public ConnectivityUpdater(DeviceConfiguration deviceConfiguration, GreengrassServiceClientFactory clientFactory) {
+    public ConnectivityUpdater(DeviceConfiguration deviceConfiguration, GreengrassServiceClientFactory clientFactory,
+                               DetectorMetrics metrics, ConnectivityCache connectivityCache) {
         this.deviceConfiguration = deviceConfiguration;
         this.clientFactory = clientFactory;
+        this.metrics = metrics;
+        this.connectivityCache = connectivityCache;
+    }
+
+    //Default for JUnit Testing
+    ConnectivityUpdater(DeviceConfiguration deviceConfiguration, GreengrassServiceClientFactory clientFactory,
+                        DetectorMetrics metrics) {
+        this(deviceConfiguration, clientFactory, metrics, new ConnectivityCache());
+    }
+
+    //Default for JUnit Testing
+    ConnectivityUpdater(DeviceConfiguration deviceConfiguration, GreengrassServiceClientFactory clientFactory) {
+        this(deviceConfiguration, clientFactory, DetectorMetrics.none());
     }
 
     /**
-     * Upload IP addresses to cloud if they have changed.
+     * Restore the last uploaded state and persist future uploads to the store.
      *
-     * @param ipAddresses list of ipAddresses
+     * @param stateStore store for the last uploaded state
+     */
+    public synchronized void restoreState(UploadStateStore stateStore) {
+        this.stateStore = stateStore;
+        stateStore.load(Coerce.toString(deviceConfiguration.getThingName())).ifPresent(state -> {
+            this.endpoints = state.getEndpoints();
+            this.version = state.getVersion();
+            recordFingerprints(endpoints);
+            logger.atInfo().kv("endpoints", endpoints).kv("version", version)
+                    .log("Restored last uploaded IP addresses");
+            connectivityCache.updateUploaded(endpoints, version);
+        });
+    }
+
+    /**
+     * Upload endpoints to cloud if they have changed. Every (host, port, metadata) entry is compared,
+     * so a change of only the port or metadata of an address is uploaded as well.
+     *
+     * @param endpoints list of endpoints
      * @param config Configuration values
+     * @return outcome of the upload
      */
-    public void updateIpAddresses(List<InetAddress> ipAddresses, Config config) {
-        if (ipAddresses == null || ipAddresses.isEmpty()) {
-            return;
+    public UploadStatus updateEndpoints(List<Endpoint> endpoints, Config config) {
+        if (endpoints == null || endpoints.isEmpty()) {
+            return UploadStatus.SKIPPED;
+        }
+        AddressFingerprint newFingerprint = AddressFingerprint.ofEndpoints(endpoints, isOrdered(config));
+        if (newFingerprint.equals(lastFingerprint(newFingerprint.isOrdered()))) {
+            // Unchanged, no need to build the host address strings
+            metrics.recordUnchanged();
+            return UploadStatus.UNCHANGED;
         }
-        List<String> ips = ipAddresses.stream().filter(ip -> ip != null && ip.getHostAddress() != null)
-                .map(InetAddress::getHostAddress).collect(Collectors.toList());
-        uploadAddresses(ips, config);
+        return uploadEndpoints(endpoints, newFingerprint);
     }
 
-    @SuppressWarnings("PMD.AvoidInstanceofChecksInCatchClause")
-    synchronized void uploadAddresses(List<String> ips, Config config) {
-        int defaultPort = config.getDefaultPort();
-        if (!hasIpsChanged(ips) && defaultPort == this.defaultPort) {
-            return;
+    /**
+     * Check whether the given endpoints differ from the last upload.
+     *
+     * @param endpoints list of endpoints
+     * @param config Configuration values
+     * @return true if an upload would be needed
+     */
+    public boolean hasChanged(List<Endpoint> endpoints, Config config) {
+        if (endpoints == null || endpoints.isEmpty()) {
+            return false;
         }
-        List<ConnectivityInfo> connectivityInfoItems = ips.stream().map(ip -> ConnectivityInfo.builder()
-                .hostAddress(ip).metadata("").id(ip).portNumber(defaultPort).build())
+        boolean ordered = isOrdered(config);
+        return !AddressFingerprint.ofEndpoints(endpoints, ordered).equals(lastFingerprint(ordered));
+    }
+
+    UploadStatus uploadAddresses(List<String> ips, Config config) {
+        List<Endpoint> newEndpoints = toEndpoints(ips, config.getDefaultPort());
+        return uploadEndpoints(newEndpoints, AddressFingerprint.ofEndpoints(newEndpoints, isOrdered(config)));
+    }
+
+    /**
+     * Whether the order of the addresses is part of the uploaded state. It is once addresses are ranked,
+     * so that a reordering, such as an address failing its self-probe, is uploaded.
+     */
+    static boolean isOrdered(Config config) {
+        AddressRanker ranker = config.getAddressRanker();
+        return ranker != null && ranker.isEnabled();
+    }
+
+    private AddressFingerprint lastFingerprint(boolean ordered) {
+        return ordered ? orderedFingerprint : fingerprint;
+    }
+
+    private void recordFingerprints(List<Endpoint> uploaded) {
+        this.fingerprint = AddressFingerprint.ofEndpoints(uploaded, false);
+        this.orderedFingerprint = AddressFingerprint.ofEndpoints(uploaded, true);
+    }
+
+    private static List<Endpoint> toEndpoints(List<String> ips, int port) {
+        return ips.stream().map(ip -> Endpoint.ofHostAddress(ip, port, Endpoint.NO_METADATA))
                 .collect(Collectors.toList());
-        try {
-            UpdateConnectivityInfoResponse connectivityInfoResponse =
-                    updateConnectivityInfo(connectivityInfoItems);
-            if (connectivityInfoResponse != null && connectivityInfoResponse.version() != null) {
-                this.ipAddresses = ips;
-                this.defaultPort = defaultPort;
-                logger.atInfo().kv("IPs", ips).kv("defaultPort", defaultPort).log("Uploaded IP addresses");
-            }
-        } catch (SdkException e) {
-            if (Utils.getUltimateCause(e) instanceof UnknownHostException) {
-                // Let the user know if Internet connectivity is lost so they do not try to debug their IAM policies
-                //   immediately
-                logger.atWarn()
-                        .log("Failed to upload the IP addresses. An unknown host exception was thrown. "
-                                + "This may indicate that Internet connectivity has been lost.");
+    }
 
-                return;
+    /**
+     * Upload the endpoints if they have changed. Uploads are serialized on a dedicated lock so that
+     * change checks do not wait for an in-flight cloud call.
+     */
+    @SuppressWarnings("PMD.AvoidInstanceofChecksInCatchClause")
+    private UploadStatus uploadEndpoints(List<Endpoint> newEndpoints, AddressFingerprint newFingerprint) {
+        synchronized (uploadLock) {
+            if (newFingerprint.equals(lastFingerprint(newFingerprint.isOrdered()))) {
+                metrics.recordUnchanged();
+                return UploadStatus.UNCHANGED;
             }
-            if (e instanceof SdkServiceException
-                    && HttpStatusCode.FORBIDDEN == ((SdkServiceException) e).statusCode()) {
+            List<ConnectivityInfo> connectivityInfoItems = toConnectivityInfo(newEndpoints);
+            long startNanos = System.nanoTime();
+            try {
+                UpdateConnectivityInfoResponse connectivityInfoResponse =
+                        updateConnectivityInfo(connectivityInfoItems);
+                metrics.recordUploadTime(startNanos);
+                if (connectivityInfoResponse != null && connectivityInfoResponse.version() != null) {
+                    synchronized (this) {
+                        this.endpoints = newEndpoints;
+                        this.version = connectivityInfoResponse.version();
+                        recordFingerprints(newEndpoints);
+                        if (stateStore != null) {
+                            stateStore.save(Coerce.toString(deviceConfiguration.getThingName()), newEndpoints,
+                                    version);
+                        }
+                    }
+                    logger.atInfo().kv("endpoints", newEndpoints).log("Uploaded IP addresses");
+                    metrics.recordUpload();
+                    connectivityCache.updateUploaded(newEndpoints, connectivityInfoResponse.version());
+                    return UploadStatus.UPLOADED;
+                }
+                metrics.recordFailure(FailureCause.NO_RESPONSE);
+                return UploadStatus.FAILED;
+            } catch (SdkException e) {
+                metrics.recordUploadTime(startNanos);
+                if (Utils.getUltimateCause(e) instanceof UnknownHostException) {
+                    // Let the user know if Internet connectivity is lost so they do not try to debug their IAM
+                    //   policies immediately
+                    logger.atWarn()
+                            .log("Failed to upload the IP addresses. An unknown host exception was thrown. "
+                                    + "This may indicate that Internet connectivity has been lost.");
+                    metrics.recordFailure(FailureCause.OFFLINE);
+                    return UploadStatus.RETRYABLE;
+                }
+                if (e instanceof SdkServiceException && (((SdkServiceException) e).isThrottlingException()
+                        || HttpStatusCode.THROTTLING == ((SdkServiceException) e).statusCode())) {
+                    logger.atWarn().log("Uploading the IP addresses was throttled, the upload will be retried", e);
+                    metrics.recordFailure(FailureCause.THROTTLED);
+                    return UploadStatus.THROTTLED;
+                }
+                if (isTransient(e)) {
+                    logger.atWarn().log("Failed to upload the IP addresses, the upload will be retried", e);
+                    metrics.recordFailure(FailureCause.TRANSIENT);
+                    return UploadStatus.RETRYABLE;
+                }
+                if (e instanceof SdkServiceException
+                        && HttpStatusCode.FORBIDDEN == ((SdkServiceException) e).statusCode()) {
+                    logger.atWarn()
+                            .log("Failed to upload the IP addresses. Make sure that the core device's IoT policy "
+                                    + "grants the greengrass:UpdateConnectivityInfo permission. "
+                                    + "Also the Greengrass service role must be associated to your AWS account "
+                                    + "with the iot:GetThingShadow and iot:UpdateThingShadow permissions.", e);
+                    metrics.recordFailure(FailureCause.FORBIDDEN);
+                    return UploadStatus.FAILED;
+                }
+                // Catch all error message
                 logger.atWarn()
-                        .log("Failed to upload the IP addresses. Make sure that the core device's IoT policy "
-                                + "grants the greengrass:UpdateConnectivityInfo permission. "
-                                + "Also the Greengrass service role must be associated to your AWS account with the "
-                                + "iot:GetThingShadow and iot:UpdateThingShadow permissions.", e);
-                return;
+                        .log("Failed to upload the IP addresses.", e);
+                metrics.recordFailure(FailureCause.OTHER);
+                return UploadStatus.FAILED;
+            }
+        }
+    }
+
+    /**
+     * Compare the connectivity information in the cloud with the last upload. If someone else changed it, the
+     * last upload is seen as changed from then on, so that submitting it again uploads it. The order of the
+     * entries is only compared once addresses are ranked, as it is for {@link #hasChanged(List, Config)}.
+     *
+     * <p>The cloud entries are compared with the fingerprint of the last upload. Nothing is uploaded here, and
+     * the upload lock is not held while waiting for the cloud.
+     *
+     * @param config Configuration values
+     * @return {@link UploadStatus#UNCHANGED} if the cloud matches the last upload,
+     *     {@link UploadStatus#SKIPPED} if nothing was uploaded yet, {@link UploadStatus#DEFERRED} if the
+     *     {@link #getUploadedEndpoints() last upload} must be submitted again, otherwise the outcome of the fetch
+     */
+    public UploadStatus reconcile(Config config) {
+        boolean ordered = isOrdered(config);
+        List<Endpoint> uploaded;
+        AddressFingerprint uploadedFingerprint;
+        synchronized (this) {
+            uploaded = this.endpoints;
+            uploadedFingerprint = lastFingerprint(ordered);
+        }
+        if (uploaded == null || uploaded.isEmpty()) {
+            return UploadStatus.SKIPPED;
+        }
+        List<ConnectivityInfo> cloudInfo;
+        try {
+            cloudInfo = getConnectivityInfo();
+        } catch (SdkException e) {
+            logger.atWarn().log("Unable to get the connectivity information to compare with the last upload", e);
+            return isTransient(e) ? UploadStatus.RETRYABLE : UploadStatus.FAILED;
+        }
+        if (uploadedFingerprint == null) {
+            // Cleared by an earlier mismatch that was not uploaded again yet
+            uploadedFingerprint = AddressFingerprint.ofEndpoints(uploaded, ordered);
+        }
+        List<Endpoint> cloudEndpoints = fromConnectivityInfo(cloudInfo);
+        if (AddressFingerprint.ofEndpoints(cloudEndpoints, ordered).equals(uploadedFingerprint)) {
+            metrics.recordReconciliation(true);
+            return UploadStatus.UNCHANGED;
+        }
+        synchronized (this) {
+            if (uploaded != this.endpoints) {
+                // Uploaded meanwhile, the cloud was brought in line
+                return UploadStatus.UNCHANGED;
             }
-            // Catch all error message
-            logger.atWarn()
-                    .log("Failed to upload the IP addresses.", e);
+            // Until the last upload is uploaded again, any change check must see it as changed
+            this.fingerprint = null;
+            this.orderedFingerprint = null;
         }
+        metrics.recordReconciliation(false);
+        logger.atInfo().kv("cloudEndpoints", cloudEndpoints).kv("uploadedEndpoints", uploaded)
+                .log("Connectivity information was changed outside of the IP detector, uploading it again");
+        return UploadStatus.DEFERRED;
+    }
+
+    /**
+     * Endpoints of the last successful upload.
+     *
+     * @return endpoints, empty if nothing was uploaded yet
+     */
+    public synchronized List<Endpoint> getUploadedEndpoints() {
+        return endpoints == null ? Collections.emptyList() : endpoints;
     }
 
     //Default for JUnit Testing
-    boolean hasIpsChanged(@NonNull List<String> ips) {
-        if (this.ipAddresses == null) {
+    synchronized boolean hasIpsChanged(@NonNull List<String> ips) {
+        AddressFingerprint current = this.fingerprint;
+        if (current == null || endpoints.isEmpty()) {
             return true;
-        } else {
-            return this.ipAddresses.size() != ips.size() || !this.ipAddresses.containsAll(ips);
         }
+        // The addresses share the port and metadata of the uploaded endpoints
+        Endpoint uploaded = endpoints.get(0);
+        return !AddressFingerprint.ofHostAddresses(ips, uploaded.getPort(), uploaded.getMetadata()).equals(current);
     }
 
     //Default for JUnit Testing
-    boolean hasPortChanged(int port) {
-        return this.defaultPort != port;
+    synchronized boolean hasPortChanged(int port) {
+        // Each endpoint carries its own port, which is also what is persisted and restored
+        return endpoints == null || endpoints.stream().anyMatch(endpoint -> endpoint.getPort() != port);
+    }
+
+    //Default for JUnit Testing
+    static List<ConnectivityInfo> toConnectivityInfo(List<Endpoint> endpoints) {
+        return endpoints.stream()
+                .filter(endpoint -> endpoint != null && endpoint.getHostAddress() != null)
+                .map(endpoint -> ConnectivityInfo.builder().hostAddress(endpoint.getHostAddress())
+                        .metadata(endpoint.getMetadata()).id(id(endpoint))
+                        .portNumber(endpoint.getPort()).build())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Id of the connectivity information of an endpoint. The same host may be advertised on several ports, so
+     * the id includes the port, with IPv6 addresses in brackets to keep the port apart from the address.
+     */
+    private static String id(Endpoint endpoint) {
+        String host = endpoint.getHostAddress();
+        return (host.indexOf(':') < 0 ? host : '[' + host + ']') + ':' + endpoint.getPort();
+    }
+
+    private static List<Endpoint> fromConnectivityInfo(List<ConnectivityInfo> connectivityInfo) {
+        List<Endpoint> endpoints = new ArrayList<>(connectivityInfo.size());
+        for (ConnectivityInfo info : connectivityInfo) {
+            if (info != null && info.hostAddress() != null) {
+                endpoints.add(Endpoint.ofHostAddress(info.hostAddress(),
+                        info.portNumber() == null ? 0 : info.portNumber(), info.metadata()));
+            }
+        }
+        return endpoints;
+    }
+
+    private static boolean isTransient(SdkException e) {
+        if (e instanceof SdkServiceException) {
+            return ((SdkServiceException) e).statusCode() >= HttpStatusCode.INTERNAL_SERVER_ERROR;
+        }
+        // Connection refused, reset or timed out
+        return Utils.getUltimateCause(e) instanceof IOException;
     }
 
     private UpdateConnectivityInfoResponse updateConnectivityInfo(List<ConnectivityInfo> connectivityInfoItems) {
@@ -129,9 +364,20 @@ public class ConnectivityUpdater {
         return clientFactory.getGreengrassV2DataClient().updateConnectivityInfo(updateConnectivityInfoRequest);
     }
 
+    private List<ConnectivityInfo> getConnectivityInfo() {
+        GetConnectivityInfoRequest getConnectivityInfoRequest = GetConnectivityInfoRequest.builder()
+                .thingName(Coerce.toString(deviceConfiguration.getThingName())).build();
+        GetConnectivityInfoResponse response =
+                clientFactory.getGreengrassV2DataClient().getConnectivityInfo(getConnectivityInfoRequest);
+        if (response == null || !response.hasConnectivityInfo()) {
+            return Collections.emptyList();
+        }
+        return response.connectivityInfo();
+    }
+
     //For Junit Testing
-    void setIpAddressesAndPort(List<String> ipAddresses, int port) {
-        this.ipAddresses = ipAddresses;
-        this.defaultPort = port;
+    synchronized void setIpAddressesAndPort(List<String> ipAddresses, int port) {
+        this.endpoints = toEndpoints(ipAddresses, port);
+        recordFingerprints(endpoints);
     }
 }
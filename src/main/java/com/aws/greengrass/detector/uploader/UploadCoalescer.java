@@ -0,0 +1,388 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.uploader;
+
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.detector.executor.DetectorExecutors;
+import com.aws.greengrass.logging.api.Logger;
+import com.aws.greengrass.logging.impl.LogManager;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Inject;
+
+/**
+ * Holds back address changes until they settle, so that a flapping interface results in a single
+ * upload of the final state.
+ *
+ * <p>A change is uploaded once no further change has been seen for {@code debounceQuietPeriodMs},
+ * and at the latest {@code debounceMaxDelayMs} after the first change. A quiet period of zero
+ * uploads every change immediately.
+ *
+ * <p>Uploads are also limited by the {@link UploadRateLimiter}. A change that finds no token, or that
+ * the cloud throttles, becomes the pending change and is uploaded once the next token is available.
+ * An upload failing with a transient error is retried the same way after the {@link UploadRetryBackoff}
+ * delay. Newer changes replace the pending change meanwhile, so nothing is dropped and every attempt
+ * uploads the latest state. A change that arrives during the delay waits for it too, even once its own
+ * quiet period has elapsed.
+ */
+@SuppressWarnings("PMD.AvoidCatchingGenericException")
+public class UploadCoalescer {
+    private final Logger logger = LogManager.getLogger(UploadCoalescer.class);
+
+    private final ConnectivityUpdater connectivityUpdater;
+    private final AsyncConnectivityUploader asyncUploader;
+    private final ScheduledExecutorService scheduledExecutorService;
+    private final UploadRateLimiter rateLimiter;
+    private final UploadRetryBackoff retryBackoff;
+    private final Clock clock;
+
+    private final AtomicLong suppressedCount = new AtomicLong();
+    private final AtomicLong deferredCount = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private List<Endpoint> pendingEndpoints;
+    private Config pendingConfig;
+    // Compared with every submitted list, so that a repeated submission costs one fingerprint
+    private AddressFingerprint pendingFingerprint;
+    private Instant firstChangeTime;
+    // Set while an upload is held back by the rate limiter or a retry, no newer change goes out earlier
+    private Instant holdUntil;
+    private ScheduledFuture<?> pendingFlush;
+    private long generation;
+
+    /**
+     * Constructor.
+     *
+     * @param connectivityUpdater client to update connectivity information
+     * @param asyncUploader uploader used when uploads run off the detection thread
+     * @param executors IP detector executors, delayed uploads run on the scheduler
+     * @param rateLimiter limiter of the upload rate
+     * @param retryBackoff backoff between retries of failed uploads
+     */
+    @Inject
+    public UploadCoalescer(ConnectivityUpdater connectivityUpdater, AsyncConnectivityUploader asyncUploader,
+                           DetectorExecutors executors, UploadRateLimiter rateLimiter,
+                           UploadRetryBackoff retryBackoff) {
+        this(connectivityUpdater, asyncUploader, executors.getScheduler(), rateLimiter, retryBackoff,
+                Clock.systemUTC());
+    }
+
+    //Default for JUnit Testing
+    UploadCoalescer(ConnectivityUpdater connectivityUpdater, AsyncConnectivityUploader asyncUploader,
+                    ScheduledExecutorService scheduledExecutorService, UploadRateLimiter rateLimiter,
+                    UploadRetryBackoff retryBackoff, Clock clock) {
+        this.connectivityUpdater = connectivityUpdater;
+        this.asyncUploader = asyncUploader;
+        this.scheduledExecutorService = scheduledExecutorService;
+        this.rateLimiter = rateLimiter;
+        this.retryBackoff = retryBackoff;
+        this.clock = clock;
+    }
+
+    /**
+     * Submit the latest detected endpoints.
+     *
+     * @param endpoints list of endpoints
+     * @param config Configuration values
+     * @return outcome, {@link UploadStatus#DEFERRED} if the upload is held back
+     */
+    public UploadStatus submit(List<Endpoint> endpoints, Config config) {
+        long quietPeriodMs = config.getDebounceQuietPeriodMs();
+        if (quietPeriodMs <= 0) {
+            long currentGeneration;
+            synchronized (this) {
+                if (pendingEndpoints != null) {
+                    // An upload is held back by the rate limiter or a retry, it goes out with these endpoints
+                    return replacePending(endpoints, config);
+                }
+                long holdMs = holdMs();
+                if (holdMs > 0) {
+                    if (!connectivityUpdater.hasChanged(endpoints, config)) {
+                        return UploadStatus.UNCHANGED;
+                    }
+                    firstChangeTime = clock.instant();
+                    setPending(endpoints, config);
+                    scheduleFlush(holdMs);
+                    return UploadStatus.DEFERRED;
+                }
+                currentGeneration = generation;
+            }
+            return deliver(endpoints, config, currentGeneration);
+        }
+        synchronized (this) {
+            if (pendingEndpoints != null && isPending(endpoints, config)) {
+                pendingConfig = config;
+                return UploadStatus.DEFERRED;
+            }
+            if (!connectivityUpdater.hasChanged(endpoints, config)) {
+                if (pendingEndpoints != null) {
+                    // Flapped back to what the cloud already has, the pending state is never uploaded
+                    suppressedCount.incrementAndGet();
+                    clearPending();
+                }
+                return UploadStatus.UNCHANGED;
+            }
+
+            Instant now = clock.instant();
+            if (pendingEndpoints == null) {
+                firstChangeTime = now;
+            } else {
+                suppressedCount.incrementAndGet();
+            }
+            setPending(endpoints, config);
+
+            Instant deadline = firstChangeTime.plusMillis(Math.max(quietPeriodMs, config.getDebounceMaxDelayMs()));
+            Instant flushTime = now.plusMillis(quietPeriodMs);
+            if (flushTime.isAfter(deadline)) {
+                flushTime = deadline;
+            }
+            // A change arriving during a retry backoff or a throttle waits for it as well
+            scheduleFlush(Math.max(holdMs(), flushTime.toEpochMilli() - now.toEpochMilli()));
+            return UploadStatus.DEFERRED;
+        }
+    }
+
+    /**
+     * Drop any change that has not been uploaded yet and stop retrying failed uploads.
+     */
+    public synchronized void cancel() {
+        // Uploads in flight must not schedule a retry any more
+        generation++;
+        clearPending();
+        holdUntil = null;
+        retryBackoff.reset();
+        asyncUploader.cancel();
+    }
+
+    /**
+     * Number of intermediate address states that were never uploaded.
+     *
+     * @return suppressed state count
+     */
+    public long getSuppressedCount() {
+        return suppressedCount.get();
+    }
+
+    /**
+     * Number of times an upload was held back by the rate limiter, because the cloud throttled it or to
+     * retry it after a transient error.
+     *
+     * @return deferred count
+     */
+    public long getDeferredCount() {
+        return deferredCount.get();
+    }
+
+    /**
+     * Number of uploads the cloud throttled.
+     *
+     * @return throttled count
+     */
+    public long getThrottledCount() {
+        return rateLimiter.getThrottledCount();
+    }
+
+    /**
+     * Number of retries of uploads that failed with a transient error.
+     *
+     * @return retry count
+     */
+    public long getRetryCount() {
+        return retryBackoff.getRetryCount();
+    }
+
+    /**
+     * Number of uploads performed after a change settled.
+     *
+     * @return flush count
+     */
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    private UploadStatus replacePending(List<Endpoint> endpoints, Config config) {
+        if (!isPending(endpoints, config)) {
+            if (!connectivityUpdater.hasChanged(endpoints, config)) {
+                // Flapped back to what the cloud already has, the pending state is never uploaded
+                suppressedCount.incrementAndGet();
+                clearPending();
+                return UploadStatus.UNCHANGED;
+            }
+            suppressedCount.incrementAndGet();
+            setPending(endpoints, config);
+        }
+        pendingConfig = config;
+        return UploadStatus.DEFERRED;
+    }
+
+    //Default for JUnit Testing
+    synchronized boolean hasPending() {
+        return pendingEndpoints != null;
+    }
+
+    private void scheduleFlush(long delayMs) {
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+        }
+        pendingFlush = scheduledExecutorService.schedule(this::flush, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    //Default for JUnit Testing
+    void flush() {
+        List<Endpoint> endpoints;
+        Config config;
+        long currentGeneration;
+        synchronized (this) {
+            if (pendingEndpoints == null) {
+                return;
+            }
+            endpoints = pendingEndpoints;
+            config = pendingConfig;
+            pendingEndpoints = null;
+            pendingConfig = null;
+            pendingFingerprint = null;
+            pendingFlush = null;
+            currentGeneration = generation;
+        }
+        flushCount.incrementAndGet();
+        try {
+            UploadStatus status = deliver(endpoints, config, currentGeneration);
+            logger.atDebug().kv("status", status).kv("suppressed", suppressedCount.get())
+                    .log("Uploaded settled IP addresses");
+        } catch (Exception e) {
+            logger.atError().log("Exception occurred when uploading settled IP addresses", e);
+        }
+    }
+
+    private UploadStatus deliver(List<Endpoint> endpoints, Config config, long currentGeneration) {
+        long waitMs = rateLimiter.tryAcquire(config);
+        if (waitMs > 0) {
+            if (!connectivityUpdater.hasChanged(endpoints, config)) {
+                return UploadStatus.UNCHANGED;
+            }
+            return defer(endpoints, config, waitMs, true, currentGeneration);
+        }
+        if (!config.isAsyncUpload()) {
+            return onUploadComplete(endpoints, config, connectivityUpdater.updateEndpoints(endpoints, config),
+                    currentGeneration);
+        }
+        if (!connectivityUpdater.hasChanged(endpoints, config)) {
+            rateLimiter.release();
+            return UploadStatus.UNCHANGED;
+        }
+        CompletableFuture<UploadStatus> result = asyncUploader.submit(endpoints, config)
+                .thenApply(status -> onUploadComplete(endpoints, config, status, currentGeneration));
+        return result.getNow(UploadStatus.DEFERRED);
+    }
+
+    private UploadStatus onUploadComplete(List<Endpoint> endpoints, Config config, UploadStatus status,
+                                          long currentGeneration) {
+        switch (status) {
+            case UNCHANGED:
+                // Nothing was sent, the token is not used up
+                rateLimiter.release();
+                retryBackoff.reset();
+                return status;
+            case SKIPPED:
+                // Nothing was sent, for example because newer endpoints replaced these in the upload queue
+                rateLimiter.release();
+                return status;
+            case UPLOADED:
+                rateLimiter.onSuccess();
+                retryBackoff.reset();
+                return status;
+            case THROTTLED:
+                return defer(endpoints, config, rateLimiter.onThrottled(config), false, currentGeneration);
+            case RETRYABLE:
+                long delayMs = retryBackoff.nextDelayMs(config);
+                if (delayMs == UploadRetryBackoff.NO_RETRY) {
+                    logger.atWarn().kv("uploadRetryMaxAttempts", config.getUploadRetryMaxAttempts())
+                            .log("Giving up retrying the IP address upload until the next detection run");
+                    return UploadStatus.FAILED;
+                }
+                return defer(endpoints, config, delayMs, false, currentGeneration);
+            default:
+                retryBackoff.reset();
+                return status;
+        }
+    }
+
+    /**
+     * Hold back an upload until the rate limiter has a token again or the retry is due.
+     *
+     * @param newest whether the endpoints are the latest submitted ones, rather than those of an upload
+     *               that failed after newer endpoints were submitted
+     * @param currentGeneration generation the upload started in, uploads started before a cancel are dropped
+     */
+    private synchronized UploadStatus defer(List<Endpoint> endpoints, Config config, long delayMs,
+                                            boolean newest, long currentGeneration) {
+        if (currentGeneration != generation) {
+            logger.atDebug().log("Uploads were cancelled, not retrying the IP address upload");
+            return UploadStatus.FAILED;
+        }
+        deferredCount.incrementAndGet();
+        Instant now = clock.instant();
+        holdUntil = now.plusMillis(delayMs);
+        if (pendingEndpoints == null) {
+            firstChangeTime = now;
+            setPending(endpoints, config);
+        } else if (newest) {
+            suppressedCount.incrementAndGet();
+            setPending(endpoints, config);
+        }
+        logger.atDebug().kv("delayMs", delayMs).log("Holding back the IP address upload");
+        scheduleFlush(delayMs);
+        return UploadStatus.DEFERRED;
+    }
+
+    /**
+     * Time left until uploads may be attempted again after a retry backoff or throttle.
+     */
+    private long holdMs() {
+        if (holdUntil == null) {
+            return 0L;
+        }
+        long holdMs = holdUntil.toEpochMilli() - clock.instant().toEpochMilli();
+        if (holdMs <= 0) {
+            holdUntil = null;
+            return 0L;
+        }
+        return holdMs;
+    }
+
+    private void clearPending() {
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+            pendingFlush = null;
+        }
+        pendingEndpoints = null;
+        pendingConfig = null;
+        pendingFingerprint = null;
+        firstChangeTime = null;
+    }
+
+    private void setPending(List<Endpoint> endpoints, Config config) {
+        pendingEndpoints = endpoints;
+        pendingConfig = config;
+        pendingFingerprint = AddressFingerprint.ofEndpoints(endpoints, ConnectivityUpdater.isOrdered(config));
+    }
+
+    /**
+     * Whether the endpoints are the pending upload. Duplicates count, and the order only counts once addresses
+     * are ranked, as for the change check of the {@link ConnectivityUpdater}.
+     */
+    private boolean isPending(List<Endpoint> endpoints, Config config) {
+        return pendingFingerprint.equals(
+                AddressFingerprint.ofEndpoints(endpoints, ConnectivityUpdater.isOrdered(config)));
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.uploader;
+
+import com.aws.greengrass.detector.config.Config;
+
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Inject;
+
+/**
+ * Token bucket limiting how often connectivity information is uploaded.
+ *
+ * <p>The bucket holds up to {@code uploadBurst} tokens and gains one every {@code uploadRefillIntervalMs}.
+ * Each upload takes a token. A burst of zero disables the limiter.
+ *
+ * <p>The limiter adapts to the cloud: every throttled upload empties the bucket and doubles the refill
+ * interval, up to {@value #MAX_PENALTY} times the configured one, and every successful upload halves the
+ * penalty again.
+ */
+public class UploadRateLimiter {
+    static final int MAX_PENALTY = 64;
+
+    private final Clock clock;
+    private final AtomicLong throttledCount = new AtomicLong();
+    private double tokens = Double.NaN;
+    private long lastRefillMs;
+    private int penalty = 1;
+
+    @Inject
+    public UploadRateLimiter() {
+        this(Clock.systemUTC());
+    }
+
+    //Default for JUnit Testing
+    UploadRateLimiter(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Take a token if one is available.
+     *
+     * @param config Configuration values
+     * @return 0 if a token was taken, otherwise the time in milliseconds until the next token
+     */
+    public synchronized long tryAcquire(Config config) {
+        int burst = config.getUploadBurst();
+        if (burst <= 0) {
+            return 0L;
+        }
+        long intervalMs = refillIntervalMs(config);
+        refill(burst, intervalMs);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0L;
+        }
+        return Math.max(1L, (long) Math.ceil((1 - tokens) * intervalMs));
+    }
+
+    /**
+     * Return a token taken for an upload that was not sent.
+     */
+    public synchronized void release() {
+        if (!Double.isNaN(tokens)) {
+            tokens += 1;
+        }
+    }
+
+    /**
+     * Record an upload the cloud accepted.
+     */
+    public synchronized void onSuccess() {
+        penalty = Math.max(1, penalty / 2);
+    }
+
+    /**
+     * Record an upload the cloud throttled.
+     *
+     * @param config Configuration values
+     * @return time in milliseconds until the next token
+     */
+    public synchronized long onThrottled(Config config) {
+        throttledCount.incrementAndGet();
+        penalty = Math.min(MAX_PENALTY, penalty * 2);
+        tokens = 0;
+        lastRefillMs = clock.millis();
+        return refillIntervalMs(config);
+    }
+
+    /**
+     * Number of uploads the cloud throttled.
+     *
+     * @return throttled count
+     */
+    public long getThrottledCount() {
+        return throttledCount.get();
+    }
+
+    //Default for JUnit Testing
+    synchronized int getPenalty() {
+        return penalty;
+    }
+
+    private long refillIntervalMs(Config config) {
+        return Math.max(1L, config.getUploadRefillIntervalMs()) * penalty;
+    }
+
+    private void refill(int burst, long intervalMs) {
+        long nowMs = clock.millis();
+        if (Double.isNaN(tokens)) {
+            // Start with a full bucket
+            tokens = burst;
+        } else if (nowMs > lastRefillMs) {
+            tokens += (double) (nowMs - lastRefillMs) / intervalMs;
+        }
+        tokens = Math.min(tokens, burst);
+        lastRefillMs = nowMs;
+    }
+}
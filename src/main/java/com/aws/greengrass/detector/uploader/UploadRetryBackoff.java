@@ -0,0 +1,81 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.uploader;
+
+import com.aws.greengrass.detector.config.Config;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Inject;
+
+/**
+ * Backoff between retries of uploads that failed with a transient error.
+ *
+ * <p>The n-th retry waits a random time between zero and {@code uploadRetryBaseDelayMs * 2^n}, capped at
+ * {@code uploadRetryMaxDelayMs} ("full jitter"), so that a fleet of cores losing their connection together
+ * does not retry in lockstep. After {@code uploadRetryMaxAttempts} retries the upload is left to the next
+ * detection run.
+ */
+public class UploadRetryBackoff {
+    /** Returned by {@link #nextDelayMs(Config)} when no retry is left. */
+    public static final long NO_RETRY = -1L;
+    private static final int MAX_EXPONENT = 30;
+
+    private final Random random;
+    private final AtomicLong retryCount = new AtomicLong();
+    private int attempts;
+
+    @Inject
+    public UploadRetryBackoff() {
+        this(new Random());
+    }
+
+    //Default for JUnit Testing
+    UploadRetryBackoff(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Record a failed attempt and get the delay before the next one.
+     *
+     * @param config Configuration values
+     * @return delay in milliseconds, or {@link #NO_RETRY} once the attempts are used up
+     */
+    public synchronized long nextDelayMs(Config config) {
+        if (attempts >= config.getUploadRetryMaxAttempts()) {
+            attempts = 0;
+            return NO_RETRY;
+        }
+        long baseMs = Math.max(1L, config.getUploadRetryBaseDelayMs());
+        long capMs = Math.max(baseMs, config.getUploadRetryMaxDelayMs());
+        int exponent = Math.min(attempts, MAX_EXPONENT);
+        long ceilingMs = baseMs > capMs >> exponent ? capMs : baseMs << exponent;
+        attempts++;
+        retryCount.incrementAndGet();
+        return (long) (random.nextDouble() * ceilingMs);
+    }
+
+    /**
+     * Start over after an attempt that did not fail.
+     */
+    public synchronized void reset() {
+        attempts = 0;
+    }
+
+    /**
+     * Number of retries scheduled.
+     *
+     * @return retry count
+     */
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    //Default for JUnit Testing
+    synchronized int getAttempts() {
+        return attempts;
+    }
+}
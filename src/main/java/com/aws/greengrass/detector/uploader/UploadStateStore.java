@@ -0,0 +1,172 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.uploader;
+
+import com.aws.greengrass.config.Topics;
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.logging.api.Logger;
+import com.aws.greengrass.logging.impl.LogManager;
+import com.aws.greengrass.util.Coerce;
+import com.aws.greengrass.util.Utils;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Persists the last successfully uploaded connectivity information in the service's runtime
+ * configuration, so that a restart does not upload the same addresses again.
+ *
+ * <p>The record carries a checksum and the thing name it was uploaded for. A record that fails
+ * either check is ignored.
+ */
+public class UploadStateStore {
+    private final Logger logger = LogManager.getLogger(UploadStateStore.class);
+
+    static final String LAST_UPLOADED_TOPICS = "lastUploaded";
+    static final String THING_NAME_KEY = "thingName";
+    static final String ENDPOINTS_KEY = "endpoints";
+    static final String VERSION_KEY = "version";
+    static final String CHECKSUM_KEY = "checksum";
+    private static final String ENDPOINT_SEPARATOR = ",";
+    private static final String FIELD_SEPARATOR = "|";
+
+    private final Topics runtimeTopics;
+
+    public static class UploadState {
+        private final List<Endpoint> endpoints;
+        private final String version;
+
+        UploadState(List<Endpoint> endpoints, String version) {
+            this.endpoints = endpoints;
+            this.version = version;
+        }
+
+        public List<Endpoint> getEndpoints() {
+            return endpoints;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param runtimeTopics runtime configuration topics of the service
+     */
+    public UploadStateStore(Topics runtimeTopics) {
+        this.runtimeTopics = runtimeTopics;
+    }
+
+    /**
+     * Record a successful upload.
+     *
+     * @param thingName thing the information was uploaded for
+     * @param endpoints uploaded endpoints
+     * @param version   version returned by the service
+     */
+    public void save(String thingName, List<Endpoint> endpoints, String version) {
+        String encodedEndpoints = encode(endpoints);
+        Topics state = runtimeTopics.lookupTopics(LAST_UPLOADED_TOPICS);
+        state.lookup(THING_NAME_KEY).withValue(thingName);
+        state.lookup(ENDPOINTS_KEY).withValue(encodedEndpoints);
+        state.lookup(VERSION_KEY).withValue(version);
+        state.lookup(CHECKSUM_KEY).withValue(checksum(thingName, encodedEndpoints, version));
+    }
+
+    /**
+     * Load the last upload recorded for the thing.
+     *
+     * @param thingName current thing name
+     * @return the recorded state, or empty if there is none or it is invalid
+     */
+    public Optional<UploadState> load(String thingName) {
+        Topics state = runtimeTopics.findTopics(LAST_UPLOADED_TOPICS);
+        if (state == null || state.isEmpty()) {
+            return Optional.empty();
+        }
+        String storedThingName = Coerce.toString(state.find(THING_NAME_KEY));
+        String encodedEndpoints = Coerce.toString(state.find(ENDPOINTS_KEY));
+        String version = Coerce.toString(state.find(VERSION_KEY));
+        String storedChecksum = Coerce.toString(state.find(CHECKSUM_KEY));
+        if (encodedEndpoints == null || storedChecksum == null
+                || !storedChecksum.equals(checksum(storedThingName, encodedEndpoints, version))) {
+            logger.atWarn().log("Ignoring corrupted record of the last uploaded IP addresses");
+            return Optional.empty();
+        }
+        if (thingName == null || !thingName.equals(storedThingName)) {
+            logger.atInfo().kv("storedThingName", storedThingName)
+                    .log("Ignoring last uploaded IP addresses recorded for a different thing");
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new UploadState(decode(encodedEndpoints), version));
+        } catch (IllegalArgumentException e) {
+            logger.atWarn().log("Ignoring unreadable record of the last uploaded IP addresses", e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Encode endpoints as {@code host|port|metadata} separated by commas, with the metadata URL encoded so
+     * that it cannot contain either separator.
+     */
+    //Default for JUnit Testing
+    static String encode(List<Endpoint> endpoints) {
+        StringBuilder encoded = new StringBuilder();
+        for (Endpoint endpoint : endpoints) {
+            if (encoded.length() > 0) {
+                encoded.append(ENDPOINT_SEPARATOR);
+            }
+            try {
+                encoded.append(endpoint.getHostAddress()).append(FIELD_SEPARATOR).append(endpoint.getPort())
+                        .append(FIELD_SEPARATOR).append(URLEncoder.encode(endpoint.getMetadata(),
+                        StandardCharsets.UTF_8.name()));
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return encoded.toString();
+    }
+
+    //Default for JUnit Testing
+    static List<Endpoint> decode(String encoded) {
+        if (Utils.isEmpty(encoded)) {
+            return Collections.emptyList();
+        }
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (String item : encoded.split(ENDPOINT_SEPARATOR)) {
+            String[] fields = item.split(Pattern.quote(FIELD_SEPARATOR), -1);
+            if (fields.length != 3) {
+                throw new IllegalArgumentException("Malformed endpoint " + item);
+            }
+            try {
+                endpoints.add(Endpoint.ofHostAddress(fields[0], Integer.parseInt(fields[1]),
+                        URLDecoder.decode(fields[2], StandardCharsets.UTF_8.name())));
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return endpoints;
+    }
+
+    //Default for JUnit Testing
+    static String checksum(String thingName, String encodedEndpoints, String version) {
+        CRC32 crc = new CRC32();
+        String canonical = thingName + '\n' + encodedEndpoints + '\n' + version;
+        crc.update(canonical.getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+}
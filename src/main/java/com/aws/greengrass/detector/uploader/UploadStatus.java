@@ -0,0 +1,26 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.uploader;
+
+/**
+ * Outcome of a single detection and upload attempt.
+ */
+public enum UploadStatus {
+    /** The connectivity information was uploaded to the cloud. */
+    UPLOADED,
+    /** The connectivity information matched the last upload, nothing was sent. */
+    UNCHANGED,
+    /** The change was accepted and will be uploaded once the addresses settle. */
+    DEFERRED,
+    /** No upload was attempted, for example because no addresses were found. */
+    SKIPPED,
+    /** The upload was attempted and failed. */
+    FAILED,
+    /** The cloud throttled the upload. */
+    THROTTLED,
+    /** The upload failed with an error that is likely transient, such as a lost connection or a server error. */
+    RETRYABLE
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector;
+
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.uploader.UploadStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith({MockitoExtension.class})
+class DetectionSchedulerTest {
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+    private static final long INTERVAL_MS = 60_000L;
+    private static final long FAST_INTERVAL_MS = 5_000L;
+    private static final long MAX_BACKOFF_MS = 300_000L;
+
+    @Mock
+    private ScheduledExecutorService executor;
+    @Mock
+    private Config config;
+
+    private final Deque<UploadStatus> statuses = new ArrayDeque<>();
+    private final Clock clock = Clock.fixed(NOW, ZoneOffset.UTC);
+    private DetectionScheduler scheduler;
+
+    @BeforeEach
+    void beforeEach() {
+        lenient().doReturn(INTERVAL_MS).when(config).getPollingIntervalMs();
+        lenient().doReturn(0L).when(config).getPollingJitterMs();
+        lenient().doReturn(FAST_INTERVAL_MS).when(config).getFastPollingIntervalMs();
+        lenient().doReturn(60_000L).when(config).getFastPollingDurationMs();
+        lenient().doReturn(MAX_BACKOFF_MS).when(config).getMaxBackoffMs();
+        lenient().doReturn(mock(ScheduledFuture.class)).when(executor)
+                .schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        scheduler = new DetectionScheduler(executor, config, statuses::poll, new Random(0), clock);
+    }
+
+    @Test
+    public void GIVEN_unchanged_ips_WHEN_run_THEN_next_run_at_polling_interval() {
+        scheduler.start();
+        statuses.add(UploadStatus.UNCHANGED);
+        runScheduled(0L);
+
+        verify(executor).schedule(any(Runnable.class), eq(INTERVAL_MS), eq(TimeUnit.MILLISECONDS));
+        assertEquals(DetectionScheduler.State.NORMAL, scheduler.getState());
+        assertEquals(NOW.plusMillis(INTERVAL_MS), scheduler.getNextFireTime());
+    }
+
+    @Test
+    public void GIVEN_ips_uploaded_WHEN_run_THEN_fast_mode_entered() {
+        scheduler.start();
+        statuses.add(UploadStatus.UPLOADED);
+        runScheduled(0L);
+
+        verify(executor).schedule(any(Runnable.class), eq(FAST_INTERVAL_MS), eq(TimeUnit.MILLISECONDS));
+        assertEquals(DetectionScheduler.State.FAST, scheduler.getState());
+    }
+
+    @Test
+    public void GIVEN_upload_keeps_failing_WHEN_run_THEN_backoff_grows_and_is_capped() {
+        scheduler.start();
+        statuses.add(UploadStatus.FAILED);
+        runScheduled(0L);
+        statuses.add(UploadStatus.FAILED);
+        runScheduled(INTERVAL_MS * 2);
+        statuses.add(UploadStatus.FAILED);
+        runScheduled(INTERVAL_MS * 4);
+
+        verify(executor).schedule(any(Runnable.class), eq(MAX_BACKOFF_MS), eq(TimeUnit.MILLISECONDS));
+        assertEquals(DetectionScheduler.State.BACKOFF, scheduler.getState());
+        assertEquals(3, scheduler.getConsecutiveFailures());
+
+        statuses.add(UploadStatus.UNCHANGED);
+        runScheduled(MAX_BACKOFF_MS);
+        assertEquals(DetectionScheduler.State.NORMAL, scheduler.getState());
+        assertEquals(0, scheduler.getConsecutiveFailures());
+    }
+
+    @Test
+    public void GIVEN_long_polling_interval_WHEN_upload_fails_THEN_backoff_does_not_overflow() {
+        doReturn(Long.MAX_VALUE / 2 + 1).when(config).getPollingIntervalMs();
+        doReturn(Long.MAX_VALUE).when(config).getMaxBackoffMs();
+        scheduler.start();
+        statuses.add(UploadStatus.FAILED);
+        runScheduled(0L);
+
+        verify(executor).schedule(any(Runnable.class), eq(Long.MAX_VALUE), eq(TimeUnit.MILLISECONDS));
+        assertEquals(DetectionScheduler.State.BACKOFF, scheduler.getState());
+    }
+
+    @Test
+    public void GIVEN_jitter_configured_WHEN_start_THEN_first_run_delayed_by_jitter() {
+        Random random = mock(Random.class);
+        doReturn(0.5).when(random).nextDouble();
+        doReturn(10_000L).when(config).getPollingJitterMs();
+        scheduler = new DetectionScheduler(executor, config, statuses::poll, random, clock);
+
+        scheduler.start();
+
+        verify(executor).schedule(any(Runnable.class), eq(5_000L), eq(TimeUnit.MILLISECONDS));
+        assertEquals(NOW.plusMillis(5_000L), scheduler.getNextFireTime());
+    }
+
+    @Test
+    public void GIVEN_trigger_burst_WHEN_triggerNow_THEN_single_immediate_run_scheduled() {
+        scheduler.start();
+        statuses.add(UploadStatus.UNCHANGED);
+        runScheduled(0L);
+
+        scheduler.triggerNow();
+        scheduler.triggerNow();
+        scheduler.triggerNow();
+
+        verify(executor, times(2)).schedule(any(Runnable.class), eq(0L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void GIVEN_config_change_burst_WHEN_trigger_with_delay_THEN_single_delayed_run_scheduled() {
+        scheduler.start();
+        statuses.add(UploadStatus.UNCHANGED);
+        runScheduled(0L);
+
+        scheduler.trigger(500L);
+        scheduler.trigger(500L);
+        scheduler.trigger(500L);
+
+        verify(executor, times(1)).schedule(any(Runnable.class), eq(500L), eq(TimeUnit.MILLISECONDS));
+        assertEquals(NOW.plusMillis(500L), scheduler.getNextFireTime());
+    }
+
+    @Test
+    public void GIVEN_started_WHEN_stop_THEN_state_cleared() {
+        scheduler.start();
+        scheduler.stop();
+
+        assertEquals(DetectionScheduler.State.STOPPED, scheduler.getState());
+        assertNull(scheduler.getNextFireTime());
+        scheduler.triggerNow();
+        verify(executor, times(1)).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    private void runScheduled(long delayMs) {
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor, atLeastOnce())
+                .schedule(captor.capture(), eq(delayMs), eq(TimeUnit.MILLISECONDS));
+        captor.getValue().run();
+    }
+}
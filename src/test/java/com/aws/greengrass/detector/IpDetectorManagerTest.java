@@ -6,19 +6,27 @@
 package com.aws.greengrass.detector;
 
 import com.aws.greengrass.detector.config.Config;
-import com.aws.greengrass.detector.detector.IpDetector;
+import com.aws.greengrass.detector.connectivity.ConnectivityCache;
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.detector.metrics.DetectorMetrics;
+import com.aws.greengrass.detector.metrics.InMemoryMetricsSink;
+import com.aws.greengrass.detector.source.EndpointPipeline;
+import com.aws.greengrass.detector.uploader.ConnectivityReconciler;
 import com.aws.greengrass.detector.uploader.ConnectivityUpdater;
+import com.aws.greengrass.detector.uploader.UploadCoalescer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.IOException;
 import java.net.InetAddress;
-import java.net.SocketException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -30,27 +38,50 @@ public class IpDetectorManagerTest {
     @Mock
     private ConnectivityUpdater connectivityUpdater;
     @Mock
-    private IpDetector ipDetector;
+    private EndpointPipeline endpointPipeline;
+    @Mock
+    private UploadCoalescer uploadCoalescer;
     @Mock
     private Config config;
 
     IpDetectorManager ipDetectorManager;
 
     @Test
-    public void GIVEN_ip_addresses_found_WHEN_initialize_THEN_upload_called() throws SocketException {
-        ipDetectorManager = new IpDetectorManager(connectivityUpdater, ipDetector);
-        List <InetAddress> ips = new ArrayList<>();
-        ips.add(Mockito.mock(InetAddress.class));
-        when(ipDetector.getAllIpAddresses(any(Config.class))).thenReturn(ips);
+    public void GIVEN_ip_addresses_found_WHEN_initialize_THEN_upload_called() throws IOException {
+        ipDetectorManager = new IpDetectorManager(connectivityUpdater, endpointPipeline, uploadCoalescer);
+        List<Endpoint> ips = new ArrayList<>();
+        ips.add(Endpoint.of(Mockito.mock(InetAddress.class), 0, Endpoint.NO_METADATA));
+        when(endpointPipeline.getEndpoints(any(Config.class))).thenReturn(ips);
         ipDetectorManager.updateIps(config);
-        verify(connectivityUpdater, times(1)).updateIpAddresses(ips, config);
+        verify(uploadCoalescer, times(1)).submit(ips, config);
     }
 
     @Test
-    public void GIVEN_ip_addresses_not_found_WHEN_initialize_THEN_upload_called() throws SocketException {
-        ipDetectorManager = new IpDetectorManager(connectivityUpdater, ipDetector);
-        when(ipDetector.getAllIpAddresses(any(Config.class))).thenReturn(new ArrayList<>());
+    public void GIVEN_ip_addresses_not_found_WHEN_initialize_THEN_upload_called() throws IOException {
+        ipDetectorManager = new IpDetectorManager(connectivityUpdater, endpointPipeline, uploadCoalescer);
+        when(endpointPipeline.getEndpoints(any(Config.class))).thenReturn(new ArrayList<>());
         ipDetectorManager.updateIps(config);
-        verify(connectivityUpdater, times(0)).updateIpAddresses(any(), any());
+        verify(uploadCoalescer, times(0)).submit(any(), any());
+    }
+
+    @Test
+    public void GIVEN_metrics_WHEN_detection_runs_THEN_runs_changes_and_address_count_recorded() throws IOException {
+        InMemoryMetricsSink sink = new InMemoryMetricsSink();
+        ipDetectorManager = new IpDetectorManager(connectivityUpdater, endpointPipeline, uploadCoalescer,
+                new DetectorMetrics(sink), new ConnectivityReconciler(connectivityUpdater, uploadCoalescer),
+                new ConnectivityCache());
+        List<Endpoint> first = Collections.singletonList(
+                Endpoint.of(Mockito.mock(InetAddress.class), 0, Endpoint.NO_METADATA));
+        List<Endpoint> second = new ArrayList<>(first);
+        second.add(Endpoint.of(Mockito.mock(InetAddress.class), 0, Endpoint.NO_METADATA));
+        when(endpointPipeline.getEndpoints(any(Config.class))).thenReturn(first, first, second);
+
+        ipDetectorManager.updateIps(config);
+        ipDetectorManager.updateIps(config);
+        ipDetectorManager.updateIps(config);
+
+        assertEquals(3, sink.getCount(DetectorMetrics.TICKS));
+        assertEquals(2, sink.getCount(DetectorMetrics.CHANGES_DETECTED));
+        assertEquals(2L, sink.getGauge(DetectorMetrics.ADDRESS_COUNT));
     }
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Outcome of replaying an interface trace with one configuration.
+ */
+public final class ReplayReport {
+    private final Map<String, Object> configuration;
+    private final int ticks;
+    private final int interfaceChanges;
+    private final int detectionRuns;
+    private final List<Upload> uploads;
+    private final long suppressedCount;
+    private final long durationMs;
+
+    /**
+     * An upload the replay made.
+     */
+    public static final class Upload {
+        private final long offsetMs;
+        private final List<String> hostAddresses;
+
+        Upload(long offsetMs, List<String> hostAddresses) {
+            this.offsetMs = offsetMs;
+            this.hostAddresses = Collections.unmodifiableList(hostAddresses);
+        }
+
+        /**
+         * Time of the upload since the start of the trace.
+         *
+         * @return time in milliseconds
+         */
+        public long getOffsetMs() {
+            return offsetMs;
+        }
+
+        public List<String> getHostAddresses() {
+            return hostAddresses;
+        }
+
+        @Override
+        public String toString() {
+            return "@" + offsetMs + " " + hostAddresses;
+        }
+    }
+
+    ReplayReport(Map<String, Object> configuration, int ticks, int interfaceChanges, int detectionRuns,
+                 List<Upload> uploads, long suppressedCount, long durationMs) {
+        this.configuration = Collections.unmodifiableMap(new TreeMap<>(configuration));
+        this.ticks = ticks;
+        this.interfaceChanges = interfaceChanges;
+        this.detectionRuns = detectionRuns;
+        this.uploads = Collections.unmodifiableList(uploads);
+        this.suppressedCount = suppressedCount;
+        this.durationMs = durationMs;
+    }
+
+    public Map<String, Object> getConfiguration() {
+        return configuration;
+    }
+
+    public int getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Number of ticks whose interfaces differ from the previous tick.
+     *
+     * @return number of ticks
+     */
+    public int getInterfaceChanges() {
+        return interfaceChanges;
+    }
+
+    public int getDetectionRuns() {
+        return detectionRuns;
+    }
+
+    public List<Upload> getUploads() {
+        return uploads;
+    }
+
+    public int getUploadCount() {
+        return uploads.size();
+    }
+
+    /**
+     * Number of intermediate address states the debounce never uploaded.
+     *
+     * @return number of states
+     */
+    public long getSuppressedCount() {
+        return suppressedCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s: %d uploads in %d ms of virtual time, %d ticks, "
+                        + "%d interface changes, %d detection runs, %d intermediate states suppressed",
+                configuration.isEmpty() ? "defaults" : configuration, uploads.size(), durationMs, ticks,
+                interfaceChanges, detectionRuns, suppressedCount);
+    }
+}
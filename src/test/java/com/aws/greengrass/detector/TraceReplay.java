@@ -0,0 +1,212 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector;
+
+import com.aws.greengrass.config.Topic;
+import com.aws.greengrass.dependency.Context;
+import com.aws.greengrass.deployment.DeviceConfiguration;
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.connectivity.ConnectivityCache;
+import com.aws.greengrass.detector.detector.InterfaceRecorder;
+import com.aws.greengrass.detector.detector.InterfaceSnapshot;
+import com.aws.greengrass.detector.detector.InterfaceTrace;
+import com.aws.greengrass.detector.detector.ScriptedIpDetector;
+import com.aws.greengrass.detector.executor.DetectorExecutors;
+import com.aws.greengrass.detector.executor.VirtualTimeScheduler;
+import com.aws.greengrass.detector.metrics.DetectorMetrics;
+import com.aws.greengrass.detector.source.EndpointPipeline;
+import com.aws.greengrass.detector.uploader.AsyncConnectivityUploader;
+import com.aws.greengrass.detector.uploader.ConnectivityReconciler;
+import com.aws.greengrass.detector.uploader.ConnectivityUpdater;
+import com.aws.greengrass.detector.uploader.UploadCoalescer;
+import com.aws.greengrass.detector.uploader.VirtualTimeUploadCoalescer;
+import com.aws.greengrass.util.GreengrassServiceClientFactory;
+import com.aws.greengrass.utils.TestConfigs;
+import org.mockito.Mockito;
+import software.amazon.awssdk.services.greengrassv2data.GreengrassV2DataClient;
+import software.amazon.awssdk.services.greengrassv2data.model.ConnectivityInfo;
+import software.amazon.awssdk.services.greengrassv2data.model.GetConnectivityInfoRequest;
+import software.amazon.awssdk.services.greengrassv2data.model.GetConnectivityInfoResponse;
+import software.amazon.awssdk.services.greengrassv2data.model.UpdateConnectivityInfoRequest;
+import software.amazon.awssdk.services.greengrassv2data.model.UpdateConnectivityInfoResponse;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.aws.greengrass.deployment.DeviceConfiguration.DEVICE_PARAM_THING_NAME;
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * Replays a recorded {@link InterfaceTrace} through the detector, wired the way {@code IpDetectorService} wires
+ * it, to count the uploads a configuration would have caused.
+ *
+ * <p>Detection, debounce, rate limit and retries all run on a {@link VirtualTimeScheduler}, so an hour of trace
+ * replays in well under a second and the same trace and seed always give the same uploads. Uploads are made
+ * synchronously, whatever {@code asyncUpload} is set to, and always succeed. When the configuration monitors
+ * address changes, every tick whose interfaces changed triggers detection, as the address change monitor would.
+ */
+public final class TraceReplay {
+    static final long DEFAULT_TAIL_MS = 60_000L;
+    static final String THING_NAME = "replay-thing";
+    private static final String CONFIGURATION_SEPARATOR = "--";
+    private static final String USAGE = "Usage:\n"
+            + "  record <trace file> [interval ms, default 1000] [duration ms, default 3600000]\n"
+            + "  replay <trace file> [key=value ...] [-- key=value ...]...\n"
+            + "Every group of key=value pairs separated by -- is a configuration to replay the trace with.";
+
+    private TraceReplay() {
+    }
+
+    /**
+     * Replay a trace.
+     *
+     * @param trace         recorded interfaces
+     * @param configuration configuration values by key, the defaults of the component for the other keys
+     * @return report
+     * @throws InterruptedException if interrupted while stopping the detector
+     */
+    public static ReplayReport replay(InterfaceTrace trace, Map<String, Object> configuration)
+            throws InterruptedException {
+        return replay(trace, configuration, DEFAULT_TAIL_MS, 0L);
+    }
+
+    /**
+     * Replay a trace.
+     *
+     * @param trace         recorded interfaces
+     * @param configuration configuration values by key, the defaults of the component for the other keys
+     * @param tailMs        time to keep running after the last tick, for pending uploads to go out
+     * @param seed          seed of the polling and retry jitter
+     * @return report
+     * @throws InterruptedException if interrupted while stopping the detector
+     */
+    public static ReplayReport replay(InterfaceTrace trace, Map<String, Object> configuration, long tailMs,
+                                      long seed) throws InterruptedException {
+        Map<String, Object> values = new HashMap<>(configuration);
+        values.put("asyncUpload", false);
+        Config config = TestConfigs.of(values);
+        VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+        List<ReplayReport.Upload> uploads = new ArrayList<>();
+
+        GreengrassV2DataClient client = Mockito.mock(GreengrassV2DataClient.class, Mockito.withSettings().stubOnly());
+        AtomicReference<List<ConnectivityInfo>> cloud = new AtomicReference<>(Collections.emptyList());
+        Mockito.doAnswer(invocation -> {
+            UpdateConnectivityInfoRequest request = invocation.getArgument(0);
+            cloud.set(request.connectivityInfo());
+            List<String> hostAddresses = new ArrayList<>();
+            for (ConnectivityInfo info : request.connectivityInfo()) {
+                hostAddresses.add(info.hostAddress());
+            }
+            uploads.add(new ReplayReport.Upload(scheduler.nowMs(), hostAddresses));
+            return UpdateConnectivityInfoResponse.builder().version(Integer.toString(uploads.size())).build();
+        }).when(client).updateConnectivityInfo(any(UpdateConnectivityInfoRequest.class));
+        Mockito.doAnswer(invocation -> GetConnectivityInfoResponse.builder().connectivityInfo(cloud.get()).build())
+                .when(client).getConnectivityInfo(any(GetConnectivityInfoRequest.class));
+        GreengrassServiceClientFactory clientFactory = Mockito.mock(GreengrassServiceClientFactory.class,
+                Mockito.withSettings().stubOnly());
+        Mockito.doReturn(client).when(clientFactory).getGreengrassV2DataClient();
+        DeviceConfiguration deviceConfiguration = Mockito.mock(DeviceConfiguration.class,
+                Mockito.withSettings().stubOnly());
+        Mockito.doReturn(Topic.of(Mockito.mock(Context.class, Mockito.withSettings().stubOnly()),
+                DEVICE_PARAM_THING_NAME, THING_NAME)).when(deviceConfiguration).getThingName();
+
+        DetectorExecutors executors = new DetectorExecutors();
+        ScriptedIpDetector ipDetector = new ScriptedIpDetector();
+        ConnectivityCache connectivityCache = new ConnectivityCache();
+        ConnectivityUpdater connectivityUpdater = new ConnectivityUpdater(deviceConfiguration, clientFactory,
+                DetectorMetrics.none(), connectivityCache);
+        UploadCoalescer uploadCoalescer = new VirtualTimeUploadCoalescer(connectivityUpdater,
+                new AsyncConnectivityUploader(connectivityUpdater, executors), scheduler, seed);
+        IpDetectorManager ipDetectorManager = new IpDetectorManager(connectivityUpdater,
+                new EndpointPipeline(ipDetector, executors), uploadCoalescer, DetectorMetrics.none(),
+                new ConnectivityReconciler(connectivityUpdater, uploadCoalescer), connectivityCache);
+        AtomicInteger detectionRuns = new AtomicInteger();
+        DetectionScheduler detectionScheduler = new DetectionScheduler(scheduler, config, () -> {
+            detectionRuns.incrementAndGet();
+            return ipDetectorManager.startIpDetection(config);
+        }, new Random(seed), scheduler.getClock());
+
+        int interfaceChanges = 0;
+        InterfaceSnapshot previous = null;
+        try {
+            for (InterfaceSnapshot snapshot : trace.getSnapshots()) {
+                scheduler.advanceTo(snapshot.getOffsetMs());
+                if (previous == null) {
+                    ipDetector.setSnapshot(snapshot);
+                    detectionScheduler.start();
+                } else if (!snapshot.sameInterfaces(previous)) {
+                    interfaceChanges++;
+                    ipDetector.setSnapshot(snapshot);
+                    if (config.isMonitorAddressChanges()) {
+                        detectionScheduler.triggerNow();
+                    }
+                }
+                previous = snapshot;
+            }
+            scheduler.advanceTo(trace.getDurationMs() + tailMs);
+        } finally {
+            detectionScheduler.stop();
+            ipDetectorManager.cancelPendingUploads();
+            executors.cancelAll(IpDetectorService.SHUTDOWN_TIMEOUT_MS);
+        }
+        return new ReplayReport(configuration, trace.getSnapshots().size(), interfaceChanges, detectionRuns.get(),
+                uploads, uploadCoalescer.getSuppressedCount(), trace.getDurationMs() + tailMs);
+    }
+
+    /**
+     * Record the interfaces of this host to a trace, or replay a trace with one or more configurations. On a core
+     * device, record with the {@link InterfaceRecorder} shipped in the component instead.
+     *
+     * @param args command line arguments, see {@link #USAGE}
+     * @throws IOException          if the trace cannot be read or written
+     * @throws InterruptedException if interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length >= 2 && "record".equals(args[0])) {
+            InterfaceRecorder.main(Arrays.copyOfRange(args, 1, args.length));
+        } else if (args.length >= 2 && "replay".equals(args[0])) {
+            InterfaceTrace trace = InterfaceTrace.read(Paths.get(args[1]));
+            for (Map<String, Object> configuration : configurations(Arrays.asList(args).subList(2, args.length))) {
+                System.out.println(replay(trace, configuration));
+            }
+        } else {
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+    }
+
+    //Default for JUnit Testing
+    static List<Map<String, Object>> configurations(List<String> args) {
+        List<Map<String, Object>> configurations = new ArrayList<>();
+        Map<String, Object> configuration = new HashMap<>();
+        for (String arg : args) {
+            if (CONFIGURATION_SEPARATOR.equals(arg)) {
+                configurations.add(configuration);
+                configuration = new HashMap<>();
+                continue;
+            }
+            int equals = arg.indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Expected key=value: " + arg);
+            }
+            String value = arg.substring(equals + 1);
+            // List values, such as interface name patterns, are separated by commas
+            configuration.put(arg.substring(0, equals),
+                    value.indexOf(',') < 0 ? value : Arrays.asList(value.split(",")));
+        }
+        configurations.add(configuration);
+        return configurations;
+    }
+}
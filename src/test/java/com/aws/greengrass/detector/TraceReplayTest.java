@@ -0,0 +1,127 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector;
+
+import com.aws.greengrass.detector.detector.InterfaceTrace;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Replays synthetic traces of the field issues the detector configuration is meant to absorb. Traces recorded
+ * on a device are replayed the same way from the command line, see the README.
+ */
+@SuppressWarnings("PMD.AvoidUsingHardCodedIP")
+class TraceReplayTest {
+    private static final long TICK_MS = 1_000L;
+    private static final String LOOPBACK = "lo 1 up,loopback 127.0.0.1/8";
+    private static final String ETH0 = "eth0 2 up 192.168.1.10/24";
+
+    @Test
+    public void GIVEN_rotating_ipv6_temporary_address_WHEN_replayed_THEN_uploaded_only_if_included()
+            throws IOException, InterruptedException {
+        InterfaceTrace trace = trace(120_000L, offsetMs -> LOOPBACK + "\n" + ETH0
+                + " 2001:db8:1234::1/64/80 2001:db8:1234::" + (offsetMs < 60_000L ? "a1" : "a2") + "/64/01");
+
+        ReplayReport stable = TraceReplay.replay(trace, configuration());
+        Map<String, Object> withTemporary = configuration();
+        withTemporary.put("includeIPv6TemporaryAddrs", true);
+        ReplayReport temporary = TraceReplay.replay(trace, withTemporary);
+
+        assertEquals(1, stable.getInterfaceChanges());
+        assertEquals(1, stable.getUploadCount(), stable::toString);
+        assertEquals(2, temporary.getUploadCount(), temporary::toString);
+        assertEquals(60_000L, temporary.getUploads().get(1).getOffsetMs());
+    }
+
+    @Test
+    public void GIVEN_flapping_wifi_WHEN_replayed_with_debounce_THEN_single_upload()
+            throws IOException, InterruptedException {
+        // wlan0 goes down and up every second between 10 s and 30 s, and ends up as it started
+        InterfaceTrace trace = trace(60_000L, offsetMs -> LOOPBACK + "\n" + ETH0 + "\nwlan0 3 "
+                + (offsetMs >= 10_000L && offsetMs < 30_000L && offsetMs / TICK_MS % 2 == 0 ? "-" : "up")
+                + " 192.168.1.22/24");
+
+        Map<String, Object> debounced = configuration();
+        debounced.put("debounceQuietPeriodMs", 3_000L);
+        ReplayReport debounce = TraceReplay.replay(trace, debounced);
+        ReplayReport noDebounce = TraceReplay.replay(trace, configuration());
+
+        assertEquals(20, debounce.getInterfaceChanges());
+        assertEquals(1, debounce.getUploadCount(), debounce::toString);
+        assertTrue(debounce.getSuppressedCount() > 0, debounce::toString);
+        assertTrue(noDebounce.getUploadCount() > 3, noDebounce::toString);
+    }
+
+    @Test
+    public void GIVEN_docker_churn_WHEN_replayed_with_excluded_interfaces_THEN_single_upload()
+            throws IOException, InterruptedException {
+        // A container starts every 10 s and runs for 5 s
+        InterfaceTrace trace = trace(60_000L, offsetMs -> LOOPBACK + "\n" + ETH0
+                + (offsetMs % 10_000L < 5_000L ? "" : "\ndocker0 4 up,virtual 172.17.0.1/16"
+                + "\nveth" + offsetMs / 10_000L + " 5 up,virtual 169.254.10.1/16"));
+
+        Map<String, Object> excluded = configuration();
+        excluded.put("excludeInterfaces", Arrays.asList("docker*", "veth*"));
+        ReplayReport exclude = TraceReplay.replay(trace, excluded);
+        ReplayReport noExclude = TraceReplay.replay(trace, configuration());
+
+        assertEquals(1, exclude.getUploadCount(), exclude::toString);
+        assertTrue(noExclude.getUploadCount() > 1, noExclude::toString);
+    }
+
+    @Test
+    public void GIVEN_trace_WHEN_replayed_twice_THEN_same_uploads() throws IOException, InterruptedException {
+        InterfaceTrace trace = trace(60_000L, offsetMs -> LOOPBACK + "\neth0 2 up 192.168.1." + offsetMs / 7_000L
+                + "/24");
+        Map<String, Object> jittered = configuration();
+        jittered.put("pollingJitterMs", 500L);
+
+        assertEquals(TraceReplay.replay(trace, jittered, 0L, 42L).getUploads().toString(),
+                TraceReplay.replay(trace, jittered, 0L, 42L).getUploads().toString());
+    }
+
+    @Test
+    public void GIVEN_command_line_WHEN_parsed_THEN_one_configuration_per_group() {
+        List<Map<String, Object>> configurations = TraceReplay.configurations(Arrays.asList(
+                "debounceQuietPeriodMs=3000", "--", "excludeInterfaces=docker*,veth*", "monitorAddressChanges=true"));
+
+        assertEquals(2, configurations.size());
+        assertEquals(Collections.singletonMap("debounceQuietPeriodMs", "3000"), configurations.get(0));
+        assertEquals(Arrays.asList("docker*", "veth*"), configurations.get(1).get("excludeInterfaces"));
+        assertEquals("true", configurations.get(1).get("monitorAddressChanges"));
+        assertEquals(Collections.singletonList(Collections.emptyMap()),
+                TraceReplay.configurations(Collections.emptyList()));
+    }
+
+    private static Map<String, Object> configuration() {
+        Map<String, Object> configuration = new HashMap<>();
+        configuration.put("includeIPv6Addrs", true);
+        configuration.put("monitorAddressChanges", true);
+        configuration.put("pollingIntervalMs", TICK_MS);
+        configuration.put("pollingJitterMs", 0L);
+        return configuration;
+    }
+
+    private static InterfaceTrace trace(long durationMs, LongFunction<String> interfaces) throws IOException {
+        StringBuilder trace = new StringBuilder();
+        for (long offsetMs = 0L; offsetMs <= durationMs; offsetMs += TICK_MS) {
+            trace.append('@').append(offsetMs).append('\n').append(interfaces.apply(offsetMs)).append('\n');
+        }
+        return InterfaceTrace.read(new BufferedReader(new StringReader(trace.toString())));
+    }
+}
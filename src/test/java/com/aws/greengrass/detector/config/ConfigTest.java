@@ -13,11 +13,25 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.mockito.stubbing.Answer;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
@@ -79,4 +93,149 @@ class ConfigTest {
         assertEquals(Config.DEFAULT_INCLUDE_IPV4_LINK_LOCAL_ADDRESSES, config.isIncludeIPv4LinkLocalAddrs());
         assertEquals(Config.DEFAULT_PORT, config.getDefaultPort());
     }
+
+    @Test
+    public void GIVEN_jitter_not_configured_WHEN_initialize_THEN_jitter_derived_from_polling_interval() {
+        Topics topics = Mockito.mock(Topics.class);
+        Topics configTopics = Mockito.mock(Topics.class);
+        AtomicReference<ChildChanged> callback = new AtomicReference<>();
+        AtomicLong pollingIntervalMs = new AtomicLong(20_000L);
+        doAnswer((Answer<Void>) invocation -> {
+            callback.set(invocation.getArgument(0));
+            return null;
+        }).when(configTopics).subscribe(any());
+        Mockito.doReturn(false).when(configTopics).isEmpty();
+        doAnswer(invocation -> pollingIntervalMs.get())
+                .when(configTopics).findOrDefault(anyLong(), eq(Config.POLLING_INTERVAL_MS_CONFIG_KEY));
+        doAnswer(invocation -> invocation.getArgument(0))
+                .when(configTopics).findOrDefault(anyLong(), eq(Config.POLLING_JITTER_MS_CONFIG_KEY));
+        Mockito.doReturn(configTopics).when(topics).lookupTopics(anyString());
+        config = new Config(topics);
+        callback.get().childChanged(null, null);
+
+        assertEquals(2_000L, config.getPollingJitterMs());
+
+        pollingIntervalMs.set(Config.DEFAULT_POLLING_INTERVAL_MS);
+        callback.get().childChanged(null, null);
+
+        assertEquals(Config.MAX_DEFAULT_POLLING_JITTER_MS, config.getPollingJitterMs());
+        assertEquals(0L, Config.defaultPollingJitterMs(0L));
+    }
+
+    @Test
+    public void GIVEN_config_updates_WHEN_snapshot_THEN_values_of_one_version_returned() {
+        Topics topics = Mockito.mock(Topics.class);
+        Topics configTopics = Mockito.mock(Topics.class);
+        AtomicReference<ChildChanged> callback = new AtomicReference<>();
+        AtomicInteger port = new AtomicInteger(9000);
+        doAnswer((Answer<Void>) invocation -> {
+            callback.set(invocation.getArgument(0));
+            return null;
+        }).when(configTopics).subscribe(any());
+        Mockito.doReturn(false).when(configTopics).isEmpty();
+        doAnswer(invocation -> port.get())
+                .when(configTopics).findOrDefault(anyInt(), eq(Config.DEFAULT_PORT_CONFIG_KEY));
+        Mockito.doReturn(configTopics).when(topics).lookupTopics(anyString());
+        config = new Config(topics);
+        callback.get().childChanged(null, null);
+
+        Config snapshot = config.snapshot();
+        port.set(9001);
+        callback.get().childChanged(null, null);
+
+        assertEquals(9000, snapshot.getDefaultPort());
+        assertEquals(1L, snapshot.getVersion());
+        assertEquals(9001, config.getDefaultPort());
+        assertEquals(2L, config.getVersion());
+    }
+
+    @Test
+    public void GIVEN_change_listener_WHEN_config_updated_THEN_listener_run_after_publish() {
+        Topics topics = Mockito.mock(Topics.class);
+        Topics configTopics = Mockito.mock(Topics.class);
+        AtomicReference<ChildChanged> callback = new AtomicReference<>();
+        doAnswer((Answer<Void>) invocation -> {
+            callback.set(invocation.getArgument(0));
+            return null;
+        }).when(configTopics).subscribe(any());
+        Mockito.doReturn(false).when(configTopics).isEmpty();
+        Mockito.doReturn(configTopics).when(topics).lookupTopics(anyString());
+        config = new Config(topics);
+        List<Long> seenVersions = new ArrayList<>();
+        config.setChangeListener(() -> seenVersions.add(config.getVersion()));
+
+        callback.get().childChanged(null, null);
+        callback.get().childChanged(null, null);
+        config.setChangeListener(null);
+        callback.get().childChanged(null, null);
+
+        assertEquals(Arrays.asList(1L, 2L), seenVersions);
+    }
+
+    @Test
+    public void GIVEN_concurrent_config_updates_WHEN_reading_snapshots_THEN_never_torn() throws Exception {
+        Topics topics = Mockito.mock(Topics.class);
+        Topics configTopics = Mockito.mock(Topics.class);
+        AtomicReference<ChildChanged> callback = new AtomicReference<>();
+        AtomicBoolean even = new AtomicBoolean(true);
+        doAnswer((Answer<Void>) invocation -> {
+            callback.set(invocation.getArgument(0));
+            return null;
+        }).when(configTopics).subscribe(any());
+        Mockito.doReturn(false).when(configTopics).isEmpty();
+        // Two configurations whose values must always be seen together
+        doAnswer(invocation -> even.get() ? 9000 : 9001)
+                .when(configTopics).findOrDefault(anyInt(), eq(Config.DEFAULT_PORT_CONFIG_KEY));
+        doAnswer(invocation -> even.get())
+                .when(configTopics).findOrDefault(anyBoolean(), eq(Config.INCLUDE_IPV6_ADDRESSES_CONFIG_KEY));
+        doAnswer(invocation -> even.get() ? 1_000L : 2_000L)
+                .when(configTopics).findOrDefault(anyLong(), eq(Config.POLLING_INTERVAL_MS_CONFIG_KEY));
+        Mockito.doReturn(configTopics).when(topics).lookupTopics(anyString());
+        config = new Config(topics);
+        callback.get().childChanged(null, null);
+
+        int updates = 1_000;
+        AtomicInteger torn = new AtomicInteger();
+        AtomicInteger versionRegressions = new AtomicInteger();
+        AtomicBoolean done = new AtomicBoolean();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(readers.submit(() -> {
+                start.await();
+                long lastVersion = 0;
+                while (!done.get()) {
+                    Config snapshot = config.snapshot();
+                    boolean first = snapshot.getDefaultPort() == 9000;
+                    if (snapshot.isIncludeIPv6Addrs() != first
+                            || snapshot.getPollingIntervalMs() != (first ? 1_000L : 2_000L)) {
+                        torn.incrementAndGet();
+                    }
+                    if (snapshot.getVersion() < lastVersion) {
+                        versionRegressions.incrementAndGet();
+                    }
+                    lastVersion = snapshot.getVersion();
+                }
+                return null;
+            }));
+        }
+        try {
+            start.countDown();
+            for (int i = 0; i < updates; i++) {
+                even.set(i % 2 == 1);
+                callback.get().childChanged(null, null);
+            }
+            done.set(true);
+            for (Future<?> result : results) {
+                result.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            readers.shutdownNow();
+        }
+
+        assertEquals(0, torn.get());
+        assertEquals(0, versionRegressions.get());
+        assertEquals(updates + 1L, config.getVersion());
+    }
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.connectivity;
+
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.utils.TestConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectivityCacheTest {
+    private static final Instant NOW = Instant.parse("2024-01-02T03:04:05Z");
+
+    private ConnectivityCache cache;
+    private final List<ConnectivitySnapshot> notified = new ArrayList<>();
+
+    @BeforeEach
+    void beforeEach() {
+        cache = new ConnectivityCache(Clock.fixed(NOW, ZoneOffset.UTC), Runnable::run);
+        cache.addListener(notified::add);
+    }
+
+    @Test
+    public void GIVEN_detected_and_uploaded_endpoints_WHEN_updated_THEN_new_snapshot_on_change_only() {
+        List<Endpoint> endpoints = endpoints(TestConstants.IP_1);
+
+        cache.updateDetected(endpoints);
+        cache.updateDetected(endpoints(TestConstants.IP_1));
+        cache.updateUploaded(endpoints, "1");
+        cache.updateUploaded(endpoints, "1");
+        cache.updateUploaded(endpoints, "2");
+
+        ConnectivitySnapshot snapshot = cache.getSnapshot();
+        assertEquals(NOW.toEpochMilli() + 2, snapshot.getVersion());
+        assertEquals(endpoints, snapshot.getDetected());
+        assertEquals(endpoints, snapshot.getUploaded());
+        assertEquals("2", snapshot.getUploadedVersion());
+        assertEquals(3, notified.size());
+        assertSame(snapshot, notified.get(2));
+    }
+
+    @Test
+    public void GIVEN_failing_listener_WHEN_updated_THEN_other_listeners_notified() {
+        cache.addListener(snapshot -> {
+            throw new IllegalStateException("listener failure");
+        });
+        List<ConnectivitySnapshot> later = new ArrayList<>();
+        cache.addListener(later::add);
+
+        cache.updateDetected(endpoints(TestConstants.IP_1));
+
+        assertEquals(1, notified.size());
+        assertEquals(1, later.size());
+    }
+
+    @Test
+    public void GIVEN_updates_queued_WHEN_notified_THEN_listeners_skip_to_latest_snapshot() {
+        List<Runnable> queued = new ArrayList<>();
+        cache = new ConnectivityCache(Clock.fixed(NOW, ZoneOffset.UTC), queued::add);
+        cache.addListener(notified::add);
+
+        cache.updateDetected(endpoints(TestConstants.IP_1));
+        cache.updateUploaded(endpoints(TestConstants.IP_1), "1");
+        assertEquals(0, notified.size());
+        queued.forEach(Runnable::run);
+
+        assertEquals(Collections.singletonList(cache.getSnapshot()), notified);
+    }
+
+    @Test
+    public void GIVEN_component_restarted_WHEN_updated_THEN_version_higher_than_before_restart() {
+        cache.updateDetected(endpoints(TestConstants.IP_1));
+        cache.updateDetected(endpoints(TestConstants.IPV4_LOOPBACK));
+        long versionBeforeRestart = cache.getSnapshot().getVersion();
+
+        ConnectivityCache restarted = new ConnectivityCache(Clock.fixed(NOW.plusSeconds(1), ZoneOffset.UTC),
+                Runnable::run);
+        restarted.updateDetected(endpoints(TestConstants.IP_1));
+
+        assertTrue(restarted.getSnapshot().getVersion() > versionBeforeRestart);
+    }
+
+    @Test
+    public void GIVEN_snapshot_WHEN_toJson_THEN_versioned_json_with_escaped_strings() {
+        cache.updateDetected(Arrays.asList(Endpoint.ofHostAddress(TestConstants.IP_1, TestConstants.PORT_1, ""),
+                Endpoint.ofHostAddress(TestConstants.IPV6_1, TestConstants.PORT_2, "rack \"b\"")));
+
+        String json = new String(cache.getSnapshot().toJson(), StandardCharsets.UTF_8);
+
+        assertEquals("{\"version\":" + NOW.toEpochMilli() + ",\"updatedAt\":\"2024-01-02T03:04:05Z\",\"detected\":["
+                + "{\"hostAddress\":\"0.61.124.18\",\"port\":8883,\"metadata\":\"\"},"
+                + "{\"hostAddress\":\"2001:db8:1234::1\",\"port\":8884,\"metadata\":\"rack \\\"b\\\"\"}],"
+                + "\"uploaded\":[],\"uploadedVersion\":null}", json);
+    }
+
+    private static List<Endpoint> endpoints(String ip) {
+        return Collections.singletonList(Endpoint.ofHostAddress(ip, TestConstants.PORT_1, Endpoint.NO_METADATA));
+    }
+}
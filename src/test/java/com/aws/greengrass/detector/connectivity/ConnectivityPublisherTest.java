@@ -0,0 +1,104 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.connectivity;
+
+import com.aws.greengrass.builtin.services.pubsub.PubSubIPCEventStreamAgent;
+import com.aws.greengrass.detector.IpDetectorService;
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.utils.TestConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith({MockitoExtension.class})
+class ConnectivityPublisherTest {
+    private static final String TOPIC = "test/connectivity";
+
+    @Mock
+    private PubSubIPCEventStreamAgent pubSubAgent;
+    @Mock
+    private Config config;
+    @TempDir
+    Path tempDir;
+
+    private ConnectivityCache cache;
+    private ConnectivityPublisher publisher;
+    private Path file;
+
+    @BeforeEach
+    void beforeEach() {
+        file = tempDir.resolve("state").resolve("connectivity.json");
+        Mockito.lenient().when(config.getConnectivityFile()).thenReturn(file.toString());
+        Mockito.lenient().when(config.getConnectivityTopic()).thenReturn(TOPIC);
+        cache = new SynchronousConnectivityCache();
+        publisher = new ConnectivityPublisher(cache, pubSubAgent);
+    }
+
+    @Test
+    public void GIVEN_started_WHEN_endpoints_change_THEN_file_replaced_and_topic_published() throws IOException {
+        publisher.start(config);
+        verify(pubSubAgent, never()).publish(anyString(), any(), anyString());
+
+        cache.updateDetected(endpoints(TestConstants.IP_1));
+        cache.updateUploaded(endpoints(TestConstants.IP_1), "1");
+
+        byte[] json = cache.getSnapshot().toJson();
+        assertArrayEquals(json, Files.readAllBytes(file));
+        assertFalse(Files.exists(file.resolveSibling(file.getFileName() + ConnectivityPublisher.TEMP_SUFFIX)));
+        verify(pubSubAgent, times(2)).publish(eq(TOPIC), any(), eq(IpDetectorService.IP_DETECTOR_SERVICE_NAME));
+        verify(pubSubAgent).publish(TOPIC, json, IpDetectorService.IP_DETECTOR_SERVICE_NAME);
+    }
+
+    @Test
+    public void GIVEN_snapshots_out_of_order_WHEN_publish_THEN_older_snapshot_dropped() throws IOException {
+        publisher.start(config);
+        cache.updateDetected(endpoints(TestConstants.IP_1));
+        ConnectivitySnapshot older = cache.getSnapshot();
+        cache.updateDetected(endpoints(TestConstants.IPV4_LOOPBACK));
+
+        publisher.publish(older);
+
+        assertArrayEquals(cache.getSnapshot().toJson(), Files.readAllBytes(file));
+        verify(pubSubAgent, times(2)).publish(eq(TOPIC), any(), anyString());
+    }
+
+    @Test
+    public void GIVEN_stopped_and_restarted_WHEN_start_THEN_current_snapshot_published_again() {
+        publisher.start(config);
+        cache.updateDetected(endpoints(TestConstants.IP_1));
+        publisher.stop();
+        cache.updateDetected(endpoints(TestConstants.IPV4_LOOPBACK));
+        verify(pubSubAgent, times(1)).publish(eq(TOPIC), any(), anyString());
+
+        publisher.start(config);
+
+        verify(pubSubAgent).publish(TOPIC, cache.getSnapshot().toJson(), IpDetectorService.IP_DETECTOR_SERVICE_NAME);
+    }
+
+    private static List<Endpoint> endpoints(String ip) {
+        return Collections.singletonList(Endpoint.ofHostAddress(ip, TestConstants.PORT_1, Endpoint.NO_METADATA));
+    }
+}
@@ -0,0 +1,22 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.connectivity;
+
+import java.time.Clock;
+
+/**
+ * Connectivity cache notifying its listeners on the writing thread, before the update returns, for tests of
+ * the listeners in other packages.
+ */
+public class SynchronousConnectivityCache extends ConnectivityCache {
+
+    /**
+     * Constructor.
+     */
+    public SynchronousConnectivityCache() {
+        super(Clock.systemUTC(), Runnable::run);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.detector;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AddressChangeMonitorTest {
+
+    private AddressChangeMonitor monitor;
+
+    @AfterEach
+    void afterEach() {
+        if (monitor != null) {
+            monitor.stop();
+        }
+    }
+
+    @Test
+    public void GIVEN_address_events_WHEN_monitor_running_THEN_callback_invoked_per_event() throws Exception {
+        PipedOutputStream events = new PipedOutputStream();
+        PipedInputStream source = new PipedInputStream(events);
+        CountDownLatch latch = new CountDownLatch(2);
+        monitor = new AddressChangeMonitor(() -> source, latch::countDown);
+        monitor.start();
+
+        write(events, "2: eth0    inet 10.0.0.5/24 brd 10.0.0.255 scope global dynamic eth0\n");
+        write(events, "Deleted 3: wlan0    inet6 2001:db8::5/64 scope global \\       valid_lft forever\n");
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void GIVEN_non_address_events_WHEN_monitor_running_THEN_callback_not_invoked() throws Exception {
+        PipedOutputStream events = new PipedOutputStream();
+        PipedInputStream source = new PipedInputStream(events);
+        AtomicInteger changes = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(1);
+        monitor = new AddressChangeMonitor(() -> source, () -> {
+            changes.incrementAndGet();
+            latch.countDown();
+        });
+        monitor.start();
+
+        write(events, "Timestamp: Thu Jan  1 00:00:00 2026 123456 usec\n");
+        write(events, "2: eth0    inet 10.0.0.5/24 scope global eth0\n");
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(1, changes.get());
+    }
+
+    @Test
+    public void GIVEN_source_unavailable_WHEN_start_THEN_monitor_stops() throws Exception {
+        CountDownLatch opened = new CountDownLatch(1);
+        monitor = new AddressChangeMonitor(() -> {
+            opened.countDown();
+            throw new IOException("ip not found");
+        }, () -> { });
+        monitor.start();
+
+        assertTrue(opened.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 50 && monitor.isRunning(); i++) {
+            Thread.sleep(100);
+        }
+        assertFalse(monitor.isRunning());
+    }
+
+    @Test
+    public void GIVEN_monitor_lines_WHEN_isAddressEvent_THEN_only_address_lines_match() {
+        assertTrue(AddressChangeMonitor.isAddressEvent("2: eth0    inet 10.0.0.5/24 scope global eth0"));
+        assertTrue(AddressChangeMonitor.isAddressEvent("3: eth1    inet6 fe80::1/64 scope link"));
+        assertFalse(AddressChangeMonitor.isAddressEvent("Timestamp: Thu Jan  1 00:00:00 2026"));
+    }
+
+    private static void write(PipedOutputStream events, String line) throws IOException {
+        events.write(line.getBytes(StandardCharsets.UTF_8));
+        events.flush();
+    }
+}
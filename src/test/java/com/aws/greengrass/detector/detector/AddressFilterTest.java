@@ -0,0 +1,61 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.detector;
+
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.utils.TestConstants;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith({MockitoExtension.class})
+class AddressFilterTest {
+
+    @Test
+    public void GIVEN_ipv4_only_config_WHEN_compile_THEN_only_global_ipv4_accepted() throws UnknownHostException {
+        Config config = Mockito.mock(Config.class);
+        Mockito.doReturn(true).when(config).isIncludeIPv4Addrs();
+
+        int mask = AddressFilter.compile(config);
+
+        assertEquals(AddressFilter.IPV4, mask);
+        assertTrue(AddressFilter.accepts(mask, InetAddress.getByName(TestConstants.IP_1)));
+        assertFalse(AddressFilter.accepts(mask, InetAddress.getByName(TestConstants.IPV4_LOOPBACK)));
+        assertFalse(AddressFilter.accepts(mask, InetAddress.getByName(TestConstants.IPV4_LINK_LOCAL)));
+        assertFalse(AddressFilter.accepts(mask, InetAddress.getByName(TestConstants.IPV6_1)));
+    }
+
+    @Test
+    public void GIVEN_scope_flags_without_family_WHEN_compile_THEN_scope_flags_ignored() {
+        Config config = Mockito.mock(Config.class);
+        Mockito.doReturn(false).when(config).isIncludeIPv4Addrs();
+        Mockito.doReturn(true).when(config).isIncludeIPv6Addrs();
+        Mockito.doReturn(true).when(config).isIncludeIPv6LinkLocalAddrs();
+
+        assertEquals(AddressFilter.IPV6 | AddressFilter.IPV6_LINK_LOCAL, AddressFilter.compile(config));
+    }
+
+    @Test
+    public void GIVEN_addresses_WHEN_classify_THEN_one_class_per_address() throws UnknownHostException {
+        assertEquals(AddressFilter.IPV4, AddressFilter.classify(InetAddress.getByName(TestConstants.IP_1)));
+        assertEquals(AddressFilter.IPV4_LOOPBACK,
+                AddressFilter.classify(InetAddress.getByName(TestConstants.IPV4_LOOPBACK)));
+        assertEquals(AddressFilter.IPV4_LINK_LOCAL,
+                AddressFilter.classify(InetAddress.getByName(TestConstants.IPV4_LINK_LOCAL)));
+        assertEquals(AddressFilter.IPV6, AddressFilter.classify(InetAddress.getByName(TestConstants.IPV6_1)));
+        assertEquals(AddressFilter.IPV6_LOOPBACK, AddressFilter.classify(InetAddress.getByName("::1")));
+        assertEquals(AddressFilter.IPV6_LINK_LOCAL,
+                AddressFilter.classify(InetAddress.getByName(TestConstants.IPV6_LINK_LOCAL_1)));
+    }
+}
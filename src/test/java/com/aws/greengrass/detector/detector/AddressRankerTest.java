@@ -0,0 +1,187 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.detector;
+
+import com.aws.greengrass.detector.executor.DetectorExecutors;
+import com.aws.greengrass.utils.TestConstants;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.net.ServerSocket;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith({MockitoExtension.class})
+@SuppressWarnings("PMD.AvoidUsingHardCodedIP")
+class AddressRankerTest {
+    private static final String ULA = "fd12:3456:789a::1";
+    // TEST-NET-1, never routed
+    private static final String UNREACHABLE = "192.0.2.1";
+
+    private final DetectorExecutors executors = new DetectorExecutors();
+
+    @Test
+    public void GIVEN_no_ranking_config_WHEN_compile_THEN_none_returned() {
+        AddressRanker ranker = AddressRanker.compile(Collections.emptyList(), false, false, false, 100);
+
+        assertSame(AddressRanker.NONE, ranker);
+        assertFalse(ranker.isEnabled());
+    }
+
+    @Test
+    public void GIVEN_interface_priority_WHEN_sort_THEN_addresses_of_preferred_interfaces_first()
+            throws UnknownHostException {
+        AddressRanker ranker = AddressRanker.compile(Arrays.asList("eth*", "en*"), false, false, false, 100);
+        InetAddress wlan = InetAddress.getByName(TestConstants.IP_1);
+        InetAddress en = InetAddress.getByName(TestConstants.IPV4_LOOPBACK);
+        InetAddress eth = InetAddress.getByName(TestConstants.IPV6_1);
+        List<Endpoint> endpoints = endpoints(TestConstants.PORT_1, wlan, en, eth);
+        long[] keys = {
+                ranker.rankKey(ranker.interfaceRank(networkInterface("wlan0")), wlan),
+                ranker.rankKey(ranker.interfaceRank(networkInterface("enp0s3")), en),
+                ranker.rankKey(ranker.interfaceRank(networkInterface("eth0")), eth)
+        };
+
+        ranker.sort(endpoints, keys, endpoints.size(), executors.getProbeExecutor());
+
+        assertEquals(Arrays.asList(eth, en, wlan), addresses(endpoints));
+    }
+
+    @Test
+    public void GIVEN_prefer_global_and_wired_WHEN_sort_THEN_wired_global_first_and_ties_stable()
+            throws UnknownHostException {
+        AddressRanker ranker = AddressRanker.compile(null, true, true, false, 100);
+        InetAddress linkLocal = InetAddress.getByName(TestConstants.IPV6_LINK_LOCAL_1);
+        InetAddress ula = InetAddress.getByName(ULA);
+        InetAddress wireless = InetAddress.getByName(TestConstants.IP_1);
+        InetAddress global = InetAddress.getByName(TestConstants.IPV6_1);
+        InetAddress otherGlobal = InetAddress.getByName("2001:db8:1234::2");
+        long wiredRank = ranker.interfaceRank(networkInterface("eth0"));
+        List<Endpoint> endpoints = endpoints(TestConstants.PORT_1, linkLocal, ula, wireless, global, otherGlobal);
+        long[] keys = {
+                ranker.rankKey(wiredRank, linkLocal),
+                ranker.rankKey(wiredRank, ula),
+                ranker.rankKey(ranker.interfaceRank(networkInterface("wlan0")), wireless),
+                ranker.rankKey(wiredRank, global),
+                ranker.rankKey(wiredRank, otherGlobal)
+        };
+
+        ranker.sort(endpoints, keys, endpoints.size(), executors.getProbeExecutor());
+
+        assertEquals(Arrays.asList(global, otherGlobal, ula, linkLocal, wireless), addresses(endpoints));
+    }
+
+    @Test
+    public void GIVEN_probe_enabled_WHEN_sort_THEN_unreachable_address_last() throws IOException {
+        AddressRanker ranker = AddressRanker.compile(null, false, false, true, 200);
+        InetAddress unreachable = InetAddress.getByName(UNREACHABLE);
+        InetAddress loopback = InetAddress.getByName(TestConstants.IPV4_LOOPBACK);
+        try (ServerSocket server = new ServerSocket(0, 1, loopback)) {
+            List<Endpoint> endpoints = endpoints(server.getLocalPort(), unreachable, loopback);
+
+            ranker.sort(endpoints, new long[2], endpoints.size(), executors.getProbeExecutor());
+
+            assertEquals(Arrays.asList(loopback, unreachable), addresses(endpoints));
+        }
+    }
+
+    @Test
+    public void GIVEN_addresses_probed_WHEN_sorted_again_THEN_cached_results_used() throws IOException {
+        AddressRanker ranker = AddressRanker.compile(null, false, false, true, 200);
+        InetAddress unreachable = InetAddress.getByName(UNREACHABLE);
+        InetAddress loopback = InetAddress.getByName(TestConstants.IPV4_LOOPBACK);
+        List<Endpoint> endpoints;
+        try (ServerSocket server = new ServerSocket(0, 1, loopback)) {
+            endpoints = endpoints(server.getLocalPort(), unreachable, loopback);
+            ranker.sort(endpoints, new long[2], endpoints.size(), executors.getProbeExecutor());
+        }
+        Collections.reverse(endpoints);
+
+        long startNanos = System.nanoTime();
+        ranker.sort(endpoints, new long[2], endpoints.size(), executors.getProbeExecutor());
+
+        assertEquals(Arrays.asList(loopback, unreachable), addresses(endpoints));
+        assertTrue(System.nanoTime() - startNanos < TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    public void GIVEN_probe_executor_full_WHEN_sort_THEN_addresses_ranked_as_unprobed() throws IOException {
+        AddressRanker ranker = AddressRanker.compile(null, false, false, true, 200);
+        InetAddress unreachable = InetAddress.getByName(UNREACHABLE);
+        InetAddress loopback = InetAddress.getByName(TestConstants.IPV4_LOOPBACK);
+        List<Endpoint> endpoints = endpoints(TestConstants.PORT_1, unreachable, loopback);
+
+        ranker.sort(endpoints, new long[2], endpoints.size(), task -> {
+            throw new RejectedExecutionException("full");
+        });
+
+        assertEquals(Arrays.asList(unreachable, loopback), addresses(endpoints));
+    }
+
+    @Test
+    public void GIVEN_interface_ranked_WHEN_ranked_again_THEN_cached_rank_returned() {
+        AddressRanker ranker = AddressRanker.compile(Collections.singletonList("eth*"), false, true, false, 100);
+        long rank = ranker.interfaceRank(networkInterface("eth0"));
+
+        assertEquals(rank, ranker.interfaceRank(networkInterface("eth0")));
+        assertTrue(rank < ranker.interfaceRank(networkInterface("wlan0")));
+    }
+
+    @Test
+    public void GIVEN_addresses_WHEN_scope_THEN_classified() throws UnknownHostException {
+        assertEquals(AddressRanker.SCOPE_GLOBAL, AddressRanker.scope(InetAddress.getByName(TestConstants.IPV6_1)));
+        assertEquals(AddressRanker.SCOPE_GLOBAL, AddressRanker.scope(InetAddress.getByName(TestConstants.IP_1)));
+        assertEquals(AddressRanker.SCOPE_UNIQUE_LOCAL, AddressRanker.scope(InetAddress.getByName(ULA)));
+        assertEquals(AddressRanker.SCOPE_LOCAL,
+                AddressRanker.scope(InetAddress.getByName(TestConstants.IPV6_LINK_LOCAL_1)));
+        assertEquals(AddressRanker.SCOPE_LOCAL,
+                AddressRanker.scope(InetAddress.getByName(TestConstants.IPV4_LOOPBACK)));
+    }
+
+    @Test
+    public void GIVEN_interface_names_WHEN_isWireless_THEN_wl_prefix_detected() {
+        assertTrue(AddressRanker.isWireless("wlan0"));
+        assertTrue(AddressRanker.isWireless("wlp2s0"));
+        assertFalse(AddressRanker.isWireless("eth0"));
+    }
+
+    private static NetworkInterface networkInterface(String name) {
+        NetworkInterface networkInterface = Mockito.mock(NetworkInterface.class);
+        Mockito.doReturn(name).when(networkInterface).getName();
+        return networkInterface;
+    }
+
+    private static List<Endpoint> endpoints(int port, InetAddress... addresses) {
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (InetAddress address : addresses) {
+            endpoints.add(Endpoint.of(address, port, Endpoint.NO_METADATA));
+        }
+        return endpoints;
+    }
+
+    private static List<InetAddress> addresses(List<Endpoint> endpoints) {
+        List<InetAddress> addresses = new ArrayList<>();
+        for (Endpoint endpoint : endpoints) {
+            addresses.add(endpoint.getAddress());
+        }
+        return addresses;
+    }
+}
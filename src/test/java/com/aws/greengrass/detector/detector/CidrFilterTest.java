@@ -0,0 +1,79 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.detector;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CidrFilterTest {
+
+    @Test
+    public void GIVEN_no_rules_WHEN_compile_THEN_accept_all_returned() {
+        assertSame(CidrFilter.ACCEPT_ALL, CidrFilter.compile(null, Collections.emptyList()));
+    }
+
+    @Test
+    public void GIVEN_include_and_nested_exclude_WHEN_accepts_THEN_most_specific_rule_wins()
+            throws UnknownHostException {
+        CidrFilter filter = CidrFilter.compile(Arrays.asList("10.20.0.0/16", "2001:db8::/32"),
+                Arrays.asList("10.20.5.0/24", "172.17.0.0/16"));
+
+        assertTrue(filter.accepts(InetAddress.getByName("10.20.1.1")));
+        assertFalse(filter.accepts(InetAddress.getByName("10.20.5.7")));
+        assertFalse(filter.accepts(InetAddress.getByName("10.21.0.1")));
+        assertFalse(filter.accepts(InetAddress.getByName("172.17.0.2")));
+        assertTrue(filter.accepts(InetAddress.getByName("2001:db8:1234::1")));
+        assertFalse(filter.accepts(InetAddress.getByName("2001:db9::1")));
+    }
+
+    @Test
+    public void GIVEN_exclude_only_WHEN_accepts_THEN_unmatched_addresses_accepted() throws UnknownHostException {
+        CidrFilter filter = CidrFilter.compile(null, Collections.singletonList("172.17.0.0/16"));
+
+        assertTrue(filter.accepts(InetAddress.getByName("10.0.0.1")));
+        assertFalse(filter.accepts(InetAddress.getByName("172.17.3.3")));
+    }
+
+    @Test
+    public void GIVEN_same_prefix_included_and_excluded_WHEN_accepts_THEN_excluded() throws UnknownHostException {
+        CidrFilter filter = CidrFilter.compile(Collections.singletonList("10.0.0.0/8"),
+                Collections.singletonList("10.0.0.0/8"));
+
+        assertFalse(filter.accepts(InetAddress.getByName("10.1.2.3")));
+    }
+
+    @Test
+    public void GIVEN_invalid_include_rules_WHEN_accepts_THEN_nothing_accepted() throws UnknownHostException {
+        CidrFilter filter = CidrFilter.compile(Arrays.asList("10.0.0.0/33", "eth0", "300.1.1.1/8"), null);
+
+        assertFalse(filter.accepts(InetAddress.getByName("10.1.2.3")));
+    }
+
+    @Test
+    public void GIVEN_thousands_of_rules_WHEN_accepts_THEN_each_rule_matched() throws UnknownHostException {
+        List<String> rules = new ArrayList<>();
+        for (int i = 0; i < 4096; i++) {
+            rules.add("10." + (i >> 4) + "." + ((i & 15) << 4) + ".0/20");
+        }
+        CidrFilter filter = CidrFilter.compile(rules, Collections.singletonList("10.255.240.0/20"));
+
+        assertTrue(filter.accepts(InetAddress.getByName("10.0.0.1")));
+        assertTrue(filter.accepts(InetAddress.getByName("10.128.33.1")));
+        assertFalse(filter.accepts(InetAddress.getByName("10.255.241.1")));
+        assertFalse(filter.accepts(InetAddress.getByName("11.0.0.1")));
+        assertFalse(filter.accepts(InetAddress.getByName("fd00::1")));
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.detector;
+
+import com.aws.greengrass.utils.TestConstants;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("PMD.AvoidUsingHardCodedIP")
+class EndpointMapperTest {
+    private static final int DEFAULT_PORT = TestConstants.PORT_1;
+
+    @Test
+    public void GIVEN_no_rules_WHEN_compile_THEN_none_returned() {
+        assertSame(EndpointMapper.NONE, EndpointMapper.compile(null));
+        assertSame(EndpointMapper.NONE, EndpointMapper.compile(Collections.emptyList()));
+        assertSame(EndpointMapper.NONE, EndpointMapper.compile("not a list"));
+        assertFalse(EndpointMapper.NONE.isEnabled());
+    }
+
+    @Test
+    public void GIVEN_overlapping_rules_WHEN_resolve_THEN_first_matching_rule_wins() throws UnknownHostException {
+        EndpointMapper mapper = EndpointMapper.compile(Arrays.asList(
+                rule(EndpointMapper.CIDR_KEY, "10.20.0.0/16", EndpointMapper.PORT_KEY, 8885),
+                rule(EndpointMapper.INTERFACE_KEY, "eth*", EndpointMapper.PORT_KEY, TestConstants.PORT_2,
+                        EndpointMapper.METADATA_KEY, "wired")));
+        long eth0 = mapper.interfaceRules("eth0");
+
+        int cidrRule = mapper.resolve(eth0, InetAddress.getByName("10.20.1.2"));
+        int interfaceRule = mapper.resolve(eth0, InetAddress.getByName("10.30.1.2"));
+
+        assertTrue(mapper.isEnabled());
+        assertEquals(8885, mapper.port(cidrRule, DEFAULT_PORT));
+        assertEquals(Endpoint.NO_METADATA, mapper.metadata(cidrRule));
+        assertEquals(TestConstants.PORT_2, mapper.port(interfaceRule, DEFAULT_PORT));
+        assertEquals("wired", mapper.metadata(interfaceRule));
+    }
+
+    @Test
+    public void GIVEN_interface_rule_WHEN_other_interface_THEN_default_port_and_no_metadata()
+            throws UnknownHostException {
+        EndpointMapper mapper = EndpointMapper.compile(Collections.singletonList(
+                rule(EndpointMapper.INTERFACE_KEY, "eth1", EndpointMapper.PORT_KEY, TestConstants.PORT_2)));
+
+        int rule = mapper.resolve(mapper.interfaceRules("wlan0"), InetAddress.getByName(TestConstants.IP_1));
+
+        assertEquals(EndpointMapper.NO_RULE, rule);
+        assertEquals(DEFAULT_PORT, mapper.port(rule, DEFAULT_PORT));
+        assertEquals(Endpoint.NO_METADATA, mapper.metadata(rule));
+    }
+
+    @Test
+    public void GIVEN_family_rule_without_port_WHEN_resolve_THEN_metadata_set_and_default_port_kept()
+            throws UnknownHostException {
+        EndpointMapper mapper = EndpointMapper.compile(Collections.singletonList(
+                rule(EndpointMapper.FAMILY_KEY, "IPv6", EndpointMapper.METADATA_KEY, "v6")));
+        long rules = mapper.interfaceRules("eth0");
+
+        int v6 = mapper.resolve(rules, InetAddress.getByName(TestConstants.IPV6_1));
+        int v4 = mapper.resolve(rules, InetAddress.getByName(TestConstants.IP_1));
+
+        assertEquals(DEFAULT_PORT, mapper.port(v6, DEFAULT_PORT));
+        assertEquals("v6", mapper.metadata(v6));
+        assertEquals(EndpointMapper.NO_RULE, v4);
+    }
+
+    @Test
+    public void GIVEN_invalid_rules_WHEN_compile_THEN_ignored() throws UnknownHostException {
+        EndpointMapper mapper = EndpointMapper.compile(Arrays.asList(
+                "not an object",
+                rule(EndpointMapper.FAMILY_KEY, "ipx"),
+                rule(EndpointMapper.PORT_KEY, 70_000),
+                rule(EndpointMapper.CIDR_KEY, "not a cidr"),
+                rule(EndpointMapper.INTERFACE_KEY, "regex:eth[", EndpointMapper.PORT_KEY, 8885),
+                rule(EndpointMapper.PORT_KEY, TestConstants.PORT_2)));
+
+        int rule = mapper.resolve(mapper.interfaceRules("eth["), InetAddress.getByName(TestConstants.IP_1));
+
+        assertEquals(TestConstants.PORT_2, mapper.port(rule, DEFAULT_PORT));
+    }
+
+    @Test
+    public void GIVEN_more_than_max_rules_WHEN_compile_THEN_extra_rules_ignored() throws UnknownHostException {
+        List<Object> rules = new ArrayList<>();
+        for (int i = 0; i < EndpointMapper.MAX_RULES; i++) {
+            rules.add(rule(EndpointMapper.INTERFACE_KEY, "if" + i, EndpointMapper.PORT_KEY, 10_000 + i));
+        }
+        rules.add(rule(EndpointMapper.PORT_KEY, TestConstants.PORT_2));
+        EndpointMapper mapper = EndpointMapper.compile(rules);
+        InetAddress address = InetAddress.getByName(TestConstants.IP_1);
+
+        int last = mapper.resolve(mapper.interfaceRules("if" + (EndpointMapper.MAX_RULES - 1)), address);
+
+        assertEquals(10_000 + EndpointMapper.MAX_RULES - 1, mapper.port(last, DEFAULT_PORT));
+        assertEquals(EndpointMapper.NO_RULE, mapper.resolve(mapper.interfaceRules("eth0"), address));
+    }
+
+    private static Map<String, Object> rule(Object... keysAndValues) {
+        Map<String, Object> rule = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            rule.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return rule;
+    }
+}
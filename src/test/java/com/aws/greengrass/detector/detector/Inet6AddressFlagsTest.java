@@ -0,0 +1,71 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.detector;
+
+import com.aws.greengrass.utils.TestConstants;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.InetAddress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Inet6AddressFlagsTest {
+    // Format of /proc/net/if_inet6: address, interface index, prefix length, scope, flags and device
+    static final String IF_INET6 = "20010db8123400000000000000000001 02 40 00 80     eth0\n"
+            + "20010db8123400000000000000000002 02 40 00 01     eth0\n"
+            + "20010db8123400000000000000000003 02 40 00 20     eth0\n"
+            + "20010db8123400000000000000000004 02 40 00 40     eth0\n"
+            + "20010db8123400000000000000000005 02 40 00 08     eth0\n"
+            + "fe80000000000000bd48478f3447befd 02 40 20 80     eth0\n"
+            + "malformed line\n";
+
+    @Test
+    public void GIVEN_if_inet6_WHEN_parse_THEN_flags_of_each_address_read() throws IOException {
+        Inet6AddressFlags flags = parse(IF_INET6);
+
+        assertEquals(0x80, flags.flags(InetAddress.getByName(TestConstants.IPV6_1)));
+        assertEquals(Inet6AddressFlags.TEMPORARY, flags.flags(InetAddress.getByName("2001:db8:1234::2")));
+        assertEquals(0x80, flags.flags(InetAddress.getByName(TestConstants.IPV6_LINK_LOCAL_1)));
+        assertEquals(Inet6AddressFlags.UNKNOWN_FLAGS, flags.flags(InetAddress.getByName("2001:db8:1234::9")));
+        assertEquals(Inet6AddressFlags.UNKNOWN_FLAGS, flags.flags(InetAddress.getByName(TestConstants.IP_1)));
+    }
+
+    @Test
+    public void GIVEN_address_flags_WHEN_accepts_THEN_only_stable_preferred_addresses_accepted() throws IOException {
+        Inet6AddressFlags flags = parse(IF_INET6);
+
+        assertTrue(flags.accepts(InetAddress.getByName(TestConstants.IPV6_1), false));
+        assertFalse(flags.accepts(InetAddress.getByName("2001:db8:1234::2"), false));
+        assertTrue(flags.accepts(InetAddress.getByName("2001:db8:1234::2"), true));
+        // Deprecated, tentative and failed duplicate address detection
+        assertFalse(flags.accepts(InetAddress.getByName("2001:db8:1234::3"), true));
+        assertFalse(flags.accepts(InetAddress.getByName("2001:db8:1234::4"), true));
+        assertFalse(flags.accepts(InetAddress.getByName("2001:db8:1234::5"), true));
+        // Unlisted and IPv4 addresses
+        assertTrue(flags.accepts(InetAddress.getByName("2001:db8:1234::9"), false));
+        assertTrue(flags.accepts(InetAddress.getByName(TestConstants.IP_1), false));
+    }
+
+    @Test
+    public void GIVEN_no_if_inet6_WHEN_read_THEN_all_addresses_accepted(@TempDir File tempDir) throws IOException {
+        Inet6AddressFlags flags = Inet6AddressFlags.read(new File(tempDir, "if_inet6"));
+
+        assertSame(Inet6AddressFlags.UNKNOWN, flags);
+        assertTrue(flags.accepts(InetAddress.getByName("2001:db8:1234::2"), false));
+    }
+
+    static Inet6AddressFlags parse(String content) throws IOException {
+        return Inet6AddressFlags.parse(new BufferedReader(new StringReader(content)));
+    }
+}
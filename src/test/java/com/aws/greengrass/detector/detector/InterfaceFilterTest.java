@@ -0,0 +1,100 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.detector;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith({MockitoExtension.class})
+class InterfaceFilterTest {
+
+    @Test
+    public void GIVEN_no_rules_WHEN_compile_THEN_accept_all_returned() {
+        assertSame(InterfaceFilter.ACCEPT_ALL,
+                InterfaceFilter.compile(Collections.emptyList(), null, false, false));
+    }
+
+    @Test
+    public void GIVEN_exclude_globs_WHEN_acceptsName_THEN_container_interfaces_rejected() {
+        InterfaceFilter filter = InterfaceFilter.compile(Collections.emptyList(),
+                Arrays.asList("docker*", "veth*", "cni?", "flannel.*"), false, false);
+
+        assertTrue(filter.acceptsName("eth0"));
+        assertTrue(filter.acceptsName("wlan0"));
+        assertFalse(filter.acceptsName("docker0"));
+        assertFalse(filter.acceptsName("veth1a2b3c"));
+        assertFalse(filter.acceptsName("cni0"));
+        assertFalse(filter.acceptsName("flannel.1"));
+        // the dot in a glob is a literal
+        assertTrue(filter.acceptsName("flannelx1"));
+    }
+
+    @Test
+    public void GIVEN_include_regex_and_exclude_glob_WHEN_acceptsName_THEN_exclude_wins() {
+        InterfaceFilter filter = InterfaceFilter.compile(Collections.singletonList("regex:(eth|en)[0-9]+"),
+                Collections.singletonList("glob:eth9"), false, false);
+
+        assertTrue(filter.acceptsName("eth0"));
+        assertTrue(filter.acceptsName("en1"));
+        assertFalse(filter.acceptsName("eth9"));
+        assertFalse(filter.acceptsName("wlan0"));
+        assertFalse(filter.acceptsName("xeth0"));
+    }
+
+    @Test
+    public void GIVEN_invalid_include_pattern_WHEN_acceptsName_THEN_pattern_matches_nothing() {
+        InterfaceFilter filter = InterfaceFilter.compile(Collections.singletonList("regex:(eth"),
+                Collections.emptyList(), false, false);
+
+        assertFalse(filter.acceptsName("eth0"));
+    }
+
+    @Test
+    public void GIVEN_point_to_point_excluded_WHEN_accepts_THEN_tunnel_rejected() throws SocketException {
+        InterfaceFilter filter = InterfaceFilter.compile(null, null, false, true);
+        NetworkInterface tunnel = Mockito.mock(NetworkInterface.class);
+        NetworkInterface ethernet = Mockito.mock(NetworkInterface.class);
+        Mockito.doReturn("tun0").when(tunnel).getName();
+        Mockito.doReturn(true).when(tunnel).isPointToPoint();
+        Mockito.doReturn("eth0").when(ethernet).getName();
+        Mockito.doReturn(false).when(ethernet).isPointToPoint();
+
+        assertFalse(filter.accepts(tunnel));
+        assertTrue(filter.accepts(ethernet));
+    }
+
+    @Test
+    public void GIVEN_virtual_excluded_WHEN_accepts_sub_interface_THEN_rejected() throws SocketException {
+        InterfaceFilter filter = InterfaceFilter.compile(null, null, true, false);
+        NetworkInterface subInterface = Mockito.mock(NetworkInterface.class);
+        Mockito.doReturn("eth0:1").when(subInterface).getName();
+        Mockito.doReturn(true).when(subInterface).isVirtual();
+
+        assertFalse(filter.accepts(subInterface));
+    }
+
+    @Test
+    public void GIVEN_excluded_name_WHEN_accepts_THEN_flags_not_read() throws SocketException {
+        InterfaceFilter filter = InterfaceFilter.compile(null, Collections.singletonList("veth*"), true, true);
+        NetworkInterface veth = Mockito.mock(NetworkInterface.class);
+        Mockito.doReturn("veth0").when(veth).getName();
+
+        assertFalse(filter.accepts(veth));
+        Mockito.verify(veth, Mockito.never()).isPointToPoint();
+        Mockito.verify(veth, Mockito.never()).isVirtual();
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.detector;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InterfaceRecorderTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void GIVEN_no_duration_WHEN_recorded_THEN_single_tick_of_this_host() throws IOException,
+            InterruptedException {
+        Path file = tempDir.resolve("trace.txt");
+
+        InterfaceRecorder.record(file, 1_000L, 0L);
+
+        InterfaceTrace trace = InterfaceTrace.read(file);
+        assertEquals(1, trace.getSnapshots().size());
+        assertFalse(trace.getSnapshots().get(0).getLines().isEmpty());
+    }
+
+    @Test
+    public void GIVEN_interval_not_positive_WHEN_recorded_THEN_rejected_before_the_file_is_written() {
+        Path file = tempDir.resolve("trace.txt");
+
+        assertThrows(IllegalArgumentException.class, () -> InterfaceRecorder.record(file, 0L, 1_000L));
+        assertThrows(IllegalArgumentException.class, () -> InterfaceRecorder.record(file, -1L, 1_000L));
+        assertThrows(IllegalArgumentException.class, () -> InterfaceRecorder.record(file, 1_000L, -1L));
+        assertFalse(Files.exists(file));
+    }
+}
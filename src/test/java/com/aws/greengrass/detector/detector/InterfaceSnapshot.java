@@ -0,0 +1,234 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.detector;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InterfaceAddress;
+import java.net.NetworkInterface;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * State of the network interfaces of a host at one tick of an {@link InterfaceTrace}.
+ *
+ * <p>Every interface is one line holding its name, index, flags, and addresses with their prefix length and,
+ * for IPv6 addresses on Linux, the kernel flags of {@code /proc/net/if_inet6} in hexadecimal:
+ * <pre>
+ * eth0 2 up 192.168.1.10/24 2001:db8:0:0:0:0:0:10/64/00 2001:db8:0:0:0:0:0:a1/64/01
+ * docker0 4 up,virtual 172.17.0.1/16
+ * wlan0 3 - 192.168.1.22/24
+ * </pre>
+ * Flags are {@code up}, {@code loopback}, {@code virtual} and {@code p2p}, {@code -} if none is set. The lines
+ * are the state, so two snapshots with the same lines replay the same. They are captured by the
+ * {@link InterfaceRecorder}.
+ */
+public final class InterfaceSnapshot {
+    static final String NO_FLAGS = InterfaceRecorder.NO_FLAGS;
+    static final String UP = InterfaceRecorder.UP;
+    static final String LOOPBACK = InterfaceRecorder.LOOPBACK;
+    static final String VIRTUAL = InterfaceRecorder.VIRTUAL;
+    static final String POINT_TO_POINT = InterfaceRecorder.POINT_TO_POINT;
+    private static final Pattern FIELDS = Pattern.compile("\\s+");
+    private static final Pattern ADDRESS_LITERAL = Pattern.compile("[0-9a-fA-F:.]+");
+    private static final int ADDRESS_FIELDS = 3;
+
+    private final long offsetMs;
+    private final List<String> lines;
+    private volatile List<NetworkInterface> networkInterfaces;
+    private volatile Inet6AddressFlags addressFlags;
+
+    /**
+     * Constructor.
+     *
+     * @param offsetMs time of the tick since the start of the trace
+     * @param lines    one line per interface
+     * @throws IOException if a line is malformed
+     */
+    public InterfaceSnapshot(long offsetMs, List<String> lines) throws IOException {
+        this.offsetMs = offsetMs;
+        List<String> canonical = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            String trimmed = line.trim();
+            validate(trimmed);
+            canonical.add(trimmed);
+        }
+        this.lines = Collections.unmodifiableList(canonical);
+    }
+
+    /**
+     * Capture the interfaces of this host.
+     *
+     * @param offsetMs time of the tick since the start of the trace
+     * @return snapshot
+     * @throws IOException if the interfaces cannot be listed
+     */
+    public static InterfaceSnapshot capture(long offsetMs) throws IOException {
+        return new InterfaceSnapshot(offsetMs, InterfaceRecorder.capture());
+    }
+
+    public long getOffsetMs() {
+        return offsetMs;
+    }
+
+    public List<String> getLines() {
+        return lines;
+    }
+
+    /**
+     * Whether the interfaces are the same as in another snapshot, whatever the time of the ticks.
+     *
+     * @param other snapshot
+     * @return true if the interfaces are the same
+     */
+    public boolean sameInterfaces(InterfaceSnapshot other) {
+        return other != null && lines.equals(other.lines);
+    }
+
+    /**
+     * The same interfaces at another tick.
+     *
+     * @param newOffsetMs time of the tick since the start of the trace
+     * @return snapshot
+     */
+    public InterfaceSnapshot at(long newOffsetMs) {
+        try {
+            return new InterfaceSnapshot(newOffsetMs, lines);
+        } catch (IOException e) {
+            // The lines were validated when this snapshot was built
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Stub-only network interfaces with the state of the snapshot, built on first use.
+     *
+     * @return interfaces
+     */
+    public List<NetworkInterface> getNetworkInterfaces() {
+        List<NetworkInterface> built = networkInterfaces;
+        if (built == null) {
+            try {
+                List<NetworkInterface> interfaces = new ArrayList<>(lines.size());
+                for (String line : lines) {
+                    interfaces.add(toNetworkInterface(FIELDS.split(line)));
+                }
+                built = Collections.unmodifiableList(interfaces);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            networkInterfaces = built;
+        }
+        return built;
+    }
+
+    /**
+     * IPv6 address flags of the snapshot, as the detector would have read them from the host.
+     */
+    Inet6AddressFlags getAddressFlags() {
+        Inet6AddressFlags built = addressFlags;
+        if (built == null) {
+            // Rebuild the lines of /proc/net/if_inet6: address ifindex prefix-length scope flags device
+            StringBuilder ifInet6 = new StringBuilder();
+            for (String line : lines) {
+                String[] fields = FIELDS.split(line);
+                for (int i = ADDRESS_FIELDS; i < fields.length; i++) {
+                    String[] parts = fields[i].split("/");
+                    if (parts.length > 2) {
+                        ifInet6.append(toHex(parse(parts[0]).getAddress())).append(' ')
+                                .append(Integer.toHexString(Integer.parseInt(fields[1]))).append(' ')
+                                .append(Integer.toHexString(Integer.parseInt(parts[1]))).append(" 00 ")
+                                .append(parts[2]).append(' ').append(fields[0]).append('\n');
+                    }
+                }
+            }
+            try {
+                built = ifInet6.length() == 0 ? Inet6AddressFlags.UNKNOWN
+                        : Inet6AddressFlags.parse(new BufferedReader(new StringReader(ifInet6.toString())));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            addressFlags = built;
+        }
+        return built;
+    }
+
+    @Override
+    public String toString() {
+        return "@" + offsetMs + " " + lines;
+    }
+
+    private static void validate(String line) throws IOException {
+        String[] fields = FIELDS.split(line);
+        if (fields.length < ADDRESS_FIELDS) {
+            throw new IOException("Expected name, index and flags of an interface: " + line);
+        }
+        try {
+            Integer.parseInt(fields[1]);
+            for (int i = ADDRESS_FIELDS; i < fields.length; i++) {
+                String[] parts = fields[i].split("/");
+                if (parts.length < 2 || parts.length > 3 || !ADDRESS_LITERAL.matcher(parts[0]).matches()) {
+                    throw new IOException("Expected address/prefix[/flags]: " + fields[i]);
+                }
+                Short.parseShort(parts[1]);
+                if (parts.length > 2) {
+                    Integer.parseInt(parts[2], 16);
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed interface: " + line, e);
+        }
+        for (String flag : fields[2].split(",")) {
+            if (!NO_FLAGS.equals(flag) && !UP.equals(flag) && !LOOPBACK.equals(flag) && !VIRTUAL.equals(flag)
+                    && !POINT_TO_POINT.equals(flag)) {
+                throw new IOException("Unknown interface flag " + flag + ": " + line);
+            }
+        }
+    }
+
+    private static NetworkInterface toNetworkInterface(String... fields) throws IOException {
+        String name = fields[0];
+        int index = Integer.parseInt(fields[1]);
+        List<String> flags = new ArrayList<>();
+        Collections.addAll(flags, fields[2].split(","));
+        List<InterfaceAddress> interfaceAddresses = new ArrayList<>(fields.length - ADDRESS_FIELDS);
+        for (int i = ADDRESS_FIELDS; i < fields.length; i++) {
+            String[] parts = fields[i].split("/");
+            InetAddress address = parse(parts[0]);
+            if (address instanceof Inet6Address && address.isLinkLocalAddress()) {
+                // Scope the link-local addresses by index, the interface may not exist on this host
+                address = Inet6Address.getByAddress(null, address.getAddress(), index);
+            }
+            interfaceAddresses.add(ScriptedIpDetector.interfaceAddress(address, Short.parseShort(parts[1])));
+        }
+        return ScriptedIpDetector.networkInterface(name, index, flags.contains(UP), flags.contains(LOOPBACK),
+                flags.contains(VIRTUAL), flags.contains(POINT_TO_POINT), interfaceAddresses);
+    }
+
+    private static InetAddress parse(String literal) {
+        try {
+            // A literal address is parsed without a name lookup
+            return InetAddress.getByName(literal);
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Invalid address " + literal, e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format(Locale.ROOT, "%02x", b & 0xff));
+        }
+        return hex.toString();
+    }
+}
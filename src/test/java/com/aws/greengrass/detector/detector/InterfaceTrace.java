@@ -0,0 +1,141 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.detector;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Interfaces of a host recorded at regular ticks, to replay field issues such as flapping Wi-Fi, docker churn
+ * or IPv6 temporary address rotation through the detector.
+ *
+ * <p>The trace is a text file. Every tick starts with {@code @<offset in ms>} and is followed by the lines of
+ * its {@link InterfaceSnapshot}. A tick whose interfaces did not change since the previous one is written as
+ * {@code @<offset> =}, so that a long recording of a quiet host stays small:
+ * <pre>
+ * # ip-detector interface trace v1
+ * &#64;0
+ * lo 1 up,loopback 127.0.0.1/8
+ * eth0 2 up 192.168.1.10/24
+ * &#64;1000 =
+ * &#64;2000
+ * lo 1 up,loopback 127.0.0.1/8
+ * eth0 2 up 192.168.1.11/24
+ * </pre>
+ * Traces are recorded by the {@link InterfaceRecorder}.
+ */
+public final class InterfaceTrace {
+    static final String HEADER = InterfaceRecorder.HEADER;
+    private static final String TICK = InterfaceRecorder.TICK;
+    private static final String UNCHANGED = InterfaceRecorder.UNCHANGED;
+    private static final String COMMENT = "#";
+
+    private final List<InterfaceSnapshot> snapshots;
+
+    public InterfaceTrace(List<InterfaceSnapshot> snapshots) {
+        this.snapshots = Collections.unmodifiableList(new ArrayList<>(snapshots));
+    }
+
+    public List<InterfaceSnapshot> getSnapshots() {
+        return snapshots;
+    }
+
+    /**
+     * Time of the last tick since the start of the trace.
+     *
+     * @return duration in milliseconds, 0 for an empty trace
+     */
+    public long getDurationMs() {
+        return snapshots.isEmpty() ? 0L : snapshots.get(snapshots.size() - 1).getOffsetMs();
+    }
+
+    /**
+     * Read a trace.
+     *
+     * @param file trace file
+     * @return trace
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static InterfaceTrace read(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return read(reader);
+        }
+    }
+
+    /**
+     * Read a trace.
+     *
+     * @param reader trace lines
+     * @return trace
+     * @throws IOException if the lines cannot be read or are malformed
+     */
+    public static InterfaceTrace read(BufferedReader reader) throws IOException {
+        List<InterfaceSnapshot> snapshots = new ArrayList<>();
+        List<String> lines = null;
+        long offsetMs = 0L;
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith(COMMENT)) {
+                continue;
+            }
+            if (!trimmed.startsWith(TICK)) {
+                if (lines == null) {
+                    throw new IOException("Line " + lineNumber + ": interface before the first tick");
+                }
+                lines.add(trimmed);
+                continue;
+            }
+            if (lines != null) {
+                snapshots.add(new InterfaceSnapshot(offsetMs, lines));
+                lines = null;
+            }
+            String[] tick = trimmed.substring(TICK.length()).trim().split("\\s+");
+            try {
+                offsetMs = Long.parseLong(tick[0]);
+            } catch (NumberFormatException e) {
+                throw new IOException("Line " + lineNumber + ": invalid tick " + trimmed, e);
+            }
+            if (tick.length > 1 && UNCHANGED.equals(tick[1])) {
+                if (snapshots.isEmpty()) {
+                    throw new IOException("Line " + lineNumber + ": unchanged tick without a previous tick");
+                }
+                snapshots.add(snapshots.get(snapshots.size() - 1).at(offsetMs));
+            } else {
+                lines = new ArrayList<>();
+            }
+        }
+        if (lines != null) {
+            snapshots.add(new InterfaceSnapshot(offsetMs, lines));
+        }
+        return new InterfaceTrace(snapshots);
+    }
+
+    /**
+     * Write the trace.
+     *
+     * @param writer writer
+     * @throws IOException if the trace cannot be written
+     */
+    public void write(Writer writer) throws IOException {
+        writer.write(HEADER);
+        writer.write('\n');
+        List<String> previous = null;
+        for (InterfaceSnapshot snapshot : snapshots) {
+            InterfaceRecorder.writeTick(writer, snapshot.getOffsetMs(), snapshot.getLines(), previous);
+            previous = snapshot.getLines();
+        }
+    }
+}
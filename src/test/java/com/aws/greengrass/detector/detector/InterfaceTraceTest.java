@@ -0,0 +1,115 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.detector;
+
+import com.aws.greengrass.utils.TestConfigs;
+import com.aws.greengrass.utils.TestConstants;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("PMD.AvoidUsingHardCodedIP")
+class InterfaceTraceTest {
+    private static final String TRACE = InterfaceTrace.HEADER + "\n"
+            + "@0\n"
+            + "lo 1 up,loopback 127.0.0.1/8\n"
+            + "eth0 2 up 192.168.1.10/24 2001:db8:1234::1/64/80\n"
+            + "@1000 =\n"
+            + "@2000\n"
+            + "lo 1 up,loopback 127.0.0.1/8\n"
+            + "eth0 2 up 192.168.1.11/24 2001:db8:1234::1/64/80\n"
+            + "docker0 3 up,virtual 172.17.0.1/16\n";
+
+    @Test
+    public void GIVEN_trace_WHEN_read_and_written_THEN_same_trace() throws IOException {
+        InterfaceTrace trace = read(TRACE);
+
+        assertEquals(3, trace.getSnapshots().size());
+        assertEquals(2_000L, trace.getDurationMs());
+        assertTrue(trace.getSnapshots().get(1).sameInterfaces(trace.getSnapshots().get(0)));
+        assertEquals(1_000L, trace.getSnapshots().get(1).getOffsetMs());
+        assertFalse(trace.getSnapshots().get(2).sameInterfaces(trace.getSnapshots().get(1)));
+        StringWriter writer = new StringWriter();
+        trace.write(writer);
+        assertEquals(TRACE, writer.toString());
+    }
+
+    @Test
+    public void GIVEN_snapshot_WHEN_detected_THEN_interfaces_and_ipv6_flags_replayed() throws IOException {
+        InterfaceSnapshot snapshot = new InterfaceSnapshot(0L, Arrays.asList(
+                "lo 1 up,loopback 127.0.0.1/8",
+                "eth0 2 up 192.168.1.10/24 " + TestConstants.IPV6_1 + "/64/80 2001:db8:1234::2/64/01",
+                "wlan0 3 - 192.168.1.22/24"));
+        ScriptedIpDetector ipDetector = new ScriptedIpDetector();
+        ipDetector.setSnapshot(snapshot);
+        Map<String, Object> configuration = new HashMap<>();
+        configuration.put("includeIPv6Addrs", true);
+
+        assertEquals(addresses("192.168.1.10", TestConstants.IPV6_1),
+                addresses(ipDetector.getAllEndpoints(TestConfigs.of(configuration))));
+        configuration.put("includeIPv6TemporaryAddrs", true);
+        assertEquals(addresses("192.168.1.10", TestConstants.IPV6_1, "2001:db8:1234::2"),
+                addresses(ipDetector.getAllEndpoints(TestConfigs.of(configuration))));
+    }
+
+    @Test
+    public void GIVEN_host_WHEN_captured_THEN_snapshot_replays_its_interfaces() throws IOException {
+        InterfaceSnapshot captured = InterfaceSnapshot.capture(0L);
+
+        assertTrue(captured.getLines().stream().anyMatch(line -> line.split(" ")[2].contains("loopback")),
+                captured::toString);
+        InterfaceSnapshot replayed = read(InterfaceTrace.HEADER + "\n@0\n"
+                + String.join("\n", captured.getLines())).getSnapshots().get(0);
+        assertTrue(replayed.sameInterfaces(captured));
+        assertEquals(captured.getLines().size(), replayed.getNetworkInterfaces().size());
+    }
+
+    @Test
+    public void GIVEN_malformed_trace_WHEN_read_THEN_exception_thrown() {
+        assertThrows(IOException.class, () -> read("lo 1 up,loopback 127.0.0.1/8\n"));
+        assertThrows(IOException.class, () -> read("@soon\n"));
+        assertThrows(IOException.class, () -> read("@0 =\n"));
+        assertThrows(IOException.class, () -> read("@0\neth0 two up 192.168.1.10/24\n"));
+        assertThrows(IOException.class, () -> read("@0\neth0 2 running 192.168.1.10/24\n"));
+        assertThrows(IOException.class, () -> read("@0\neth0 2 up 192.168.1.10\n"));
+        assertThrows(IOException.class, () -> read("@0\neth0 2 up example.com/24\n"));
+    }
+
+    private static InterfaceTrace read(String trace) throws IOException {
+        return InterfaceTrace.read(new BufferedReader(new StringReader(trace)));
+    }
+
+    private static List<InetAddress> addresses(List<Endpoint> endpoints) {
+        List<InetAddress> addresses = new ArrayList<>(endpoints.size());
+        for (Endpoint endpoint : endpoints) {
+            addresses.add(endpoint.getAddress());
+        }
+        return addresses;
+    }
+
+    private static List<InetAddress> addresses(String... literals) throws UnknownHostException {
+        List<InetAddress> addresses = new ArrayList<>(literals.length);
+        for (String literal : literals) {
+            addresses.add(InetAddress.getByName(literal));
+        }
+        return addresses;
+    }
+}
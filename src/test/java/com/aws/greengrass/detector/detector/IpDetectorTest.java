@@ -19,11 +19,15 @@ import java.net.InterfaceAddress;
 import java.net.NetworkInterface;
 import java.net.SocketException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ExtendWith({MockitoExtension.class})
@@ -192,6 +196,107 @@ class IpDetectorTest {
         assertEquals(0, ipAddresses.size());
     }
 
+    @Test
+    public void GIVEN_unchanged_addresses_WHEN_get_ipAddresses_twice_THEN_previous_list_returned()
+            throws SocketException {
+        NetworkInterface networkInterface = Mockito.mock(NetworkInterface.class);
+        Config config = Mockito.mock(Config.class);
+        List<InterfaceAddress> interfaceAddresses = getAllAddresses();
+
+        Mockito.doReturn(interfaceAddresses).when(networkInterface).getInterfaceAddresses();
+        Mockito.doReturn(true).when(networkInterface).isUp();
+        Mockito.doReturn(true).when(config).isIncludeIPv4Addrs();
+
+        ipDetector = new IpDetector();
+        List<Endpoint> first = ipDetector.getEndpoints(
+                Collections.enumeration(Collections.singletonList(networkInterface)), config);
+        List<Endpoint> second = ipDetector.getEndpoints(
+                Collections.enumeration(Collections.singletonList(networkInterface)), config);
+
+        assertEquals(1, first.size());
+        assertSame(first, second);
+    }
+
+    @Test
+    public void GIVEN_excluded_interface_WHEN_get_ipAddresses_THEN_addresses_not_read() throws SocketException {
+        NetworkInterface docker = Mockito.mock(NetworkInterface.class);
+        Config config = Mockito.mock(Config.class);
+
+        Mockito.doReturn(true).when(docker).isUp();
+        Mockito.doReturn("docker0").when(docker).getName();
+        Mockito.doReturn(true).when(config).isIncludeIPv4Addrs();
+        Mockito.doReturn(InterfaceFilter.compile(null, Collections.singletonList("docker*"), false, false))
+                .when(config).getInterfaceFilter();
+
+        ipDetector = new IpDetector();
+        List<InetAddress> ipAddresses = ipDetector.getIpAddresses(
+                Collections.enumeration(Collections.singletonList(docker)), config);
+
+        assertTrue(ipAddresses.isEmpty());
+        Mockito.verify(docker, Mockito.never()).getInterfaceAddresses();
+    }
+
+    @Test
+    public void GIVEN_endpoint_rule_for_interface_WHEN_get_endpoints_THEN_rule_port_and_metadata_used()
+            throws SocketException {
+        NetworkInterface eth0 = Mockito.mock(NetworkInterface.class);
+        NetworkInterface eth1 = Mockito.mock(NetworkInterface.class);
+        Config config = Mockito.mock(Config.class);
+        Map<String, Object> rule = new HashMap<>();
+        rule.put(EndpointMapper.INTERFACE_KEY, "eth1");
+        rule.put(EndpointMapper.PORT_KEY, TestConstants.PORT_2);
+        rule.put(EndpointMapper.METADATA_KEY, "segment-b");
+
+        Mockito.doReturn(getAllAddresses()).when(eth0).getInterfaceAddresses();
+        Mockito.doReturn(getAllAddresses()).when(eth1).getInterfaceAddresses();
+        Mockito.doReturn(true).when(eth0).isUp();
+        Mockito.doReturn(true).when(eth1).isUp();
+        Mockito.doReturn("eth0").when(eth0).getName();
+        Mockito.doReturn("eth1").when(eth1).getName();
+        Mockito.doReturn(true).when(config).isIncludeIPv4Addrs();
+        Mockito.doReturn(TestConstants.PORT_1).when(config).getDefaultPort();
+        Mockito.doReturn(EndpointMapper.compile(Collections.singletonList(rule))).when(config).getEndpointMapper();
+
+        ipDetector = new IpDetector();
+        List<Endpoint> endpoints = ipDetector.getEndpoints(Collections.enumeration(Arrays.asList(eth0, eth1)),
+                config);
+
+        assertEquals(2, endpoints.size());
+        assertEquals(TestConstants.PORT_1, endpoints.get(0).getPort());
+        assertEquals(Endpoint.NO_METADATA, endpoints.get(0).getMetadata());
+        assertEquals(TestConstants.PORT_2, endpoints.get(1).getPort());
+        assertEquals("segment-b", endpoints.get(1).getMetadata());
+    }
+
+    @Test
+    public void GIVEN_temporary_and_deprecated_ipv6_WHEN_get_endpoints_THEN_only_stable_addresses_returned()
+            throws Exception {
+        NetworkInterface eth0 = Mockito.mock(NetworkInterface.class);
+        Config config = Mockito.mock(Config.class);
+        List<InterfaceAddress> interfaceAddresses = new ArrayList<>();
+        for (String ip : Arrays.asList(TestConstants.IPV6_1, "2001:db8:1234::2", "2001:db8:1234::3")) {
+            InterfaceAddress interfaceAddress = Mockito.mock(InterfaceAddress.class);
+            Mockito.doReturn(InetAddress.getByName(ip)).when(interfaceAddress).getAddress();
+            interfaceAddresses.add(interfaceAddress);
+        }
+        Mockito.doReturn(interfaceAddresses).when(eth0).getInterfaceAddresses();
+        Mockito.doReturn(true).when(eth0).isUp();
+        Mockito.doReturn(true).when(config).isIncludeIPv6Addrs();
+        Inet6AddressFlags addressFlags = Inet6AddressFlagsTest.parse(Inet6AddressFlagsTest.IF_INET6);
+
+        ipDetector = new IpDetector();
+        List<Endpoint> stable = ipDetector.getEndpoints(Collections.enumeration(Collections.singletonList(eth0)),
+                config, addressFlags);
+        Mockito.doReturn(true).when(config).isIncludeIPv6TemporaryAddrs();
+        List<Endpoint> withTemporary = ipDetector.getEndpoints(
+                Collections.enumeration(Collections.singletonList(eth0)), config, addressFlags);
+
+        assertEquals(1, stable.size());
+        assertEquals(InetAddress.getByName(TestConstants.IPV6_1), stable.get(0).getAddress());
+        assertEquals(2, withTemporary.size());
+        assertEquals(InetAddress.getByName("2001:db8:1234::2"), withTemporary.get(1).getAddress());
+    }
+
     @Test
     public void GIVEN_noIps_WHEN_get_ipAddresses_THEN_null_returned() throws SocketException {
         ipDetector = new IpDetector();
@@ -0,0 +1,100 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.detector;
+
+import com.aws.greengrass.detector.config.Config;
+import org.mockito.Mockito;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InterfaceAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * IP detector enumerating scripted network interfaces instead of the ones of the host, for simulations that
+ * run many detectors in one JVM and for replays of recorded {@link InterfaceTrace}s.
+ *
+ * <p>The interfaces are stub-only mocks, so that a long simulation does not record every call made on them.
+ */
+public class ScriptedIpDetector extends IpDetector {
+    static final short IPV4_PREFIX_LENGTH = 24;
+    static final short IPV6_PREFIX_LENGTH = 64;
+
+    private volatile List<NetworkInterface> interfaces = Collections.emptyList();
+    private volatile Inet6AddressFlags addressFlags = Inet6AddressFlags.UNKNOWN;
+
+    /**
+     * Replace the interfaces returned by the next detection runs. The flags of all IPv6 addresses are unknown.
+     *
+     * @param networkInterfaces interfaces
+     */
+    public void setInterfaces(List<NetworkInterface> networkInterfaces) {
+        this.addressFlags = Inet6AddressFlags.UNKNOWN;
+        this.interfaces = Collections.unmodifiableList(new ArrayList<>(networkInterfaces));
+    }
+
+    /**
+     * Replace the interfaces and IPv6 address flags returned by the next detection runs with the ones of a
+     * recorded snapshot.
+     *
+     * @param snapshot snapshot
+     */
+    public void setSnapshot(InterfaceSnapshot snapshot) {
+        this.addressFlags = snapshot.getAddressFlags();
+        this.interfaces = snapshot.getNetworkInterfaces();
+    }
+
+    @Override
+    public List<Endpoint> getAllEndpoints(Config config) throws SocketException {
+        return getEndpoints(Collections.enumeration(interfaces), config, addressFlags);
+    }
+
+    /**
+     * Build a network interface.
+     *
+     * @param name      interface name
+     * @param index     interface index
+     * @param up        whether the interface is up
+     * @param addresses addresses of the interface
+     * @return interface
+     * @throws SocketException never, declared by the mocked methods
+     */
+    public static NetworkInterface networkInterface(String name, int index, boolean up, List<InetAddress> addresses)
+            throws SocketException {
+        List<InterfaceAddress> interfaceAddresses = new ArrayList<>(addresses.size());
+        for (InetAddress address : addresses) {
+            interfaceAddresses.add(interfaceAddress(address,
+                    address instanceof Inet4Address ? IPV4_PREFIX_LENGTH : IPV6_PREFIX_LENGTH));
+        }
+        return networkInterface(name, index, up, name.startsWith("lo"), false, false, interfaceAddresses);
+    }
+
+    static NetworkInterface networkInterface(String name, int index, boolean up, boolean loopback, boolean virtual,
+                                             boolean pointToPoint, List<InterfaceAddress> interfaceAddresses)
+            throws SocketException {
+        NetworkInterface networkInterface = Mockito.mock(NetworkInterface.class, Mockito.withSettings().stubOnly());
+        Mockito.doReturn(name).when(networkInterface).getName();
+        Mockito.doReturn(index).when(networkInterface).getIndex();
+        Mockito.doReturn(up).when(networkInterface).isUp();
+        Mockito.doReturn(loopback).when(networkInterface).isLoopback();
+        Mockito.doReturn(virtual).when(networkInterface).isVirtual();
+        Mockito.doReturn(pointToPoint).when(networkInterface).isPointToPoint();
+        Mockito.doReturn(Collections.unmodifiableList(new ArrayList<>(interfaceAddresses))).when(networkInterface)
+                .getInterfaceAddresses();
+        return networkInterface;
+    }
+
+    static InterfaceAddress interfaceAddress(InetAddress address, short prefixLength) {
+        InterfaceAddress interfaceAddress = Mockito.mock(InterfaceAddress.class, Mockito.withSettings().stubOnly());
+        Mockito.doReturn(address).when(interfaceAddress).getAddress();
+        Mockito.doReturn(prefixLength).when(interfaceAddress).getNetworkPrefixLength();
+        return interfaceAddress;
+    }
+}
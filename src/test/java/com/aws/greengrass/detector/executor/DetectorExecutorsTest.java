@@ -0,0 +1,101 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.executor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DetectorExecutorsTest {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch started = new CountDownLatch(1);
+    private DetectorExecutors executors;
+
+    @BeforeEach
+    void beforeEach() {
+        executors = new DetectorExecutors(1, 1, 1, 1);
+    }
+
+    @AfterEach
+    void afterEach() {
+        release.countDown();
+    }
+
+    @Test
+    public void GIVEN_io_queue_full_WHEN_submit_THEN_rejected_and_counted() throws InterruptedException {
+        executors.getIoExecutor().submit(this::block);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executors.getIoExecutor().submit(() -> { });
+
+        assertEquals(1, executors.getIoActiveCount());
+        assertEquals(1, executors.getIoQueueDepth());
+        assertThrows(RejectedExecutionException.class, () -> executors.getIoExecutor().submit(() -> { }));
+        assertEquals(1, executors.getIoRejectedCount());
+    }
+
+    @Test
+    public void GIVEN_probe_queue_full_WHEN_submit_THEN_rejected_and_counted() throws InterruptedException {
+        executors.getProbeExecutor().submit(this::block);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executors.getProbeExecutor().submit(() -> { });
+
+        assertThrows(RejectedExecutionException.class, () -> executors.getProbeExecutor().submit(() -> { }));
+        assertEquals(1, executors.getProbeRejectedCount());
+        assertEquals(0, executors.getIoRejectedCount());
+        // Running probes are awaited on cancellation like any other detector task
+        assertFalse(executors.cancelAll(50L));
+    }
+
+    @Test
+    public void GIVEN_queued_work_WHEN_cancelAll_THEN_dropped_and_running_task_awaited() throws Exception {
+        ScheduledFuture<?> delayed = executors.getScheduler().schedule(() -> { }, 1, TimeUnit.HOURS);
+        Future<?> running = executors.getIoExecutor().submit(() -> {
+            started.countDown();
+            Thread.sleep(100L);
+            return null;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        AtomicBoolean queuedRan = new AtomicBoolean();
+        executors.getIoExecutor().submit(() -> queuedRan.set(true));
+        assertEquals(1, executors.getSchedulerQueueDepth());
+
+        assertTrue(executors.cancelAll(5_000L));
+
+        assertTrue(running.isDone());
+        assertTrue(delayed.isCancelled());
+        assertFalse(queuedRan.get());
+        assertEquals(0, executors.getSchedulerQueueDepth());
+        assertEquals(0, executors.getIoQueueDepth());
+        // The executors stay usable, for example when the service starts again
+        assertEquals("ok", executors.getScheduler().submit(() -> "ok").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void GIVEN_task_does_not_finish_WHEN_cancelAll_THEN_false_after_timeout() throws InterruptedException {
+        executors.getScheduler().submit(this::block);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertFalse(executors.cancelAll(50L));
+    }
+
+    private Void block() throws InterruptedException {
+        started.countDown();
+        release.await();
+        return null;
+    }
+}
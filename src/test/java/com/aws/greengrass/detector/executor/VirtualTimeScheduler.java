@@ -0,0 +1,207 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.executor;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduler running on virtual time, for replaying hours of detection in milliseconds.
+ *
+ * <p>Nothing runs until time is advanced. {@link #advanceTo(long)} then runs every task due by then on the
+ * calling thread, in order of their due time and, for equal times, of their submission, so that replays are
+ * deterministic. Tasks scheduled by running tasks run in the same call if they are due in time.
+ */
+public class VirtualTimeScheduler extends AbstractExecutorService implements ScheduledExecutorService {
+    private final PriorityQueue<VirtualTask<?>> queue = new PriorityQueue<>();
+    private final Clock clock = new VirtualClock();
+    private long nowMs;
+    private long sequence;
+    private boolean shutdown;
+
+    /**
+     * Clock showing the virtual time, starting at the epoch.
+     *
+     * @return clock
+     */
+    public Clock getClock() {
+        return clock;
+    }
+
+    public synchronized long nowMs() {
+        return nowMs;
+    }
+
+    /**
+     * Run every task due by the given time, then set the time to it.
+     *
+     * @param timeMs virtual time in milliseconds, earlier times are ignored
+     * @return number of tasks run
+     */
+    public int advanceTo(long timeMs) {
+        int ran = 0;
+        while (true) {
+            VirtualTask<?> task;
+            synchronized (this) {
+                task = queue.peek();
+                if (task == null || task.dueMs > timeMs) {
+                    nowMs = Math.max(nowMs, timeMs);
+                    return ran;
+                }
+                queue.poll();
+                nowMs = Math.max(nowMs, task.dueMs);
+            }
+            if (!task.isCancelled()) {
+                task.run();
+                ran++;
+            }
+        }
+    }
+
+    /**
+     * Number of tasks waiting to run, cancelled ones included until their due time.
+     *
+     * @return number of tasks
+     */
+    public synchronized int getQueueSize() {
+        return queue.size();
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return enqueue(Executors.callable(command), delay, unit);
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        return enqueue(callable, delay, unit);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        throw new UnsupportedOperationException("Periodic tasks are not used by the IP detector");
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay,
+                                                     TimeUnit unit) {
+        throw new UnsupportedOperationException("Periodic tasks are not used by the IP detector");
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        schedule(command, 0L, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        shutdown = true;
+    }
+
+    @Override
+    public synchronized List<Runnable> shutdownNow() {
+        shutdown = true;
+        List<Runnable> pending = new ArrayList<>(queue);
+        queue.clear();
+        return pending;
+    }
+
+    @Override
+    public synchronized boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public synchronized boolean isTerminated() {
+        return shutdown && queue.isEmpty();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        return isTerminated();
+    }
+
+    private synchronized <V> VirtualTask<V> enqueue(Callable<V> callable, long delay, TimeUnit unit) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Scheduler is shut down");
+        }
+        VirtualTask<V> task = new VirtualTask<>(callable, nowMs + Math.max(0L, unit.toMillis(delay)), sequence++);
+        queue.add(task);
+        return task;
+    }
+
+    private final class VirtualTask<V> extends FutureTask<V> implements ScheduledFuture<V> {
+        private final long dueMs;
+        private final long order;
+
+        VirtualTask(Callable<V> callable, long dueMs, long order) {
+            super(callable);
+            this.dueMs = dueMs;
+            this.order = order;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueMs - nowMs(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other instanceof VirtualTask) {
+                VirtualTask<?> task = (VirtualTask<?>) other;
+                int byTime = Long.compare(dueMs, task.dueMs);
+                return byTime == 0 ? Long.compare(order, task.order) : byTime;
+            }
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return this == other;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(order);
+        }
+    }
+
+    private final class VirtualClock extends Clock {
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException("Virtual time is in UTC");
+        }
+
+        @Override
+        public long millis() {
+            return nowMs();
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(nowMs());
+        }
+    }
+}
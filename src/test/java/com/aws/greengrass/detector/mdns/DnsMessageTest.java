@@ -0,0 +1,175 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.mdns;
+
+import com.aws.greengrass.utils.TestConstants;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DnsMessageTest {
+    private static final String SERVICE = "_secure-mqtt._tcp.local";
+    private static final String INSTANCE = "core._secure-mqtt._tcp.local";
+    private static final String HOST = "core.local";
+
+    @Test
+    public void GIVEN_records_WHEN_encoded_and_decoded_THEN_same_records() throws UnknownHostException {
+        List<DnsRecord> records = Arrays.asList(
+                DnsRecord.ptr(SERVICE, INSTANCE, 4500L),
+                DnsRecord.srv(INSTANCE, HOST, TestConstants.PORT_1, 120L),
+                DnsRecord.txt(INSTANCE, Collections.singletonList("txtvers=1"), 4500L),
+                DnsRecord.address(HOST, InetAddress.getByName(TestConstants.IP_1), 120L),
+                DnsRecord.address(HOST, InetAddress.getByName(TestConstants.IPV6_1), 0L));
+
+        List<byte[]> messages = DnsMessage.encodeResponses(records, MdnsAdvertiser.MAX_MESSAGE_SIZE);
+
+        assertEquals(1, messages.size());
+        DnsMessage message = DnsMessage.decode(messages.get(0), messages.get(0).length);
+        assertTrue(message.isResponse());
+        assertTrue(message.getQuestions().isEmpty());
+        assertEquals(records, message.getAnswers());
+        assertFalse(message.getAnswers().get(0).isCacheFlush());
+        assertTrue(message.getAnswers().get(1).isCacheFlush());
+        assertEquals(DnsRecord.TYPE_A, message.getAnswers().get(3).getType());
+        assertEquals(DnsRecord.TYPE_AAAA, message.getAnswers().get(4).getType());
+        assertEquals(0L, message.getAnswers().get(4).getTtlSeconds());
+    }
+
+    @Test
+    public void GIVEN_many_records_WHEN_encoded_THEN_split_into_messages_of_max_size() throws UnknownHostException {
+        List<DnsRecord> records = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            records.add(DnsRecord.address(HOST, InetAddress.getByName("10.0.0." + i), 120L));
+        }
+
+        List<byte[]> messages = DnsMessage.encodeResponses(records, 200);
+
+        List<DnsRecord> decoded = new ArrayList<>();
+        for (byte[] message : messages) {
+            assertTrue(message.length <= 200);
+            decoded.addAll(DnsMessage.decode(message, message.length).getAnswers());
+        }
+        assertTrue(messages.size() > 1);
+        assertEquals(records, decoded);
+    }
+
+    @Test
+    public void GIVEN_compressed_query_WHEN_decoded_THEN_questions_and_known_answers_read() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        header(out, 0, 2, 1);
+        byte[] service = DnsRecord.encodeName(SERVICE);
+        out.write(service, 0, service.length);
+        DnsRecord.writeShort(out, DnsRecord.TYPE_PTR);
+        // Class IN with the unicast response bit
+        DnsRecord.writeShort(out, 0x8001);
+        // "core" followed by a pointer to the service name at offset 12
+        out.write(4);
+        out.write('c');
+        out.write('o');
+        out.write('r');
+        out.write('e');
+        pointer(out, DnsMessage.HEADER_LENGTH);
+        DnsRecord.writeShort(out, DnsRecord.TYPE_ANY);
+        DnsRecord.writeShort(out, 1);
+        // Known answer: PTR from the service name to the instance name, both compressed
+        pointer(out, DnsMessage.HEADER_LENGTH);
+        DnsRecord.writeShort(out, DnsRecord.TYPE_PTR);
+        DnsRecord.writeShort(out, 1);
+        DnsRecord.writeShort(out, 0);
+        DnsRecord.writeShort(out, 4500);
+        DnsRecord.writeShort(out, 2);
+        pointer(out, DnsMessage.HEADER_LENGTH + service.length + 4);
+        byte[] bytes = out.toByteArray();
+
+        DnsMessage message = DnsMessage.decode(bytes, bytes.length);
+
+        assertFalse(message.isResponse());
+        assertEquals(2, message.getQuestions().size());
+        assertEquals(SERVICE, message.getQuestions().get(0).getName());
+        assertEquals(DnsRecord.TYPE_PTR, message.getQuestions().get(0).getType());
+        assertEquals(INSTANCE, message.getQuestions().get(1).getName());
+        assertEquals(DnsRecord.TYPE_ANY, message.getQuestions().get(1).getType());
+        assertEquals(Collections.singletonList(DnsRecord.ptr(SERVICE, INSTANCE, 4500L)), message.getAnswers());
+        assertEquals(4500L, message.getAnswers().get(0).getTtlSeconds());
+    }
+
+    @Test
+    public void GIVEN_malformed_message_WHEN_decoded_THEN_exception() {
+        ByteArrayOutputStream truncated = new ByteArrayOutputStream();
+        header(truncated, 0, 1, 0);
+        byte[] truncatedBytes = truncated.toByteArray();
+        assertThrows(IllegalArgumentException.class, () -> DnsMessage.decode(truncatedBytes, truncatedBytes.length));
+
+        ByteArrayOutputStream loop = new ByteArrayOutputStream();
+        header(loop, 0, 1, 0);
+        pointer(loop, DnsMessage.HEADER_LENGTH);
+        DnsRecord.writeShort(loop, DnsRecord.TYPE_PTR);
+        DnsRecord.writeShort(loop, 1);
+        byte[] loopBytes = loop.toByteArray();
+        assertThrows(IllegalArgumentException.class, () -> DnsMessage.decode(loopBytes, loopBytes.length));
+    }
+
+    @Test
+    public void GIVEN_label_too_long_WHEN_encodeName_THEN_exception() {
+        char[] label = new char[DnsRecord.MAX_LABEL_LENGTH + 1];
+        Arrays.fill(label, 'a');
+
+        assertThrows(IllegalArgumentException.class, () -> DnsRecord.encodeName(new String(label) + ".local"));
+    }
+
+    @Test
+    public void GIVEN_records_with_different_ttl_WHEN_equals_THEN_equal_ignoring_case() {
+        DnsRecord record = DnsRecord.srv(INSTANCE, HOST, TestConstants.PORT_1, 120L);
+
+        assertEquals(record, DnsRecord.srv(INSTANCE.toUpperCase(), HOST, TestConstants.PORT_1, 0L));
+        assertEquals(record.hashCode(), DnsRecord.srv(INSTANCE.toUpperCase(), HOST, TestConstants.PORT_1, 0L)
+                .hashCode());
+        assertFalse(record.equals(DnsRecord.srv(INSTANCE, HOST, TestConstants.PORT_2, 120L)));
+        assertTrue(record.answers(INSTANCE, DnsRecord.TYPE_ANY));
+        assertFalse(record.answers(INSTANCE, DnsRecord.TYPE_TXT));
+    }
+
+    /**
+     * Build a query the way a resolver sends it.
+     */
+    static DnsMessage query(String name, int type, List<DnsRecord> knownAnswers) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        header(out, 0, 1, knownAnswers.size());
+        byte[] encodedName = DnsRecord.encodeName(name);
+        out.write(encodedName, 0, encodedName.length);
+        DnsRecord.writeShort(out, type);
+        DnsRecord.writeShort(out, 1);
+        for (byte[] response : DnsMessage.encodeResponses(knownAnswers, Integer.MAX_VALUE)) {
+            out.write(response, DnsMessage.HEADER_LENGTH, response.length - DnsMessage.HEADER_LENGTH);
+        }
+        byte[] bytes = out.toByteArray();
+        return DnsMessage.decode(bytes, bytes.length);
+    }
+
+    private static void header(ByteArrayOutputStream out, int flags, int questions, int answers) {
+        DnsRecord.writeShort(out, 0);
+        DnsRecord.writeShort(out, flags);
+        DnsRecord.writeShort(out, questions);
+        DnsRecord.writeShort(out, answers);
+        DnsRecord.writeShort(out, 0);
+        DnsRecord.writeShort(out, 0);
+    }
+
+    private static void pointer(ByteArrayOutputStream out, int offset) {
+        DnsRecord.writeShort(out, 0xC000 | offset);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.mdns;
+
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.utils.TestConstants;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DnsSdRecordsTest {
+    private static final String SERVICE_TYPE = "_secure-mqtt._tcp";
+    private static final String SERVICE = SERVICE_TYPE + ".local";
+
+    @Test
+    public void GIVEN_endpoints_on_one_port_WHEN_build_THEN_one_instance_with_all_addresses()
+            throws UnknownHostException {
+        InetAddress ipv4 = InetAddress.getByName(TestConstants.IP_1);
+        InetAddress ipv6 = InetAddress.getByName(TestConstants.IPV6_1);
+
+        Set<DnsRecord> records = DnsSdRecords.build("core", SERVICE_TYPE, Arrays.asList(
+                Endpoint.of(ipv4, TestConstants.PORT_1, Endpoint.NO_METADATA),
+                Endpoint.of(ipv6, TestConstants.PORT_1, Endpoint.NO_METADATA)));
+
+        String instance = "core." + SERVICE;
+        assertEquals(Arrays.asList(
+                DnsRecord.ptr(DnsSdRecords.SERVICES_NAME, SERVICE, DnsSdRecords.SERVICE_TTL_SECONDS),
+                DnsRecord.ptr(SERVICE, instance, DnsSdRecords.SERVICE_TTL_SECONDS),
+                DnsRecord.srv(instance, "core.local", TestConstants.PORT_1, DnsSdRecords.HOST_TTL_SECONDS),
+                DnsRecord.txt(instance, Collections.singletonList(DnsSdRecords.TXT_VERSION),
+                        DnsSdRecords.SERVICE_TTL_SECONDS),
+                DnsRecord.address("core.local", ipv4, DnsSdRecords.HOST_TTL_SECONDS),
+                DnsRecord.address("core.local", ipv6, DnsSdRecords.HOST_TTL_SECONDS)),
+                new ArrayList<>(records));
+    }
+
+    @Test
+    public void GIVEN_endpoints_on_two_ports_WHEN_build_THEN_instance_per_port() throws UnknownHostException {
+        InetAddress address = InetAddress.getByName(TestConstants.IP_1);
+
+        Set<DnsRecord> records = DnsSdRecords.build("core", SERVICE_TYPE, Arrays.asList(
+                Endpoint.of(address, TestConstants.PORT_2, Endpoint.NO_METADATA),
+                Endpoint.of(address, TestConstants.PORT_1, Endpoint.NO_METADATA)));
+
+        assertTrue(records.contains(DnsRecord.srv("core-8883." + SERVICE, "core.local", TestConstants.PORT_1,
+                DnsSdRecords.HOST_TTL_SECONDS)));
+        assertTrue(records.contains(DnsRecord.srv("core-8884." + SERVICE, "core.local", TestConstants.PORT_2,
+                DnsSdRecords.HOST_TTL_SECONDS)));
+        assertEquals(1, records.stream().filter(record -> record.getType() == DnsRecord.TYPE_A).count());
+    }
+
+    @Test
+    public void GIVEN_endpoint_without_address_WHEN_build_THEN_no_records() {
+        assertTrue(DnsSdRecords.build("core", SERVICE_TYPE, Collections.singletonList(
+                Endpoint.ofHostAddress("broker.example.com", TestConstants.PORT_1, Endpoint.NO_METADATA)))
+                .isEmpty());
+    }
+
+    @Test
+    public void GIVEN_thing_name_WHEN_labels_derived_THEN_valid_dns_labels() {
+        assertEquals("my-core-1", DnsSdRecords.hostLabel("my_core.1"));
+        assertEquals("core", DnsSdRecords.hostLabel("--core:"));
+        assertEquals(DnsSdRecords.DEFAULT_HOST_LABEL, DnsSdRecords.hostLabel("___"));
+        assertEquals("Factory Core-1", DnsSdRecords.instanceLabel("Factory Core.1"));
+
+        char[] longName = new char[100];
+        Arrays.fill(longName, 'a');
+        assertEquals(DnsRecord.MAX_LABEL_LENGTH, DnsSdRecords.hostLabel(new String(longName)).length());
+        assertEquals(DnsRecord.MAX_LABEL_LENGTH, DnsSdRecords.instanceLabel(new String(longName)).length());
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.mdns;
+
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.connectivity.ConnectivityCache;
+import com.aws.greengrass.detector.connectivity.SynchronousConnectivityCache;
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.utils.TestConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+
+/**
+ * Runs the advertiser against a multicast group on the loopback interface. Scheduled sends are captured and
+ * run by the tests, so that the rate limit can be checked without waiting.
+ */
+@ExtendWith({MockitoExtension.class})
+class MdnsAdvertiserTest {
+    private static final String THING_NAME = "test-thing";
+    private static final String SERVICE_TYPE = "_secure-mqtt._tcp";
+    private static final String INSTANCE = THING_NAME + '.' + SERVICE_TYPE + ".local";
+    private static final String HOST = THING_NAME + ".local";
+    private static final int RECEIVE_TIMEOUT_MS = 5_000;
+
+    @Mock
+    private ScheduledExecutorService scheduler;
+    @Mock
+    private ScheduledFuture<Object> future;
+    @Mock
+    private Config config;
+
+    private final AtomicLong nowMs = new AtomicLong(1_000_000L);
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final List<Long> delays = new ArrayList<>();
+    private InetAddress loopback;
+    private ConnectivityCache cache;
+    private MulticastSocket receiver;
+    private MdnsAdvertiser advertiser;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        loopback = InetAddress.getByName(TestConstants.IPV4_LOOPBACK);
+        NetworkInterface loopbackInterface = NetworkInterface.getByInetAddress(loopback);
+        assumeTrue(loopbackInterface != null, "No loopback interface");
+        int port;
+        try (DatagramSocket probe = new DatagramSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        receiver = new MulticastSocket(null);
+        receiver.setReuseAddress(true);
+        receiver.bind(new InetSocketAddress(port));
+        receiver.setSoTimeout(RECEIVE_TIMEOUT_MS);
+        receiver.joinGroup(new InetSocketAddress(InetAddress.getByName(MdnsAdvertiser.IPV4_GROUP), port),
+                loopbackInterface);
+
+        Mockito.lenient().when(config.getMdnsServiceType()).thenReturn(SERVICE_TYPE);
+        Mockito.lenient().when(config.getMdnsInstanceName()).thenReturn("");
+        Mockito.lenient().when(config.getMdnsMinAnnounceIntervalMs()).thenReturn(MdnsAdvertiser.MIN_INTERVAL_MS);
+        Mockito.lenient().when(scheduler.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class)))
+                .thenAnswer(invocation -> {
+                    tasks.add(invocation.getArgument(0));
+                    delays.add(invocation.getArgument(1));
+                    return future;
+                });
+        Clock clock = Mockito.mock(Clock.class);
+        Mockito.lenient().when(clock.millis()).thenAnswer(invocation -> nowMs.get());
+        cache = new SynchronousConnectivityCache();
+        advertiser = new MdnsAdvertiser(cache, scheduler, () -> THING_NAME, port, clock);
+    }
+
+    @AfterEach
+    void afterEach() {
+        if (advertiser != null) {
+            advertiser.stop();
+        }
+        if (receiver != null) {
+            receiver.close();
+        }
+    }
+
+    @Test
+    public void GIVEN_loopback_endpoint_WHEN_started_THEN_records_announced_twice() throws IOException {
+        cache.updateDetected(endpoints(TestConstants.PORT_1));
+
+        advertiser.start(config);
+
+        assertEquals(Collections.singletonList(0L), delays);
+        runNextTask();
+        List<DnsRecord> answers = receiveResponse().getAnswers();
+        assertTrue(answers.contains(DnsRecord.ptr(SERVICE_TYPE + ".local", INSTANCE, 0L)));
+        assertTrue(answers.contains(DnsRecord.srv(INSTANCE, HOST, TestConstants.PORT_1, 0L)));
+        assertTrue(answers.contains(DnsRecord.address(HOST, loopback, 0L)));
+        assertEquals(MdnsAdvertiser.MIN_INTERVAL_MS, delays.get(1));
+
+        runNextTask();
+        assertEquals(answers, receiveResponse().getAnswers());
+        assertTrue(tasks.isEmpty());
+    }
+
+    @Test
+    public void GIVEN_advertised_WHEN_port_changes_THEN_old_records_withdrawn_within_rate_limit()
+            throws IOException {
+        cache.updateDetected(endpoints(TestConstants.PORT_1));
+        advertiser.start(config);
+        announceAll();
+        nowMs.addAndGet(200L);
+
+        cache.updateDetected(endpoints(TestConstants.PORT_2));
+        cache.updateDetected(endpoints(TestConstants.PORT_1, TestConstants.PORT_2));
+        cache.updateDetected(endpoints(TestConstants.PORT_2));
+
+        // The changes are coalesced into one send, a second after the last one
+        assertEquals(1, tasks.size());
+        assertEquals(MdnsAdvertiser.MIN_INTERVAL_MS - 200L, delays.get(delays.size() - 1));
+        runNextTask();
+        List<DnsRecord> answers = receiveResponse().getAnswers();
+        DnsRecord oldSrv = answers.get(answers.indexOf(DnsRecord.srv(INSTANCE, HOST, TestConstants.PORT_1, 0L)));
+        DnsRecord newSrv = answers.get(answers.indexOf(DnsRecord.srv(INSTANCE, HOST, TestConstants.PORT_2, 0L)));
+        assertEquals(0L, oldSrv.getTtlSeconds());
+        assertEquals(DnsSdRecords.HOST_TTL_SECONDS, newSrv.getTtlSeconds());
+    }
+
+    @Test
+    public void GIVEN_unchanged_endpoints_WHEN_refresh_THEN_nothing_sent() throws IOException {
+        cache.updateDetected(endpoints(TestConstants.PORT_1));
+        advertiser.start(config);
+        announceAll();
+
+        cache.updateUploaded(endpoints(TestConstants.PORT_1), "1");
+        advertiser.refresh();
+
+        assertTrue(tasks.isEmpty());
+    }
+
+    @Test
+    public void GIVEN_query_WHEN_handled_THEN_answered_unless_known_or_not_ours() throws IOException {
+        cache.updateDetected(endpoints(TestConstants.PORT_1));
+        advertiser.start(config);
+        List<DnsRecord> announced = announceAll();
+        nowMs.addAndGet(MdnsAdvertiser.MIN_INTERVAL_MS);
+
+        advertiser.handle(DnsMessageTest.query("other._tcp.local", DnsRecord.TYPE_PTR, Collections.emptyList()),
+                loopback);
+        advertiser.handle(DnsMessageTest.query(INSTANCE, DnsRecord.TYPE_SRV, Collections.emptyList()),
+                InetAddress.getByName(TestConstants.IP_1));
+        advertiser.handle(DnsMessageTest.query(SERVICE_TYPE + ".local", DnsRecord.TYPE_PTR, announced), loopback);
+        assertTrue(tasks.isEmpty());
+
+        advertiser.handle(DnsMessageTest.query(SERVICE_TYPE + ".local", DnsRecord.TYPE_PTR,
+                Collections.emptyList()), loopback);
+
+        assertEquals(Collections.singletonList(0L), delays.subList(delays.size() - 1, delays.size()));
+        runNextTask();
+        assertEquals(announced, receiveResponse().getAnswers());
+    }
+
+    @Test
+    public void GIVEN_advertising_WHEN_stopped_THEN_goodbyes_sent() throws IOException {
+        cache.updateDetected(endpoints(TestConstants.PORT_1));
+        advertiser.start(config);
+        List<DnsRecord> announced = announceAll();
+
+        advertiser.stop();
+
+        List<DnsRecord> goodbyes = receiveResponse().getAnswers();
+        assertEquals(announced, goodbyes);
+        for (DnsRecord goodbye : goodbyes) {
+            assertEquals(0L, goodbye.getTtlSeconds());
+        }
+        cache.updateDetected(endpoints(TestConstants.PORT_2));
+        assertTrue(tasks.isEmpty());
+    }
+
+    @Test
+    public void GIVEN_endpoint_without_local_address_WHEN_started_THEN_nothing_advertised() {
+        cache.updateDetected(Collections.singletonList(
+                Endpoint.ofHostAddress("broker.example.com", TestConstants.PORT_1, Endpoint.NO_METADATA)));
+
+        advertiser.start(config);
+
+        assertTrue(tasks.isEmpty());
+    }
+
+    @Test
+    public void GIVEN_source_address_WHEN_isOnLink_THEN_matched_by_interface_prefix() throws IOException {
+        NetworkInterface loopbackInterface = NetworkInterface.getByInetAddress(loopback);
+
+        assertTrue(MdnsAdvertiser.isOnLink(loopbackInterface, loopback));
+        assertFalse(MdnsAdvertiser.isOnLink(loopbackInterface, InetAddress.getByName(TestConstants.IP_1)));
+    }
+
+    private List<Endpoint> endpoints(int... ports) {
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (int port : ports) {
+            endpoints.add(Endpoint.of(loopback, port, Endpoint.NO_METADATA));
+        }
+        return endpoints;
+    }
+
+    private List<DnsRecord> announceAll() throws IOException {
+        List<DnsRecord> answers = null;
+        while (!tasks.isEmpty()) {
+            runNextTask();
+            answers = receiveResponse().getAnswers();
+        }
+        return answers;
+    }
+
+    private void runNextTask() {
+        tasks.remove(0).run();
+    }
+
+    private DnsMessage receiveResponse() throws IOException {
+        byte[] buffer = new byte[MdnsAdvertiser.MAX_MESSAGE_SIZE];
+        while (true) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            receiver.receive(packet);
+            DnsMessage message = DnsMessage.decode(packet.getData(), packet.getLength());
+            // Copies sent to the IPv6 group may reach the socket as well
+            if (message.isResponse() && packet.getAddress() instanceof Inet4Address) {
+                return message;
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DetectorMetricsTest {
+    private InMemoryMetricsSink sink;
+    private DetectorMetrics metrics;
+
+    @BeforeEach
+    void beforeEach() {
+        sink = new InMemoryMetricsSink();
+        metrics = new DetectorMetrics(sink);
+    }
+
+    @Test
+    public void GIVEN_detection_runs_WHEN_recordTick_THEN_runs_changes_and_address_count_recorded() {
+        metrics.recordTick(3, true);
+        metrics.recordTick(3, false);
+        metrics.recordTick(2, true);
+
+        assertEquals(3, sink.getCount(DetectorMetrics.TICKS));
+        assertEquals(2, sink.getCount(DetectorMetrics.CHANGES_DETECTED));
+        assertEquals(2L, sink.getGauge(DetectorMetrics.ADDRESS_COUNT));
+    }
+
+    @Test
+    public void GIVEN_failures_WHEN_recordFailure_THEN_counted_in_total_and_by_cause() {
+        metrics.recordFailure(DetectorMetrics.FailureCause.OFFLINE);
+        metrics.recordFailure(DetectorMetrics.FailureCause.OFFLINE);
+        metrics.recordFailure(DetectorMetrics.FailureCause.FORBIDDEN);
+
+        assertEquals(3, sink.getCount(DetectorMetrics.UPLOAD_FAILURES));
+        assertEquals(2, sink.getCount("UploadFailuresOffline"));
+        assertEquals(1, sink.getCount("UploadFailuresForbidden"));
+        assertEquals(0, sink.getCount("UploadFailuresThrottled"));
+    }
+
+    @Test
+    public void GIVEN_start_time_WHEN_recordEnumeration_THEN_elapsed_time_sampled() {
+        metrics.recordEnumeration(System.nanoTime() - 5_000_000L);
+
+        assertEquals(1, sink.getTimings(DetectorMetrics.ENUMERATION_TIME).size());
+        assertTrue(sink.getTimings(DetectorMetrics.ENUMERATION_TIME).get(0) >= 5L);
+    }
+}
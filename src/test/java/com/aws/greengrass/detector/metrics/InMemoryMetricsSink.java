@@ -0,0 +1,84 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps metrics in memory, for tests. Every duration sample is kept.
+ */
+public class InMemoryMetricsSink implements MetricsSink {
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final Map<String, Long> gauges = new ConcurrentHashMap<>();
+    private final Map<String, List<Long>> timings = new ConcurrentHashMap<>();
+
+    @Override
+    public void count(String name, long delta) {
+        counters.computeIfAbsent(name, k -> new AtomicLong()).addAndGet(delta);
+    }
+
+    @Override
+    public void gauge(String name, long value) {
+        gauges.put(name, value);
+    }
+
+    @Override
+    public void timing(String name, long durationMs) {
+        List<Long> samples = timings.computeIfAbsent(name, k -> Collections.synchronizedList(new ArrayList<>()));
+        samples.add(durationMs);
+    }
+
+    /**
+     * Current value of a counter.
+     *
+     * @param name metric name
+     * @return counter value, 0 if never counted
+     */
+    public long getCount(String name) {
+        AtomicLong counter = counters.get(name);
+        return counter == null ? 0L : counter.get();
+    }
+
+    /**
+     * Last value of a gauge.
+     *
+     * @param name metric name
+     * @return gauge value, null if never set
+     */
+    public Long getGauge(String name) {
+        return gauges.get(name);
+    }
+
+    /**
+     * Duration samples recorded so far, in milliseconds.
+     *
+     * @param name metric name
+     * @return copy of the samples in recording order
+     */
+    public List<Long> getTimings(String name) {
+        List<Long> samples = timings.get(name);
+        if (samples == null) {
+            return Collections.emptyList();
+        }
+        synchronized (samples) {
+            return new ArrayList<>(samples);
+        }
+    }
+
+    /**
+     * Forget everything recorded so far.
+     */
+    public void clear() {
+        counters.clear();
+        gauges.clear();
+        timings.clear();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.simulation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Outcome of a fleet simulation: the load the fleet put on the data plane and how long address changes took to
+ * reach it.
+ *
+ * <p>A change converged when the cloud held its host addresses before the next change of the same core. A change
+ * followed by another one before it converged is superseded, its latency is not recorded. A change that never
+ * converged is unconverged, which is only possible for the last change of a core.
+ */
+public final class FleetReport {
+    private final int cores;
+    private final int changes;
+    private final long durationMs;
+    private final long updateCalls;
+    private final long getCalls;
+    private final long totalCalls;
+    private final long peakCallsPerSecond;
+    private final Map<StubDataPlaneServer.Fault, Long> injectedFaults;
+    private final List<Long> convergenceMs;
+    private final int superseded;
+    private final int unconverged;
+    private final int divergedCores;
+
+    FleetReport(int cores, int changes, long durationMs, StubDataPlaneServer stub, List<Long> convergenceMs,
+                int superseded, int unconverged, int divergedCores) {
+        this.cores = cores;
+        this.changes = changes;
+        this.durationMs = durationMs;
+        this.updateCalls = stub.getUpdateCalls();
+        this.getCalls = stub.getGetCalls();
+        this.totalCalls = stub.getTotalCalls();
+        this.peakCallsPerSecond = stub.getPeakCallsPerSecond();
+        this.injectedFaults = new EnumMap<>(StubDataPlaneServer.Fault.class);
+        for (StubDataPlaneServer.Fault fault : StubDataPlaneServer.Fault.values()) {
+            injectedFaults.put(fault, stub.getInjected(fault));
+        }
+        List<Long> sorted = new ArrayList<>(convergenceMs);
+        Collections.sort(sorted);
+        this.convergenceMs = Collections.unmodifiableList(sorted);
+        this.superseded = superseded;
+        this.unconverged = unconverged;
+        this.divergedCores = divergedCores;
+    }
+
+    public int getCores() {
+        return cores;
+    }
+
+    public int getChanges() {
+        return changes;
+    }
+
+    public long getUpdateCalls() {
+        return updateCalls;
+    }
+
+    public long getGetCalls() {
+        return getCalls;
+    }
+
+    public long getTotalCalls() {
+        return totalCalls;
+    }
+
+    public long getPeakCallsPerSecond() {
+        return peakCallsPerSecond;
+    }
+
+    public int getConverged() {
+        return convergenceMs.size();
+    }
+
+    public int getSuperseded() {
+        return superseded;
+    }
+
+    public int getUnconverged() {
+        return unconverged;
+    }
+
+    /**
+     * Number of cores whose cloud state differs from their final interfaces when the simulation ended.
+     *
+     * @return number of cores
+     */
+    public int getDivergedCores() {
+        return divergedCores;
+    }
+
+    /**
+     * Convergence latency at a percentile, using the nearest rank.
+     *
+     * @param percentile percentile between 0 and 100
+     * @return latency in milliseconds, -1 if no change converged
+     */
+    public long getConvergencePercentileMs(double percentile) {
+        if (convergenceMs.isEmpty()) {
+            return -1L;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * convergenceMs.size());
+        return convergenceMs.get(Math.min(Math.max(rank, 1), convergenceMs.size()) - 1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "Fleet of %d cores, %d address changes in %d ms%n"
+                        + "  API calls: %d total, %d UpdateConnectivityInfo, %d GetConnectivityInfo, "
+                        + "peak %d calls/s%n"
+                        + "  Injected faults: %s%n"
+                        + "  Convergence: p50 %d ms, p99 %d ms, max %d ms over %d changes, "
+                        + "%d superseded, %d unconverged, %d cores diverged",
+                cores, changes, durationMs, totalCalls, updateCalls, getCalls, peakCallsPerSecond, injectedFaults,
+                getConvergencePercentileMs(50), getConvergencePercentileMs(99), getConvergencePercentileMs(100),
+                getConverged(), superseded, unconverged, divergedCores);
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.simulation;
+
+import com.aws.greengrass.dependency.Context;
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.util.GreengrassServiceClientFactory;
+import com.aws.greengrass.utils.TestConfigs;
+import org.mockito.Mockito;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.services.greengrassv2data.GreengrassV2DataClient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a fleet of simulated cores in one JVM against a {@link StubDataPlaneServer}, and reports the API calls
+ * they made and how long their address changes took to reach the cloud.
+ *
+ * <p>Every core is started at a random time within the start spread, then changes its interfaces at a fixed
+ * interval. Once every change was applied, the simulation waits for the cloud state of every core to match its
+ * final interfaces, or for the convergence timeout.
+ */
+public final class FleetSimulation {
+    static final String PROPERTY_PREFIX = "fleet.";
+    static final String CONFIG_PROPERTY_PREFIX = PROPERTY_PREFIX + "config.";
+    private static final int DRIVER_THREADS = 4;
+    private static final int MAX_CONNECTIONS = 200;
+    private static final long POLL_MS = 50L;
+    private static final long ALL_APPLIED_SLACK_MS = 60_000L;
+
+    private final Options options;
+
+    /**
+     * Size, timing and configuration of a simulation.
+     */
+    public static final class Options {
+        private int cores = 20;
+        private int changesPerCore = 3;
+        private long changeIntervalMs = 3_000L;
+        private long startSpreadMs = 1_000L;
+        private long convergenceTimeoutMs = 30_000L;
+        private long seed = 1L;
+        private StubDataPlaneServer.Faults faults = StubDataPlaneServer.Faults.none();
+        private final Map<String, Object> configuration = new HashMap<>();
+
+        /**
+         * Options with the detector polling every second, so that a short simulation sees several runs per
+         * core. Configuration keys not set here use the defaults of the component.
+         */
+        public Options() {
+            configuration.put("monitorAddressChanges", true);
+            configuration.put("pollingIntervalMs", 1_000L);
+            configuration.put("pollingJitterMs", 200L);
+            configuration.put("fastPollingIntervalMs", 500L);
+            configuration.put("fastPollingDurationMs", 5_000L);
+            configuration.put("uploadRefillIntervalMs", 2_000L);
+            configuration.put("uploadRetryBaseDelayMs", 200L);
+            configuration.put("uploadRetryMaxDelayMs", 2_000L);
+        }
+
+        public Options withCores(int newCores) {
+            this.cores = newCores;
+            return this;
+        }
+
+        public Options withChangesPerCore(int newChangesPerCore) {
+            this.changesPerCore = newChangesPerCore;
+            return this;
+        }
+
+        public Options withChangeIntervalMs(long newChangeIntervalMs) {
+            this.changeIntervalMs = newChangeIntervalMs;
+            return this;
+        }
+
+        public Options withStartSpreadMs(long newStartSpreadMs) {
+            this.startSpreadMs = newStartSpreadMs;
+            return this;
+        }
+
+        public Options withConvergenceTimeoutMs(long newConvergenceTimeoutMs) {
+            this.convergenceTimeoutMs = newConvergenceTimeoutMs;
+            return this;
+        }
+
+        public Options withSeed(long newSeed) {
+            this.seed = newSeed;
+            return this;
+        }
+
+        public Options withFaults(StubDataPlaneServer.Faults newFaults) {
+            this.faults = newFaults;
+            return this;
+        }
+
+        /**
+         * Set a configuration value of every core.
+         *
+         * @param key   configuration key of the component
+         * @param value value
+         * @return options
+         */
+        public Options withConfiguration(String key, Object value) {
+            configuration.put(key, value);
+            return this;
+        }
+
+        /**
+         * Override the options with the {@code fleet.*} system properties, so that a larger fleet can be run
+         * from the command line. {@code fleet.config.<key>} sets a configuration value of every core.
+         *
+         * @return options
+         */
+        public Options withSystemProperties() {
+            cores = Integer.getInteger(PROPERTY_PREFIX + "cores", cores);
+            changesPerCore = Integer.getInteger(PROPERTY_PREFIX + "changesPerCore", changesPerCore);
+            changeIntervalMs = Long.getLong(PROPERTY_PREFIX + "changeIntervalMs", changeIntervalMs);
+            startSpreadMs = Long.getLong(PROPERTY_PREFIX + "startSpreadMs", startSpreadMs);
+            convergenceTimeoutMs = Long.getLong(PROPERTY_PREFIX + "convergenceTimeoutMs", convergenceTimeoutMs);
+            seed = Long.getLong(PROPERTY_PREFIX + "seed", seed);
+            for (String name : System.getProperties().stringPropertyNames()) {
+                if (name.startsWith(CONFIG_PROPERTY_PREFIX)) {
+                    configuration.put(name.substring(CONFIG_PROPERTY_PREFIX.length()), System.getProperty(name));
+                }
+            }
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "cores=" + cores + ", changesPerCore=" + changesPerCore + ", changeIntervalMs=" + changeIntervalMs
+                    + ", startSpreadMs=" + startSpreadMs + ", seed=" + seed + ", faults=(" + faults
+                    + "), configuration=" + configuration;
+        }
+    }
+
+    public FleetSimulation(Options options) {
+        this.options = options;
+    }
+
+    /**
+     * Run the simulation.
+     *
+     * @return report
+     * @throws IOException          if the stub cannot be started or the interfaces cannot be scripted
+     * @throws InterruptedException if interrupted
+     */
+    public FleetReport run() throws IOException, InterruptedException {
+        Random random = new Random(options.seed);
+        Config config = TestConfigs.of(options.configuration);
+        Context context = Mockito.mock(Context.class, Mockito.withSettings().stubOnly());
+        try (StubDataPlaneServer stub = new StubDataPlaneServer(options.faults, random.nextLong());
+             GreengrassV2DataClient client = stub.newClient(MAX_CONNECTIONS, RetryPolicy.defaultRetryPolicy())) {
+            GreengrassServiceClientFactory clientFactory = Mockito.mock(GreengrassServiceClientFactory.class,
+                    Mockito.withSettings().stubOnly());
+            Mockito.doReturn(client).when(clientFactory).getGreengrassV2DataClient();
+            List<SimulatedCore> cores = new ArrayList<>(options.cores);
+            for (int i = 0; i < options.cores; i++) {
+                cores.add(new SimulatedCore(String.format("sim-core-%05d", i),
+                        InterfaceTimeline.generate(i, options.changesPerCore, new Random(random.nextLong()), config),
+                        config, context, clientFactory));
+            }
+
+            long startNanos = System.nanoTime();
+            ScheduledExecutorService driver = Executors.newScheduledThreadPool(DRIVER_THREADS, r -> {
+                Thread thread = new Thread(r, "fleet-driver");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                CountDownLatch applied = new CountDownLatch(cores.size() * (options.changesPerCore + 1));
+                for (SimulatedCore core : cores) {
+                    long offsetMs = options.startSpreadMs > 0
+                            ? (long) (random.nextDouble() * options.startSpreadMs) : 0L;
+                    for (int step = 0; step <= options.changesPerCore; step++) {
+                        int index = step;
+                        driver.schedule(() -> {
+                            try {
+                                if (index == 0) {
+                                    core.start();
+                                } else {
+                                    core.applyStep(index);
+                                }
+                            } finally {
+                                applied.countDown();
+                            }
+                        }, offsetMs + step * options.changeIntervalMs, TimeUnit.MILLISECONDS);
+                    }
+                }
+                applied.await(options.startSpreadMs + options.changesPerCore * options.changeIntervalMs
+                        + ALL_APPLIED_SLACK_MS, TimeUnit.MILLISECONDS);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(options.convergenceTimeoutMs);
+                while (divergedCores(stub, cores) > 0 && System.nanoTime() < deadline) {
+                    Thread.sleep(POLL_MS);
+                }
+            } finally {
+                driver.shutdownNow();
+                for (SimulatedCore core : cores) {
+                    core.stop();
+                }
+            }
+            return report(stub, cores, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+    }
+
+    private FleetReport report(StubDataPlaneServer stub, List<SimulatedCore> cores, long durationMs) {
+        List<Long> convergenceMs = new ArrayList<>();
+        int superseded = 0;
+        int unconverged = 0;
+        for (SimulatedCore core : cores) {
+            List<StubDataPlaneServer.Update> updates = stub.getUpdates(core.getThingName());
+            int lastStep = core.getTimeline().size() - 1;
+            for (int step = 1; step <= lastStep; step++) {
+                long changeNanos = core.getChangeNanos(step);
+                long nextChangeNanos = step < lastStep ? core.getChangeNanos(step + 1) : Long.MAX_VALUE;
+                Set<String> expected = core.getTimeline().getStep(step).getHostAddresses();
+                Set<String> cloud = Collections.emptySet();
+                StubDataPlaneServer.Update match = null;
+                for (StubDataPlaneServer.Update update : updates) {
+                    if (update.getNanos() < changeNanos) {
+                        cloud = update.getHostAddresses();
+                    } else if (update.getHostAddresses().equals(expected)) {
+                        match = update;
+                        break;
+                    }
+                }
+                if (cloud.equals(expected)) {
+                    // A flap back to addresses the cloud still holds needs no upload
+                    convergenceMs.add(0L);
+                } else if (match != null && match.getNanos() < nextChangeNanos) {
+                    convergenceMs.add(TimeUnit.NANOSECONDS.toMillis(match.getNanos() - changeNanos));
+                } else if (step < lastStep) {
+                    superseded++;
+                } else {
+                    unconverged++;
+                }
+            }
+        }
+        return new FleetReport(cores.size(), cores.size() * options.changesPerCore, durationMs, stub,
+                convergenceMs, superseded, unconverged, divergedCores(stub, cores));
+    }
+
+    private static int divergedCores(StubDataPlaneServer stub, List<SimulatedCore> cores) {
+        int diverged = 0;
+        for (SimulatedCore core : cores) {
+            InterfaceTimeline timeline = core.getTimeline();
+            if (!stub.getHostAddresses(core.getThingName())
+                    .equals(timeline.getStep(timeline.size() - 1).getHostAddresses())) {
+                diverged++;
+            }
+        }
+        return diverged;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.simulation;
+
+import com.aws.greengrass.logging.api.Logger;
+import com.aws.greengrass.logging.impl.LogManager;
+import com.aws.greengrass.utils.TestConstants;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.services.greengrassv2data.GreengrassV2DataClient;
+import software.amazon.awssdk.services.greengrassv2data.model.ConnectivityInfo;
+import software.amazon.awssdk.services.greengrassv2data.model.GetConnectivityInfoRequest;
+import software.amazon.awssdk.services.greengrassv2data.model.UpdateConnectivityInfoRequest;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the stub data plane on every build. The fleet run takes wall-clock time, so it is tagged {@code slow}
+ * and left out of the default unit test run; run it with {@code -DexcludedGroups=}, and larger fleets with the
+ * {@code fleet.*} system properties, see the README.
+ */
+class FleetSimulationTest {
+    private static final Logger logger = LogManager.getLogger(FleetSimulationTest.class);
+    private static final String THING_NAME = "test-thing";
+
+    @Test
+    @Tag("slow")
+    public void GIVEN_fleet_and_faulty_data_plane_WHEN_run_THEN_every_core_converges()
+            throws IOException, InterruptedException {
+        FleetSimulation.Options options = new FleetSimulation.Options()
+                .withCores(20)
+                .withChangesPerCore(2)
+                .withChangeIntervalMs(2_000L)
+                .withFaults(StubDataPlaneServer.Faults.none()
+                        .withLatency(10L, 40L)
+                        .with(StubDataPlaneServer.Fault.THROTTLE, 0.05)
+                        .with(StubDataPlaneServer.Fault.SERVER_ERROR, 0.05)
+                        .with(StubDataPlaneServer.Fault.RESET, 0.02))
+                .withSystemProperties();
+
+        FleetReport report = new FleetSimulation(options).run();
+
+        logger.atInfo().kv("options", options).log(report);
+        assertEquals(0, report.getUnconverged(), report::toString);
+        assertEquals(0, report.getDivergedCores(), report::toString);
+        assertEquals(report.getChanges(), report.getConverged() + report.getSuperseded(), report::toString);
+        assertTrue(report.getUpdateCalls() >= report.getCores(), report::toString);
+    }
+
+    @Test
+    public void GIVEN_stub_WHEN_connectivity_updated_THEN_versions_increase_and_entries_returned()
+            throws IOException {
+        try (StubDataPlaneServer stub = new StubDataPlaneServer(StubDataPlaneServer.Faults.none(), 0L);
+             GreengrassV2DataClient client = stub.newClient(1, RetryPolicy.none())) {
+            assertEquals("1", client.updateConnectivityInfo(update(TestConstants.IP_1)).version());
+            assertEquals("2", client.updateConnectivityInfo(update(TestConstants.IPV4_LOOPBACK)).version());
+
+            assertEquals(TestConstants.IPV4_LOOPBACK, client.getConnectivityInfo(
+                    GetConnectivityInfoRequest.builder().thingName(THING_NAME).build())
+                    .connectivityInfo().get(0).hostAddress());
+            assertEquals(Collections.singleton(TestConstants.IPV4_LOOPBACK), stub.getHostAddresses(THING_NAME));
+            assertEquals(2, stub.getUpdates(THING_NAME).size());
+            assertEquals(3L, stub.getTotalCalls());
+        }
+    }
+
+    @Test
+    public void GIVEN_faults_WHEN_connectivity_updated_THEN_injected_errors_returned() throws IOException {
+        assertEquals(429, serviceError(StubDataPlaneServer.Fault.THROTTLE).statusCode());
+        assertTrue(serviceError(StubDataPlaneServer.Fault.THROTTLE).isThrottlingException());
+        assertEquals(403, serviceError(StubDataPlaneServer.Fault.FORBIDDEN).statusCode());
+        assertEquals(500, serviceError(StubDataPlaneServer.Fault.SERVER_ERROR).statusCode());
+
+        try (StubDataPlaneServer stub = new StubDataPlaneServer(StubDataPlaneServer.Faults.none()
+                .with(StubDataPlaneServer.Fault.RESET, 1.0), 0L);
+             GreengrassV2DataClient client = stub.newClient(1, RetryPolicy.none())) {
+            assertThrows(SdkClientException.class, () -> client.updateConnectivityInfo(update(TestConstants.IP_1)));
+            assertEquals(1L, stub.getInjected(StubDataPlaneServer.Fault.RESET));
+            assertTrue(stub.getUpdates(THING_NAME).isEmpty());
+        }
+    }
+
+    private static SdkServiceException serviceError(StubDataPlaneServer.Fault fault) throws IOException {
+        try (StubDataPlaneServer stub = new StubDataPlaneServer(StubDataPlaneServer.Faults.none().with(fault, 1.0),
+                0L);
+             GreengrassV2DataClient client = stub.newClient(1, RetryPolicy.none())) {
+            return assertThrows(SdkServiceException.class,
+                    () -> client.updateConnectivityInfo(update(TestConstants.IP_1)));
+        }
+    }
+
+    private static UpdateConnectivityInfoRequest update(String hostAddress) {
+        return UpdateConnectivityInfoRequest.builder().thingName(THING_NAME)
+                .connectivityInfo(ConnectivityInfo.builder().id(hostAddress).hostAddress(hostAddress)
+                        .portNumber(TestConstants.PORT_1).build())
+                .build();
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.simulation;
+
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.detector.detector.ScriptedIpDetector;
+
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Scripted network interfaces of one simulated core: the interfaces at start-up, followed by one address change
+ * per step.
+ *
+ * <p>Every change is one of the events seen on real devices: eth0 renumbered by DHCP, wlan0 going down or up,
+ * or a docker0 bridge appearing or disappearing. The host addresses each step should upload are computed by
+ * running an IP detector over the step's interfaces with the simulation's configuration.
+ */
+public final class InterfaceTimeline {
+    private static final int MIN_HOST = 2;
+    private static final int MAX_HOST = 254;
+    private static final byte[] DOCKER_BRIDGE = {(byte) 172, 17, 0, 1};
+
+    private final List<Step> steps;
+
+    /**
+     * Interfaces of a core from the time of the step until the next one.
+     */
+    public static final class Step {
+        private final List<NetworkInterface> interfaces;
+        private final Set<String> hostAddresses;
+
+        Step(List<NetworkInterface> interfaces, Set<String> hostAddresses) {
+            this.interfaces = interfaces;
+            this.hostAddresses = hostAddresses;
+        }
+
+        public List<NetworkInterface> getInterfaces() {
+            return interfaces;
+        }
+
+        /**
+         * Host addresses the cloud holds once the step converged.
+         *
+         * @return host addresses
+         */
+        public Set<String> getHostAddresses() {
+            return hostAddresses;
+        }
+    }
+
+    private InterfaceTimeline(List<Step> steps) {
+        this.steps = steps;
+    }
+
+    /**
+     * Generate the timeline of a core.
+     *
+     * @param coreIndex index of the core, used to give every core its own subnets
+     * @param changes   number of address changes after start-up
+     * @param random    source of the changes
+     * @param config    configuration the cores detect with
+     * @return timeline with {@code changes + 1} steps
+     * @throws SocketException never, declared by the scripted interfaces
+     * @throws UnknownHostException never, addresses are built from bytes
+     */
+    public static InterfaceTimeline generate(int coreIndex, int changes, Random random, Config config)
+            throws SocketException, UnknownHostException {
+        ScriptedIpDetector probe = new ScriptedIpDetector();
+        byte subnetHigh = (byte) (coreIndex >> 8);
+        byte subnetLow = (byte) coreIndex;
+        int ethHost = nextHost(random, 0);
+        int wlanHost = nextHost(random, 0);
+        boolean wlanUp = random.nextBoolean();
+        boolean dockerUp = random.nextBoolean();
+
+        List<Step> steps = new ArrayList<>(changes + 1);
+        for (int i = 0; i <= changes; i++) {
+            if (i > 0) {
+                switch (random.nextInt(3)) {
+                    case 0:
+                        ethHost = nextHost(random, ethHost);
+                        break;
+                    case 1:
+                        wlanUp = !wlanUp;
+                        break;
+                    default:
+                        dockerUp = !dockerUp;
+                        break;
+                }
+            }
+            List<NetworkInterface> interfaces = new ArrayList<>();
+            interfaces.add(ScriptedIpDetector.networkInterface("lo", 1, true,
+                    Collections.singletonList(InetAddress.getLoopbackAddress())));
+            interfaces.add(ScriptedIpDetector.networkInterface("eth0", 2, true, Collections.singletonList(
+                    InetAddress.getByAddress(new byte[]{10, subnetHigh, subnetLow, (byte) ethHost}))));
+            interfaces.add(ScriptedIpDetector.networkInterface("wlan0", 3, wlanUp, Collections.singletonList(
+                    InetAddress.getByAddress(new byte[]{(byte) 192, (byte) 168, subnetLow, (byte) wlanHost}))));
+            if (dockerUp) {
+                interfaces.add(ScriptedIpDetector.networkInterface("docker0", 4, true,
+                        Collections.singletonList(InetAddress.getByAddress(DOCKER_BRIDGE))));
+            }
+            probe.setInterfaces(interfaces);
+            Set<String> hostAddresses = new HashSet<>();
+            for (Endpoint endpoint : probe.getAllEndpoints(config)) {
+                hostAddresses.add(endpoint.getHostAddress());
+            }
+            steps.add(new Step(Collections.unmodifiableList(interfaces), Collections.unmodifiableSet(hostAddresses)));
+        }
+        return new InterfaceTimeline(Collections.unmodifiableList(steps));
+    }
+
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    public Step getStep(int index) {
+        return steps.get(index);
+    }
+
+    public int size() {
+        return steps.size();
+    }
+
+    @Override
+    public String toString() {
+        List<Set<String>> hostAddresses = new ArrayList<>(steps.size());
+        for (Step step : steps) {
+            hostAddresses.add(step.getHostAddresses());
+        }
+        return hostAddresses.toString();
+    }
+
+    private static int nextHost(Random random, int current) {
+        int host;
+        do {
+            host = MIN_HOST + random.nextInt(MAX_HOST - MIN_HOST + 1);
+        } while (host == current);
+        return host;
+    }
+}
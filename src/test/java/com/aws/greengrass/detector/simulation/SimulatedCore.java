@@ -0,0 +1,128 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.simulation;
+
+import com.aws.greengrass.config.Topic;
+import com.aws.greengrass.dependency.Context;
+import com.aws.greengrass.deployment.DeviceConfiguration;
+import com.aws.greengrass.detector.DetectionScheduler;
+import com.aws.greengrass.detector.IpDetectorManager;
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.connectivity.ConnectivityCache;
+import com.aws.greengrass.detector.detector.ScriptedIpDetector;
+import com.aws.greengrass.detector.executor.DetectorExecutors;
+import com.aws.greengrass.detector.metrics.DetectorMetrics;
+import com.aws.greengrass.detector.source.EndpointPipeline;
+import com.aws.greengrass.detector.uploader.AsyncConnectivityUploader;
+import com.aws.greengrass.detector.uploader.ConnectivityReconciler;
+import com.aws.greengrass.detector.uploader.ConnectivityUpdater;
+import com.aws.greengrass.detector.uploader.UploadCoalescer;
+import com.aws.greengrass.detector.uploader.UploadRateLimiter;
+import com.aws.greengrass.detector.uploader.UploadRetryBackoff;
+import com.aws.greengrass.util.GreengrassServiceClientFactory;
+import org.mockito.Mockito;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.aws.greengrass.deployment.DeviceConfiguration.DEVICE_PARAM_THING_NAME;
+
+/**
+ * One core device of a fleet simulation. It is wired the way {@code IpDetectorService} wires the IP detector,
+ * with its own threads, rate limiter and upload state, but detects the addresses of its scripted interfaces.
+ *
+ * <p>When the configuration monitors address changes, every step of the timeline triggers detection, as the
+ * address change monitor would on a real device. Otherwise the change is picked up by polling.
+ */
+final class SimulatedCore {
+    static final long SHUTDOWN_TIMEOUT_MS = 5_000L;
+
+    private final String thingName;
+    private final InterfaceTimeline timeline;
+    private final Config config;
+    private final DetectorExecutors executors;
+    private final ScriptedIpDetector ipDetector;
+    private final IpDetectorManager ipDetectorManager;
+    private final DetectionScheduler detectionScheduler;
+    private final AtomicLongArray changeNanos;
+
+    SimulatedCore(String thingName, InterfaceTimeline timeline, Config config, Context context,
+                  GreengrassServiceClientFactory clientFactory) {
+        this.thingName = thingName;
+        this.timeline = timeline;
+        this.config = config;
+        this.changeNanos = new AtomicLongArray(timeline.size());
+        this.executors = new DetectorExecutors();
+        this.ipDetector = new ScriptedIpDetector();
+
+        DeviceConfiguration deviceConfiguration = Mockito.mock(DeviceConfiguration.class,
+                Mockito.withSettings().stubOnly());
+        Mockito.doReturn(Topic.of(context, DEVICE_PARAM_THING_NAME, thingName)).when(deviceConfiguration)
+                .getThingName();
+        ConnectivityCache connectivityCache = new ConnectivityCache();
+        ConnectivityUpdater connectivityUpdater = new ConnectivityUpdater(deviceConfiguration, clientFactory,
+                DetectorMetrics.none(), connectivityCache);
+        UploadCoalescer uploadCoalescer = new UploadCoalescer(connectivityUpdater,
+                new AsyncConnectivityUploader(connectivityUpdater, executors), executors, new UploadRateLimiter(),
+                new UploadRetryBackoff());
+        this.ipDetectorManager = new IpDetectorManager(connectivityUpdater,
+                new EndpointPipeline(ipDetector, executors), uploadCoalescer, DetectorMetrics.none(),
+                new ConnectivityReconciler(connectivityUpdater, uploadCoalescer), connectivityCache);
+        this.detectionScheduler = new DetectionScheduler(executors.getScheduler(), config,
+                () -> ipDetectorManager.startIpDetection(config));
+    }
+
+    String getThingName() {
+        return thingName;
+    }
+
+    InterfaceTimeline getTimeline() {
+        return timeline;
+    }
+
+    /**
+     * Time a step was applied, from {@link System#nanoTime()}.
+     *
+     * @param step index of the step
+     * @return time, 0 if the step was not applied
+     */
+    long getChangeNanos(int step) {
+        return changeNanos.get(step);
+    }
+
+    /**
+     * Apply the first step and start detection.
+     */
+    void start() {
+        changeNanos.set(0, System.nanoTime());
+        ipDetector.setInterfaces(timeline.getStep(0).getInterfaces());
+        ipDetectorManager.setEndpointSourceChangeListener(detectionScheduler::triggerNow);
+        detectionScheduler.start();
+    }
+
+    /**
+     * Change the interfaces to the ones of a step.
+     *
+     * @param step index of the step
+     */
+    void applyStep(int step) {
+        changeNanos.set(step, System.nanoTime());
+        ipDetector.setInterfaces(timeline.getStep(step).getInterfaces());
+        if (config.isMonitorAddressChanges()) {
+            detectionScheduler.triggerNow();
+        }
+    }
+
+    /**
+     * Stop detection the way the service shuts down.
+     *
+     * @throws InterruptedException if interrupted while waiting for the threads to stop
+     */
+    void stop() throws InterruptedException {
+        detectionScheduler.stop();
+        ipDetectorManager.cancelPendingUploads();
+        executors.cancelAll(SHUTDOWN_TIMEOUT_MS);
+    }
+}
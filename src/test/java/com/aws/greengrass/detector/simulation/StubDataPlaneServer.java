@@ -0,0 +1,409 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.simulation;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.greengrassv2data.GreengrassV2DataClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for the connectivity operations of the GreengrassV2Data API, with injected latency and
+ * failures.
+ *
+ * <p>UpdateConnectivityInfo stores the entries of a thing under an increasing version and
+ * GetConnectivityInfo returns them. Every request is counted in the second it arrived, and every accepted
+ * update is kept with its arrival time, so that the time for the cloud state to converge can be computed once
+ * the simulation is over.
+ *
+ * <p>Every thing draws its latency and failures from a random of its own, seeded from the stub seed and the thing
+ * name. The handler threads interleave the calls of different things at will, but a core making the same calls
+ * gets the same failures whatever the other cores do.
+ */
+public class StubDataPlaneServer implements AutoCloseable {
+    private static final Pattern THING_PATH = Pattern.compile("/greengrass/things/([^/]+)/connectivityInfo/?");
+    private static final Pattern HOST_ADDRESS = Pattern.compile("\"HostAddress\"\\s*:\\s*\"([^\"]*)\"");
+    private static final String EMPTY_CONNECTIVITY_INFO = "{\"ConnectivityInfo\":[]}";
+    private static final int BACKLOG = 1_024;
+
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final Faults faults;
+    private final long seed;
+    private final long startNanos = System.nanoTime();
+    private final Map<Long, AtomicLong> callsPerSecond = new ConcurrentHashMap<>();
+    private final Map<Fault, AtomicLong> injected = new EnumMap<>(Fault.class);
+    private final Map<String, ThingState> things = new ConcurrentHashMap<>();
+    private final AtomicLong updateCalls = new AtomicLong();
+    private final AtomicLong getCalls = new AtomicLong();
+
+    /**
+     * Failures the stub injects.
+     */
+    public enum Fault {
+        /** 429 ThrottlingException. */
+        THROTTLE,
+        /** 403 AccessDeniedException. */
+        FORBIDDEN,
+        /** 500 InternalServerException. */
+        SERVER_ERROR,
+        /** Connection closed without a response. */
+        RESET
+    }
+
+    /**
+     * Latency and failure rates of the stub. Rates are probabilities per request.
+     */
+    public static final class Faults {
+        private final long latencyMs;
+        private final long latencyJitterMs;
+        private final Map<Fault, Double> rates;
+
+        private Faults(long latencyMs, long latencyJitterMs, Map<Fault, Double> rates) {
+            this.latencyMs = latencyMs;
+            this.latencyJitterMs = latencyJitterMs;
+            this.rates = rates;
+        }
+
+        public static Faults none() {
+            return new Faults(0L, 0L, new EnumMap<>(Fault.class));
+        }
+
+        /**
+         * The same faults with another latency.
+         *
+         * @param newLatencyMs  minimum latency of every request
+         * @param newJitterMs   random latency added on top of it
+         * @return faults
+         */
+        public Faults withLatency(long newLatencyMs, long newJitterMs) {
+            return new Faults(newLatencyMs, newJitterMs, rates);
+        }
+
+        /**
+         * The same faults with another rate for one of them.
+         *
+         * @param fault fault
+         * @param rate  probability of the fault per request
+         * @return faults
+         */
+        public Faults with(Fault fault, double rate) {
+            Map<Fault, Double> newRates = new EnumMap<>(Fault.class);
+            newRates.putAll(rates);
+            newRates.put(fault, rate);
+            return new Faults(latencyMs, latencyJitterMs, newRates);
+        }
+
+        @Override
+        public String toString() {
+            return "latency " + latencyMs + "+" + latencyJitterMs + " ms, rates " + rates;
+        }
+    }
+
+    /**
+     * An update accepted by the stub.
+     */
+    public static final class Update {
+        private final long nanos;
+        private final Set<String> hostAddresses;
+
+        Update(long nanos, Set<String> hostAddresses) {
+            this.nanos = nanos;
+            this.hostAddresses = hostAddresses;
+        }
+
+        /**
+         * Arrival time, from {@link System#nanoTime()}.
+         *
+         * @return arrival time
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        public Set<String> getHostAddresses() {
+            return hostAddresses;
+        }
+    }
+
+    private static final class ThingState {
+        private final Random random;
+        private final List<Update> updates = new ArrayList<>();
+        private String body = EMPTY_CONNECTIVITY_INFO;
+        private long version;
+
+        ThingState(Random random) {
+            this.random = random;
+        }
+    }
+
+    /**
+     * Start the stub on an ephemeral port of the loopback interface.
+     *
+     * @param faults latency and failures to inject
+     * @param seed   seed of the random failures
+     * @throws IOException if the server cannot be started
+     */
+    public StubDataPlaneServer(Faults faults, long seed) throws IOException {
+        this.faults = faults;
+        this.seed = seed;
+        for (Fault fault : Fault.values()) {
+            injected.put(fault, new AtomicLong());
+        }
+        handlers = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "stub-data-plane");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), BACKLOG);
+        server.createContext("/", this::handle);
+        server.setExecutor(handlers);
+        server.start();
+    }
+
+    public URI getEndpoint() {
+        return URI.create("http://" + server.getAddress().getAddress().getHostAddress() + ':'
+                + server.getAddress().getPort());
+    }
+
+    /**
+     * Build a data plane client calling the stub.
+     *
+     * @param maxConnections maximum number of connections of the client
+     * @param retryPolicy    retries of the client, the SDK default retries throttling, 5xx and I/O errors
+     * @return client, closing it closes its connections
+     */
+    public GreengrassV2DataClient newClient(int maxConnections, RetryPolicy retryPolicy) {
+        return GreengrassV2DataClient.builder()
+                .endpointOverride(getEndpoint())
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("stub", "stub")))
+                .overrideConfiguration(override -> override.retryPolicy(retryPolicy))
+                .httpClientBuilder(ApacheHttpClient.builder().maxConnections(maxConnections)
+                        .expectContinueEnabled(false))
+                .build();
+    }
+
+    public long getUpdateCalls() {
+        return updateCalls.get();
+    }
+
+    public long getGetCalls() {
+        return getCalls.get();
+    }
+
+    public long getTotalCalls() {
+        long total = 0L;
+        for (AtomicLong calls : callsPerSecond.values()) {
+            total += calls.get();
+        }
+        return total;
+    }
+
+    /**
+     * Highest number of requests that arrived within one second.
+     *
+     * @return peak calls per second
+     */
+    public long getPeakCallsPerSecond() {
+        long peak = 0L;
+        for (AtomicLong calls : callsPerSecond.values()) {
+            peak = Math.max(peak, calls.get());
+        }
+        return peak;
+    }
+
+    public long getInjected(Fault fault) {
+        return injected.get(fault).get();
+    }
+
+    /**
+     * Updates accepted for a thing, oldest first.
+     *
+     * @param thingName thing name
+     * @return updates
+     */
+    public List<Update> getUpdates(String thingName) {
+        ThingState state = things.get(thingName);
+        if (state == null) {
+            return Collections.emptyList();
+        }
+        synchronized (state) {
+            return new ArrayList<>(state.updates);
+        }
+    }
+
+    /**
+     * Host addresses the stub currently holds for a thing.
+     *
+     * @param thingName thing name
+     * @return host addresses, empty if nothing was uploaded
+     */
+    public Set<String> getHostAddresses(String thingName) {
+        List<Update> updates = getUpdates(thingName);
+        return updates.isEmpty() ? Collections.emptySet() : updates.get(updates.size() - 1).getHostAddresses();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            callsPerSecond.computeIfAbsent(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos),
+                    second -> new AtomicLong()).incrementAndGet();
+            String body = new String(readAll(exchange.getRequestBody()), StandardCharsets.UTF_8);
+            Matcher matcher = THING_PATH.matcher(exchange.getRequestURI().getPath());
+            if (!matcher.matches()) {
+                respondError(exchange, 404, "ResourceNotFoundException");
+                return;
+            }
+            boolean update = "PUT".equals(exchange.getRequestMethod());
+            (update ? updateCalls : getCalls).incrementAndGet();
+            ThingState state = things.computeIfAbsent(matcher.group(1),
+                    name -> new ThingState(new Random(seed * 31 + name.hashCode())));
+            sleep(latencyMs(state));
+            Fault fault = nextFault(state);
+            if (fault != null) {
+                injected.get(fault).incrementAndGet();
+                respondFault(exchange, fault);
+                return;
+            }
+            if (update) {
+                long version;
+                synchronized (state) {
+                    version = ++state.version;
+                    state.body = body;
+                    state.updates.add(new Update(System.nanoTime(), hostAddresses(body)));
+                }
+                respond(exchange, 200, "{\"Version\":\"" + version + "\",\"Message\":\"Updated\"}");
+            } else {
+                String stored;
+                synchronized (state) {
+                    stored = state.body;
+                }
+                respond(exchange, 200, stored);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void respondFault(HttpExchange exchange, Fault fault) throws IOException {
+        switch (fault) {
+            case THROTTLE:
+                respondError(exchange, 429, "ThrottlingException");
+                break;
+            case FORBIDDEN:
+                respondError(exchange, 403, "AccessDeniedException");
+                break;
+            case SERVER_ERROR:
+                respondError(exchange, 500, "InternalServerException");
+                break;
+            default:
+                // Closing the exchange before the response headers are sent drops the connection
+                break;
+        }
+    }
+
+    private static void respondError(HttpExchange exchange, int status, String errorType) throws IOException {
+        exchange.getResponseHeaders().add("x-amzn-ErrorType", errorType);
+        respond(exchange, status, "{\"message\":\"Injected " + errorType + "\"}");
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private Fault nextFault(ThingState state) {
+        double sample;
+        synchronized (state) {
+            sample = state.random.nextDouble();
+        }
+        for (Fault fault : Fault.values()) {
+            double rate = faults.rates.getOrDefault(fault, 0.0);
+            if (sample < rate) {
+                return fault;
+            }
+            sample -= rate;
+        }
+        return null;
+    }
+
+    private long latencyMs(ThingState state) {
+        if (faults.latencyJitterMs <= 0) {
+            return faults.latencyMs;
+        }
+        synchronized (state) {
+            return faults.latencyMs + (long) (state.random.nextDouble() * faults.latencyJitterMs);
+        }
+    }
+
+    private static Set<String> hostAddresses(String body) {
+        Set<String> hostAddresses = new HashSet<>();
+        Matcher matcher = HOST_ADDRESS.matcher(body);
+        while (matcher.find()) {
+            hostAddresses.add(matcher.group(1));
+        }
+        return Collections.unmodifiableSet(hostAddresses);
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4_096];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static void sleep(long ms) {
+        if (ms <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.source;
+
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.utils.TestConstants;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SuppressWarnings("PMD.AvoidUsingHardCodedIP")
+class EndpointParserTest {
+    private static final int DEFAULT_PORT = TestConstants.PORT_1;
+
+    @Test
+    public void GIVEN_entries_WHEN_parse_THEN_host_port_and_metadata_parsed() {
+        assertEquals(Endpoint.ofHostAddress("203.0.113.10", TestConstants.PORT_2, "public nat"),
+                EndpointParser.parse("203.0.113.10:8884 public nat", DEFAULT_PORT));
+        assertEquals(Endpoint.ofHostAddress("2001:db8:0:0:0:0:0:10", 9000, Endpoint.NO_METADATA),
+                EndpointParser.parse("[2001:DB8::10]:9000", DEFAULT_PORT));
+        assertEquals(Endpoint.ofHostAddress("2001:db8:0:0:0:0:0:11", DEFAULT_PORT, Endpoint.NO_METADATA),
+                EndpointParser.parse("2001:db8::11", DEFAULT_PORT));
+        assertEquals(Endpoint.ofHostAddress("broker.example.com", DEFAULT_PORT, Endpoint.NO_METADATA),
+                EndpointParser.parse("Broker.Example.com", DEFAULT_PORT));
+        assertEquals(Endpoint.ofHostAddress("192.0.2.1", DEFAULT_PORT, Endpoint.NO_METADATA),
+                EndpointParser.parse("  192.0.2.1   # gateway", DEFAULT_PORT));
+    }
+
+    @Test
+    public void GIVEN_blank_line_or_comment_WHEN_parse_THEN_null_returned() {
+        assertNull(EndpointParser.parse("", DEFAULT_PORT));
+        assertNull(EndpointParser.parse("   ", DEFAULT_PORT));
+        assertNull(EndpointParser.parse("# NAT gateway", DEFAULT_PORT));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"999.1.1.1", "[::1", "[::1]8883", "host:0", "host:65536", "host:abc", "bad_host!",
+            "zz::1", ":8883"})
+    public void GIVEN_invalid_entry_WHEN_parse_THEN_rejected(String entry) {
+        assertThrows(IllegalArgumentException.class, () -> EndpointParser.parse(entry, DEFAULT_PORT));
+    }
+
+    @Test
+    public void GIVEN_mixed_entries_WHEN_parseAll_THEN_invalid_entries_skipped() {
+        List<Endpoint> endpoints = EndpointParser.parseAll(Arrays.asList("# comment", "192.0.2.1",
+                "999.1.1.1", "broker.example.com:443"), DEFAULT_PORT, "test");
+
+        assertEquals(Arrays.asList(Endpoint.ofHostAddress("192.0.2.1", DEFAULT_PORT, Endpoint.NO_METADATA),
+                Endpoint.ofHostAddress("broker.example.com", 443, Endpoint.NO_METADATA)), endpoints);
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.source;
+
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.utils.TestConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("PMD.AvoidUsingHardCodedIP")
+class EndpointPipelineTest {
+    private static final Endpoint LOCAL = Endpoint.ofHostAddress("10.0.0.5", TestConstants.PORT_1, "");
+    private static final Endpoint PUBLIC = Endpoint.ofHostAddress("203.0.113.10", TestConstants.PORT_1, "nat");
+    private static final Endpoint BALANCER = Endpoint.ofHostAddress("lb.example.com", 443, "");
+
+    private final AtomicLong nowMs = new AtomicLong(1_000_000L);
+    private final Config config = Mockito.mock(Config.class);
+    private Clock clock;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void beforeEach() {
+        clock = Mockito.mock(Clock.class);
+        Mockito.when(clock.millis()).thenAnswer(invocation -> nowMs.get());
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void afterEach() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void GIVEN_sources_WHEN_getEndpoints_THEN_merged_in_order_and_duplicates_dropped() throws IOException {
+        Endpoint duplicate = Endpoint.ofHostAddress("10.0.0.5", TestConstants.PORT_1, "ignored");
+        EndpointPipeline pipeline = new EndpointPipeline(Arrays.asList(new FakeSource(LOCAL),
+                new FakeSource(duplicate, PUBLIC), new FakeSource(BALANCER, PUBLIC)), executor, clock);
+
+        List<Endpoint> endpoints = pipeline.getEndpoints(config);
+
+        assertEquals(Arrays.asList(LOCAL, PUBLIC, BALANCER), endpoints);
+        assertEquals("", endpoints.get(0).getMetadata());
+        assertSame(endpoints, pipeline.getEndpoints(config));
+    }
+
+    @Test
+    public void GIVEN_single_contributing_source_WHEN_getEndpoints_THEN_source_list_returned() throws IOException {
+        List<Endpoint> local = Collections.singletonList(LOCAL);
+        FakeSource disabled = new FakeSource(PUBLIC);
+        disabled.enabled = false;
+        EndpointPipeline pipeline = new EndpointPipeline(Arrays.asList(new FakeSource(local), disabled,
+                new FakeSource()), executor, clock);
+
+        assertSame(local, pipeline.getEndpoints(config));
+        assertEquals(0, disabled.fetches.get());
+    }
+
+    @Test
+    public void GIVEN_source_ttl_WHEN_getEndpoints_THEN_fetched_again_only_after_expiry() throws IOException {
+        FakeSource cached = new FakeSource(PUBLIC);
+        cached.ttlMs = 10_000L;
+        FakeSource uncached = new FakeSource(LOCAL);
+        EndpointPipeline pipeline = new EndpointPipeline(Arrays.asList(uncached, cached), executor, clock);
+
+        pipeline.getEndpoints(config);
+        nowMs.addAndGet(9_999L);
+        pipeline.getEndpoints(config);
+        assertEquals(1, cached.fetches.get());
+        assertEquals(2, uncached.fetches.get());
+
+        nowMs.addAndGet(1L);
+        pipeline.getEndpoints(config);
+        assertEquals(2, cached.fetches.get());
+    }
+
+    @Test
+    public void GIVEN_slow_source_WHEN_getEndpoints_THEN_not_waited_for_and_listener_notified() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch changed = new CountDownLatch(1);
+        FakeSource slow = new FakeSource(BALANCER);
+        slow.slow = true;
+        slow.ttlMs = 60_000L;
+        slow.gate = release;
+        List<Endpoint> local = Collections.singletonList(LOCAL);
+        EndpointPipeline pipeline = new EndpointPipeline(Arrays.asList(new FakeSource(local), slow), executor,
+                clock);
+        pipeline.setChangeListener(changed::countDown);
+
+        assertSame(local, pipeline.getEndpoints(config));
+        release.countDown();
+
+        assertTrue(changed.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(LOCAL, BALANCER), pipeline.getEndpoints(config));
+        assertEquals(1, slow.fetches.get());
+    }
+
+    @Test
+    public void GIVEN_failing_source_WHEN_getEndpoints_THEN_last_result_kept() throws IOException {
+        FakeSource flaky = new FakeSource(PUBLIC);
+        EndpointPipeline pipeline = new EndpointPipeline(Arrays.asList(new FakeSource(LOCAL), flaky), executor,
+                clock);
+        List<Endpoint> before = pipeline.getEndpoints(config);
+
+        flaky.failure = new IOException("unreachable");
+
+        assertSame(before, pipeline.getEndpoints(config));
+    }
+
+    @Test
+    public void GIVEN_required_source_never_fetched_WHEN_fetch_fails_THEN_exception_thrown() {
+        FakeSource failing = new FakeSource(LOCAL);
+        failing.required = true;
+        failing.failure = new IOException("no interfaces");
+        EndpointPipeline pipeline = new EndpointPipeline(Collections.singletonList(failing), executor, clock);
+
+        assertThrows(IOException.class, () -> pipeline.getEndpoints(config));
+    }
+
+    @Test
+    public void GIVEN_oversized_endpoints_file_WHEN_getEndpoints_THEN_local_endpoints_returned(@TempDir Path dir)
+            throws IOException {
+        Path file = dir.resolve("endpoints.txt");
+        Files.write(file, new byte[(int) FileEndpointSource.MAX_FILE_BYTES + 1]);
+        Mockito.when(config.getEndpointsFile()).thenReturn(file.toString());
+        Mockito.when(config.getEndpointsFileTtlMs()).thenReturn(10_000L);
+        FakeSource local = new FakeSource(LOCAL);
+        local.required = true;
+        FileEndpointSource fileSource = new FileEndpointSource();
+        EndpointPipeline pipeline = new EndpointPipeline(Arrays.asList(local, fileSource), executor, clock);
+
+        assertEquals(Collections.singletonList(LOCAL), pipeline.getEndpoints(config));
+        assertEquals(Collections.singletonList(LOCAL), pipeline.getEndpoints(config));
+
+        Files.write(file, Collections.singletonList("203.0.113.10"));
+        nowMs.addAndGet(10_000L);
+        assertEquals(Arrays.asList(LOCAL, Endpoint.ofHostAddress("203.0.113.10", 0, "")),
+                pipeline.getEndpoints(config));
+    }
+
+    private static final class FakeSource implements EndpointSource {
+        private final List<Endpoint> endpoints;
+        private final AtomicInteger fetches = new AtomicInteger();
+        private boolean enabled = true;
+        private boolean slow;
+        private boolean required;
+        private long ttlMs;
+        private CountDownLatch gate;
+        private IOException failure;
+
+        private FakeSource(Endpoint... endpoints) {
+            this(Arrays.asList(endpoints));
+        }
+
+        private FakeSource(List<Endpoint> endpoints) {
+            this.endpoints = endpoints;
+        }
+
+        @Override
+        public String getName() {
+            return "fake";
+        }
+
+        @Override
+        public boolean isEnabled(Config config) {
+            return enabled;
+        }
+
+        @Override
+        public boolean isSlow() {
+            return slow;
+        }
+
+        @Override
+        public boolean isRequired() {
+            return required;
+        }
+
+        @Override
+        public long getTtlMs(Config config) {
+            return ttlMs;
+        }
+
+        @Override
+        public List<Endpoint> fetch(Config config) throws IOException {
+            fetches.incrementAndGet();
+            if (gate != null) {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return endpoints;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.source;
+
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.utils.TestConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("PMD.AvoidUsingHardCodedIP")
+class FileEndpointSourceTest {
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+    private Config config;
+    private FileEndpointSource source;
+
+    @BeforeEach
+    void beforeEach() {
+        file = tempDir.resolve("endpoints.txt");
+        config = Mockito.mock(Config.class);
+        Mockito.when(config.getEndpointsFile()).thenReturn(file.toString());
+        Mockito.when(config.getDefaultPort()).thenReturn(TestConstants.PORT_1);
+        source = new FileEndpointSource();
+    }
+
+    @Test
+    public void GIVEN_endpoints_file_WHEN_fetch_THEN_endpoints_parsed() throws IOException {
+        write(1_000L, "# NAT gateway", "203.0.113.10 public", "broker.example.com:443");
+
+        assertEquals(Arrays.asList(Endpoint.ofHostAddress("203.0.113.10", TestConstants.PORT_1, "public"),
+                Endpoint.ofHostAddress("broker.example.com", 443, Endpoint.NO_METADATA)), source.fetch(config));
+    }
+
+    @Test
+    public void GIVEN_unchanged_file_WHEN_fetch_THEN_previous_result_returned() throws IOException {
+        write(1_000L, "203.0.113.10");
+        List<Endpoint> first = source.fetch(config);
+
+        assertSame(first, source.fetch(config));
+
+        write(2_000L, "203.0.113.11");
+        assertEquals(Collections.singletonList(Endpoint.ofHostAddress("203.0.113.11", TestConstants.PORT_1,
+                Endpoint.NO_METADATA)), source.fetch(config));
+    }
+
+    @Test
+    public void GIVEN_missing_file_WHEN_fetch_THEN_no_endpoints() throws IOException {
+        assertTrue(source.isEnabled(config));
+        assertTrue(source.fetch(config).isEmpty());
+    }
+
+    @Test
+    public void GIVEN_no_file_configured_WHEN_isEnabled_THEN_false() {
+        Mockito.when(config.getEndpointsFile()).thenReturn("");
+
+        assertFalse(source.isEnabled(config));
+    }
+
+    private void write(long modifiedMs, String... lines) throws IOException {
+        Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+        // Coarse file system timestamps must not hide a rewrite
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modifiedMs));
+    }
+}
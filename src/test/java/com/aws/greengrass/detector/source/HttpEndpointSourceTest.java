@@ -0,0 +1,77 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.source;
+
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.utils.TestConstants;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SuppressWarnings("PMD.AvoidUsingHardCodedIP")
+class HttpEndpointSourceTest {
+    private HttpServer server;
+    private Config config;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/endpoints", exchange -> respond(exchange, 200,
+                "203.0.113.10 public\nlb.example.com:443\n"));
+        server.createContext("/broken", exchange -> respond(exchange, 500, "oops"));
+        server.start();
+        config = Mockito.mock(Config.class);
+        Mockito.when(config.getEndpointSourceTimeoutMs()).thenReturn(5_000L);
+    }
+
+    @AfterEach
+    void afterEach() {
+        server.stop(0);
+    }
+
+    @Test
+    public void GIVEN_endpoints_url_WHEN_fetch_THEN_endpoints_parsed() throws IOException {
+        Mockito.when(config.getEndpointsUrl()).thenReturn(url("/endpoints"));
+        Mockito.when(config.getDefaultPort()).thenReturn(TestConstants.PORT_1);
+
+        assertEquals(Arrays.asList(Endpoint.ofHostAddress("203.0.113.10", TestConstants.PORT_1, "public"),
+                Endpoint.ofHostAddress("lb.example.com", 443, Endpoint.NO_METADATA)),
+                new HttpEndpointSource().fetch(config));
+    }
+
+    @Test
+    public void GIVEN_error_status_WHEN_fetch_THEN_exception_thrown() {
+        Mockito.when(config.getEndpointsUrl()).thenReturn(url("/broken"));
+
+        assertThrows(IOException.class, () -> new HttpEndpointSource().fetch(config));
+    }
+
+    private String url(String path) {
+        return "http://" + server.getAddress().getHostString() + ':' + server.getAddress().getPort() + path;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.uploader;
+
+import com.aws.greengrass.utils.TestConstants;
+import org.junit.jupiter.api.Test;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class AddressFingerprintTest {
+    private static final long SEED = 0x5eedL;
+    private static final int ITERATIONS = 2_000;
+    private static final int PORT = TestConstants.PORT_1;
+
+    @Test
+    public void GIVEN_same_addresses_in_any_order_WHEN_fingerprint_THEN_equal() {
+        Random random = new Random(SEED);
+        for (int i = 0; i < ITERATIONS; i++) {
+            List<String> ips = randomAddresses(random, 1 + random.nextInt(8));
+            List<String> shuffled = new ArrayList<>(ips);
+            Collections.shuffle(shuffled, random);
+
+            assertEquals(AddressFingerprint.ofHostAddresses(ips, PORT, ""),
+                    AddressFingerprint.ofHostAddresses(shuffled, PORT, ""), ips::toString);
+        }
+    }
+
+    @Test
+    public void GIVEN_random_address_lists_WHEN_fingerprint_THEN_equal_iff_same_multiset() {
+        Random random = new Random(SEED);
+        // A small address pool makes overlapping lists and duplicates likely
+        List<String> pool = randomAddresses(random, 6);
+        for (int i = 0; i < ITERATIONS; i++) {
+            List<String> a = sample(random, pool, random.nextInt(6));
+            List<String> b = sample(random, pool, random.nextInt(6));
+
+            boolean sameMultiset = counts(a).equals(counts(b));
+            boolean sameFingerprint = AddressFingerprint.ofHostAddresses(a, PORT, "")
+                    .equals(AddressFingerprint.ofHostAddresses(b, PORT, ""));
+            assertEquals(sameMultiset, sameFingerprint, () -> a + " vs " + b);
+        }
+    }
+
+    @Test
+    public void GIVEN_duplicate_free_lists_WHEN_fingerprint_THEN_matches_previous_contains_all_check() {
+        Random random = new Random(SEED);
+        List<String> pool = randomAddresses(random, 5);
+        for (int i = 0; i < ITERATIONS; i++) {
+            List<String> a = new ArrayList<>(pool);
+            List<String> b = new ArrayList<>(pool);
+            Collections.shuffle(a, random);
+            Collections.shuffle(b, random);
+            a = a.subList(0, random.nextInt(pool.size() + 1));
+            b = b.subList(0, random.nextInt(pool.size() + 1));
+
+            boolean changed = a.size() != b.size() || !a.containsAll(b);
+            assertEquals(changed, !AddressFingerprint.ofHostAddresses(a, PORT, "")
+                    .equals(AddressFingerprint.ofHostAddresses(b, PORT, "")));
+        }
+    }
+
+    @Test
+    public void GIVEN_different_duplicate_counts_WHEN_fingerprint_THEN_not_equal() {
+        // containsAll considers these equal even though the lists differ
+        List<String> a = Arrays.asList(TestConstants.IP_1, TestConstants.IP_1, TestConstants.IPV4_LOOPBACK);
+        List<String> b = Arrays.asList(TestConstants.IP_1, TestConstants.IPV4_LOOPBACK, TestConstants.IPV4_LOOPBACK);
+
+        assertNotEquals(AddressFingerprint.ofHostAddresses(a, PORT, ""),
+                AddressFingerprint.ofHostAddresses(b, PORT, ""));
+    }
+
+    @Test
+    public void GIVEN_different_port_or_metadata_WHEN_fingerprint_THEN_not_equal() {
+        List<String> ips = Collections.singletonList(TestConstants.IP_1);
+
+        assertNotEquals(AddressFingerprint.ofHostAddresses(ips, PORT, ""),
+                AddressFingerprint.ofHostAddresses(ips, PORT + 1, ""));
+        assertNotEquals(AddressFingerprint.ofHostAddresses(ips, PORT, ""),
+                AddressFingerprint.ofHostAddresses(ips, PORT, "eth0"));
+    }
+
+    @Test
+    public void GIVEN_ordered_fingerprint_WHEN_order_changes_THEN_not_equal() {
+        List<String> ips = Arrays.asList(TestConstants.IP_1, TestConstants.IPV4_LOOPBACK);
+        List<String> reversed = Arrays.asList(TestConstants.IPV4_LOOPBACK, TestConstants.IP_1);
+
+        assertEquals(AddressFingerprint.ofHostAddresses(ips, PORT, "", true),
+                AddressFingerprint.ofHostAddresses(ips, PORT, "", true));
+        assertNotEquals(AddressFingerprint.ofHostAddresses(ips, PORT, "", true),
+                AddressFingerprint.ofHostAddresses(reversed, PORT, "", true));
+        assertNotEquals(AddressFingerprint.ofHostAddresses(ips, PORT, "", true),
+                AddressFingerprint.ofHostAddresses(ips, PORT, "", false));
+    }
+
+    @Test
+    public void GIVEN_inet_addresses_WHEN_fingerprint_THEN_same_as_host_address_strings()
+            throws UnknownHostException {
+        Random random = new Random(SEED);
+        for (int i = 0; i < ITERATIONS / 10; i++) {
+            List<String> ips = randomAddresses(random, 1 + random.nextInt(4));
+            List<InetAddress> addresses = new ArrayList<>();
+            for (String ip : ips) {
+                addresses.add(InetAddress.getByName(ip));
+            }
+
+            assertEquals(AddressFingerprint.ofHostAddresses(ips, PORT, ""),
+                    AddressFingerprint.of(addresses, PORT, ""), ips::toString);
+        }
+    }
+
+    @Test
+    public void GIVEN_equivalent_ipv6_spellings_WHEN_hostKey_THEN_same_key() {
+        assertArrayEquals(AddressFingerprint.hostKey("fe80::1%eth0"),
+                AddressFingerprint.hostKey("FE80:0:0:0:0:0:0:1%eth0"));
+        assertArrayEquals(AddressFingerprint.hostKey("Example.COM"), AddressFingerprint.hostKey("example.com"));
+    }
+
+    @Test
+    public void GIVEN_turkish_locale_WHEN_hostKey_THEN_names_lowercased_by_root_rules() {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            assertArrayEquals(AddressFingerprint.hostKey("core.example.com"),
+                    AddressFingerprint.hostKey("CORE.EXAMPLE.COM"));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    public void GIVEN_ipv6_address_on_two_interfaces_WHEN_fingerprint_THEN_scope_distinguishes_them()
+            throws UnknownHostException {
+        InetAddress scoped = Inet6Address.getByAddress(null, InetAddress.getByName("fe80::1").getAddress(), 2);
+
+        assertNotEquals(AddressFingerprint.ofHostAddresses(Collections.singletonList("fe80::1%eth0"), PORT, ""),
+                AddressFingerprint.ofHostAddresses(Collections.singletonList("fe80::1%eth1"), PORT, ""));
+        assertNotEquals(AddressFingerprint.ofHostAddresses(Collections.singletonList("fe80::1%2"), PORT, ""),
+                AddressFingerprint.ofHostAddresses(Collections.singletonList("fe80::1"), PORT, ""));
+        assertEquals(AddressFingerprint.ofHostAddresses(Collections.singletonList("fe80::1%2"), PORT, ""),
+                AddressFingerprint.of(Collections.singletonList(scoped), PORT, ""));
+    }
+
+    @Test
+    public void GIVEN_host_name_with_the_bytes_of_an_address_WHEN_fingerprint_THEN_different() {
+        // "host" is 0x68 0x6f 0x73 0x74, the bytes of 104.111.115.116
+        assertNotEquals(AddressFingerprint.ofHostAddresses(Collections.singletonList("host"), PORT, ""),
+                AddressFingerprint.ofHostAddresses(Collections.singletonList("104.111.115.116"), PORT, ""));
+    }
+
+    private static List<String> randomAddresses(Random random, int size) {
+        List<String> ips = new ArrayList<>(size);
+        while (ips.size() < size) {
+            String ip;
+            if (random.nextBoolean()) {
+                ip = random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(256) + "."
+                        + random.nextInt(256);
+            } else {
+                ip = String.format("fd%02x:%x:%x:0:0:0:%x:%x", random.nextInt(256), random.nextInt(0x10000),
+                        random.nextInt(0x10000), random.nextInt(0x10000), random.nextInt(0x10000));
+            }
+            if (!ips.contains(ip)) {
+                ips.add(ip);
+            }
+        }
+        return ips;
+    }
+
+    private static List<String> sample(Random random, List<String> pool, int size) {
+        List<String> sample = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            sample.add(pool.get(random.nextInt(pool.size())));
+        }
+        return sample;
+    }
+
+    private static Map<String, Integer> counts(List<String> ips) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String ip : ips) {
+            counts.merge(ip, 1, Integer::sum);
+        }
+        return counts;
+    }
+}
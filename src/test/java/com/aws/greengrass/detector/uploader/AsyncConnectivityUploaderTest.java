@@ -0,0 +1,195 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.uploader;
+
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.utils.TestConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith({MockitoExtension.class})
+class AsyncConnectivityUploaderTest {
+    @Mock
+    private ConnectivityUpdater connectivityUpdater;
+    @Mock
+    private Config config;
+
+    private ScheduledExecutorService timeoutExecutor;
+    private ExecutorService uploadExecutor;
+    private AsyncConnectivityUploader uploader;
+
+    @BeforeEach
+    void beforeEach() {
+        timeoutExecutor = Executors.newSingleThreadScheduledExecutor();
+        uploadExecutor = Executors.newCachedThreadPool();
+        lenient().doReturn(10_000L).when(config).getUploadTimeoutMs();
+        uploader = new AsyncConnectivityUploader(connectivityUpdater, timeoutExecutor, uploadExecutor);
+    }
+
+    @AfterEach
+    void afterEach() {
+        uploader.cancel();
+        timeoutExecutor.shutdownNow();
+        uploadExecutor.shutdownNow();
+    }
+
+    @Test
+    public void GIVEN_upload_in_flight_WHEN_submit_twice_THEN_only_newest_queued_set_uploaded() throws Exception {
+        List<Endpoint> first = addresses(TestConstants.IP_1);
+        List<Endpoint> superseded = addresses(TestConstants.IPV4_LOOPBACK);
+        List<Endpoint> newest = addresses(TestConstants.IPV6_1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(connectivityUpdater.updateEndpoints(first, config)).thenAnswer(invocation -> {
+            release.await();
+            return UploadStatus.UPLOADED;
+        });
+        when(connectivityUpdater.updateEndpoints(newest, config)).thenReturn(UploadStatus.UPLOADED);
+
+        CompletableFuture<UploadStatus> firstResult = uploader.submit(first, config);
+        CompletableFuture<UploadStatus> supersededResult = uploader.submit(superseded, config);
+        CompletableFuture<UploadStatus> newestResult = uploader.submit(newest, config);
+        assertNotSame(supersededResult, newestResult);
+        assertEquals(UploadStatus.SKIPPED, supersededResult.getNow(null));
+        assertFalse(newestResult.isDone());
+        assertTrue(uploader.isUploading());
+        assertFalse(firstResult.isDone());
+
+        release.countDown();
+
+        assertEquals(UploadStatus.UPLOADED, firstResult.get(5, TimeUnit.SECONDS));
+        assertEquals(UploadStatus.UPLOADED, newestResult.get(5, TimeUnit.SECONDS));
+        verify(connectivityUpdater, never()).updateEndpoints(superseded, config);
+        verify(connectivityUpdater, times(1)).updateEndpoints(newest, config);
+        assertEquals(1, uploader.getSupersededCount());
+    }
+
+    @Test
+    public void GIVEN_hung_upload_WHEN_timeout_elapses_THEN_upload_interrupted_and_retryable() throws Exception {
+        doReturn(100L).when(config).getUploadTimeoutMs();
+        List<Endpoint> hung = addresses(TestConstants.IP_1);
+        List<Endpoint> next = addresses(TestConstants.IPV4_LOOPBACK);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(connectivityUpdater.updateEndpoints(hung, config)).thenAnswer(invocation -> {
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return UploadStatus.UPLOADED;
+        });
+        when(connectivityUpdater.updateEndpoints(next, config)).thenReturn(UploadStatus.UPLOADED);
+
+        CompletableFuture<UploadStatus> hungResult = uploader.submit(hung, config);
+        CompletableFuture<UploadStatus> nextResult = uploader.submit(next, config);
+
+        assertEquals(UploadStatus.RETRYABLE, hungResult.get(5, TimeUnit.SECONDS));
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertEquals(UploadStatus.UPLOADED, nextResult.get(5, TimeUnit.SECONDS));
+        assertEquals(1, uploader.getTimeoutCount());
+    }
+
+    @Test
+    public void GIVEN_timed_out_upload_ignores_interrupt_WHEN_it_returns_THEN_next_upload_starts() throws Exception {
+        doReturn(100L).when(config).getUploadTimeoutMs();
+        List<Endpoint> hung = addresses(TestConstants.IP_1);
+        List<Endpoint> next = addresses(TestConstants.IPV4_LOOPBACK);
+        CountDownLatch release = new CountDownLatch(1);
+        when(connectivityUpdater.updateEndpoints(hung, config)).thenAnswer(invocation -> {
+            // Like a cloud call blocked in I/O, which holds the upload lock until it returns
+            while (release.getCount() > 0) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    // keep waiting
+                }
+            }
+            return UploadStatus.UPLOADED;
+        });
+        when(connectivityUpdater.updateEndpoints(next, config)).thenReturn(UploadStatus.UPLOADED);
+
+        CompletableFuture<UploadStatus> hungResult = uploader.submit(hung, config);
+        CompletableFuture<UploadStatus> nextResult = uploader.submit(next, config);
+
+        assertEquals(UploadStatus.RETRYABLE, hungResult.get(5, TimeUnit.SECONDS));
+        assertTrue(uploader.isUploading());
+        assertFalse(nextResult.isDone());
+        verify(connectivityUpdater, never()).updateEndpoints(next, config);
+
+        release.countDown();
+
+        assertEquals(UploadStatus.UPLOADED, nextResult.get(5, TimeUnit.SECONDS));
+        assertEquals(UploadStatus.RETRYABLE, hungResult.get());
+    }
+
+    @Test
+    public void GIVEN_queued_upload_WHEN_cancel_THEN_results_skipped() throws Exception {
+        List<Endpoint> first = addresses(TestConstants.IP_1);
+        CountDownLatch started = new CountDownLatch(1);
+        when(connectivityUpdater.updateEndpoints(eq(first), any(Config.class))).thenAnswer(invocation -> {
+            started.countDown();
+            Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            return UploadStatus.UPLOADED;
+        });
+
+        CompletableFuture<UploadStatus> firstResult = uploader.submit(first, config);
+        CompletableFuture<UploadStatus> queuedResult = uploader.submit(addresses(TestConstants.IPV6_1), config);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        uploader.cancel();
+
+        assertEquals(UploadStatus.SKIPPED, firstResult.get(5, TimeUnit.SECONDS));
+        assertEquals(UploadStatus.SKIPPED, queuedResult.get(5, TimeUnit.SECONDS));
+        assertFalse(uploader.isUploading());
+        verify(connectivityUpdater, timeout(1000).times(1)).updateEndpoints(any(), any());
+    }
+
+    @Test
+    public void GIVEN_upload_executor_rejects_WHEN_submit_THEN_retryable_and_not_uploading() throws Exception {
+        ExecutorService rejecting = Executors.newSingleThreadExecutor();
+        rejecting.shutdown();
+        uploader = new AsyncConnectivityUploader(connectivityUpdater, timeoutExecutor, rejecting);
+
+        CompletableFuture<UploadStatus> result = uploader.submit(addresses(TestConstants.IP_1), config);
+
+        assertEquals(UploadStatus.RETRYABLE, result.getNow(null));
+        assertFalse(uploader.isUploading());
+        verify(connectivityUpdater, never()).updateEndpoints(any(), any());
+    }
+
+    private static List<Endpoint> addresses(String ip) throws UnknownHostException {
+        return Collections.singletonList(
+                Endpoint.of(InetAddress.getByName(ip), TestConstants.PORT_1, Endpoint.NO_METADATA));
+    }
+}
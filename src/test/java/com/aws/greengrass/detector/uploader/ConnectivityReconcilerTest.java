@@ -0,0 +1,113 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.uploader;
+
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.utils.TestConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith({MockitoExtension.class})
+class ConnectivityReconcilerTest {
+    private static final long INTERVAL_MS = 3_600_000L;
+
+    private final AtomicLong nowMs = new AtomicLong(1_000_000L);
+    @Mock
+    private ConnectivityUpdater connectivityUpdater;
+    @Mock
+    private UploadCoalescer uploadCoalescer;
+    @Mock
+    private Config config;
+    private ConnectivityReconciler reconciler;
+
+    @BeforeEach
+    void beforeEach() {
+        Clock clock = Mockito.mock(Clock.class);
+        Mockito.lenient().when(clock.millis()).thenAnswer(invocation -> nowMs.get());
+        Mockito.lenient().when(config.getReconcileIntervalMs()).thenReturn(INTERVAL_MS);
+        Mockito.lenient().when(connectivityUpdater.reconcile(config)).thenReturn(UploadStatus.UNCHANGED);
+        reconciler = new ConnectivityReconciler(connectivityUpdater, uploadCoalescer, clock);
+    }
+
+    @Test
+    public void GIVEN_unchanged_runs_WHEN_reconcileIfDue_THEN_reconciled_first_and_then_once_per_interval() {
+        assertEquals(UploadStatus.UNCHANGED, reconciler.reconcileIfDue(config, UploadStatus.UNCHANGED));
+        nowMs.addAndGet(INTERVAL_MS - 1);
+        assertEquals(UploadStatus.SKIPPED, reconciler.reconcileIfDue(config, UploadStatus.UNCHANGED));
+        nowMs.addAndGet(1);
+        assertEquals(UploadStatus.UNCHANGED, reconciler.reconcileIfDue(config, UploadStatus.UNCHANGED));
+
+        verify(connectivityUpdater, times(2)).reconcile(config);
+    }
+
+    @Test
+    public void GIVEN_run_uploaded_WHEN_reconcileIfDue_THEN_interval_restarted() {
+        reconciler.reconcileIfDue(config, UploadStatus.UPLOADED);
+        nowMs.addAndGet(INTERVAL_MS / 2);
+        reconciler.reconcileIfDue(config, UploadStatus.UNCHANGED);
+
+        verify(connectivityUpdater, never()).reconcile(any());
+    }
+
+    @Test
+    public void GIVEN_run_pending_or_failed_WHEN_reconcileIfDue_THEN_left_to_a_later_run() {
+        reconciler.reconcileIfDue(config, UploadStatus.DEFERRED);
+        reconciler.reconcileIfDue(config, UploadStatus.FAILED);
+
+        verify(connectivityUpdater, never()).reconcile(any());
+    }
+
+    @Test
+    public void GIVEN_reconciliation_fails_WHEN_reconcileIfDue_THEN_interval_restarted() {
+        Mockito.when(connectivityUpdater.reconcile(config)).thenReturn(UploadStatus.FAILED);
+
+        assertEquals(UploadStatus.FAILED, reconciler.reconcileIfDue(config, UploadStatus.UNCHANGED));
+        assertEquals(UploadStatus.SKIPPED, reconciler.reconcileIfDue(config, UploadStatus.UNCHANGED));
+        nowMs.addAndGet(INTERVAL_MS);
+        Mockito.when(connectivityUpdater.reconcile(config)).thenReturn(UploadStatus.RETRYABLE);
+        assertEquals(UploadStatus.RETRYABLE, reconciler.reconcileIfDue(config, UploadStatus.UNCHANGED));
+        assertEquals(UploadStatus.SKIPPED, reconciler.reconcileIfDue(config, UploadStatus.UNCHANGED));
+
+        verify(connectivityUpdater, times(2)).reconcile(config);
+    }
+
+    @Test
+    public void GIVEN_cloud_edited_elsewhere_WHEN_reconcileIfDue_THEN_last_upload_submitted_to_coalescer() {
+        List<Endpoint> uploaded = Collections.singletonList(
+                Endpoint.ofHostAddress(TestConstants.IP_1, TestConstants.PORT_1, ""));
+        Mockito.when(connectivityUpdater.reconcile(config)).thenReturn(UploadStatus.DEFERRED);
+        Mockito.when(connectivityUpdater.getUploadedEndpoints()).thenReturn(uploaded);
+        Mockito.when(uploadCoalescer.submit(uploaded, config)).thenReturn(UploadStatus.THROTTLED);
+
+        assertEquals(UploadStatus.THROTTLED, reconciler.reconcileIfDue(config, UploadStatus.UNCHANGED));
+
+        verify(connectivityUpdater, never()).updateEndpoints(any(), any());
+    }
+
+    @Test
+    public void GIVEN_reconciliation_disabled_WHEN_reconcileIfDue_THEN_skipped() {
+        Mockito.when(config.getReconcileIntervalMs()).thenReturn(0L);
+
+        assertEquals(UploadStatus.SKIPPED, reconciler.reconcileIfDue(config, UploadStatus.UNCHANGED));
+        verify(connectivityUpdater, never()).reconcile(any());
+    }
+}
@@ -9,6 +9,10 @@ import com.aws.greengrass.config.Topic;
 import com.aws.greengrass.dependency.Context;
 import com.aws.greengrass.deployment.DeviceConfiguration;
 import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.detector.AddressRanker;
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.detector.metrics.DetectorMetrics;
+import com.aws.greengrass.detector.metrics.InMemoryMetricsSink;
 import com.aws.greengrass.util.GreengrassServiceClientFactory;
 import com.aws.greengrass.utils.TestConstants;
 import org.junit.jupiter.api.BeforeEach;
@@ -22,16 +26,22 @@ import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.core.exception.SdkServiceException;
 import software.amazon.awssdk.http.HttpStatusCode;
 import software.amazon.awssdk.services.greengrassv2data.GreengrassV2DataClient;
+import software.amazon.awssdk.services.greengrassv2data.model.ConnectivityInfo;
+import software.amazon.awssdk.services.greengrassv2data.model.GetConnectivityInfoRequest;
+import software.amazon.awssdk.services.greengrassv2data.model.GetConnectivityInfoResponse;
 import software.amazon.awssdk.services.greengrassv2data.model.GreengrassV2DataException;
 import software.amazon.awssdk.services.greengrassv2data.model.UpdateConnectivityInfoRequest;
 import software.amazon.awssdk.services.greengrassv2data.model.UpdateConnectivityInfoResponse;
 
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 import static com.aws.greengrass.deployment.DeviceConfiguration.DEVICE_PARAM_THING_NAME;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -96,7 +106,18 @@ public class ConnectivityUpdaterTest {
         when(greengrassV2DataClient.updateConnectivityInfo(Mockito.any(UpdateConnectivityInfoRequest.class)))
                 .thenThrow(SdkException.builder().cause(sdkClientException).build());
         List<String> ips = Collections.singletonList(TestConstants.IPV4_LOOPBACK);
-        connectivityUpdater.uploadAddresses(ips, Mockito.mock(Config.class));
+        assertEquals(UploadStatus.RETRYABLE, connectivityUpdater.uploadAddresses(ips, Mockito.mock(Config.class)));
+    }
+
+    @Test
+    public void GIVEN_ip_addresses_WHEN_uploadAddresses_server_error_THEN_retryable() {
+        connectivityUpdater = new ConnectivityUpdater(deviceConfiguration, clientFactory);
+        SdkServiceException unavailable = SdkServiceException.builder()
+                .statusCode(HttpStatusCode.SERVICE_UNAVAILABLE).build();
+        when(greengrassV2DataClient.updateConnectivityInfo(Mockito.any(UpdateConnectivityInfoRequest.class)))
+                .thenThrow(unavailable);
+        List<String> ips = Collections.singletonList(TestConstants.IPV4_LOOPBACK);
+        assertEquals(UploadStatus.RETRYABLE, connectivityUpdater.uploadAddresses(ips, Mockito.mock(Config.class)));
     }
 
     @Test
@@ -106,13 +127,27 @@ public class ConnectivityUpdaterTest {
         when(greengrassV2DataClient.updateConnectivityInfo(Mockito.any(UpdateConnectivityInfoRequest.class)))
                 .thenThrow(forbidden);
         List<String> ips = Collections.singletonList(TestConstants.IPV4_LOOPBACK);
-        connectivityUpdater.uploadAddresses(ips, Mockito.mock(Config.class));
+        assertEquals(UploadStatus.FAILED, connectivityUpdater.uploadAddresses(ips, Mockito.mock(Config.class)));
+    }
+
+    @Test
+    public void GIVEN_ip_addresses_WHEN_uploadAddresses_throttled_THEN_throttled_and_still_changed() {
+        connectivityUpdater = new ConnectivityUpdater(deviceConfiguration, clientFactory);
+        SdkServiceException throttled = SdkServiceException.builder().statusCode(HttpStatusCode.THROTTLING)
+                .build();
+        when(greengrassV2DataClient.updateConnectivityInfo(Mockito.any(UpdateConnectivityInfoRequest.class)))
+                .thenThrow(throttled);
+        List<String> ips = Collections.singletonList(TestConstants.IPV4_LOOPBACK);
+        Config config = Mockito.mock(Config.class);
+
+        assertEquals(UploadStatus.THROTTLED, connectivityUpdater.uploadAddresses(ips, config));
+        assertTrue(connectivityUpdater.hasChanged(getEndpoints(TestConstants.PORT_1), config));
     }
 
     @Test
     public void GIVEN_ip_addresses_WHEN_updateIpAddresses_and_null_THEN_update_conn_not_called() {
         connectivityUpdater = new ConnectivityUpdater(deviceConfiguration, clientFactory);
-        connectivityUpdater.updateIpAddresses(null, Mockito.mock(Config.class));
+        connectivityUpdater.updateEndpoints(null, Mockito.mock(Config.class));
         verify(greengrassV2DataClient, times(0))
                 .updateConnectivityInfo(any(UpdateConnectivityInfoRequest.class));
         verify(greengrassV2DataClient, times(0))
@@ -145,6 +180,28 @@ public class ConnectivityUpdaterTest {
         assertTrue(connectivityUpdater.hasIpsChanged(getNewIps()));
     }
 
+    @Test
+    public void GIVEN_duplicate_ips_WHEN_has_ips_changed_THEN_counts_compared() {
+        connectivityUpdater = new ConnectivityUpdater(deviceConfiguration,null);
+        String a = TestConstants.IP_1;
+        String b = TestConstants.IPV4_LOOPBACK;
+
+        connectivityUpdater.setIpAddressesAndPort(Arrays.asList(a, a, b), TestConstants.PORT_1);
+        assertTrue(connectivityUpdater.hasIpsChanged(Arrays.asList(a, b, b)));
+        assertFalse(connectivityUpdater.hasIpsChanged(Arrays.asList(b, a, a)));
+
+        connectivityUpdater.setIpAddressesAndPort(Arrays.asList(a, a), TestConstants.PORT_1);
+        assertTrue(connectivityUpdater.hasIpsChanged(Collections.singletonList(a)));
+    }
+
+    @Test
+    public void GIVEN_ipv6_spelled_differently_WHEN_has_ips_changed_THEN_return_false() {
+        connectivityUpdater = new ConnectivityUpdater(deviceConfiguration,null);
+        connectivityUpdater.setIpAddressesAndPort(Collections.singletonList("fe80::1"), TestConstants.PORT_1);
+
+        assertFalse(connectivityUpdater.hasIpsChanged(Collections.singletonList("fe80:0:0:0:0:0:0:1")));
+    }
+
     @Test
     public void GIVEN_ips_and_port_not_changed_WHEN_has_ips_or_port_changed_THEN_return_false() {
         connectivityUpdater = new ConnectivityUpdater(deviceConfiguration,null);
@@ -160,6 +217,196 @@ public class ConnectivityUpdaterTest {
         assertTrue(connectivityUpdater.hasPortChanged(TestConstants.PORT_2));
     }
 
+    @Test
+    public void GIVEN_restored_state_WHEN_same_ips_uploaded_THEN_update_conn_not_called() {
+        Topic thingNameTopic = Topic.of(context, DEVICE_PARAM_THING_NAME, "testThing");
+        Mockito.doReturn(thingNameTopic).when(deviceConfiguration).getThingName();
+        UploadStateStore stateStore = Mockito.mock(UploadStateStore.class);
+        Mockito.doReturn(Optional.of(new UploadStateStore.UploadState(getEndpoints(TestConstants.PORT_1), "1")))
+                .when(stateStore).load("testThing");
+        Config config = Mockito.mock(Config.class);
+        Mockito.doReturn(TestConstants.PORT_1).when(config).getDefaultPort();
+        connectivityUpdater = new ConnectivityUpdater(deviceConfiguration, clientFactory);
+
+        connectivityUpdater.restoreState(stateStore);
+
+        assertFalse(connectivityUpdater.hasIpsChanged(getIps()));
+        assertFalse(connectivityUpdater.hasPortChanged(TestConstants.PORT_1));
+        assertEquals(UploadStatus.UNCHANGED, connectivityUpdater.uploadAddresses(getIps(), config));
+        verify(greengrassV2DataClient, times(0))
+                .updateConnectivityInfo(any(UpdateConnectivityInfoRequest.class));
+    }
+
+    @Test
+    public void GIVEN_state_store_WHEN_upload_succeeds_THEN_state_saved() {
+        Topic thingNameTopic = Topic.of(context, DEVICE_PARAM_THING_NAME, "testThing");
+        Mockito.doReturn(thingNameTopic).when(deviceConfiguration).getThingName();
+        Mockito.doReturn(UpdateConnectivityInfoResponse.builder().version("2").build())
+                .when(greengrassV2DataClient).updateConnectivityInfo(Mockito.any(UpdateConnectivityInfoRequest.class));
+        UploadStateStore stateStore = Mockito.mock(UploadStateStore.class);
+        Mockito.doReturn(Optional.empty()).when(stateStore).load("testThing");
+        connectivityUpdater = new ConnectivityUpdater(deviceConfiguration, clientFactory);
+        connectivityUpdater.restoreState(stateStore);
+
+        connectivityUpdater.uploadAddresses(getIps(), Mockito.mock(Config.class));
+
+        verify(stateStore, times(1)).save("testThing", getEndpoints(0), "2");
+    }
+
+    @Test
+    public void GIVEN_uploaded_endpoints_WHEN_only_port_of_one_changes_THEN_update_conn_called() {
+        Topic thingNameTopic = Topic.of(context, DEVICE_PARAM_THING_NAME, "testThing");
+        Mockito.doReturn(thingNameTopic).when(deviceConfiguration).getThingName();
+        Mockito.doReturn(UpdateConnectivityInfoResponse.builder().version("1").build())
+                .when(greengrassV2DataClient).updateConnectivityInfo(Mockito.any(UpdateConnectivityInfoRequest.class));
+        Config config = Mockito.mock(Config.class);
+        connectivityUpdater = new ConnectivityUpdater(deviceConfiguration, clientFactory);
+        List<Endpoint> endpoints = getEndpoints(TestConstants.PORT_1);
+        List<Endpoint> movedPort = new ArrayList<>(endpoints);
+        movedPort.set(1, Endpoint.ofHostAddress(TestConstants.IP_1, TestConstants.PORT_2, "segment-b"));
+
+        assertEquals(UploadStatus.UPLOADED, connectivityUpdater.updateEndpoints(endpoints, config));
+        assertEquals(UploadStatus.UNCHANGED, connectivityUpdater.updateEndpoints(getEndpoints(TestConstants.PORT_1),
+                config));
+        assertTrue(connectivityUpdater.hasChanged(movedPort, config));
+        assertEquals(UploadStatus.UPLOADED, connectivityUpdater.updateEndpoints(movedPort, config));
+
+        verify(greengrassV2DataClient, times(2))
+                .updateConnectivityInfo(any(UpdateConnectivityInfoRequest.class));
+    }
+
+    @Test
+    public void GIVEN_metrics_WHEN_uploads_succeed_fail_and_repeat_THEN_outcomes_and_round_trips_recorded() {
+        Topic thingNameTopic = Topic.of(context, DEVICE_PARAM_THING_NAME, "testThing");
+        Mockito.doReturn(thingNameTopic).when(deviceConfiguration).getThingName();
+        when(greengrassV2DataClient.updateConnectivityInfo(Mockito.any(UpdateConnectivityInfoRequest.class)))
+                .thenThrow(SdkServiceException.builder().statusCode(HttpStatusCode.THROTTLING).build())
+                .thenReturn(UpdateConnectivityInfoResponse.builder().version("1").build());
+        InMemoryMetricsSink sink = new InMemoryMetricsSink();
+        Config config = Mockito.mock(Config.class);
+        connectivityUpdater = new ConnectivityUpdater(deviceConfiguration, clientFactory, new DetectorMetrics(sink));
+
+        assertEquals(UploadStatus.THROTTLED, connectivityUpdater.updateEndpoints(getEndpoints(0), config));
+        assertEquals(UploadStatus.UPLOADED, connectivityUpdater.updateEndpoints(getEndpoints(0), config));
+        assertEquals(UploadStatus.UNCHANGED, connectivityUpdater.updateEndpoints(getEndpoints(0), config));
+
+        assertEquals(1, sink.getCount(DetectorMetrics.UPLOADS));
+        assertEquals(1, sink.getCount(DetectorMetrics.UPLOADS_UNCHANGED));
+        assertEquals(1, sink.getCount(DetectorMetrics.UPLOAD_FAILURES));
+        assertEquals(1, sink.getCount(DetectorMetrics.FailureCause.THROTTLED.getMetricName()));
+        assertEquals(2, sink.getTimings(DetectorMetrics.UPLOAD_TIME).size());
+    }
+
+    @Test
+    public void GIVEN_cloud_matches_last_upload_WHEN_reconcile_THEN_unchanged_and_not_uploaded_again() {
+        Topic thingNameTopic = Topic.of(context, DEVICE_PARAM_THING_NAME, "testThing");
+        Mockito.doReturn(thingNameTopic).when(deviceConfiguration).getThingName();
+        Mockito.doReturn(UpdateConnectivityInfoResponse.builder().version("1").build())
+                .when(greengrassV2DataClient).updateConnectivityInfo(Mockito.any(UpdateConnectivityInfoRequest.class));
+        List<Endpoint> endpoints = getEndpoints(TestConstants.PORT_1);
+        List<ConnectivityInfo> reversed = new ArrayList<>(ConnectivityUpdater.toConnectivityInfo(endpoints));
+        Collections.reverse(reversed);
+        Mockito.doReturn(GetConnectivityInfoResponse.builder().connectivityInfo(reversed).build())
+                .when(greengrassV2DataClient).getConnectivityInfo(Mockito.any(GetConnectivityInfoRequest.class));
+        InMemoryMetricsSink sink = new InMemoryMetricsSink();
+        Config config = Mockito.mock(Config.class);
+        connectivityUpdater = new ConnectivityUpdater(deviceConfiguration, clientFactory, new DetectorMetrics(sink));
+
+        assertEquals(UploadStatus.SKIPPED, connectivityUpdater.reconcile(config));
+        connectivityUpdater.updateEndpoints(endpoints, config);
+
+        assertEquals(UploadStatus.UNCHANGED, connectivityUpdater.reconcile(config));
+        assertEquals(UploadStatus.UNCHANGED, connectivityUpdater.reconcile(config));
+        assertEquals(2, sink.getCount(DetectorMetrics.RECONCILIATIONS));
+        assertEquals(0, sink.getCount(DetectorMetrics.RECONCILE_MISMATCHES));
+        verify(greengrassV2DataClient, times(1))
+                .updateConnectivityInfo(any(UpdateConnectivityInfoRequest.class));
+    }
+
+    @Test
+    public void GIVEN_cloud_edited_elsewhere_WHEN_reconcile_THEN_last_upload_to_be_submitted_again() {
+        Topic thingNameTopic = Topic.of(context, DEVICE_PARAM_THING_NAME, "testThing");
+        Mockito.doReturn(thingNameTopic).when(deviceConfiguration).getThingName();
+        Mockito.doReturn(UpdateConnectivityInfoResponse.builder().version("1").build())
+                .when(greengrassV2DataClient).updateConnectivityInfo(Mockito.any(UpdateConnectivityInfoRequest.class));
+        List<Endpoint> endpoints = getEndpoints(TestConstants.PORT_1);
+        List<ConnectivityInfo> edited = ConnectivityUpdater.toConnectivityInfo(
+                Collections.singletonList(Endpoint.ofHostAddress(TestConstants.IP_1, TestConstants.PORT_2, "")));
+        Mockito.doReturn(GetConnectivityInfoResponse.builder().connectivityInfo(edited).build())
+                .when(greengrassV2DataClient).getConnectivityInfo(Mockito.any(GetConnectivityInfoRequest.class));
+        InMemoryMetricsSink sink = new InMemoryMetricsSink();
+        Config config = Mockito.mock(Config.class);
+        connectivityUpdater = new ConnectivityUpdater(deviceConfiguration, clientFactory, new DetectorMetrics(sink));
+        connectivityUpdater.updateEndpoints(endpoints, config);
+
+        assertEquals(UploadStatus.DEFERRED, connectivityUpdater.reconcile(config));
+
+        assertEquals(1, sink.getCount(DetectorMetrics.RECONCILE_MISMATCHES));
+        assertEquals(endpoints, connectivityUpdater.getUploadedEndpoints());
+        assertTrue(connectivityUpdater.hasChanged(endpoints, config));
+        verify(greengrassV2DataClient, times(1))
+                .updateConnectivityInfo(any(UpdateConnectivityInfoRequest.class));
+    }
+
+    @Test
+    public void GIVEN_ranked_addresses_and_cloud_reordered_WHEN_reconcile_THEN_last_upload_to_be_submitted_again() {
+        Topic thingNameTopic = Topic.of(context, DEVICE_PARAM_THING_NAME, "testThing");
+        Mockito.doReturn(thingNameTopic).when(deviceConfiguration).getThingName();
+        Mockito.doReturn(UpdateConnectivityInfoResponse.builder().version("1").build())
+                .when(greengrassV2DataClient).updateConnectivityInfo(Mockito.any(UpdateConnectivityInfoRequest.class));
+        List<Endpoint> endpoints = getEndpoints(TestConstants.PORT_1);
+        List<ConnectivityInfo> reversed = new ArrayList<>(ConnectivityUpdater.toConnectivityInfo(endpoints));
+        Collections.reverse(reversed);
+        Mockito.doReturn(GetConnectivityInfoResponse.builder().connectivityInfo(reversed).build())
+                .when(greengrassV2DataClient).getConnectivityInfo(Mockito.any(GetConnectivityInfoRequest.class));
+        Config config = Mockito.mock(Config.class);
+        Mockito.doReturn(AddressRanker.compile(Collections.singletonList("eth*"), true, false, false, 0))
+                .when(config).getAddressRanker();
+        connectivityUpdater = new ConnectivityUpdater(deviceConfiguration, clientFactory);
+        connectivityUpdater.updateEndpoints(endpoints, config);
+
+        assertEquals(UploadStatus.DEFERRED, connectivityUpdater.reconcile(config));
+        assertTrue(connectivityUpdater.hasChanged(endpoints, config));
+    }
+
+    @Test
+    public void GIVEN_get_connectivity_info_fails_WHEN_reconcile_THEN_failed_and_state_kept() {
+        Topic thingNameTopic = Topic.of(context, DEVICE_PARAM_THING_NAME, "testThing");
+        Mockito.doReturn(thingNameTopic).when(deviceConfiguration).getThingName();
+        Mockito.doReturn(UpdateConnectivityInfoResponse.builder().version("1").build())
+                .when(greengrassV2DataClient).updateConnectivityInfo(Mockito.any(UpdateConnectivityInfoRequest.class));
+        when(greengrassV2DataClient.getConnectivityInfo(Mockito.any(GetConnectivityInfoRequest.class)))
+                .thenThrow(SdkServiceException.builder().statusCode(HttpStatusCode.FORBIDDEN).build());
+        Config config = Mockito.mock(Config.class);
+        connectivityUpdater = new ConnectivityUpdater(deviceConfiguration, clientFactory);
+        List<Endpoint> endpoints = getEndpoints(TestConstants.PORT_1);
+        connectivityUpdater.updateEndpoints(endpoints, config);
+
+        assertEquals(UploadStatus.FAILED, connectivityUpdater.reconcile(config));
+
+        assertFalse(connectivityUpdater.hasChanged(endpoints, config));
+    }
+
+    @Test
+    public void GIVEN_host_on_two_ports_WHEN_toConnectivityInfo_THEN_ids_unique() {
+        List<ConnectivityInfo> connectivityInfo = ConnectivityUpdater.toConnectivityInfo(Arrays.asList(
+                Endpoint.ofHostAddress(TestConstants.IP_1, TestConstants.PORT_1, ""),
+                Endpoint.ofHostAddress(TestConstants.IP_1, TestConstants.PORT_2, ""),
+                Endpoint.ofHostAddress(TestConstants.IPV6_1, TestConstants.PORT_1, "")));
+
+        assertEquals(TestConstants.IP_1 + ":" + TestConstants.PORT_1, connectivityInfo.get(0).id());
+        assertEquals(TestConstants.IP_1 + ":" + TestConstants.PORT_2, connectivityInfo.get(1).id());
+        assertEquals("[" + TestConstants.IPV6_1 + "]:" + TestConstants.PORT_1, connectivityInfo.get(2).id());
+    }
+
+    private List<Endpoint> getEndpoints(int port) {
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (String ip : getIps()) {
+            endpoints.add(Endpoint.ofHostAddress(ip, port, Endpoint.NO_METADATA));
+        }
+        return endpoints;
+    }
+
     private List<String> getIps() {
         List<String> ips = new ArrayList<>();
         ips.add(TestConstants.IPV4_LOOPBACK);
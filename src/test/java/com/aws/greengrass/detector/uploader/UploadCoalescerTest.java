@@ -0,0 +1,376 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.uploader;
+
+import com.aws.greengrass.detector.config.Config;
+import com.aws.greengrass.detector.detector.AddressRanker;
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.utils.TestConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith({MockitoExtension.class})
+class UploadCoalescerTest {
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+    private static final long QUIET_MS = 10_000L;
+    private static final long MAX_DELAY_MS = 30_000L;
+    private static final long REFILL_MS = 10_000L;
+
+    @Mock
+    private ConnectivityUpdater connectivityUpdater;
+    @Mock
+    private AsyncConnectivityUploader asyncUploader;
+    @Mock
+    private ScheduledExecutorService executor;
+    @Mock
+    private Clock clock;
+    @Mock
+    private Config config;
+    @Mock
+    private Random random;
+
+    private UploadCoalescer uploadCoalescer;
+
+    @BeforeEach
+    void beforeEach() {
+        lenient().doReturn(QUIET_MS).when(config).getDebounceQuietPeriodMs();
+        lenient().doReturn(MAX_DELAY_MS).when(config).getDebounceMaxDelayMs();
+        lenient().doReturn(mock(ScheduledFuture.class)).when(executor)
+                .schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        uploadCoalescer = new UploadCoalescer(connectivityUpdater, asyncUploader, executor,
+                new UploadRateLimiter(clock), new UploadRetryBackoff(random), clock);
+    }
+
+    @Test
+    public void GIVEN_no_quiet_period_WHEN_submit_THEN_uploaded_immediately() throws UnknownHostException {
+        doReturn(0L).when(config).getDebounceQuietPeriodMs();
+        List<Endpoint> ips = addresses(TestConstants.IP_1);
+        when(connectivityUpdater.updateEndpoints(ips, config)).thenReturn(UploadStatus.UPLOADED);
+
+        assertEquals(UploadStatus.UPLOADED, uploadCoalescer.submit(ips, config));
+        verify(executor, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void GIVEN_burst_of_changes_WHEN_settled_THEN_only_final_state_uploaded() throws UnknownHostException {
+        List<Endpoint> first = addresses(TestConstants.IP_1);
+        List<Endpoint> last = addresses(TestConstants.IPV4_LOOPBACK);
+        when(connectivityUpdater.hasChanged(any(), eq(config))).thenReturn(true);
+        when(clock.instant()).thenReturn(T0, T0.plusMillis(2_000L));
+        when(connectivityUpdater.updateEndpoints(last, config)).thenReturn(UploadStatus.UPLOADED);
+
+        assertEquals(UploadStatus.DEFERRED, uploadCoalescer.submit(first, config));
+        assertEquals(UploadStatus.DEFERRED, uploadCoalescer.submit(last, config));
+        // resubmitting the pending state does not restart the quiet period
+        assertEquals(UploadStatus.DEFERRED, uploadCoalescer.submit(addresses(TestConstants.IPV4_LOOPBACK),
+                config));
+        verify(executor, times(2)).schedule(any(Runnable.class), eq(QUIET_MS), eq(TimeUnit.MILLISECONDS));
+
+        uploadCoalescer.flush();
+
+        verify(connectivityUpdater, times(1)).updateEndpoints(last, config);
+        verify(connectivityUpdater, never()).updateEndpoints(first, config);
+        assertEquals(1, uploadCoalescer.getSuppressedCount());
+        assertEquals(1, uploadCoalescer.getFlushCount());
+        assertFalse(uploadCoalescer.hasPending());
+    }
+
+    @Test
+    public void GIVEN_changes_keep_coming_WHEN_submit_THEN_max_delay_enforced() throws UnknownHostException {
+        when(connectivityUpdater.hasChanged(any(), eq(config))).thenReturn(true);
+        when(clock.instant()).thenReturn(T0, T0.plusMillis(25_000L));
+
+        uploadCoalescer.submit(addresses(TestConstants.IP_1), config);
+        uploadCoalescer.submit(addresses(TestConstants.IPV4_LOOPBACK), config);
+
+        verify(executor).schedule(any(Runnable.class), eq(5_000L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void GIVEN_change_reverted_WHEN_submit_THEN_pending_upload_dropped() throws UnknownHostException {
+        List<Endpoint> changed = addresses(TestConstants.IP_1);
+        List<Endpoint> original = addresses(TestConstants.IPV4_LOOPBACK);
+        when(connectivityUpdater.hasChanged(changed, config)).thenReturn(true);
+        when(connectivityUpdater.hasChanged(original, config)).thenReturn(false);
+        when(clock.instant()).thenReturn(T0);
+
+        assertEquals(UploadStatus.DEFERRED, uploadCoalescer.submit(changed, config));
+        assertTrue(uploadCoalescer.hasPending());
+        assertEquals(UploadStatus.UNCHANGED, uploadCoalescer.submit(original, config));
+
+        assertFalse(uploadCoalescer.hasPending());
+        assertEquals(1, uploadCoalescer.getSuppressedCount());
+        uploadCoalescer.flush();
+        verify(connectivityUpdater, never()).updateEndpoints(any(), any());
+    }
+
+    @Test
+    public void GIVEN_pending_change_WHEN_duplicate_counts_differ_THEN_new_list_uploaded()
+            throws UnknownHostException {
+        Endpoint a = addresses(TestConstants.IP_1).get(0);
+        Endpoint b = addresses(TestConstants.IPV4_LOOPBACK).get(0);
+        List<Endpoint> first = Arrays.asList(a, a, b);
+        List<Endpoint> last = Arrays.asList(a, b, b);
+        when(connectivityUpdater.hasChanged(any(), eq(config))).thenReturn(true);
+        when(clock.instant()).thenReturn(T0);
+        when(connectivityUpdater.updateEndpoints(last, config)).thenReturn(UploadStatus.UPLOADED);
+
+        assertEquals(UploadStatus.DEFERRED, uploadCoalescer.submit(first, config));
+        assertEquals(UploadStatus.DEFERRED, uploadCoalescer.submit(last, config));
+        uploadCoalescer.flush();
+
+        verify(connectivityUpdater, times(1)).updateEndpoints(last, config);
+        verify(connectivityUpdater, never()).updateEndpoints(first, config);
+    }
+
+    @Test
+    public void GIVEN_ranked_addresses_pending_WHEN_reordered_THEN_new_order_uploaded() throws UnknownHostException {
+        doReturn(AddressRanker.compile(Collections.singletonList("eth*"), true, false, false, 0)).when(config)
+                .getAddressRanker();
+        List<Endpoint> ranked = Arrays.asList(addresses(TestConstants.IP_1).get(0),
+                addresses(TestConstants.IPV4_LOOPBACK).get(0));
+        List<Endpoint> reordered = Arrays.asList(ranked.get(1), ranked.get(0));
+        when(connectivityUpdater.hasChanged(any(), eq(config))).thenReturn(true);
+        when(clock.instant()).thenReturn(T0);
+        when(connectivityUpdater.updateEndpoints(reordered, config)).thenReturn(UploadStatus.UPLOADED);
+
+        assertEquals(UploadStatus.DEFERRED, uploadCoalescer.submit(ranked, config));
+        assertEquals(UploadStatus.DEFERRED, uploadCoalescer.submit(reordered, config));
+        uploadCoalescer.flush();
+
+        verify(connectivityUpdater, times(1)).updateEndpoints(reordered, config);
+        verify(connectivityUpdater, never()).updateEndpoints(ranked, config);
+        assertEquals(1, uploadCoalescer.getSuppressedCount());
+    }
+
+    @Test
+    public void GIVEN_no_token_WHEN_submit_THEN_deferred_and_latest_uploaded_later() throws UnknownHostException {
+        AtomicLong nowMs = rateLimited(1);
+        List<Endpoint> first = addresses(TestConstants.IP_1);
+        List<Endpoint> second = addresses(TestConstants.IPV4_LOOPBACK);
+        List<Endpoint> last = addresses(TestConstants.IPV6_1);
+        when(connectivityUpdater.updateEndpoints(first, config)).thenReturn(UploadStatus.UPLOADED);
+        when(connectivityUpdater.updateEndpoints(last, config)).thenReturn(UploadStatus.UPLOADED);
+        when(connectivityUpdater.hasChanged(any(), eq(config))).thenReturn(true);
+        when(clock.instant()).thenReturn(T0);
+
+        assertEquals(UploadStatus.UPLOADED, uploadCoalescer.submit(first, config));
+        assertEquals(UploadStatus.DEFERRED, uploadCoalescer.submit(second, config));
+        assertEquals(UploadStatus.DEFERRED, uploadCoalescer.submit(last, config));
+        verify(executor).schedule(any(Runnable.class), eq(REFILL_MS), eq(TimeUnit.MILLISECONDS));
+        assertEquals(1, uploadCoalescer.getDeferredCount());
+        assertEquals(1, uploadCoalescer.getSuppressedCount());
+
+        nowMs.addAndGet(REFILL_MS);
+        uploadCoalescer.flush();
+
+        verify(connectivityUpdater, never()).updateEndpoints(second, config);
+        verify(connectivityUpdater).updateEndpoints(last, config);
+        assertFalse(uploadCoalescer.hasPending());
+    }
+
+    @Test
+    public void GIVEN_upload_throttled_WHEN_submit_THEN_retried_after_back_off() throws UnknownHostException {
+        AtomicLong nowMs = rateLimited(5);
+        List<Endpoint> ips = addresses(TestConstants.IP_1);
+        when(connectivityUpdater.updateEndpoints(ips, config))
+                .thenReturn(UploadStatus.THROTTLED, UploadStatus.UPLOADED);
+        when(clock.instant()).thenReturn(T0);
+
+        assertEquals(UploadStatus.DEFERRED, uploadCoalescer.submit(ips, config));
+        verify(executor).schedule(any(Runnable.class), eq(2 * REFILL_MS), eq(TimeUnit.MILLISECONDS));
+        assertEquals(1, uploadCoalescer.getThrottledCount());
+        assertEquals(1, uploadCoalescer.getDeferredCount());
+
+        nowMs.addAndGet(2 * REFILL_MS);
+        uploadCoalescer.flush();
+
+        verify(connectivityUpdater, times(2)).updateEndpoints(ips, config);
+        assertFalse(uploadCoalescer.hasPending());
+    }
+
+    @Test
+    public void GIVEN_transient_failures_WHEN_submit_THEN_newest_endpoints_retried_with_backoff()
+            throws UnknownHostException {
+        retrying(3);
+        List<Endpoint> first = addresses(TestConstants.IP_1);
+        List<Endpoint> last = addresses(TestConstants.IPV4_LOOPBACK);
+        when(connectivityUpdater.updateEndpoints(first, config)).thenReturn(UploadStatus.RETRYABLE);
+        when(connectivityUpdater.updateEndpoints(last, config))
+                .thenReturn(UploadStatus.RETRYABLE, UploadStatus.UPLOADED);
+        when(connectivityUpdater.hasChanged(last, config)).thenReturn(true);
+        when(clock.instant()).thenReturn(T0);
+
+        assertEquals(UploadStatus.DEFERRED, uploadCoalescer.submit(first, config));
+        verify(executor).schedule(any(Runnable.class), eq(500L), eq(TimeUnit.MILLISECONDS));
+        assertEquals(UploadStatus.DEFERRED, uploadCoalescer.submit(last, config));
+
+        uploadCoalescer.flush();
+        verify(executor).schedule(any(Runnable.class), eq(1_000L), eq(TimeUnit.MILLISECONDS));
+        uploadCoalescer.flush();
+
+        verify(connectivityUpdater, times(1)).updateEndpoints(first, config);
+        verify(connectivityUpdater, times(2)).updateEndpoints(last, config);
+        assertEquals(2, uploadCoalescer.getRetryCount());
+        assertFalse(uploadCoalescer.hasPending());
+    }
+
+    @Test
+    public void GIVEN_async_upload_superseded_WHEN_upload_fails_THEN_backoff_advanced_once()
+            throws UnknownHostException {
+        retrying(3);
+        doReturn(true).when(config).isAsyncUpload();
+        List<Endpoint> first = addresses(TestConstants.IP_1);
+        List<Endpoint> superseded = addresses(TestConstants.IPV4_LOOPBACK);
+        CompletableFuture<UploadStatus> firstResult = new CompletableFuture<>();
+        when(connectivityUpdater.hasChanged(any(), eq(config))).thenReturn(true);
+        when(asyncUploader.submit(first, config)).thenReturn(firstResult);
+        when(asyncUploader.submit(superseded, config))
+                .thenReturn(CompletableFuture.completedFuture(UploadStatus.SKIPPED));
+        when(clock.instant()).thenReturn(T0);
+
+        assertEquals(UploadStatus.DEFERRED, uploadCoalescer.submit(first, config));
+        assertEquals(UploadStatus.SKIPPED, uploadCoalescer.submit(superseded, config));
+        firstResult.complete(UploadStatus.RETRYABLE);
+
+        assertEquals(1, uploadCoalescer.getRetryCount());
+        verify(executor, times(1)).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        assertTrue(uploadCoalescer.hasPending());
+    }
+
+    @Test
+    public void GIVEN_retry_backoff_pending_WHEN_change_submitted_with_debounce_THEN_backoff_kept()
+            throws UnknownHostException {
+        AtomicLong nowMs = new AtomicLong(T0.toEpochMilli());
+        when(clock.instant()).thenAnswer(invocation -> Instant.ofEpochMilli(nowMs.get()));
+        doReturn(3).when(config).getUploadRetryMaxAttempts();
+        doReturn(60_000L).when(config).getUploadRetryBaseDelayMs();
+        doReturn(120_000L).when(config).getUploadRetryMaxDelayMs();
+        when(random.nextDouble()).thenReturn(0.5);
+        List<Endpoint> first = addresses(TestConstants.IP_1);
+        List<Endpoint> second = addresses(TestConstants.IPV4_LOOPBACK);
+        when(connectivityUpdater.hasChanged(any(), eq(config))).thenReturn(true);
+        when(connectivityUpdater.updateEndpoints(first, config)).thenReturn(UploadStatus.RETRYABLE);
+
+        assertEquals(UploadStatus.DEFERRED, uploadCoalescer.submit(first, config));
+        uploadCoalescer.flush();
+        verify(executor).schedule(any(Runnable.class), eq(30_000L), eq(TimeUnit.MILLISECONDS));
+
+        nowMs.addAndGet(1_000L);
+        assertEquals(UploadStatus.DEFERRED, uploadCoalescer.submit(second, config));
+
+        // The quiet period alone would flush after 10 s, the retry is only due 29 s from now
+        verify(executor).schedule(any(Runnable.class), eq(29_000L), eq(TimeUnit.MILLISECONDS));
+        verify(executor, times(1)).schedule(any(Runnable.class), eq(QUIET_MS), eq(TimeUnit.MILLISECONDS));
+        assertEquals(1, uploadCoalescer.getSuppressedCount());
+    }
+
+    @Test
+    public void GIVEN_retry_backoff_pending_and_change_reverted_WHEN_change_submitted_THEN_backoff_kept()
+            throws UnknownHostException {
+        retrying(3);
+        AtomicLong nowMs = new AtomicLong(T0.toEpochMilli());
+        when(clock.instant()).thenAnswer(invocation -> Instant.ofEpochMilli(nowMs.get()));
+        List<Endpoint> changed = addresses(TestConstants.IP_1);
+        List<Endpoint> original = addresses(TestConstants.IPV4_LOOPBACK);
+        List<Endpoint> next = addresses(TestConstants.IPV6_1);
+        when(connectivityUpdater.updateEndpoints(changed, config)).thenReturn(UploadStatus.RETRYABLE);
+        when(connectivityUpdater.hasChanged(original, config)).thenReturn(false);
+        when(connectivityUpdater.hasChanged(next, config)).thenReturn(true);
+
+        assertEquals(UploadStatus.DEFERRED, uploadCoalescer.submit(changed, config));
+        assertEquals(UploadStatus.UNCHANGED, uploadCoalescer.submit(original, config));
+        assertFalse(uploadCoalescer.hasPending());
+        nowMs.addAndGet(100L);
+        assertEquals(UploadStatus.DEFERRED, uploadCoalescer.submit(next, config));
+
+        verify(executor).schedule(any(Runnable.class), eq(400L), eq(TimeUnit.MILLISECONDS));
+        verify(connectivityUpdater, never()).updateEndpoints(next, config);
+    }
+
+    @Test
+    public void GIVEN_retries_used_up_WHEN_flush_THEN_failed() throws UnknownHostException {
+        retrying(1);
+        List<Endpoint> ips = addresses(TestConstants.IP_1);
+        when(connectivityUpdater.updateEndpoints(ips, config)).thenReturn(UploadStatus.RETRYABLE);
+        when(clock.instant()).thenReturn(T0);
+
+        assertEquals(UploadStatus.DEFERRED, uploadCoalescer.submit(ips, config));
+        uploadCoalescer.flush();
+
+        verify(connectivityUpdater, times(2)).updateEndpoints(ips, config);
+        assertEquals(1, uploadCoalescer.getRetryCount());
+        assertFalse(uploadCoalescer.hasPending());
+    }
+
+    @Test
+    public void GIVEN_retry_pending_WHEN_cancel_THEN_not_retried() throws UnknownHostException {
+        retrying(3);
+        List<Endpoint> ips = addresses(TestConstants.IP_1);
+        when(connectivityUpdater.updateEndpoints(ips, config)).thenReturn(UploadStatus.RETRYABLE);
+        when(clock.instant()).thenReturn(T0);
+
+        assertEquals(UploadStatus.DEFERRED, uploadCoalescer.submit(ips, config));
+        uploadCoalescer.cancel();
+        uploadCoalescer.flush();
+
+        verify(connectivityUpdater, times(1)).updateEndpoints(ips, config);
+        assertFalse(uploadCoalescer.hasPending());
+    }
+
+    private void retrying(int maxAttempts) {
+        doReturn(0L).when(config).getDebounceQuietPeriodMs();
+        doReturn(maxAttempts).when(config).getUploadRetryMaxAttempts();
+        lenient().doReturn(1_000L).when(config).getUploadRetryBaseDelayMs();
+        lenient().doReturn(30_000L).when(config).getUploadRetryMaxDelayMs();
+        lenient().when(random.nextDouble()).thenReturn(0.5);
+    }
+
+    private AtomicLong rateLimited(int burst) {
+        AtomicLong nowMs = new AtomicLong(T0.toEpochMilli());
+        doReturn(0L).when(config).getDebounceQuietPeriodMs();
+        doReturn(burst).when(config).getUploadBurst();
+        doReturn(REFILL_MS).when(config).getUploadRefillIntervalMs();
+        when(clock.millis()).thenAnswer(invocation -> nowMs.get());
+        return nowMs;
+    }
+
+    private static List<Endpoint> addresses(String ip) throws UnknownHostException {
+        return Collections.singletonList(
+                Endpoint.of(InetAddress.getByName(ip), TestConstants.PORT_1, Endpoint.NO_METADATA));
+    }
+}
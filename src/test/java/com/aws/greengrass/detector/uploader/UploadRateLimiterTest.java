@@ -0,0 +1,85 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.uploader;
+
+import com.aws.greengrass.detector.config.Config;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UploadRateLimiterTest {
+    private static final long REFILL_MS = 10_000L;
+
+    private final AtomicLong nowMs = new AtomicLong(1_000_000L);
+    private Config config;
+    private UploadRateLimiter rateLimiter;
+
+    @BeforeEach
+    void beforeEach() {
+        Clock clock = Mockito.mock(Clock.class);
+        Mockito.when(clock.millis()).thenAnswer(invocation -> nowMs.get());
+        config = Mockito.mock(Config.class);
+        Mockito.when(config.getUploadBurst()).thenReturn(2);
+        Mockito.when(config.getUploadRefillIntervalMs()).thenReturn(REFILL_MS);
+        rateLimiter = new UploadRateLimiter(clock);
+    }
+
+    @Test
+    public void GIVEN_full_bucket_WHEN_burst_used_THEN_wait_until_refill() {
+        assertEquals(0L, rateLimiter.tryAcquire(config));
+        assertEquals(0L, rateLimiter.tryAcquire(config));
+        assertEquals(REFILL_MS, rateLimiter.tryAcquire(config));
+
+        nowMs.addAndGet(4_000L);
+        assertEquals(6_000L, rateLimiter.tryAcquire(config));
+
+        nowMs.addAndGet(6_000L);
+        assertEquals(0L, rateLimiter.tryAcquire(config));
+        assertEquals(REFILL_MS, rateLimiter.tryAcquire(config));
+    }
+
+    @Test
+    public void GIVEN_unused_token_WHEN_release_THEN_token_available_again() {
+        rateLimiter.tryAcquire(config);
+        rateLimiter.tryAcquire(config);
+
+        rateLimiter.release();
+
+        assertEquals(0L, rateLimiter.tryAcquire(config));
+    }
+
+    @Test
+    public void GIVEN_throttled_uploads_WHEN_onThrottled_THEN_refill_slowed_until_uploads_succeed() {
+        rateLimiter.tryAcquire(config);
+
+        assertEquals(2 * REFILL_MS, rateLimiter.onThrottled(config));
+        assertEquals(4 * REFILL_MS, rateLimiter.onThrottled(config));
+        assertEquals(4 * REFILL_MS, rateLimiter.tryAcquire(config));
+        assertEquals(2, rateLimiter.getThrottledCount());
+
+        for (int i = 0; i < 10; i++) {
+            rateLimiter.onThrottled(config);
+        }
+        assertEquals(UploadRateLimiter.MAX_PENALTY, rateLimiter.getPenalty());
+
+        rateLimiter.onSuccess();
+        assertEquals(UploadRateLimiter.MAX_PENALTY / 2, rateLimiter.getPenalty());
+    }
+
+    @Test
+    public void GIVEN_no_burst_WHEN_tryAcquire_THEN_never_limited() {
+        Mockito.when(config.getUploadBurst()).thenReturn(0);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0L, rateLimiter.tryAcquire(config));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.uploader;
+
+import com.aws.greengrass.detector.config.Config;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UploadRetryBackoffTest {
+    private Config config;
+    private Random random;
+    private UploadRetryBackoff retryBackoff;
+
+    @BeforeEach
+    void beforeEach() {
+        config = Mockito.mock(Config.class);
+        Mockito.when(config.getUploadRetryMaxAttempts()).thenReturn(8);
+        Mockito.when(config.getUploadRetryBaseDelayMs()).thenReturn(1_000L);
+        Mockito.when(config.getUploadRetryMaxDelayMs()).thenReturn(10_000L);
+        random = Mockito.mock(Random.class);
+        Mockito.when(random.nextDouble()).thenReturn(0.5);
+        retryBackoff = new UploadRetryBackoff(random);
+    }
+
+    @Test
+    public void GIVEN_failures_WHEN_nextDelayMs_THEN_exponential_and_capped() {
+        assertEquals(500L, retryBackoff.nextDelayMs(config));
+        assertEquals(1_000L, retryBackoff.nextDelayMs(config));
+        assertEquals(2_000L, retryBackoff.nextDelayMs(config));
+        assertEquals(4_000L, retryBackoff.nextDelayMs(config));
+        assertEquals(5_000L, retryBackoff.nextDelayMs(config));
+        assertEquals(5_000L, retryBackoff.nextDelayMs(config));
+        assertEquals(6, retryBackoff.getRetryCount());
+    }
+
+    @Test
+    public void GIVEN_random_WHEN_nextDelayMs_THEN_full_jitter_applied() {
+        Mockito.when(random.nextDouble()).thenReturn(0.0, 0.999);
+
+        assertEquals(0L, retryBackoff.nextDelayMs(config));
+        assertEquals(1_998L, retryBackoff.nextDelayMs(config));
+    }
+
+    @Test
+    public void GIVEN_attempts_used_up_WHEN_nextDelayMs_THEN_no_retry_and_start_over() {
+        for (int i = 0; i < 8; i++) {
+            retryBackoff.nextDelayMs(config);
+        }
+
+        assertEquals(UploadRetryBackoff.NO_RETRY, retryBackoff.nextDelayMs(config));
+        assertEquals(500L, retryBackoff.nextDelayMs(config));
+    }
+
+    @Test
+    public void GIVEN_success_WHEN_reset_THEN_delay_starts_over() {
+        retryBackoff.nextDelayMs(config);
+        retryBackoff.nextDelayMs(config);
+
+        retryBackoff.reset();
+
+        assertEquals(0, retryBackoff.getAttempts());
+        assertEquals(500L, retryBackoff.nextDelayMs(config));
+    }
+
+    @Test
+    public void GIVEN_retries_disabled_WHEN_nextDelayMs_THEN_no_retry() {
+        Mockito.when(config.getUploadRetryMaxAttempts()).thenReturn(0);
+
+        assertEquals(UploadRetryBackoff.NO_RETRY, retryBackoff.nextDelayMs(config));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.uploader;
+
+import com.aws.greengrass.config.Topics;
+import com.aws.greengrass.dependency.Context;
+import com.aws.greengrass.detector.detector.Endpoint;
+import com.aws.greengrass.utils.TestConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadStateStoreTest {
+    private static final String THING_NAME = "testThing";
+
+    private Context context;
+    private Topics runtimeTopics;
+    private UploadStateStore store;
+
+    @BeforeEach
+    void beforeEach() {
+        context = new Context();
+        runtimeTopics = Topics.of(context, "runtime", null);
+        store = new UploadStateStore(runtimeTopics);
+    }
+
+    @AfterEach
+    void afterEach() throws IOException {
+        context.close();
+    }
+
+    @Test
+    public void GIVEN_saved_state_WHEN_load_THEN_state_restored() {
+        List<Endpoint> endpoints = Arrays.asList(
+                Endpoint.ofHostAddress(TestConstants.IPV4_LOOPBACK, TestConstants.PORT_1, Endpoint.NO_METADATA),
+                Endpoint.ofHostAddress(TestConstants.IP_1, TestConstants.PORT_2, "segment-b, rack|3"));
+        store.save(THING_NAME, endpoints, "3");
+
+        Optional<UploadStateStore.UploadState> state = store.load(THING_NAME);
+
+        assertTrue(state.isPresent());
+        assertEquals(endpoints, state.get().getEndpoints());
+        assertEquals("3", state.get().getVersion());
+    }
+
+    @Test
+    public void GIVEN_no_saved_state_WHEN_load_THEN_empty() {
+        assertFalse(store.load(THING_NAME).isPresent());
+    }
+
+    @Test
+    public void GIVEN_state_for_other_thing_WHEN_load_THEN_empty() {
+        store.save("otherThing", endpoints(TestConstants.IP_1), "1");
+
+        assertFalse(store.load(THING_NAME).isPresent());
+    }
+
+    @Test
+    public void GIVEN_corrupted_state_WHEN_load_THEN_empty() {
+        store.save(THING_NAME, endpoints(TestConstants.IP_1), "1");
+        runtimeTopics.lookupTopics(UploadStateStore.LAST_UPLOADED_TOPICS)
+                .lookup(UploadStateStore.ENDPOINTS_KEY).withValue(TestConstants.IPV4_LOOPBACK + "|1|");
+
+        assertFalse(store.load(THING_NAME).isPresent());
+    }
+
+    @Test
+    public void GIVEN_malformed_endpoints_WHEN_load_THEN_empty() {
+        store.save(THING_NAME, endpoints(TestConstants.IP_1), "1");
+        Topics lastUploaded = runtimeTopics.lookupTopics(UploadStateStore.LAST_UPLOADED_TOPICS);
+        String malformed = TestConstants.IP_1 + "|notAPort|";
+        lastUploaded.lookup(UploadStateStore.ENDPOINTS_KEY).withValue(malformed);
+        lastUploaded.lookup(UploadStateStore.CHECKSUM_KEY)
+                .withValue(UploadStateStore.checksum(THING_NAME, malformed, "1"));
+
+        assertFalse(store.load(THING_NAME).isPresent());
+    }
+
+    private static List<Endpoint> endpoints(String ip) {
+        return Arrays.asList(Endpoint.ofHostAddress(ip, TestConstants.PORT_1, Endpoint.NO_METADATA));
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.detector.uploader;
+
+import com.aws.greengrass.detector.executor.VirtualTimeScheduler;
+
+import java.util.Random;
+
+/**
+ * Upload coalescer whose debounce, rate limit and retry delays run on virtual time, for replaying recorded
+ * interface traces.
+ */
+public class VirtualTimeUploadCoalescer extends UploadCoalescer {
+
+    /**
+     * Constructor.
+     *
+     * @param connectivityUpdater client to update connectivity information
+     * @param asyncUploader       uploader used when uploads run off the detection thread
+     * @param scheduler           virtual time scheduler, delayed uploads run on it
+     * @param seed                seed of the retry jitter
+     */
+    public VirtualTimeUploadCoalescer(ConnectivityUpdater connectivityUpdater,
+                                      AsyncConnectivityUploader asyncUploader, VirtualTimeScheduler scheduler,
+                                      long seed) {
+        super(connectivityUpdater, asyncUploader, scheduler, new UploadRateLimiter(scheduler.getClock()),
+                new UploadRetryBackoff(new Random(seed)), scheduler.getClock());
+    }
+}
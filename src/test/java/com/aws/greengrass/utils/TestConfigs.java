@@ -0,0 +1,52 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.aws.greengrass.utils;
+
+import com.aws.greengrass.config.ChildChanged;
+import com.aws.greengrass.config.Topic;
+import com.aws.greengrass.config.Topics;
+import com.aws.greengrass.dependency.Context;
+import com.aws.greengrass.detector.config.Config;
+import org.mockito.Mockito;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public final class TestConfigs {
+
+    private TestConfigs() {}
+
+    /**
+     * Build a configuration from configuration values, the way the service reads it from its configuration
+     * topics. Keys not in the map use the defaults of the component. Values may be strings, as when they come
+     * from the command line.
+     *
+     * @param values configuration values by key, lists such as {@code excludeInterfaces} included
+     * @return configuration
+     */
+    public static Config of(Map<String, Object> values) {
+        Map<String, Object> copy = new HashMap<>(values);
+        Context context = Mockito.mock(Context.class, Mockito.withSettings().stubOnly());
+        Topics topics = Mockito.mock(Topics.class, Mockito.withSettings().stubOnly().defaultAnswer(invocation -> {
+            Object[] arguments = invocation.getArguments();
+            switch (invocation.getMethod().getName()) {
+                case "lookupTopics":
+                    return invocation.getMock();
+                case "subscribe":
+                    ((ChildChanged) arguments[0]).childChanged(null, null);
+                    return invocation.getMock();
+                case "findOrDefault":
+                    return copy.getOrDefault(arguments[arguments.length - 1], arguments[0]);
+                case "find":
+                    String key = (String) arguments[arguments.length - 1];
+                    return copy.containsKey(key) ? Topic.of(context, key, copy.get(key)) : null;
+                default:
+                    return Mockito.RETURNS_DEFAULTS.answer(invocation);
+            }
+        }));
+        return new Config(topics);
+    }
+}